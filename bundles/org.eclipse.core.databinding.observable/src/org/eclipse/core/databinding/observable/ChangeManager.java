@@ -110,6 +110,14 @@ import org.eclipse.core.runtime.ListenerList;
 	}
 
 	protected void fireEvent(ObservableEvent event) {
+		if (realm.isBatching() && EventBatch.isDeferrable(event)) {
+			realm.deferEvent(this, event);
+		} else {
+			dispatchEvent(event);
+		}
+	}
+
+	/* package */void dispatchEvent(ObservableEvent event) {
 		Object listenerType = event.getListenerType();
 		int listenerTypeIndex = findListenerTypeIndex(listenerType);
 		if (listenerTypeIndex != -1) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,9 +25,12 @@ import java.util.Set;
 
 import org.eclipse.core.databinding.observable.list.ListDiff;
 import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
 import org.eclipse.core.databinding.observable.map.MapDiff;
 import org.eclipse.core.databinding.observable.set.SetDiff;
 import org.eclipse.core.databinding.observable.value.ValueDiff;
+import org.eclipse.core.internal.databinding.observable.LinearListDiff;
+import org.eclipse.core.internal.databinding.observable.ListDifferenceAnalyzer;
 import org.eclipse.core.internal.databinding.observable.Util;
 
 /**
@@ -35,6 +38,13 @@ import org.eclipse.core.internal.databinding.observable.Util;
  *
  */
 public class Diffs {
+
+	/**
+	 * Lists whose combined size does not exceed this value are diffed with
+	 * {@link ListDifferenceAnalyzer}, larger lists with {@link LinearListDiff}.
+	 */
+	private static final int SMALL_LIST_DIFF_SIZE = 100;
+
 	private static final class UnmodifiableListDiff<E> extends ListDiff<E> {
 		private ListDiff<? extends E> toWrap;
 
@@ -227,8 +237,43 @@ public class Diffs {
 	 * @since 1.6
 	 */
 	public static <E> ListDiff<E> computeListDiff(List<? extends E> oldList, List<? extends E> newList) {
+		return computeListDiff(oldList, newList, true);
+	}
+
+	/**
+	 * Returns a {@link ListDiff} describing the change between the specified
+	 * old and new list states.
+	 * <p>
+	 * The differences of large lists are computed in O(N log N) time by
+	 * matching equal elements through their hash code, so elements must
+	 * implement {@link Object#hashCode()} consistently with
+	 * {@link Object#equals(Object)}.
+	 * </p>
+	 *
+	 * @param <E>
+	 *            the list element type
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @param detectMoves
+	 *            <code>true</code> to report elements present in both lists
+	 *            at different positions as a removal immediately followed by
+	 *            an addition, which {@link ListDiff#accept(ListDiffVisitor)}
+	 *            reports as a move; <code>false</code> to report all removals
+	 *            before all additions
+	 * @return the differences between oldList and newList
+	 * @since 1.6
+	 */
+	public static <E> ListDiff<E> computeListDiff(List<? extends E> oldList, List<? extends E> newList,
+			boolean detectMoves) {
 		List<ListDiffEntry<E>> diffEntries = new ArrayList<>();
-		createListDiffs(new ArrayList<E>(oldList), newList, diffEntries);
+		if (detectMoves && oldList.size() + newList.size() <= SMALL_LIST_DIFF_SIZE) {
+			ListDifferenceAnalyzer.computeDifferences(oldList, newList, diffEntries);
+		} else {
+			LinearListDiff.computeDifferences(oldList, newList, detectMoves, diffEntries);
+		}
 		ListDiff<E> listDiff = createListDiff(diffEntries);
 		return listDiff;
 	}
@@ -263,98 +308,6 @@ public class Diffs {
 		};
 	}
 
-	/**
-	 * adapted from EMF's ListDifferenceAnalyzer
-	 */
-	private static <E> void createListDiffs(List<E> oldList, List<? extends E> newList,
-			List<ListDiffEntry<E>> listDiffs) {
-		int index = 0;
-		for (E newValue : newList) {
-			if (oldList.size() <= index) {
-				// append newValue to newList
-				listDiffs.add(createListDiffEntry(index, true, newValue));
-			} else {
-				boolean done;
-				do {
-					done = true;
-					E oldValue = oldList.get(index);
-					if (oldValue == null ? newValue != null : !oldValue
-							.equals(newValue)) {
-						int oldIndexOfNewValue = listIndexOf(oldList, newValue,
-								index);
-						if (oldIndexOfNewValue != -1) {
-							int newIndexOfOldValue = listIndexOf(newList,
-									oldValue, index);
-							if (newIndexOfOldValue == -1) {
-								// removing oldValue from list[index]
-								listDiffs.add(createListDiffEntry(index, false,
-										oldValue));
-								oldList.remove(index);
-								done = false;
-							} else if (newIndexOfOldValue > oldIndexOfNewValue) {
-								// moving oldValue from list[index] to
-								// [newIndexOfOldValue]
-								if (oldList.size() <= newIndexOfOldValue) {
-									// The element cannot be moved to the
-									// correct index
-									// now, however later iterations will insert
-									// elements
-									// in front of it, eventually moving it into
-									// the
-									// correct spot.
-									newIndexOfOldValue = oldList.size() - 1;
-								}
-								listDiffs.add(createListDiffEntry(index, false,
-										oldValue));
-								oldList.remove(index);
-								listDiffs.add(createListDiffEntry(
-										newIndexOfOldValue, true, oldValue));
-								oldList.add(newIndexOfOldValue, oldValue);
-								done = false;
-							} else {
-								// move newValue from list[oldIndexOfNewValue]
-								// to [index]
-								listDiffs.add(createListDiffEntry(
-										oldIndexOfNewValue, false, newValue));
-								oldList.remove(oldIndexOfNewValue);
-								listDiffs.add(createListDiffEntry(index, true,
-										newValue));
-								oldList.add(index, newValue);
-							}
-						} else {
-							// add newValue at list[index]
-							oldList.add(index, newValue);
-							listDiffs.add(createListDiffEntry(index, true,
-									newValue));
-						}
-					}
-				} while (!done);
-			}
-			++index;
-		}
-		for (int i = oldList.size(); i > index;) {
-			// remove excess trailing elements not present in newList
-			listDiffs.add(createListDiffEntry(--i, false, oldList.get(i)));
-		}
-	}
-
-	/**
-	 * @param list
-	 * @param object
-	 * @param index
-	 * @return the index, or -1 if not found
-	 */
-	private static <E> int listIndexOf(List<E> list, Object object, int index) {
-		int size = list.size();
-		for (int i = index; i < size; i++) {
-			Object candidate = list.get(i);
-			if (candidate == null ? object == null : candidate.equals(object)) {
-				return i;
-			}
-		}
-		return -1;
-	}
-
 	/**
 	 * Checks whether the two objects are <code>null</code> -- allowing for
 	 * <code>null</code>.
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.databinding.observable.list.ListChangeEvent;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.map.MapChangeEvent;
+import org.eclipse.core.databinding.observable.map.MapDiff;
+import org.eclipse.core.databinding.observable.set.SetChangeEvent;
+import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
+import org.eclipse.core.databinding.observable.value.ValueChangingEvent;
+
+/**
+ * Events deferred while a {@link Realm} batch is in progress.
+ * <p>
+ * Events are kept per observable, in the order the observables first fired.
+ * When the batch is committed the events of each observable are merged: value
+ * diffs are collapsed to the first old value and the last new value, list
+ * diffs are concatenated, set and map diffs are reduced to their net effect,
+ * and change and stale events are fired only once. Events whose merged diff is
+ * empty are not fired, nor is the change event of an observable whose diffs
+ * all merged to empty.
+ * </p>
+ */
+/* package */class EventBatch {
+
+	// Keyed by identity since observable collections compare by contents
+	private final Map<ChangeManager, List<ObservableEvent>> events = new IdentityHashMap<>();
+
+	private final List<ChangeManager> managers = new ArrayList<>();
+
+	/**
+	 * Returns whether the given event may be deferred until the end of a
+	 * batch. Vetoable and dispose events must be delivered immediately.
+	 *
+	 * @param event
+	 * @return <code>true</code> if the event may be deferred
+	 */
+	static boolean isDeferrable(ObservableEvent event) {
+		return !(event instanceof ValueChangingEvent) && !(event instanceof DisposeEvent);
+	}
+
+	/**
+	 * @param manager
+	 *            the change manager firing the event
+	 * @param event
+	 */
+	void add(ChangeManager manager, ObservableEvent event) {
+		List<ObservableEvent> pending = events.get(manager);
+		if (pending == null) {
+			pending = new ArrayList<>(2);
+			events.put(manager, pending);
+			managers.add(manager);
+		}
+		pending.add(event);
+	}
+
+	/**
+	 * @return <code>true</code> if no event was deferred
+	 */
+	boolean isEmpty() {
+		return events.isEmpty();
+	}
+
+	/**
+	 * Fires the merged events.
+	 */
+	void fire() {
+		for (ChangeManager manager : managers) {
+			for (ObservableEvent event : merge(events.get(manager))) {
+				manager.dispatchEvent(event);
+			}
+		}
+	}
+
+	private static List<ObservableEvent> merge(List<ObservableEvent> pending) {
+		if (pending.size() == 1) {
+			return pending;
+		}
+		// Events of the same kind, in the order each kind was first fired
+		Map<Class<?>, List<ObservableEvent>> eventsByKind = new LinkedHashMap<>();
+		List<ObservableEvent> result = new ArrayList<>();
+		boolean diffs = false;
+		boolean emptyDiffs = true;
+		for (ObservableEvent event : pending) {
+			List<ObservableEvent> sameKind = eventsByKind.get(event.getClass());
+			if (sameKind == null) {
+				sameKind = new ArrayList<>(2);
+				eventsByKind.put(event.getClass(), sameKind);
+			}
+			sameKind.add(event);
+		}
+		for (List<ObservableEvent> sameKind : eventsByKind.values()) {
+			ObservableEvent first = sameKind.get(0);
+			ObservableEvent merged;
+			if (sameKind.size() == 1 || first instanceof ChangeEvent || first instanceof StaleEvent) {
+				result.add(first);
+				continue;
+			} else if (first instanceof ValueChangeEvent) {
+				merged = mergeValueEvents(sameKind);
+			} else if (first instanceof ListChangeEvent) {
+				merged = mergeListEvents(sameKind);
+			} else if (first instanceof SetChangeEvent) {
+				merged = mergeSetEvents(sameKind);
+			} else if (first instanceof MapChangeEvent) {
+				merged = mergeMapEvents(sameKind);
+			} else {
+				result.addAll(sameKind);
+				continue;
+			}
+			diffs = true;
+			if (merged != null) {
+				emptyDiffs = false;
+				result.add(merged);
+			}
+		}
+		if (diffs && emptyDiffs) {
+			// Nothing changed in the end, so neither did the observable
+			for (int i = result.size() - 1; i >= 0; i--) {
+				if (result.get(i) instanceof ChangeEvent) {
+					result.remove(i);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the second entry undoes the first one, such as an
+	 * element added and removed again at the same position.
+	 */
+	private static boolean cancels(ListDiffEntry<Object> previous, ListDiffEntry<Object> next) {
+		return previous.isAddition() != next.isAddition() && previous.getPosition() == next.getPosition()
+				&& Diffs.equals(previous.getElement(), next.getElement());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ObservableEvent mergeValueEvents(List<ObservableEvent> sameKind) {
+		ValueChangeEvent<Object> first = (ValueChangeEvent<Object>) sameKind.get(0);
+		ValueChangeEvent<Object> last = (ValueChangeEvent<Object>) sameKind.get(sameKind.size() - 1);
+		if (Diffs.equals(first.diff.getOldValue(), last.diff.getNewValue())) {
+			return null;
+		}
+		return new ValueChangeEvent(first.getObservableValue(),
+				Diffs.createValueDiff(first.diff.getOldValue(), last.diff.getNewValue()));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ObservableEvent mergeListEvents(List<ObservableEvent> sameKind) {
+		List<ListDiffEntry<Object>> differences = new ArrayList<>();
+		for (ObservableEvent event : sameKind) {
+			ListChangeEvent<Object> listEvent = (ListChangeEvent<Object>) event;
+			for (ListDiffEntry<Object> difference : listEvent.diff.getDifferences()) {
+				int last = differences.size() - 1;
+				if (last >= 0 && cancels(differences.get(last), difference)) {
+					differences.remove(last);
+				} else {
+					differences.add(difference);
+				}
+			}
+		}
+		if (differences.isEmpty()) {
+			return null;
+		}
+		ListChangeEvent<Object> first = (ListChangeEvent<Object>) sameKind.get(0);
+		return new ListChangeEvent(first.getObservableList(), Diffs.createListDiff(differences));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ObservableEvent mergeSetEvents(List<ObservableEvent> sameKind) {
+		Set<Object> additions = new LinkedHashSet<>();
+		Set<Object> removals = new LinkedHashSet<>();
+		for (ObservableEvent event : sameKind) {
+			SetChangeEvent<Object> setEvent = (SetChangeEvent<Object>) event;
+			for (Object element : setEvent.diff.getRemovals()) {
+				if (!additions.remove(element)) {
+					removals.add(element);
+				}
+			}
+			for (Object element : setEvent.diff.getAdditions()) {
+				if (!removals.remove(element)) {
+					additions.add(element);
+				}
+			}
+		}
+		if (additions.isEmpty() && removals.isEmpty()) {
+			return null;
+		}
+		SetChangeEvent<Object> first = (SetChangeEvent<Object>) sameKind.get(0);
+		return new SetChangeEvent(first.getObservableSet(), Diffs.createSetDiff(additions, removals));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ObservableEvent mergeMapEvents(List<ObservableEvent> sameKind) {
+		// Entries present before the batch and at the end of the batch
+		Map<Object, Object> oldEntries = new HashMap<>();
+		Map<Object, Object> newEntries = new HashMap<>();
+		Set<Object> keys = new LinkedHashSet<>();
+		for (ObservableEvent event : sameKind) {
+			MapDiff<Object, Object> diff = ((MapChangeEvent<Object, Object>) event).diff;
+			for (Object key : diff.getRemovedKeys()) {
+				if (keys.add(key)) {
+					oldEntries.put(key, diff.getOldValue(key));
+				}
+				newEntries.remove(key);
+			}
+			for (Object key : diff.getChangedKeys()) {
+				if (keys.add(key)) {
+					oldEntries.put(key, diff.getOldValue(key));
+				}
+				newEntries.put(key, diff.getNewValue(key));
+			}
+			for (Object key : diff.getAddedKeys()) {
+				keys.add(key);
+				newEntries.put(key, diff.getNewValue(key));
+			}
+		}
+
+		Set<Object> addedKeys = new LinkedHashSet<>();
+		Set<Object> removedKeys = new LinkedHashSet<>();
+		Set<Object> changedKeys = new LinkedHashSet<>();
+		for (Object key : keys) {
+			boolean existed = oldEntries.containsKey(key);
+			boolean exists = newEntries.containsKey(key);
+			if (existed && exists) {
+				if (!Diffs.equals(oldEntries.get(key), newEntries.get(key))) {
+					changedKeys.add(key);
+				}
+			} else if (existed) {
+				removedKeys.add(key);
+			} else if (exists) {
+				addedKeys.add(key);
+			}
+		}
+		if (addedKeys.isEmpty() && removedKeys.isEmpty() && changedKeys.isEmpty()) {
+			return null;
+		}
+		MapChangeEvent<Object, Object> first = (MapChangeEvent<Object, Object>) sameKind.get(0);
+		return new MapChangeEvent(first.getObservableMap(),
+				Diffs.createMapDiff(addedKeys, removedKeys, changedKeys, oldEntries, newEntries));
+	}
+}
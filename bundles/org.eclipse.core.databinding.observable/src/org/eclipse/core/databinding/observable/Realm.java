@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ package org.eclipse.core.databinding.observable;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import org.eclipse.core.databinding.observable.value.ValueChangingEvent;
 import org.eclipse.core.databinding.util.Policy;
 import org.eclipse.core.internal.databinding.observable.Queue;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -121,6 +122,10 @@ public abstract class Realm {
 
 	Queue workQueue = new Queue();
 
+	private int batchDepth;
+
+	private EventBatch batch;
+
 	/**
 	 * Runs the given runnable. If an exception occurs within the runnable, it
 	 * is logged and not re-thrown. If the runnable implements
@@ -321,6 +326,93 @@ public abstract class Realm {
 		}
 	}
 
+	/**
+	 * Starts a batch of changes. Until the matching call to
+	 * {@link #commitBatch()}, change events fired by observables of this realm
+	 * are deferred. When the outermost batch is committed, the deferred events
+	 * of each observable are merged into a single event per kind, so that
+	 * listeners such as computed values and side-effects run once for the
+	 * whole batch instead of once per change.
+	 * <p>
+	 * Batches may be nested. Vetoable {@link ValueChangingEvent}s and
+	 * {@link DisposeEvent}s are never deferred. This method must be called from
+	 * within this realm, and every call must be matched by a call to
+	 * {@link #commitBatch()}, typically in a <code>finally</code> block.
+	 * </p>
+	 *
+	 * @see #batch(Runnable)
+	 * @since 1.6
+	 */
+	public void beginBatch() {
+		if (batchDepth++ == 0) {
+			batch = new EventBatch();
+		}
+	}
+
+	/**
+	 * Ends a batch of changes started with {@link #beginBatch()}. When the
+	 * outermost batch ends, the merged deferred events are fired. Events fired
+	 * by listeners in response are merged and fired in turn once all listeners
+	 * have been notified, so that a computed value depending on several
+	 * changed observables is recomputed only once.
+	 *
+	 * @throws IllegalStateException
+	 *             if no batch is in progress
+	 * @since 1.6
+	 */
+	public void commitBatch() {
+		if (batchDepth == 0) {
+			throw new IllegalStateException("No batch in progress"); //$NON-NLS-1$
+		}
+		if (batchDepth > 1) {
+			batchDepth--;
+			return;
+		}
+		try {
+			// Events fired by listeners are deferred to the next round
+			while (!batch.isEmpty()) {
+				EventBatch committed = batch;
+				batch = new EventBatch();
+				committed.fire();
+			}
+		} finally {
+			batchDepth = 0;
+			batch = null;
+		}
+	}
+
+	/**
+	 * Returns whether a batch of changes is in progress.
+	 *
+	 * @return <code>true</code> if change events are currently deferred
+	 * @since 1.6
+	 */
+	public boolean isBatching() {
+		return batchDepth > 0;
+	}
+
+	/**
+	 * Runs the given runnable within a batch of changes. The merged change
+	 * events are fired after the runnable completes, even if it throws an
+	 * exception.
+	 *
+	 * @param runnable
+	 * @see #beginBatch()
+	 * @since 1.6
+	 */
+	public void batch(Runnable runnable) {
+		beginBatch();
+		try {
+			runnable.run();
+		} finally {
+			commitBatch();
+		}
+	}
+
+	/* package */void deferEvent(ChangeManager manager, ObservableEvent event) {
+		batch.add(manager, event);
+	}
+
 	/**
 	 * Sets the provided <code>realm</code> as the default for the duration of
 	 * {@link Runnable#run()} and resets the previous realm after completion.
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+
+/**
+ * Computes list differences in O(N log N) time using hashing instead of
+ * repeated linear searches.
+ * <p>
+ * The common prefix and suffix of both lists are skipped. The remaining old
+ * elements are matched to equal new elements through a hash map, and the
+ * longest increasing subsequence of the matches gives the elements which stay
+ * in place. All other old elements are removed and all other new elements are
+ * added. When moves are detected, matched elements which do not stay in place
+ * are reported as a removal immediately followed by an addition of the same
+ * element, which {@link org.eclipse.core.databinding.observable.list.ListDiff#accept}
+ * reports as a move.
+ * </p>
+ * <p>
+ * Elements are compared using {@link Object#equals(Object)} and must have a
+ * consistent {@link Object#hashCode()}.
+ * </p>
+ */
+public class LinearListDiff {
+
+	private LinearListDiff() {
+	}
+
+	/**
+	 * Computes the differences between the given lists.
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @param detectMoves
+	 *            whether elements present in both lists are moved rather than
+	 *            removed and added again
+	 * @param differences
+	 *            the list to which the differences are added
+	 */
+	public static <E> void computeDifferences(List<? extends E> oldList, List<? extends E> newList,
+			boolean detectMoves, List<ListDiffEntry<E>> differences) {
+		Object[] oldElements = oldList.toArray();
+		Object[] newElements = newList.toArray();
+
+		int minSize = Math.min(oldElements.length, newElements.length);
+		int prefix = 0;
+		while (prefix < minSize && Util.equals(oldElements[prefix], newElements[prefix])) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < minSize - prefix && Util.equals(oldElements[oldElements.length - 1 - suffix],
+				newElements[newElements.length - 1 - suffix])) {
+			suffix++;
+		}
+		int oldCount = oldElements.length - prefix - suffix;
+		int newCount = newElements.length - prefix - suffix;
+
+		// oldMatches[i] is the new index matched to old index i, or -1
+		int[] oldMatches = new int[oldCount];
+		// newMatches[j] is the old index matched to new index j, or -1
+		int[] newMatches = new int[newCount];
+		match(oldElements, newElements, prefix, oldCount, newCount, oldMatches, newMatches);
+
+		boolean[] kept = findKeptElements(newMatches, oldCount);
+
+		// Remove from the end so that positions are the old indices
+		for (int i = oldCount - 1; i >= 0; i--) {
+			if (!kept[i] && (!detectMoves || oldMatches[i] == -1)) {
+				differences.add(createEntry(prefix + i, false, oldElements[prefix + i]));
+			}
+		}
+
+		if (detectMoves) {
+			addMoves(oldElements, prefix, newMatches, kept, differences);
+		}
+
+		// Add in ascending order so that positions are the new indices
+		for (int j = 0; j < newCount; j++) {
+			int oldIndex = newMatches[j];
+			if (oldIndex == -1 || (!detectMoves && !kept[oldIndex])) {
+				differences.add(createEntry(prefix + j, true, newElements[prefix + j]));
+			}
+		}
+	}
+
+	/**
+	 * Matches each new element to the first unmatched equal old element.
+	 */
+	private static void match(Object[] oldElements, Object[] newElements, int prefix, int oldCount, int newCount,
+			int[] oldMatches, int[] newMatches) {
+		Arrays.fill(oldMatches, -1);
+		Arrays.fill(newMatches, -1);
+		if (oldCount == 0 || newCount == 0) {
+			return;
+		}
+
+		// Chains the old indices of equal elements in ascending order
+		Map<Object, Integer> firstIndices = new HashMap<>();
+		int[] nextIndices = new int[oldCount];
+		for (int i = oldCount - 1; i >= 0; i--) {
+			Integer next = firstIndices.put(oldElements[prefix + i], Integer.valueOf(i));
+			nextIndices[i] = next == null ? -1 : next.intValue();
+		}
+
+		for (int j = 0; j < newCount; j++) {
+			Object element = newElements[prefix + j];
+			Integer first = firstIndices.get(element);
+			if (first != null) {
+				int i = first.intValue();
+				if (nextIndices[i] == -1) {
+					firstIndices.remove(element);
+				} else {
+					firstIndices.put(element, Integer.valueOf(nextIndices[i]));
+				}
+				oldMatches[i] = j;
+				newMatches[j] = i;
+			}
+		}
+	}
+
+	/**
+	 * Returns the old elements which stay in place: the longest increasing
+	 * subsequence of the matched old indices taken in new order.
+	 */
+	private static boolean[] findKeptElements(int[] newMatches, int oldCount) {
+		int newCount = newMatches.length;
+		// tails[k] is the new index ending the best subsequence of length k+1
+		int[] tails = new int[newCount];
+		int[] predecessors = new int[newCount];
+		int length = 0;
+		for (int j = 0; j < newCount; j++) {
+			int oldIndex = newMatches[j];
+			if (oldIndex == -1) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (newMatches[tails[mid]] < oldIndex) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			predecessors[j] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = j;
+			if (low == length) {
+				length++;
+			}
+		}
+
+		boolean[] kept = new boolean[oldCount];
+		for (int j = length > 0 ? tails[length - 1] : -1; j != -1; j = predecessors[j]) {
+			kept[newMatches[j]] = true;
+		}
+		return kept;
+	}
+
+	/**
+	 * Moves the matched elements which do not stay in place to their new
+	 * position, in new order.
+	 * <p>
+	 * Each element present in the list is given a sort key so that the list is
+	 * always sorted by key: elements not moved yet are keyed by their old
+	 * index, moved elements by the old index of the closest preceding kept
+	 * element followed by their new index. Positions are then ranks in a
+	 * Fenwick tree over the keys.
+	 * </p>
+	 */
+	private static <E> void addMoves(Object[] oldElements, int prefix, int[] newMatches, boolean[] kept,
+			List<ListDiffEntry<E>> differences) {
+		int newCount = newMatches.length;
+		int moveCount = 0;
+		int matchCount = 0;
+		for (int j = 0; j < newCount; j++) {
+			int oldIndex = newMatches[j];
+			if (oldIndex != -1) {
+				matchCount++;
+				if (!kept[oldIndex]) {
+					moveCount++;
+				}
+			}
+		}
+		if (moveCount == 0) {
+			return;
+		}
+
+		long[] initialKeys = new long[newCount];
+		long[] finalKeys = new long[newCount];
+		long[] keys = new long[matchCount + moveCount];
+		int keyCount = 0;
+		int anchor = -1;
+		for (int j = 0; j < newCount; j++) {
+			int oldIndex = newMatches[j];
+			if (oldIndex == -1) {
+				continue;
+			}
+			if (kept[oldIndex]) {
+				anchor = oldIndex;
+				initialKeys[j] = finalKeys[j] = key(oldIndex, j);
+				keys[keyCount++] = initialKeys[j];
+			} else {
+				initialKeys[j] = key(oldIndex, -1);
+				finalKeys[j] = key(anchor, j);
+				keys[keyCount++] = initialKeys[j];
+				keys[keyCount++] = finalKeys[j];
+			}
+		}
+		Arrays.sort(keys);
+
+		int[] tree = new int[keys.length + 1];
+		for (int j = 0; j < newCount; j++) {
+			if (newMatches[j] != -1) {
+				update(tree, Arrays.binarySearch(keys, initialKeys[j]), 1);
+			}
+		}
+
+		for (int j = 0; j < newCount; j++) {
+			int oldIndex = newMatches[j];
+			if (oldIndex == -1 || kept[oldIndex]) {
+				continue;
+			}
+			Object element = oldElements[prefix + oldIndex];
+			int from = Arrays.binarySearch(keys, initialKeys[j]);
+			update(tree, from, -1);
+			differences.add(createEntry(prefix + rank(tree, from), false, element));
+			int to = Arrays.binarySearch(keys, finalKeys[j]);
+			differences.add(createEntry(prefix + rank(tree, to), true, element));
+			update(tree, to, 1);
+		}
+	}
+
+	private static long key(int oldIndex, int newIndex) {
+		return ((long) (oldIndex + 1) << 32) | (newIndex + 1);
+	}
+
+	private static void update(int[] tree, int index, int delta) {
+		for (int i = index + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	/**
+	 * Returns the number of present keys strictly before the given index.
+	 */
+	private static int rank(int[] tree, int index) {
+		int count = 0;
+		for (int i = index; i > 0; i -= i & -i) {
+			count += tree[i];
+		}
+		return count;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> ListDiffEntry<E> createEntry(int position, boolean isAddition, Object element) {
+		return Diffs.createListDiffEntry(position, isAddition, (E) element);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+
+/**
+ * Computes list differences with the algorithm adapted from EMF's
+ * ListDifferenceAnalyzer. Its running time is quadratic in the list size, so
+ * {@link Diffs#computeListDiff(List, List)} only uses it for small lists and
+ * uses {@link LinearListDiff} for larger ones.
+ */
+public class ListDifferenceAnalyzer {
+
+	private ListDifferenceAnalyzer() {
+	}
+
+	/**
+	 * Computes the differences between the given lists.
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @param listDiffs
+	 *            the list to which the differences are added
+	 */
+	public static <E> void computeDifferences(List<? extends E> oldList, List<? extends E> newList,
+			List<ListDiffEntry<E>> listDiffs) {
+		createListDiffs(new ArrayList<E>(oldList), newList, listDiffs);
+	}
+
+	private static <E> void createListDiffs(List<E> oldList, List<? extends E> newList,
+			List<ListDiffEntry<E>> listDiffs) {
+		int index = 0;
+		for (E newValue : newList) {
+			if (oldList.size() <= index) {
+				// append newValue to newList
+				listDiffs.add(Diffs.createListDiffEntry(index, true, newValue));
+			} else {
+				boolean done;
+				do {
+					done = true;
+					E oldValue = oldList.get(index);
+					if (oldValue == null ? newValue != null : !oldValue
+							.equals(newValue)) {
+						int oldIndexOfNewValue = listIndexOf(oldList, newValue,
+								index);
+						if (oldIndexOfNewValue != -1) {
+							int newIndexOfOldValue = listIndexOf(newList,
+									oldValue, index);
+							if (newIndexOfOldValue == -1) {
+								// removing oldValue from list[index]
+								listDiffs.add(Diffs.createListDiffEntry(index, false,
+										oldValue));
+								oldList.remove(index);
+								done = false;
+							} else if (newIndexOfOldValue > oldIndexOfNewValue) {
+								// moving oldValue from list[index] to
+								// [newIndexOfOldValue]
+								if (oldList.size() <= newIndexOfOldValue) {
+									// The element cannot be moved to the
+									// correct index
+									// now, however later iterations will insert
+									// elements
+									// in front of it, eventually moving it into
+									// the
+									// correct spot.
+									newIndexOfOldValue = oldList.size() - 1;
+								}
+								listDiffs.add(Diffs.createListDiffEntry(index, false,
+										oldValue));
+								oldList.remove(index);
+								listDiffs.add(Diffs.createListDiffEntry(
+										newIndexOfOldValue, true, oldValue));
+								oldList.add(newIndexOfOldValue, oldValue);
+								done = false;
+							} else {
+								// move newValue from list[oldIndexOfNewValue]
+								// to [index]
+								listDiffs.add(Diffs.createListDiffEntry(
+										oldIndexOfNewValue, false, newValue));
+								oldList.remove(oldIndexOfNewValue);
+								listDiffs.add(Diffs.createListDiffEntry(index, true,
+										newValue));
+								oldList.add(index, newValue);
+							}
+						} else {
+							// add newValue at list[index]
+							oldList.add(index, newValue);
+							listDiffs.add(Diffs.createListDiffEntry(index, true,
+									newValue));
+						}
+					}
+				} while (!done);
+			}
+			++index;
+		}
+		for (int i = oldList.size(); i > index;) {
+			// remove excess trailing elements not present in newList
+			listDiffs.add(Diffs.createListDiffEntry(--i, false, oldList.get(i)));
+		}
+	}
+
+	/**
+	 * @param list
+	 * @param object
+	 * @param index
+	 * @return the index, or -1 if not found
+	 */
+	private static <E> int listIndexOf(List<E> list, Object object, int index) {
+		int size = list.size();
+		for (int i = index; i < size; i++) {
+			Object candidate = list.get(i);
+			if (candidate == null ? object == null : candidate.equals(object)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.bindings.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.jface.bindings.Binding;
+import org.eclipse.jface.bindings.TriggerSequence;
+
+/**
+ * The bindings of the tables of a {@link ContextSet}, compiled for the look ups
+ * done while dispatching key strokes. Every bound sequence and every prefix of
+ * one is mapped to its perfect match and to whether it is a partial match, so
+ * that a look up is a single hash look up of the sequence, which does not
+ * allocate.
+ * <p>
+ * The look up is not changed once compiled; it is replaced when a binding
+ * table, the defined tables or the active schemes change.
+ * </p>
+ */
+final class BindingLookup {
+
+	private static final class Node {
+		Binding perfectMatch;
+
+		boolean partialMatch;
+	}
+
+	private final Map<TriggerSequence, Node> nodes = new HashMap<TriggerSequence, Node>();
+
+	/**
+	 * The number of changes of the binding tables when compiling.
+	 */
+	final int tableChanges;
+
+	/**
+	 * The number of changes of the manager when compiling.
+	 */
+	final int managerChanges;
+
+	/**
+	 * @param tableChanges
+	 *            see {@link BindingTable#getChangeCount()}
+	 * @param managerChanges
+	 *            the number of changes of the defined tables and schemes
+	 */
+	BindingLookup(int tableChanges, int managerChanges) {
+		this.tableChanges = tableChanges;
+		this.managerChanges = managerChanges;
+	}
+
+	/**
+	 * Sets the binding chosen for a complete trigger sequence.
+	 *
+	 * @param sequence
+	 * @param binding
+	 */
+	void addPerfectMatch(TriggerSequence sequence, Binding binding) {
+		getNode(sequence).perfectMatch = binding;
+	}
+
+	/**
+	 * Marks a sequence as the prefix of a longer bound sequence.
+	 *
+	 * @param prefix
+	 */
+	void addPartialMatch(TriggerSequence prefix) {
+		getNode(prefix).partialMatch = true;
+	}
+
+	private Node getNode(TriggerSequence sequence) {
+		Node node = nodes.get(sequence);
+		if (node == null) {
+			node = new Node();
+			nodes.put(sequence, node);
+		}
+		return node;
+	}
+
+	/**
+	 * @param sequence
+	 * @return the binding of the sequence, or <code>null</code>
+	 */
+	Binding getPerfectMatch(TriggerSequence sequence) {
+		Node node = nodes.get(sequence);
+		return node == null ? null : node.perfectMatch;
+	}
+
+	/**
+	 * @param sequence
+	 * @return <code>true</code> if a longer sequence starting with the given
+	 *         one is bound
+	 */
+	boolean isPartialMatch(TriggerSequence sequence) {
+		Node node = nodes.get(sequence);
+		return node != null && node.partialMatch;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2014 IBM Corporation and others.
+ * Copyright (c) 2010, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.contexts.Context;
 import org.eclipse.jface.bindings.Binding;
@@ -120,6 +121,18 @@ public class BindingTable {
 
 	public static final BindingComparator BEST_SEQUENCE = new BindingComparator();
 
+	/**
+	 * Counts the changes of all tables, to discard the compiled look ups.
+	 */
+	private static final AtomicInteger changeCount = new AtomicInteger();
+
+	/**
+	 * @return the number of bindings added to or removed from any table
+	 */
+	static int getChangeCount() {
+		return changeCount.get();
+	}
+
 	private Context tableId;
 	private ArrayList<Binding> bindings = new ArrayList<Binding>();
 	private Map<TriggerSequence, Binding> bindingsByTrigger = new HashMap<TriggerSequence, Binding>();
@@ -163,6 +176,7 @@ public class BindingTable {
 			throw new IllegalArgumentException("Binding context " + binding.getContextId() //$NON-NLS-1$
 					+ " does not match " + getId()); //$NON-NLS-1$
 		}
+		changeCount.incrementAndGet();
 		ArrayList<Binding> bindingList = orderedBindingsByTrigger.get(binding.getTriggerSequence());
 		Binding possibleConflict = bindingsByTrigger.get(binding.getTriggerSequence());
 		if (bindingList == null || bindingList.isEmpty()) {
@@ -234,6 +248,7 @@ public class BindingTable {
 			throw new IllegalArgumentException("Binding context " + binding.getContextId() //$NON-NLS-1$
 					+ " does not match " + getId()); //$NON-NLS-1$
 		}
+		changeCount.incrementAndGet();
 		ArrayList<Binding> bindingList = orderedBindingsByTrigger.get(binding.getTriggerSequence());
 		Binding possibleConflict = bindingsByTrigger.get(binding.getTriggerSequence());
 		if (possibleConflict == binding) {
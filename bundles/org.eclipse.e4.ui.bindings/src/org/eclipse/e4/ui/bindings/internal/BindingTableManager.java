@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 IBM Corporation and others.
+ * Copyright (c) 2010, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,8 +14,11 @@ package org.eclipse.e4.ui.bindings.internal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import javax.inject.Inject;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.contexts.Context;
@@ -29,6 +32,11 @@ import org.eclipse.jface.bindings.TriggerSequence;
 public class BindingTableManager {
 	private static final String BINDING_TABLE_PREFIX = "bindingTable:"; //$NON-NLS-1$
 
+	/**
+	 * The number of context sets whose compiled bindings are kept.
+	 */
+	private static final int MAX_LOOKUPS = 8;
+
 	@Inject
 	private IEclipseContext eclipseContext;
 
@@ -36,6 +44,31 @@ public class BindingTableManager {
 
 	private String[] activeSchemeIds;
 
+	/**
+	 * Counts the changes of the defined tables and of the active schemes.
+	 */
+	private int changeCount;
+
+	/**
+	 * The compiled bindings of the recently used context sets.
+	 */
+	private final Map<ContextSet, BindingLookup> lookups = new LinkedHashMap<ContextSet, BindingLookup>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ContextSet, BindingLookup> eldest) {
+			return size() > MAX_LOOKUPS;
+		}
+	};
+
+	/**
+	 * The last looked up context set, which is usually the active one.
+	 */
+	private ContextSet lastContextSet;
+
+	private BindingLookup lastLookup;
+
 	public void addTable(BindingTable table) {
 		String contextId = getTableId(table.getId());
 		if (eclipseContext.containsKey(contextId)) {
@@ -43,6 +76,7 @@ public class BindingTableManager {
 			//			throw new IllegalArgumentException("Already contains table " + contextId); //$NON-NLS-1$
 		}
 		eclipseContext.set(contextId, table);
+		tablesChanged();
 		final List<Context> contexts = definedTables.getContexts();
 		if (!contexts.contains(table.getTableId())) {
 			// this is only valid because I'm throwing away the old definedTables contextSet
@@ -61,6 +95,7 @@ public class BindingTableManager {
 			throw new IllegalArgumentException("Does not contains table " + contextId); //$NON-NLS-1$
 		}
 		eclipseContext.remove(contextId);
+		tablesChanged();
 		final List<Context> contexts = definedTables.getContexts();
 		if (contexts.contains(table.getTableId())) {
 			// this is only valid because I'm throwing away the old definedTables contextSet
@@ -120,6 +155,75 @@ public class BindingTableManager {
 	}
 
 	public Binding getPerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
+		return getLookup(contextSet).getPerfectMatch(triggerSequence);
+	}
+
+	/**
+	 * Returns the compiled bindings of the context set, compiling them if
+	 * needed.
+	 *
+	 * @param contextSet
+	 * @return the compiled bindings
+	 */
+	private synchronized BindingLookup getLookup(ContextSet contextSet) {
+		if (lastLookup != null && contextSet == lastContextSet && isValid(lastLookup)) {
+			return lastLookup;
+		}
+		BindingLookup lookup = lookups.get(contextSet);
+		if (lookup == null || !isValid(lookup)) {
+			if (lookup != null) {
+				// a change invalidates the bindings of all context sets
+				lookups.clear();
+			}
+			lookup = compile(contextSet);
+			lookups.put(contextSet, lookup);
+		}
+		lastContextSet = contextSet;
+		lastLookup = lookup;
+		return lookup;
+	}
+
+	private synchronized void tablesChanged() {
+		changeCount++;
+	}
+
+	private boolean isValid(BindingLookup lookup) {
+		return lookup.managerChanges == changeCount
+				&& lookup.tableChanges == BindingTable.getChangeCount();
+	}
+
+	/**
+	 * Compiles the bindings of the tables of the context set, resolving the
+	 * perfect match of every bound sequence once.
+	 *
+	 * @param contextSet
+	 * @return the compiled bindings
+	 */
+	private BindingLookup compile(ContextSet contextSet) {
+		BindingLookup lookup = new BindingLookup(BindingTable.getChangeCount(), changeCount);
+		Collection<TriggerSequence> sequences = new HashSet<TriggerSequence>();
+		for (Context ctx : contextSet.getContexts()) {
+			BindingTable table = getTable(ctx.getId());
+			if (table != null) {
+				for (Binding binding : table.getBindings()) {
+					TriggerSequence sequence = binding.getTriggerSequence();
+					if (sequences.add(sequence)) {
+						TriggerSequence[] prefixes = sequence.getPrefixes();
+						// the first prefix is the empty sequence
+						for (int i = 1; i < prefixes.length; i++) {
+							lookup.addPartialMatch(prefixes[i]);
+						}
+					}
+				}
+			}
+		}
+		for (TriggerSequence sequence : sequences) {
+			lookup.addPerfectMatch(sequence, findPerfectMatch(contextSet, sequence));
+		}
+		return lookup;
+	}
+
+	private Binding findPerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
 		Binding result = null;
 		Binding currentResult = null;
 		List<Context> contexts = contextSet.getContexts();
@@ -203,18 +307,7 @@ public class BindingTableManager {
 	}
 
 	public boolean isPartialMatch(ContextSet contextSet, TriggerSequence sequence) {
-		List<Context> contexts = contextSet.getContexts();
-		ListIterator<Context> it = contexts.listIterator(contexts.size());
-		while (it.hasPrevious()) {
-			Context c = it.previous();
-			BindingTable table = getTable(c.getId());
-			if (table != null) {
-				if (table.isPartialMatch(sequence)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return getLookup(contextSet).isPartialMatch(sequence);
 	}
 
 	public Collection<Binding> getPartialMatches(ContextSet contextSet, TriggerSequence sequence) {
@@ -239,6 +332,7 @@ public class BindingTableManager {
 	 */
 	public void setActiveSchemes(String[] activeSchemeIds) {
 		this.activeSchemeIds = activeSchemeIds;
+		tablesChanged();
 		BindingTable.BEST_SEQUENCE.setActiveSchemes(activeSchemeIds);
 	}
 
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.css.CSSStyleDeclaration;
+
+/**
+ * Cache of computed styles shared between equivalent elements.
+ * <p>
+ * Two elements are equivalent when they have the same style signature: the
+ * same type, id, CSS class, values of the attributes tested by the style
+ * sheets and state of the pseudo-classes used by the style sheets, and
+ * equivalent ancestors. Such elements are matched by exactly the same
+ * selectors, so the merged declaration computed for the first one is returned
+ * for the others.
+ * </p>
+ * <p>
+ * The cache is bound to the {@link CSSRuleIndex} the styles were computed
+ * with and is cleared when the style sheets change. Attribute changes are
+ * taken into account by the signature itself.
+ * </p>
+ */
+public class CSSComputedStyleCache {
+
+	private static final int MAX_SIZE = 2000;
+
+	private static final char SEPARATOR = '\u0001';
+
+	private static final char ELEMENT_SEPARATOR = '\u0002';
+
+	private final Map<String, CSSStyleDeclaration> styles = new LinkedHashMap<String, CSSStyleDeclaration>(16,
+			0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CSSStyleDeclaration> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	private CSSRuleIndex ruleIndex;
+
+	private long hitCount;
+
+	private long missCount;
+
+	/**
+	 * Returns the style signature of the given element, or <code>null</code>
+	 * if the style of this element cannot be shared.
+	 *
+	 * @param index
+	 *            the rule index the style is computed with
+	 * @param elt
+	 *            the element
+	 * @param pseudoElt
+	 *            the pseudo instance, may be <code>null</code>
+	 * @return the signature or <code>null</code>
+	 */
+	public String getSignature(CSSRuleIndex index, Element elt, String pseudoElt) {
+		if (index != ruleIndex) {
+			// the style sheets changed
+			styles.clear();
+			ruleIndex = index;
+		}
+		if (!index.isStyleSharingSupported()) {
+			return null;
+		}
+		StringBuilder signature = new StringBuilder();
+		signature.append(pseudoElt);
+		for (Node node = elt; node != null; node = node.getParentNode()) {
+			signature.append(ELEMENT_SEPARATOR);
+			if (node.getNodeType() != Node.ELEMENT_NODE) {
+				signature.append(node.getNodeType());
+				continue;
+			}
+			if (!(node instanceof CSSStylableElement)) {
+				return null;
+			}
+			appendSignature(signature, index, (Element) node);
+		}
+		return signature.toString();
+	}
+
+	private static void appendSignature(StringBuilder signature, CSSRuleIndex index, Element element) {
+		CSSStylableElement stylableElement = (CSSStylableElement) element;
+		signature.append(element.getPrefix() == null ? element.getNodeName() : element.getLocalName());
+		signature.append(SEPARATOR).append(element.getNamespaceURI());
+		signature.append(SEPARATOR).append(stylableElement.getCSSId());
+		signature.append(SEPARATOR).append(stylableElement.getCSSClass());
+		for (String attributeName : index.getAttributeNames()) {
+			signature.append(SEPARATOR);
+			if (element.hasAttribute(attributeName)) {
+				signature.append('=').append(element.getAttribute(attributeName));
+			}
+		}
+		for (String pseudoClass : index.getPseudoClasses()) {
+			signature.append(SEPARATOR);
+			if (stylableElement.isPseudoInstanceOf(pseudoClass)) {
+				signature.append(stylableElement.isStaticPseudoInstance(pseudoClass) ? 's' : 'd');
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a style was computed for the given signature.
+	 *
+	 * @param signature
+	 *            the style signature
+	 * @return <code>true</code> if the style is cached
+	 */
+	public boolean contains(String signature) {
+		if (styles.containsKey(signature)) {
+			hitCount++;
+			return true;
+		}
+		missCount++;
+		return false;
+	}
+
+	/**
+	 * Returns the style computed for the given signature, which may be
+	 * <code>null</code> when no rule applies.
+	 *
+	 * @param signature
+	 *            the style signature
+	 * @return the cached style
+	 */
+	public CSSStyleDeclaration get(String signature) {
+		return styles.get(signature);
+	}
+
+	/**
+	 * Stores the style computed for the given signature.
+	 *
+	 * @param signature
+	 *            the style signature
+	 * @param style
+	 *            the computed style, may be <code>null</code>
+	 */
+	public void put(String signature, CSSStyleDeclaration style) {
+		styles.put(signature, style);
+	}
+
+	/**
+	 * Removes all cached styles.
+	 */
+	public void clear() {
+		styles.clear();
+	}
+
+	/**
+	 * Returns the number of cached styles.
+	 *
+	 * @return the number of cached styles
+	 */
+	public int size() {
+		return styles.size();
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of lookups which required computing the style.
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Resets the hit and miss counters.
+	 */
+	public void resetCounters() {
+		hitCount = 0;
+		missCount = 0;
+	}
+}
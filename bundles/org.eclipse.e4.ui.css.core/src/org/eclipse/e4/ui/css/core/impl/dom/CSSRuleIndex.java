@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.ElementSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleRule;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.stylesheets.StyleSheetList;
+
+/**
+ * Index of the style rule selectors of a {@link StyleSheetList}, keyed by the
+ * rightmost compound selector. Each selector is stored in exactly one bucket
+ * (id, CSS class, element type, pseudo-class or universal), so computing the
+ * style of an element only needs to match the selectors of the buckets the
+ * element can fall into instead of every selector of every rule.
+ * <p>
+ * Candidates are returned in document order, which is the order
+ * {@link ViewCSSImpl} relies on to resolve rules of equal specificity.
+ * </p>
+ */
+public class CSSRuleIndex {
+
+	/**
+	 * A selector of a style rule together with its position in the style
+	 * sheets.
+	 */
+	public static final class Entry {
+
+		public final CSSStyleRule rule;
+
+		public final ExtendedSelector selector;
+
+		final int order;
+
+		Entry(CSSStyleRule rule, ExtendedSelector selector, int order) {
+			this.rule = rule;
+			this.selector = selector;
+			this.order = order;
+		}
+	}
+
+	private final Map<String, List<Entry>> idRules = new HashMap<>();
+
+	private final Map<String, List<Entry>> classRules = new HashMap<>();
+
+	private final Map<String, List<Entry>> typeRules = new HashMap<>();
+
+	private final Map<String, List<Entry>> pseudoClassRules = new HashMap<>();
+
+	private final List<Entry> pseudoClassEntries = new ArrayList<>();
+
+	private final List<Entry> universalRules = new ArrayList<>();
+
+	private final Set<String> attributeNames = new TreeSet<>();
+
+	private final Set<String> pseudoClasses = new TreeSet<>();
+
+	private boolean styleSharingSupported = true;
+
+	private int size;
+
+	/**
+	 * Creates the index for the rules of the given style sheets.
+	 *
+	 * @param styleSheets
+	 *            the style sheets to index
+	 */
+	public CSSRuleIndex(StyleSheetList styleSheets) {
+		int l = styleSheets.getLength();
+		for (int i = 0; i < l; i++) {
+			CSSStyleSheet styleSheet = (CSSStyleSheet) styleSheets.item(i);
+			CSSRuleList rules = styleSheet.getCssRules();
+			int rulesSize = rules.getLength();
+			for (int j = 0; j < rulesSize; j++) {
+				addRule(rules.item(j));
+			}
+		}
+	}
+
+	private void addRule(CSSRule rule) {
+		if (rule.getType() != CSSRule.STYLE_RULE || !(rule instanceof ExtendedCSSRule)) {
+			return;
+		}
+		SelectorList selectorList = ((ExtendedCSSRule) rule).getSelectorList();
+		int l = selectorList.getLength();
+		for (int i = 0; i < l; i++) {
+			Selector selector = selectorList.item(i);
+			if (selector instanceof ExtendedSelector) {
+				addSelector(new Entry((CSSStyleRule) rule, (ExtendedSelector) selector, size++));
+			}
+		}
+	}
+
+	private void addSelector(Entry entry) {
+		collectDependencies(entry.selector);
+		Selector selector = getRightmostSelector(entry.selector);
+		String type = null;
+		if (selector.getSelectorType() == Selector.SAC_CONDITIONAL_SELECTOR) {
+			ConditionalSelector conditionalSelector = (ConditionalSelector) selector;
+			Condition condition = conditionalSelector.getCondition();
+			String key = findConditionValue(condition, Condition.SAC_ID_CONDITION);
+			if (key != null) {
+				add(idRules, key, entry);
+				return;
+			}
+			key = findConditionValue(condition, Condition.SAC_CLASS_CONDITION);
+			if (key != null) {
+				add(classRules, key, entry);
+				return;
+			}
+			type = getElementName(conditionalSelector.getSimpleSelector());
+			if (type == null) {
+				key = findConditionValue(condition, Condition.SAC_PSEUDO_CLASS_CONDITION);
+				if (key != null) {
+					add(pseudoClassRules, key, entry);
+					pseudoClassEntries.add(entry);
+					return;
+				}
+			}
+		} else {
+			type = getElementName(selector);
+		}
+		if (type != null) {
+			add(typeRules, type, entry);
+		} else {
+			universalRules.add(entry);
+		}
+	}
+
+	/**
+	 * Records the attributes and pseudo-classes the given selector depends on.
+	 * Selectors depending on anything else than the element and its ancestors
+	 * disable style sharing.
+	 */
+	private void collectDependencies(Selector selector) {
+		switch (selector.getSelectorType()) {
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			collectDependencies(((ConditionalSelector) selector).getSimpleSelector());
+			collectDependencies(((ConditionalSelector) selector).getCondition());
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			collectDependencies(((DescendantSelector) selector).getAncestorSelector());
+			collectDependencies(((DescendantSelector) selector).getSimpleSelector());
+			break;
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			break;
+		default:
+			styleSharingSupported = false;
+		}
+	}
+
+	private void collectDependencies(Condition condition) {
+		switch (getConditionType(condition)) {
+		case Condition.SAC_ID_CONDITION:
+		case Condition.SAC_CLASS_CONDITION:
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			String localName = ((AttributeCondition) condition).getLocalName();
+			if (localName != null) {
+				attributeNames.add(localName);
+			}
+			break;
+		case Condition.SAC_LANG_CONDITION:
+			attributeNames.add("lang"); //$NON-NLS-1$
+			break;
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			pseudoClasses.add(((AttributeCondition) condition).getValue());
+			break;
+		case Condition.SAC_AND_CONDITION:
+			collectDependencies(((CombinatorCondition) condition).getFirstCondition());
+			collectDependencies(((CombinatorCondition) condition).getSecondCondition());
+			break;
+		default:
+			styleSharingSupported = false;
+		}
+	}
+
+	private static void add(Map<String, List<Entry>> map, String key, Entry entry) {
+		List<Entry> entries = map.get(key);
+		if (entries == null) {
+			entries = new ArrayList<>(2);
+			map.put(key, entries);
+		}
+		entries.add(entry);
+	}
+
+	/**
+	 * Returns the selector describing the element itself, i.e. the rightmost
+	 * compound selector of descendant, child and sibling selectors.
+	 */
+	private static Selector getRightmostSelector(Selector selector) {
+		while (true) {
+			switch (selector.getSelectorType()) {
+			case Selector.SAC_DESCENDANT_SELECTOR:
+			case Selector.SAC_CHILD_SELECTOR:
+				selector = ((DescendantSelector) selector).getSimpleSelector();
+				break;
+			case Selector.SAC_DIRECT_ADJACENT_SELECTOR:
+				selector = ((SiblingSelector) selector).getSiblingSelector();
+				break;
+			default:
+				return selector;
+			}
+		}
+	}
+
+	private static String getElementName(Selector selector) {
+		if (selector.getSelectorType() == Selector.SAC_ELEMENT_NODE_SELECTOR) {
+			return ((ElementSelector) selector).getLocalName();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the value of a condition of the given type which must hold for
+	 * the whole condition to match, or <code>null</code> if there is none.
+	 */
+	private static String findConditionValue(Condition condition, short conditionType) {
+		short type = getConditionType(condition);
+		if (type == conditionType) {
+			return ((AttributeCondition) condition).getValue();
+		}
+		if (type == Condition.SAC_AND_CONDITION) {
+			CombinatorCondition combinatorCondition = (CombinatorCondition) condition;
+			String value = findConditionValue(combinatorCondition.getFirstCondition(), conditionType);
+			if (value != null) {
+				return value;
+			}
+			return findConditionValue(combinatorCondition.getSecondCondition(), conditionType);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the SAC type of the given condition.
+	 * {@link CSSClassConditionImpl} reports itself as an attribute condition,
+	 * it is recognized as a class condition here.
+	 */
+	private static short getConditionType(Condition condition) {
+		if (condition instanceof CSSClassConditionImpl) {
+			return Condition.SAC_CLASS_CONDITION;
+		}
+		return condition.getConditionType();
+	}
+
+	/**
+	 * Returns whether the selectors only depend on the type, id, class,
+	 * attributes and pseudo-classes of an element and of its ancestors, so
+	 * that elements sharing all of them can share their computed style.
+	 *
+	 * @return <code>true</code> if computed styles may be shared
+	 */
+	public boolean isStyleSharingSupported() {
+		return styleSharingSupported;
+	}
+
+	/**
+	 * Returns the names of the attributes tested by the selectors, in a stable
+	 * order.
+	 *
+	 * @return the attribute names
+	 */
+	public Set<String> getAttributeNames() {
+		return Collections.unmodifiableSet(attributeNames);
+	}
+
+	/**
+	 * Returns the pseudo-classes tested by the selectors, in a stable order.
+	 *
+	 * @return the pseudo-class names
+	 */
+	public Set<String> getPseudoClasses() {
+		return Collections.unmodifiableSet(pseudoClasses);
+	}
+
+	/**
+	 * Returns the number of indexed selectors.
+	 *
+	 * @return the number of indexed selectors
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the selectors which may match the given element, in document
+	 * order. The returned selectors still have to be matched against the
+	 * element.
+	 *
+	 * @param elt
+	 *            the element to style
+	 * @param pseudoElt
+	 *            the pseudo instance, may be <code>null</code>
+	 * @return the candidate selectors
+	 */
+	public List<Entry> getCandidates(Element elt, String pseudoElt) {
+		List<Entry> candidates = new ArrayList<>(universalRules);
+		String id;
+		String cssClass;
+		if (elt instanceof CSSStylableElement) {
+			CSSStylableElement stylableElement = (CSSStylableElement) elt;
+			id = stylableElement.getCSSId();
+			cssClass = stylableElement.getCSSClass();
+		} else {
+			id = elt.getAttribute("id"); //$NON-NLS-1$
+			cssClass = elt.getAttribute("class"); //$NON-NLS-1$
+		}
+		if (id != null) {
+			addAll(candidates, idRules.get(id));
+		}
+		if (cssClass != null && cssClass.length() > 0 && !classRules.isEmpty()) {
+			for (String className : getClassNames(cssClass)) {
+				addAll(candidates, classRules.get(className));
+			}
+		}
+		String type = elt.getPrefix() == null ? elt.getNodeName() : elt.getLocalName();
+		if (type != null) {
+			addAll(candidates, typeRules.get(type));
+		}
+		if (pseudoElt != null) {
+			addAll(candidates, pseudoClassRules.get(pseudoElt));
+		} else {
+			addAll(candidates, pseudoClassEntries);
+		}
+		if (candidates.size() > 1) {
+			Collections.sort(candidates, (e1, e2) -> Integer.compare(e1.order, e2.order));
+		}
+		return candidates;
+	}
+
+	private static void addAll(List<Entry> candidates, List<Entry> entries) {
+		if (entries != null) {
+			candidates.addAll(entries);
+		}
+	}
+
+	/**
+	 * Splits the class attribute the same way {@link CSSClassConditionImpl}
+	 * tokenizes it.
+	 */
+	private static Set<String> getClassNames(String cssClass) {
+		Set<String> classNames = new HashSet<>();
+		int length = cssClass.length();
+		int start = -1;
+		for (int i = 0; i < length; i++) {
+			if (Character.isSpaceChar(cssClass.charAt(i))) {
+				if (start != -1) {
+					classNames.add(cssClass.substring(start, i));
+					start = -1;
+				}
+			} else if (start == -1) {
+				start = i;
+			}
+		}
+		if (start != -1) {
+			classNames.add(cssClass.substring(start));
+		}
+		return classNames;
+	}
+}
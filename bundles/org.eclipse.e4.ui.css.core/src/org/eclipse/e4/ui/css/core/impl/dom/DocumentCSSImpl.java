@@ -43,6 +43,12 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	 */
 	private Map<Integer, List<?>> styleDeclarationMap;
 
+	/**
+	 * Index of the style rules of all style sheets, built lazily and dropped
+	 * whenever the style sheets change.
+	 */
+	private CSSRuleIndex ruleIndex;
+
 	@Override
 	public StyleSheetList getStyleSheets() {
 		return styleSheetList;
@@ -56,12 +62,26 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	@Override
 	public void addStyleSheet(StyleSheet styleSheet) {
 		styleSheetList.addStyleSheet(styleSheet);
+		this.ruleIndex = null;
 	}
 
 	@Override
 	public void removeAllStyleSheets() {
 		styleSheetList.removeAllStyleSheets();
 		this.styleDeclarationMap = null;
+		this.ruleIndex = null;
+	}
+
+	/**
+	 * Returns the index of the style rules of the current style sheets.
+	 *
+	 * @return the rule index, never <code>null</code>
+	 */
+	public CSSRuleIndex getRuleIndex() {
+		if (ruleIndex == null) {
+			ruleIndex = new CSSRuleIndex(styleSheetList);
+		}
+		return ruleIndex;
 	}
 
 	@Override
@@ -38,6 +38,8 @@ public class ViewCSSImpl implements ViewCSS {
 
 	protected DocumentCSS documentCSS;
 
+	private final CSSComputedStyleCache computedStyleCache = new CSSComputedStyleCache();
+
 	/**
 	 * Creates a new ViewCSS.
 	 */
@@ -54,11 +56,35 @@ public class ViewCSSImpl implements ViewCSS {
 		return null;
 	}
 
+	/**
+	 * Returns the cache of computed styles shared between equivalent elements.
+	 *
+	 * @return the computed style cache
+	 */
+	public CSSComputedStyleCache getComputedStyleCache() {
+		return computedStyleCache;
+	}
+
 	/**
 	 * Determines the relevant style declaration for an DOM element
 	 */
 	@Override
 	public CSSStyleDeclaration getComputedStyle(Element elt, String pseudoElt) {
+		if (documentCSS instanceof DocumentCSSImpl) {
+			CSSRuleIndex ruleIndex = ((DocumentCSSImpl) documentCSS).getRuleIndex();
+			// Equivalent elements share the same computed style
+			String signature = computedStyleCache.getSignature(ruleIndex, elt, pseudoElt);
+			if (signature != null && computedStyleCache.contains(signature)) {
+				return computedStyleCache.get(signature);
+			}
+			// Only match the selectors which may apply to the element
+			CSSStyleDeclaration style = getComputedStyle(ruleIndex.getCandidates(elt, pseudoElt), elt, pseudoElt);
+			if (signature != null) {
+				computedStyleCache.put(signature, style);
+			}
+			return style;
+		}
+
 		// Loop over the CSS styleSheet list
 		StyleSheetList styleSheetList = documentCSS.getStyleSheets();
 		int l = styleSheetList.getLength();
@@ -78,6 +104,36 @@ public class ViewCSSImpl implements ViewCSS {
 		return styleDeclaration;
 	}
 
+	private CSSStyleDeclaration getComputedStyle(List<CSSRuleIndex.Entry> candidates, Element elt,
+			String pseudoElt) {
+		List<StyleWrapper> styleDeclarations = null;
+		StyleWrapper firstStyleDeclaration = null;
+		int position = 0;
+		for (CSSRuleIndex.Entry candidate : candidates) {
+			ExtendedSelector extendedSelector = candidate.selector;
+			if (extendedSelector.match(elt, pseudoElt)) {
+				StyleWrapper wrapper = new StyleWrapper(candidate.rule.getStyle(), extendedSelector.getSpecificity(),
+						position++);
+				if (firstStyleDeclaration == null) {
+					firstStyleDeclaration = wrapper;
+				} else {
+					if (styleDeclarations == null) {
+						styleDeclarations = new ArrayList<>();
+						styleDeclarations.add(firstStyleDeclaration);
+					}
+					styleDeclarations.add(wrapper);
+				}
+			}
+		}
+		if (styleDeclarations != null) {
+			return new CSSComputedStyleImpl(styleDeclarations);
+		}
+		if (firstStyleDeclaration != null) {
+			return firstStyleDeclaration.style;
+		}
+		return null;
+	}
+
 	public CSSStyleDeclaration getComputedStyle(List<CSSRule> ruleList, Element elt, String pseudoElt) {
 		List<StyleWrapper> styleDeclarations = null;
 		StyleWrapper firstStyleDeclaration = null;
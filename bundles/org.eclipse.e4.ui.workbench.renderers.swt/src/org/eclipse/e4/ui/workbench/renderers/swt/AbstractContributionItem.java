@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 IBM Corporation and others.
+ * Copyright (c) 2015, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -510,6 +510,10 @@ public abstract class AbstractContributionItem extends ContributionItem {
 			updateRunner = new ISafeRunnable() {
 				@Override
 				public void run() throws Exception {
+					ToolItemUpdater updater = getUpdater();
+					if (updater != null) {
+						updater.enablementEvaluated();
+					}
 					boolean shouldEnable = canExecuteItem(null);
 					if (shouldEnable != modelItem.isEnabled()) {
 						modelItem.setEnabled(shouldEnable);
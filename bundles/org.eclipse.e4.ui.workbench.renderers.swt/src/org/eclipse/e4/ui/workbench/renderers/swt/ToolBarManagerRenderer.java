@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -342,13 +342,28 @@ public class ToolBarManagerRenderer extends SWTPartRenderer {
 		updateVariables.addAll(Arrays.asList(vars));
 		context.set(UPDATE_VARS, updateVariables);
 		RunAndTrack enablementUpdater = new RunAndTrack() {
+			private final Map<String, Object> values = new HashMap<>();
 
 			@Override
 			public boolean changed(IEclipseContext context) {
+				boolean update = false;
 				for (String var : updateVariables) {
-					context.get(var);
+					Object value = context.get(var);
+					// the items are only evaluated again when a value
+					// changed, not when it is computed again as the same
+					if (!values.containsKey(var) || values.get(var) != value) {
+						values.put(var, value);
+						update = true;
+					}
+				}
+				if (update) {
+					ToolItemUpdater updater = getUpdater();
+					updater.updateContributionItems(ALL_SELECTOR);
+					if (Policy.DEBUG_RENDERER) {
+						logger.debug("\nTBMR:enablement: updates = {0}, evaluations = {1}", //$NON-NLS-1$
+								updater.getUpdateCount(), updater.getEvaluationCount());
+					}
 				}
-				getUpdater().updateContributionItems(ALL_SELECTOR);
 				return true;
 			}
 		};
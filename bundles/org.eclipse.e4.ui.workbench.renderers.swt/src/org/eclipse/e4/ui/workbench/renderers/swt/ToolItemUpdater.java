@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 IBM Corporation and others.
+ * Copyright (c) 2014, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,28 +12,44 @@
 package org.eclipse.e4.ui.workbench.renderers.swt;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import org.eclipse.e4.ui.workbench.Selector;
 
 public class ToolItemUpdater {
 
-	private List<AbstractContributionItem> itemsToCheck = new ArrayList<>();
+	private Set<AbstractContributionItem> itemsToCheck = new LinkedHashSet<>();
 	private final List<AbstractContributionItem> orphanedToolItems = new ArrayList<>();
 
+	/**
+	 * The number of updates of the items, and of the evaluations of their
+	 * enablement.
+	 */
+	private int updateCount;
+	private int evaluationCount;
+
 	void registerItem(AbstractContributionItem item) {
-		if (!itemsToCheck.contains(item)) {
-			itemsToCheck.add(item);
-		}
+		itemsToCheck.add(item);
 	}
 
 	void removeItem(AbstractContributionItem item) {
 		itemsToCheck.remove(item);
 	}
 
+	/**
+	 * Evaluates the enablement of the selected items once each.
+	 *
+	 * @param selector
+	 *            selects the items to update
+	 */
 	public void updateContributionItems(Selector selector) {
+		updateCount++;
 		for (final AbstractContributionItem ci : itemsToCheck) {
-			if (ci.getModel() != null && ci.getModel().getParent() != null && selector.select(ci.getModel())) {
-				ci.updateItemEnablement();
+			if (ci.getModel() != null && ci.getModel().getParent() != null) {
+				if (selector.select(ci.getModel())) {
+					ci.updateItemEnablement();
+				}
 			} else {
 				orphanedToolItems.add(ci);
 			}
@@ -43,4 +59,23 @@ public class ToolItemUpdater {
 			orphanedToolItems.clear();
 		}
 	}
+
+	void enablementEvaluated() {
+		evaluationCount++;
+	}
+
+	/**
+	 * @return the number of calls to
+	 *         {@link #updateContributionItems(Selector)}
+	 */
+	int getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * @return the number of evaluations of the enablement of the items
+	 */
+	int getEvaluationCount() {
+		return evaluationCount;
+	}
 }
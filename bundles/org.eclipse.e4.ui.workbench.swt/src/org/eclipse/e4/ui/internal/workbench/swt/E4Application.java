@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -367,6 +367,10 @@ public class E4Application implements IApplication {
 				.map(value -> Boolean.parseBoolean(value)).orElse(Boolean.FALSE);
 		eclipseContext.set(IWorkbench.CLEAR_PERSISTED_STATE, clearPersistedState);
 
+		Boolean binaryModel = getArgValue(E4Workbench.BINARY_MODEL, appContext, true)
+				.map(value -> Boolean.parseBoolean(value)).orElse(Boolean.FALSE);
+		eclipseContext.set(E4Workbench.BINARY_MODEL, binaryModel);
+
 		String resourceHandler = getArgValue(IWorkbench.MODEL_RESOURCE_HANDLER, appContext, false)
 				.orElse("bundleclass://org.eclipse.e4.ui.workbench/" + ResourceHandler.class.getName());
 
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectInputStream;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectOutputStream;
+
+/**
+ * Reads and writes the contents of an {@link E4XMIResource} in the EMF binary resource format
+ * rather than in XMI, which is several times faster to load and save and smaller.
+ * <p>
+ * The file starts with a signature and a version, written before the header of the EMF binary
+ * serialization so that the format is recognized from the first bytes. They are followed by the
+ * EMF binary serialization of the contents
+ * and by the XMI ids of all objects in the order of {@link E4XMIResource#getAllContents()},
+ * as the model assembler relies on them to merge the model fragments. Every string is written
+ * once and then referred to by its index, so the element ids, tags and contributor URIs repeated
+ * throughout the model are stored once and share one instance when loaded.
+ * </p>
+ */
+final class E4BinaryModelFormat {
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'E', '4', 'M', '\r', '\n', 0x1a, '\n' };
+
+	private static final int VERSION = 1;
+
+	private static final int NULL_STRING = -1;
+
+	private static final int NEW_STRING = 0;
+
+	private E4BinaryModelFormat() {
+	}
+
+	/**
+	 * Returns whether the stream starts with the signature of the binary format, leaving the
+	 * stream at its start.
+	 *
+	 * @param inputStream
+	 *            a stream supporting {@link InputStream#mark(int)}
+	 * @return <code>true</code> if the stream is in the binary format
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	static boolean isBinary(InputStream inputStream) throws IOException {
+		inputStream.mark(SIGNATURE.length);
+		try {
+			return readSignature(inputStream);
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	/**
+	 * Reads the bytes of the signature from the stream.
+	 *
+	 * @return <code>true</code> if they match the signature of the binary format
+	 */
+	private static boolean readSignature(InputStream inputStream) throws IOException {
+		byte[] start = new byte[SIGNATURE.length];
+		int count = 0;
+		while (count < start.length) {
+			int read = inputStream.read(start, count, start.length - count);
+			if (read < 0) {
+				return false;
+			}
+			count += read;
+		}
+		return Arrays.equals(start, SIGNATURE);
+	}
+
+	/**
+	 * Writes the contents of the resource.
+	 *
+	 * @param resource
+	 *            the resource
+	 * @param outputStream
+	 *            the stream, which is not closed
+	 * @param options
+	 *            the save options
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	static void save(E4XMIResource resource, OutputStream outputStream, Map<?, ?> options)
+			throws IOException {
+		// the EMF stream writes its own header when it is created
+		outputStream.write(SIGNATURE);
+		outputStream.write(VERSION);
+		InterningOutputStream out = new InterningOutputStream(outputStream, options);
+		out.saveResource(resource);
+
+		List<String> ids = new ArrayList<>();
+		for (TreeIterator<EObject> it = resource.getAllContents(); it.hasNext();) {
+			ids.add(resource.getID(it.next()));
+		}
+		out.writeCompressedInt(ids.size());
+		for (String id : ids) {
+			out.writeString(id);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads the contents of the resource.
+	 *
+	 * @param resource
+	 *            the resource
+	 * @param inputStream
+	 *            the stream, positioned at the signature
+	 * @param options
+	 *            the load options
+	 * @throws IOException
+	 *             if the stream cannot be read or is not in the binary format
+	 */
+	static void load(E4XMIResource resource, InputStream inputStream, Map<?, ?> options)
+			throws IOException {
+		// read before the EMF stream reads its own header when it is created
+		if (!readSignature(inputStream)) {
+			throw new IOException("Not a binary workbench model: " + resource.getURI()); //$NON-NLS-1$
+		}
+		int version = inputStream.read();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary workbench model version " + version //$NON-NLS-1$
+					+ ": " + resource.getURI()); //$NON-NLS-1$
+		}
+		InterningInputStream in = new InterningInputStream(inputStream, options);
+		in.loadResource(resource);
+
+		int ids = in.readCompressedInt();
+		TreeIterator<EObject> it = resource.getAllContents();
+		for (int i = 0; i < ids && it.hasNext(); i++) {
+			EObject eObject = it.next();
+			String id = in.readString();
+			if (id != null) {
+				resource.setID(eObject, id);
+			}
+		}
+	}
+
+	/**
+	 * Writes each string once, and its index in the strings written before afterwards.
+	 */
+	private static final class InterningOutputStream extends EObjectOutputStream {
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		InterningOutputStream(OutputStream outputStream, Map<?, ?> options) throws IOException {
+			super(outputStream, options);
+		}
+
+		@Override
+		public void writeString(String value) throws IOException {
+			if (value == null) {
+				writeCompressedInt(NULL_STRING);
+				return;
+			}
+			Integer index = strings.get(value);
+			if (index != null) {
+				writeCompressedInt(index.intValue() + 1);
+				return;
+			}
+			strings.put(value, strings.size());
+			writeCompressedInt(NEW_STRING);
+			super.writeString(value);
+		}
+	}
+
+	/**
+	 * Reads the strings written by {@link InterningOutputStream}.
+	 */
+	private static final class InterningInputStream extends EObjectInputStream {
+		private final List<String> strings = new ArrayList<>();
+
+		InterningInputStream(InputStream inputStream, Map<?, ?> options) throws IOException {
+			super(inputStream, options);
+		}
+
+		@Override
+		public String readString() throws IOException {
+			int code = readCompressedInt();
+			if (code == NULL_STRING) {
+				return null;
+			}
+			if (code == NEW_STRING) {
+				String value = super.readString();
+				strings.add(value);
+				return value;
+			}
+			if (code > strings.size()) {
+				throw new IOException("Invalid string reference " + code); //$NON-NLS-1$
+			}
+			return strings.get(code - 1);
+		}
+	}
+}
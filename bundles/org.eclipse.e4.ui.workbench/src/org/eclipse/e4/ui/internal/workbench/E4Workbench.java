@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2016 BestSolution.at and others.
+ * Copyright (c) 2008, 2017 BestSolution.at and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -83,6 +83,13 @@ public class E4Workbench implements IWorkbench {
 	 * Value is: <code>forcedShowLocation</code>
 	 */
 	public static final String FORCED_SHOW_LOCATION = "forcedShowLocation"; //$NON-NLS-1$
+	/**
+	 * The argument for whether the workbench model is saved in a compact binary format instead
+	 * of XMI. Models saved in either format are restored.<br>
+	 * <br>
+	 * Value is: <code>binaryModel</code>
+	 */
+	public static final String BINARY_MODEL = "binaryModel"; //$NON-NLS-1$
 
 	private final String id;
 	private ServiceRegistration<?> osgiRegistration;
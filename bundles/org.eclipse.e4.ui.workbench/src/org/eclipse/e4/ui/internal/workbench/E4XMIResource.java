@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,10 @@
 
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -33,6 +37,12 @@ import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
 
 public class E4XMIResource extends XMIResourceImpl {
 
+	/**
+	 * Save option to write the model in a compact binary format rather than in XMI, which can also
+	 * be set in the default save options. Resources are loaded from either format.
+	 */
+	public static final String OPTION_BINARY_FORMAT = "org.eclipse.e4.ui.workbench.binaryFormat"; //$NON-NLS-1$
+
 	private Map<EObject, String> objectMap = new WeakHashMap<>();
 	private Set<String> knownIds = new HashSet<>();
 
@@ -52,6 +62,27 @@ public class E4XMIResource extends XMIResourceImpl {
 		return objectMap.get(object);
 	}
 
+	@Override
+	public void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+		Object binary = options != null && options.containsKey(OPTION_BINARY_FORMAT) ? options.get(OPTION_BINARY_FORMAT)
+				: getDefaultSaveOptions().get(OPTION_BINARY_FORMAT);
+		if (Boolean.TRUE.equals(binary)) {
+			E4BinaryModelFormat.save(this, outputStream, options);
+		} else {
+			super.doSave(outputStream, options);
+		}
+	}
+
+	@Override
+	public void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+		if (E4BinaryModelFormat.isBinary(in)) {
+			E4BinaryModelFormat.load(this, in, options);
+		} else {
+			super.doLoad(in, options);
+		}
+	}
+
 	@Override
 	protected boolean useIDs() {
 		return true;
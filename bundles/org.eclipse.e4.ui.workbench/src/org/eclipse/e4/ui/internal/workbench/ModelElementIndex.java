@@ -0,0 +1,575 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.eclipse.e4.ui.model.application.MAddon;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.model.application.commands.MBindingContext;
+import org.eclipse.e4.ui.model.application.commands.MBindingTable;
+import org.eclipse.e4.ui.model.application.commands.MCommand;
+import org.eclipse.e4.ui.model.application.commands.MHandler;
+import org.eclipse.e4.ui.model.application.commands.MKeyBinding;
+import org.eclipse.e4.ui.model.application.impl.ApplicationPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.MElementContainer;
+import org.eclipse.e4.ui.model.application.ui.MUIElement;
+import org.eclipse.e4.ui.model.application.ui.advanced.MArea;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPerspective;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPerspectiveStack;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.workbench.modeling.EModelService;
+import org.eclipse.e4.ui.workbench.modeling.ElementMatcher;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+/**
+ * Indexes the elements of an application model by element id and tag, so that
+ * {@link EModelService#findElements(MUIElement, String, Class, List, int)}
+ * does not have to visit the whole model.
+ * <p>
+ * The index listens to the same EMF notifications that the
+ * {@link UIEventPublisher} turns into UI events, and is updated as elements are
+ * added, removed, renamed or tagged. It is the first adapter of every element,
+ * so that it is up to date when the publisher sends the events, even though it
+ * is created after the publisher. A query takes the elements with the
+ * requested id or tag and keeps those which the model traversal of the
+ * {@link ModelServiceImpl} would reach from the search root with the search
+ * flags, in the order of that traversal. Searches that cannot be answered from
+ * the index (a search of the shared areas only, placeholders referencing
+ * elements outside of the application) are left to the traversal.
+ * </p>
+ */
+class ModelElementIndex extends EContentAdapter {
+
+	/** The order in which the traversal visits the features of an element. */
+	private static final int APP_LISTS = 0;
+	private static final int BINDING_CONTEXT_CHILDREN = 1;
+	private static final int BINDING_TABLE_BINDINGS = 2;
+	private static final int CONTAINER_CHILDREN = 3;
+	private static final int TRIM_BARS = 4;
+	private static final int WINDOW_WINDOWS = 5;
+	private static final int MAIN_MENU = 6;
+	private static final int WINDOW_HANDLERS = 7;
+	private static final int PERSPECTIVE_WINDOWS = 8;
+	private static final int PLACEHOLDER_REF = 9;
+	private static final int PART_MENUS = 10;
+	private static final int PART_TOOLBAR = 11;
+	private static final int PART_HANDLERS = 12;
+
+	private static final int NOT_TRAVERSED = -1;
+	private static final int UNKNOWN = -2;
+
+	private static final int MAX_DEPTH = 200;
+
+	private static final long[] ROOT_PATH = new long[0];
+
+	private final MApplication application;
+
+	private final Map<String, Set<MApplicationElement>> byId = new HashMap<>();
+
+	private final Map<String, Set<MApplicationElement>> byTag = new HashMap<>();
+
+	private final Map<MUIElement, Set<MPlaceholder>> placeholdersByRef = new HashMap<>();
+
+	/** Whether all placeholders reference elements of the application, if known. */
+	private Boolean refsIndexed;
+
+	/**
+	 * Creates the index of the given application, which lasts until
+	 * {@link #dispose()} is called.
+	 *
+	 * @param application
+	 *            the application
+	 */
+	ModelElementIndex(MApplication application) {
+		this.application = application;
+		((EObject) application).eAdapters().add(0, this);
+	}
+
+	/**
+	 * @return the indexed application
+	 */
+	MApplication getApplication() {
+		return application;
+	}
+
+	/**
+	 * Stops listening to the application and discards the index.
+	 */
+	void dispose() {
+		((EObject) application).eAdapters().remove(this);
+		byId.clear();
+		byTag.clear();
+		placeholdersByRef.clear();
+	}
+
+	@Override
+	protected void addAdapter(Notifier notifier) {
+		List<Adapter> adapters = notifier.eAdapters();
+		if (!adapters.contains(this)) {
+			// handlers of the UI events see the index updated
+			adapters.add(0, this);
+		}
+	}
+
+	@Override
+	protected void setTarget(EObject target) {
+		super.setTarget(target);
+		if (target instanceof MApplicationElement) {
+			add((MApplicationElement) target);
+		}
+	}
+
+	@Override
+	protected void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		if (target instanceof MApplicationElement) {
+			remove((MApplicationElement) target);
+		}
+	}
+
+	private void add(MApplicationElement element) {
+		put(byId, element.getElementId(), element);
+		for (String tag : element.getTags()) {
+			put(byTag, tag, element);
+		}
+		if (element instanceof MPlaceholder) {
+			MUIElement ref = ((MPlaceholder) element).getRef();
+			if (ref != null) {
+				put(placeholdersByRef, ref, (MPlaceholder) element);
+			}
+		}
+		refsIndexed = null;
+	}
+
+	private void remove(MApplicationElement element) {
+		take(byId, element.getElementId(), element);
+		for (String tag : element.getTags()) {
+			take(byTag, tag, element);
+		}
+		if (element instanceof MPlaceholder) {
+			MUIElement ref = ((MPlaceholder) element).getRef();
+			if (ref != null) {
+				take(placeholdersByRef, ref, (MPlaceholder) element);
+			}
+		}
+		refsIndexed = null;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+
+		Object notifier = notification.getNotifier();
+		if (notification.isTouch() || !(notifier instanceof MApplicationElement)) {
+			return;
+		}
+		MApplicationElement element = (MApplicationElement) notifier;
+		Object feature = notification.getFeature();
+		if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__ELEMENT_ID) {
+			take(byId, (String) notification.getOldValue(), element);
+			put(byId, element.getElementId(), element);
+		} else if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__TAGS) {
+			switch (notification.getEventType()) {
+			case Notification.ADD:
+			case Notification.ADD_MANY:
+			case Notification.REMOVE:
+			case Notification.REMOVE_MANY:
+			case Notification.SET:
+			case Notification.UNSET:
+				for (Object tag : toCollection(notification.getOldValue())) {
+					if (!element.getTags().contains(tag)) {
+						take(byTag, (String) tag, element);
+					}
+				}
+				for (Object tag : toCollection(notification.getNewValue())) {
+					put(byTag, (String) tag, element);
+				}
+				break;
+			default:
+				break;
+			}
+		} else if (feature == AdvancedPackageImpl.Literals.PLACEHOLDER__REF) {
+			MPlaceholder placeholder = (MPlaceholder) element;
+			take(placeholdersByRef, (MUIElement) notification.getOldValue(), placeholder);
+			put(placeholdersByRef, placeholder.getRef(), placeholder);
+			refsIndexed = null;
+		}
+	}
+
+	private static Collection<?> toCollection(Object value) {
+		if (value instanceof Collection<?>) {
+			return (Collection<?>) value;
+		}
+		// the position of a REMOVE_MANY is an int[]
+		return value instanceof String ? Collections.singleton(value) : Collections.emptySet();
+	}
+
+	private static <K, V> void put(Map<K, Set<V>> map, K key, V value) {
+		if (key == null) {
+			return;
+		}
+		Set<V> values = map.get(key);
+		if (values == null) {
+			values = new LinkedHashSet<>(4);
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	private static <K, V> void take(Map<K, Set<V>> map, K key, V value) {
+		if (key == null) {
+			return;
+		}
+		Set<V> values = map.get(key);
+		if (values != null && values.remove(value) && values.isEmpty()) {
+			map.remove(key);
+		}
+	}
+
+	/**
+	 * Finds the elements matching the given criteria as the model traversal
+	 * would, or returns <code>null</code> if the index cannot answer the
+	 * search.
+	 *
+	 * @param searchRoot
+	 *            the element to search from, contained in the application
+	 * @param id
+	 *            the element id, or <code>null</code>
+	 * @param clazz
+	 *            the type of the elements, or <code>null</code>
+	 * @param tagsToMatch
+	 *            the tags that the elements must have, or <code>null</code>
+	 * @param searchFlags
+	 *            the search flags
+	 * @param primaryStacks
+	 *            returns the primary perspective stack of a window, or
+	 *            <code>null</code>
+	 * @return the matching elements in traversal order, or <code>null</code>
+	 */
+	<T> List<T> findElements(MApplicationElement searchRoot, String id, Class<T> clazz,
+			List<String> tagsToMatch, int searchFlags,
+			Function<MWindow, MPerspectiveStack> primaryStacks) {
+		if (searchFlags == 0 || (searchFlags & EModelService.IN_SHARED_AREA) != 0
+				&& (searchFlags & (EModelService.IN_ANY_PERSPECTIVE
+						| EModelService.IN_ACTIVE_PERSPECTIVE)) == 0
+				|| !((EObject) searchRoot).eAdapters().contains(this) || !areRefsIndexed()) {
+			return null;
+		}
+
+		Collection<MApplicationElement> candidates = null;
+		if (id != null) {
+			candidates = get(byId, id);
+		}
+		if (tagsToMatch != null) {
+			for (String tag : tagsToMatch) {
+				Collection<MApplicationElement> tagged = get(byTag, tag);
+				if (candidates == null || tagged.size() < candidates.size()) {
+					candidates = tagged;
+				}
+			}
+		}
+		if (candidates == null) {
+			return null;
+		}
+
+		ElementMatcher matcher = new ElementMatcher(id, clazz, tagsToMatch);
+		Query query = new Query(searchRoot, clazz, searchFlags, primaryStacks);
+		List<MApplicationElement> matches = new ArrayList<>();
+		Map<MApplicationElement, long[]> paths = new HashMap<>();
+		for (MApplicationElement candidate : candidates) {
+			if (!matcher.select(candidate)) {
+				continue;
+			}
+			long[] path = query.getPath(candidate, 0);
+			if (query.unknown) {
+				return null;
+			}
+			if (path != null) {
+				matches.add(candidate);
+				paths.put(candidate, path);
+			}
+		}
+		matches.sort((first, second) -> compare(paths.get(first), paths.get(second)));
+
+		@SuppressWarnings("unchecked")
+		List<T> elements = (List<T>) matches;
+		return elements;
+	}
+
+	private static <K> Collection<MApplicationElement> get(Map<K, Set<MApplicationElement>> map, K key) {
+		Set<MApplicationElement> elements = map.get(key);
+		return elements == null ? Collections.<MApplicationElement> emptySet() : elements;
+	}
+
+	private boolean areRefsIndexed() {
+		if (refsIndexed == null) {
+			boolean indexed = true;
+			for (MUIElement ref : placeholdersByRef.keySet()) {
+				if (!((EObject) ref).eAdapters().contains(this)) {
+					indexed = false;
+					break;
+				}
+			}
+			refsIndexed = indexed;
+		}
+		return refsIndexed;
+	}
+
+	private static int compare(long[] first, long[] second) {
+		int length = Math.min(first.length, second.length);
+		for (int i = 0; i < length; i++) {
+			if (first[i] != second[i]) {
+				return first[i] < second[i] ? -1 : 1;
+			}
+		}
+		return first.length - second.length;
+	}
+
+	private static long key(int feature, int index) {
+		return ((long) feature << 32) | index;
+	}
+
+	private static long[] append(long[] path, long key) {
+		long[] result = new long[path.length + 1];
+		System.arraycopy(path, 0, result, 0, path.length);
+		result[path.length] = key;
+		return result;
+	}
+
+	/**
+	 * Computes the first path of the model traversal from the search root to
+	 * an element, walking up the containment hierarchy and the placeholders.
+	 */
+	private class Query {
+		final MApplicationElement root;
+		final Class<?> clazz;
+		final int flags;
+		final Function<MWindow, MPerspectiveStack> primaryStacks;
+		final Map<Object, long[]> paths = new HashMap<>();
+		final Map<MWindow, MPerspectiveStack> windowStacks = new HashMap<>();
+		boolean unknown;
+
+		Query(MApplicationElement root, Class<?> clazz, int flags,
+				Function<MWindow, MPerspectiveStack> primaryStacks) {
+			this.root = root;
+			this.clazz = clazz;
+			this.flags = flags;
+			this.primaryStacks = primaryStacks;
+		}
+
+		/**
+		 * @return the path from the root, or <code>null</code> if the element
+		 *         is not reached
+		 */
+		long[] getPath(MApplicationElement element, int depth) {
+			if (element == root) {
+				return ROOT_PATH;
+			}
+			if (paths.containsKey(element)) {
+				return paths.get(element);
+			}
+			if (depth > MAX_DEPTH) {
+				unknown = true;
+				return null;
+			}
+			// guards against cycles through placeholders
+			paths.put(element, null);
+
+			long[] best = null;
+			EObject eObject = (EObject) element;
+			EObject container = eObject.eContainer();
+			if (container instanceof MApplicationElement) {
+				MApplicationElement parent = (MApplicationElement) container;
+				Object value = container.eGet(eObject.eContainmentFeature());
+				int feature = getFeature(parent, value, element);
+				if (feature == UNKNOWN) {
+					unknown = true;
+					return null;
+				}
+				if (feature != NOT_TRAVERSED) {
+					best = getPath(parent, depth + 1, feature, value, element, best);
+				}
+				if (parent instanceof MPerspectiveStack) {
+					// the perspectives of a primary stack are searched from
+					// the window
+					MWindow window = getWindow((MPerspectiveStack) parent);
+					if (window != null && getPrimaryStack(window) == parent) {
+						feature = getPerspectiveFeature((MPerspectiveStack) parent, element);
+						if (feature == UNKNOWN) {
+							unknown = true;
+							return null;
+						}
+						if (feature != NOT_TRAVERSED) {
+							best = getPath(window, depth + 1, feature, value, element, best);
+						}
+					}
+				}
+			}
+			Set<MPlaceholder> placeholders = placeholdersByRef.get(element);
+			if (placeholders != null
+					&& (!(element instanceof MArea) || (flags & EModelService.IN_SHARED_AREA) != 0)) {
+				for (MPlaceholder placeholder : placeholders) {
+					long[] path = getPath(placeholder, depth + 1);
+					if (path != null) {
+						path = append(path, key(PLACEHOLDER_REF, 0));
+						if (best == null || compare(path, best) < 0) {
+							best = path;
+						}
+					}
+				}
+			}
+			if (unknown) {
+				return null;
+			}
+			paths.put(element, best);
+			return best;
+		}
+
+		private long[] getPath(MApplicationElement parent, int depth, int feature, Object value,
+				MApplicationElement element, long[] best) {
+			long[] path = getPath(parent, depth);
+			if (path == null) {
+				return best;
+			}
+			int index = value instanceof List<?> ? ((List<?>) value).indexOf(element) : 0;
+			path = append(path, key(feature, index));
+			return best == null || compare(path, best) < 0 ? path : best;
+		}
+
+		private MWindow getWindow(MPerspectiveStack stack) {
+			EObject container = ((EObject) stack).eContainer();
+			if (container != null && !(container instanceof MWindow)) {
+				container = container.eContainer();
+			}
+			return container instanceof MWindow ? (MWindow) container : null;
+		}
+
+		private MPerspectiveStack getPrimaryStack(MWindow window) {
+			if ((flags & EModelService.OUTSIDE_PERSPECTIVE) != 0) {
+				return null;
+			}
+			if (!windowStacks.containsKey(window)) {
+				windowStacks.put(window, primaryStacks.apply(window));
+			}
+			return windowStacks.get(window);
+		}
+
+		private int getPerspectiveFeature(MPerspectiveStack stack, MApplicationElement perspective) {
+			if ((flags & EModelService.IN_ANY_PERSPECTIVE) != 0) {
+				return CONTAINER_CHILDREN;
+			} else if ((flags & EModelService.IN_ACTIVE_PERSPECTIVE) != 0) {
+				return stack.getSelectedElement() == perspective ? CONTAINER_CHILDREN : NOT_TRAVERSED;
+			} else if ((flags & EModelService.IN_SHARED_AREA) != 0) {
+				return UNKNOWN;
+			}
+			return NOT_TRAVERSED;
+		}
+
+		/**
+		 * @return the feature of the parent through which the traversal
+		 *         reaches the element, {@link #NOT_TRAVERSED} or
+		 *         {@link #UNKNOWN}
+		 */
+		private int getFeature(MApplicationElement parent, Object value, MApplicationElement element) {
+			if (parent instanceof MApplication) {
+				MApplication app = (MApplication) parent;
+				if (value == app.getChildren()) {
+					return CONTAINER_CHILDREN;
+				}
+				if (flags != EModelService.ANYWHERE || clazz == null) {
+					return NOT_TRAVERSED;
+				}
+				if (value == app.getHandlers() && clazz.equals(MHandler.class)
+						|| value == app.getCommands() && clazz.equals(MCommand.class)
+						|| value == app.getBindingContexts() && clazz.equals(MBindingContext.class)
+						|| value == app.getBindingTables()
+								&& (clazz.equals(MBindingTable.class) || clazz.equals(MKeyBinding.class))
+						|| value == app.getAddons() && clazz.equals(MAddon.class)) {
+					return APP_LISTS;
+				}
+				return NOT_TRAVERSED;
+			}
+			if (parent instanceof MBindingContext) {
+				return flags == EModelService.ANYWHERE
+						&& value == ((MBindingContext) parent).getChildren() ? BINDING_CONTEXT_CHILDREN
+								: NOT_TRAVERSED;
+			}
+			if (parent instanceof MBindingTable) {
+				return value == ((MBindingTable) parent).getBindings() ? BINDING_TABLE_BINDINGS
+						: NOT_TRAVERSED;
+			}
+			if (parent instanceof MElementContainer<?> && value == ((MElementContainer<?>) parent).getChildren()) {
+				if (parent instanceof MPerspectiveStack) {
+					return getPerspectiveFeature((MPerspectiveStack) parent, element);
+				}
+				if (parent instanceof MWindow && getPrimaryStack((MWindow) parent) != null) {
+					// only the primary perspective stack is searched
+					return NOT_TRAVERSED;
+				}
+				return CONTAINER_CHILDREN;
+			}
+			if (parent instanceof MWindow) {
+				MWindow window = (MWindow) parent;
+				if (window instanceof MTrimmedWindow && value == ((MTrimmedWindow) window).getTrimBars()) {
+					return (flags & EModelService.IN_TRIM) != 0 ? TRIM_BARS : NOT_TRAVERSED;
+				}
+				if (value == window.getWindows()) {
+					return WINDOW_WINDOWS;
+				}
+				if (value == window.getMainMenu()) {
+					return (flags & EModelService.IN_MAIN_MENU) != 0 ? MAIN_MENU : NOT_TRAVERSED;
+				}
+				if (value == window.getHandlers()) {
+					return flags == EModelService.ANYWHERE && MHandler.class.equals(clazz) ? WINDOW_HANDLERS
+							: NOT_TRAVERSED;
+				}
+				return NOT_TRAVERSED;
+			}
+			if (parent instanceof MPerspective) {
+				return value == ((MPerspective) parent).getWindows() ? PERSPECTIVE_WINDOWS : NOT_TRAVERSED;
+			}
+			if (parent instanceof MPart) {
+				MPart part = (MPart) parent;
+				if ((flags & EModelService.IN_PART) == 0) {
+					return NOT_TRAVERSED;
+				}
+				if (value == part.getMenus()) {
+					return PART_MENUS;
+				}
+				if (value == part.getToolbar()) {
+					return PART_TOOLBAR;
+				}
+				if (value == part.getHandlers()) {
+					return MHandler.class.equals(clazz) ? PART_HANDLERS : NOT_TRAVERSED;
+				}
+			}
+			return NOT_TRAVERSED;
+		}
+	}
+}
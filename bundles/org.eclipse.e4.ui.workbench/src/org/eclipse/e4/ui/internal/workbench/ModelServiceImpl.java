@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 IBM Corporation and others.
+ * Copyright (c) 2010, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,6 +77,9 @@ public class ModelServiceImpl implements EModelService {
 	/** Factory which is able to create {@link MApplicationElement}s in a generic way. */
 	private GenericMApplicationElementFactoryImpl mApplicationElementFactory;
 
+	/** Index of the application searched last, created on the first search by id or tag. */
+	private ModelElementIndex elementIndex;
+
 	// Cleans up after a hosted element is disposed
 	private EventHandler hostedElementHandler = new EventHandler() {
 
@@ -379,17 +382,46 @@ public class ModelServiceImpl implements EModelService {
 	@Override
 	public <T> List<T> findElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch) {
-		ElementMatcher matcher = new ElementMatcher(id, clazz, tagsToMatch);
-		return findElements(searchRoot, clazz, ANYWHERE, matcher);
+		return findElements(searchRoot, id, clazz, tagsToMatch, ANYWHERE);
 	}
 
 	@Override
 	public <T> List<T> findElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch, int searchFlags) {
+		List<T> elements = findIndexedElements(searchRoot, id, clazz, tagsToMatch, searchFlags);
+		if (elements != null) {
+			return elements;
+		}
 		ElementMatcher matcher = new ElementMatcher(id, clazz, tagsToMatch);
 		return findElements(searchRoot, clazz, searchFlags, matcher);
 	}
 
+	/**
+	 * Looks the elements with the given id or tags up in the index of the
+	 * application containing the search root.
+	 *
+	 * @return the elements in the order of the traversal, or <code>null</code>
+	 *         if the search must traverse the model
+	 */
+	private <T> List<T> findIndexedElements(MUIElement searchRoot, String id, Class<T> clazz,
+			List<String> tagsToMatch, int searchFlags) {
+		if (searchRoot == null || id == null && (tagsToMatch == null || tagsToMatch.isEmpty())) {
+			return null;
+		}
+		EObject root = EcoreUtil.getRootContainer((EObject) searchRoot);
+		if (!(root instanceof MApplication)) {
+			return null;
+		}
+		if (elementIndex == null || elementIndex.getApplication() != root) {
+			if (elementIndex != null) {
+				elementIndex.dispose();
+			}
+			elementIndex = new ModelElementIndex((MApplication) root);
+		}
+		return elementIndex.findElements(searchRoot, id, clazz, tagsToMatch, searchFlags,
+				this::getPrimaryPerspectiveStack);
+	}
+
 	@Override
 	public <T> List<T> findElements(MApplicationElement searchRoot, Class<T> clazz,
 			int searchFlags, Selector matcher) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -75,6 +75,15 @@ public class ResourceHandler implements IModelResourceHandler {
 	@Named(E4Workbench.INSTANCE_LOCATION)
 	private Location instanceLocation;
 
+	/**
+	 * Whether the model is saved in the binary format of {@link E4XMIResource}. Models saved in
+	 * either format are loaded.
+	 */
+	@Inject
+	@Optional
+	@Named(E4Workbench.BINARY_MODEL)
+	private Boolean binaryModel;
+
 	/**
 	 * Dictates whether the model should be stored using EMF or with the merging algorithm.
 	 * https://bugs.eclipse.org/bugs/show_bug.cgi?id=295524
@@ -187,6 +196,8 @@ public class ResourceHandler implements IModelResourceHandler {
 			initialModel = false;
 		}
 
+		setSaveFormat(resource);
+
 		// Add model items described in the model extension point
 		// This has to be done before commands are put into the context
 		MApplication appElement = (MApplication) resource.getContents().get(0);
@@ -230,11 +241,26 @@ public class ResourceHandler implements IModelResourceHandler {
 	}
 
 	private Resource createResource() {
+		Resource res;
 		if (saveAndRestore) {
 			URI saveLocation = URI.createFileURI(getWorkbenchSaveLocation().getAbsolutePath());
-			return resourceSetImpl.createResource(saveLocation);
+			res = resourceSetImpl.createResource(saveLocation);
+		} else {
+			res = resourceSetImpl.createResource(URI.createURI("workbench.xmi")); //$NON-NLS-1$
+		}
+		setSaveFormat(res);
+		return res;
+	}
+
+	/**
+	 * Makes the resource save the model in the binary format if requested, including when it is
+	 * saved by others such as the auto-save of the workbench.
+	 */
+	private void setSaveFormat(Resource res) {
+		if (Boolean.TRUE.equals(binaryModel) && res instanceof E4XMIResource) {
+			((E4XMIResource) res).getDefaultSaveOptions().put(E4XMIResource.OPTION_BINARY_FORMAT,
+					Boolean.TRUE);
 		}
-		return resourceSetImpl.createResource(URI.createURI("workbench.xmi")); //$NON-NLS-1$
 	}
 
 	private File getWorkbenchSaveLocation() {
@@ -267,13 +293,19 @@ public class ResourceHandler implements IModelResourceHandler {
 		}
 
 		// TODO once we switch from deltas, we only need this once on the default model?
+		// Only models loaded from a bundle are walked: the persisted model has a file URI and
+		// keeps the contributor URIs saved with it, in either format.
 		String contributorURI = URIHelper.EMFtoPlatform(uri);
 		if (contributorURI != null) {
 			TreeIterator<EObject> it = EcoreUtil.getAllContents(resource.getContents());
 			while (it.hasNext()) {
 				EObject o = it.next();
 				if (o instanceof MApplicationElement) {
-					((MApplicationElement) o).setContributorURI(contributorURI);
+					MApplicationElement element = (MApplicationElement) o;
+					// avoid the notification if the contributor is set already
+					if (!contributorURI.equals(element.getContributorURI())) {
+						element.setContributorURI(contributorURI);
+					}
 				}
 			}
 		}
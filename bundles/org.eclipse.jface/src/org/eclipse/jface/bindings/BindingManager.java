@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -83,6 +84,12 @@ public final class BindingManager extends HandleObjectManager implements
 	 */
 	private static final String LOCALE_SEPARATOR = "_"; //$NON-NLS-1$
 
+	/**
+	 * The number of computed binding sets kept in the cache. Each distinct set
+	 * of active contexts has its own binding set.
+	 */
+	private static final int MAX_CACHED_BINDING_SETS = 32;
+
 	private Map currentConflicts = null;
 
 	/**
@@ -222,9 +229,27 @@ public final class BindingManager extends HandleObjectManager implements
 	/**
 	 * A cache of the bindings previously computed by this manager. This value
 	 * may be empty, but it is never <code>null</code>. This is a map of
-	 * <code>CachedBindingSet</code> to <code>CachedBindingSet</code>.
+	 * <code>CachedBindingSet</code> to <code>CachedBindingSet</code>, which
+	 * drops the least recently used binding set once it holds
+	 * <code>MAX_CACHED_BINDING_SETS</code> sets.
+	 */
+	private Map cachedBindings = new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_CACHED_BINDING_SETS;
+		}
+	};
+
+	/**
+	 * The bindings which are not deleted and which match the locales,
+	 * platforms and schemes, by context identifier. These do not depend on the
+	 * active contexts, so that a change of the active contexts only looks at
+	 * the bindings of the active contexts. This value is <code>null</code> if
+	 * it has not been computed since the bindings changed.
 	 */
-	private Map cachedBindings = new HashMap();
+	private ContextContributions contextContributions;
 
 	/**
 	 * The command manager for this binding manager. This manager is only needed
@@ -428,6 +453,7 @@ public final class BindingManager extends HandleObjectManager implements
 			Tracing.printTrace("BINDINGS", "Clearing cache"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		cachedBindings.clear();
+		contextContributions = null;
 		clearSolution();
 	}
 
@@ -442,6 +468,61 @@ public final class BindingManager extends HandleObjectManager implements
 		setActiveBindings(null, null, null, null);
 	}
 
+	/**
+	 * <p>
+	 * Returns the bindings which are not deleted and which match the current
+	 * locale, platform and schemes, by context. These are computed again if
+	 * the bindings, the locale, the platform or the schemes changed.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(1)</code>. If the contributions are not
+	 * computed, then this completes in <code>O(n)</code>, where
+	 * <code>n</code> is the number of bindings.
+	 * </p>
+	 *
+	 * @return The contributions of the contexts; never <code>null</code>.
+	 */
+	private final ContextContributions getContextContributions() {
+		if ((contextContributions != null)
+				&& contextContributions.isFor(locales, platforms,
+						activeSchemeIds)) {
+			return contextContributions;
+		}
+
+		final Binding[] trimmedBindings = removeDeletions(bindings);
+		final List matchingBindings = new ArrayList(trimmedBindings.length);
+		for (final Binding binding : trimmedBindings) {
+			if (localeMatches(binding) && platformMatches(binding)
+					&& schemeMatches(binding)) {
+				matchingBindings.add(binding);
+			}
+		}
+		contextContributions = new ContextContributions(locales, platforms,
+				activeSchemeIds, (Binding[]) matchingBindings
+						.toArray(new Binding[matchingBindings.size()]));
+		return contextContributions;
+	}
+
+	/**
+	 * Returns whether the binding belongs to one of the active schemes.
+	 *
+	 * @param binding
+	 *            The binding to check; must not be <code>null</code>.
+	 * @return <code>true</code> if the binding's scheme is active.
+	 */
+	private final boolean schemeMatches(final Binding binding) {
+		if (activeSchemeIds == null) {
+			return false;
+		}
+		final String schemeId = binding.getSchemeId();
+		for (String activeSchemeId : activeSchemeIds) {
+			if (Util.equals(schemeId, activeSchemeId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Compares the identifier of two schemes, and decides which scheme is the
 	 * youngest (i.e., the child) of the two. Both schemes should be active
@@ -514,52 +595,20 @@ public final class BindingManager extends HandleObjectManager implements
 			final Map bindingsByTrigger, final Map triggersByCommandId,
 			final Map conflictsByTrigger) {
 		/*
-		 * FIRST PASS: Remove all of the bindings that are marking deletions.
+		 * FIRST PASS: Remove all of the bindings that are marking deletions,
+		 * and the bindings that do not match the current locale, platform and
+		 * schemes. This does not depend on the contexts, and is cached.
 		 */
-		final Binding[] trimmedBindings = removeDeletions(bindings);
+		final ContextContributions contributions = getContextContributions();
+		final Binding[] matchingBindings = (activeContextTree == null) ? contributions.bindings
+				: contributions.getBindings(activeContextTree.keySet());
 
 		/*
 		 * SECOND PASS: Just throw in bindings that match the current state. If
 		 * there is more than one match for a binding, then create a list.
 		 */
 		final Map possibleBindings = new HashMap();
-		final int length = trimmedBindings.length;
-		for (int i = 0; i < length; i++) {
-			final Binding binding = trimmedBindings[i];
-			boolean found;
-
-			// Check the context.
-			final String contextId = binding.getContextId();
-			if ((activeContextTree != null)
-					&& (!activeContextTree.containsKey(contextId))) {
-				continue;
-			}
-
-			// Check the locale.
-			if (!localeMatches(binding)) {
-				continue;
-			}
-
-			// Check the platform.
-			if (!platformMatches(binding)) {
-				continue;
-			}
-
-			// Check the scheme ids.
-			final String schemeId = binding.getSchemeId();
-			found = false;
-			if (activeSchemeIds != null) {
-				for (String activeSchemeId : activeSchemeIds) {
-					if (Util.equals(schemeId, activeSchemeId)) {
-						found = true;
-						break;
-					}
-				}
-			}
-			if (!found) {
-				continue;
-			}
-
+		for (final Binding binding : matchingBindings) {
 			// Insert the match into the list of possible matches.
 			final TriggerSequence trigger = binding.getTriggerSequence();
 			final Object existingMatch = possibleBindings.get(trigger);
@@ -2354,4 +2403,113 @@ public final class BindingManager extends HandleObjectManager implements
 					null, false, null, false, false, true));
 		}
 	}
+
+	/**
+	 * The bindings which are not deleted and which match given locales,
+	 * platforms and schemes, with the indices of these bindings by context
+	 * identifier.
+	 */
+	private static final class ContextContributions {
+
+		private final String[] locales;
+
+		private final String[] platforms;
+
+		private final String[] schemeIds;
+
+		/**
+		 * The matching bindings, in the order of the bindings of the manager.
+		 */
+		private final Binding[] bindings;
+
+		/**
+		 * The ascending indices of the bindings (<code>int[]</code>) by
+		 * context identifier (<code>String</code>).
+		 */
+		private final Map indicesByContextId = new HashMap();
+
+		private ContextContributions(final String[] locales,
+				final String[] platforms, final String[] schemeIds,
+				final Binding[] bindings) {
+			this.locales = locales;
+			this.platforms = platforms;
+			this.schemeIds = schemeIds;
+			this.bindings = bindings;
+
+			final Map indexListsByContextId = new HashMap();
+			for (int i = 0; i < bindings.length; i++) {
+				final String contextId = bindings[i].getContextId();
+				List indexList = (List) indexListsByContextId.get(contextId);
+				if (indexList == null) {
+					indexList = new ArrayList();
+					indexListsByContextId.put(contextId, indexList);
+				}
+				indexList.add(Integer.valueOf(i));
+			}
+			final Iterator entryItr = indexListsByContextId.entrySet()
+					.iterator();
+			while (entryItr.hasNext()) {
+				final Map.Entry entry = (Map.Entry) entryItr.next();
+				final List indexList = (List) entry.getValue();
+				final int[] indices = new int[indexList.size()];
+				for (int i = 0; i < indices.length; i++) {
+					indices[i] = ((Integer) indexList.get(i)).intValue();
+				}
+				indicesByContextId.put(entry.getKey(), indices);
+			}
+		}
+
+		/**
+		 * Returns whether these contributions were computed for the given
+		 * state of the manager.
+		 */
+		private final boolean isFor(final String[] locales,
+				final String[] platforms, final String[] schemeIds) {
+			return Arrays.equals(this.locales, locales)
+					&& Arrays.equals(this.platforms, platforms)
+					&& Arrays.equals(this.schemeIds, schemeIds);
+		}
+
+		/**
+		 * Returns the bindings of the given contexts, in the order of the
+		 * bindings of the manager, so that the bindings computed from them are
+		 * the same as when looking at all bindings.
+		 *
+		 * @param contextIds
+		 *            The identifiers of the active contexts (
+		 *            <code>String</code>); must not be <code>null</code>.
+		 * @return The bindings of the contexts; never <code>null</code>.
+		 */
+		private final Binding[] getBindings(final Collection contextIds) {
+			int size = 0;
+			final List indicesList = new ArrayList(contextIds.size());
+			final Iterator contextIdItr = contextIds.iterator();
+			while (contextIdItr.hasNext()) {
+				final int[] indices = (int[]) indicesByContextId
+						.get(contextIdItr.next());
+				if (indices != null) {
+					indicesList.add(indices);
+					size += indices.length;
+				}
+			}
+
+			final int[] allIndices = new int[size];
+			int index = 0;
+			final Iterator indicesItr = indicesList.iterator();
+			while (indicesItr.hasNext()) {
+				final int[] indices = (int[]) indicesItr.next();
+				System.arraycopy(indices, 0, allIndices, index, indices.length);
+				index += indices.length;
+			}
+			if (indicesList.size() > 1) {
+				Arrays.sort(allIndices);
+			}
+
+			final Binding[] result = new Binding[size];
+			for (int i = 0; i < size; i++) {
+				result[i] = bindings[allIndices[i]];
+			}
+			return result;
+		}
+	}
 }
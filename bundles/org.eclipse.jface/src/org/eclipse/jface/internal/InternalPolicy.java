@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -60,6 +60,14 @@ public class InternalPolicy {
 	 */
 	public static boolean DEBUG_TRACE_URL_IMAGE_DESCRIPTOR = false;
 
+	/**
+	 * (NON-API) Trace the number of images allocated by the resource managers
+	 * of the devices, and the use of the cache of decoded image data.
+	 *
+	 * @since 3.13
+	 */
+	public static boolean DEBUG_TRACE_IMAGE_RESOURCES = false;
+
 	/**
 	 * (NON-API) Log cases where an "@2x" image could not be found.
 	 *
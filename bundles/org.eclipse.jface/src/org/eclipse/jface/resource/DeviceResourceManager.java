@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jface.resource;
 
+import org.eclipse.jface.internal.InternalPolicy;
 import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Image;
 
@@ -33,6 +34,11 @@ public final class DeviceResourceManager extends AbstractResourceManager {
     private Device device;
     private Image missingImage;
 
+    /**
+     * The number of images allocated by this manager and not yet deallocated.
+     */
+    private int imageCount;
+
     @Override
 	public Device getDevice() {
         return device;
@@ -49,12 +55,28 @@ public final class DeviceResourceManager extends AbstractResourceManager {
 
     @Override
 	protected Object allocate(DeviceResourceDescriptor descriptor) throws DeviceResourceException {
-        return descriptor.createResource(device);
+        Object resource = descriptor.createResource(device);
+        if (resource instanceof Image) {
+            imageCount++;
+            traceImages();
+        }
+        return resource;
     }
 
     @Override
 	protected void deallocate(Object resource, DeviceResourceDescriptor descriptor) {
         descriptor.destroyResource(resource);
+        if (resource instanceof Image) {
+            imageCount--;
+            traceImages();
+        }
+    }
+
+    private void traceImages() {
+        if (InternalPolicy.DEBUG_TRACE_IMAGE_RESOURCES) {
+            System.out.println("Images allocated for " + device + ": " + imageCount + ". " //$NON-NLS-1$ //$NON-NLS-2$
+                    + ImageDataCache.getStatistics());
+        }
     }
 
     @Override
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.resource;
+
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.swt.graphics.ImageData;
+
+/**
+ * A process wide cache of the image data decoded for the
+ * {@link URLImageDescriptor}s, and of the file paths they resolved, by URL of
+ * the image. The URL of a high resolution variant of an image differs from the
+ * URL of the image, so that the zoom level is part of the key. Missing
+ * variants are cached too, so that they are only looked for once.
+ * <p>
+ * The image data is only softly referenced, and the cache drops the least
+ * recently used images beyond {@link #MAX_IMAGES}. Images with a
+ * <code>file</code> URL are not cached, as the file may change, whereas the
+ * contents of the bundles do not change while running.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+final class ImageDataCache {
+
+	private static final int MAX_IMAGES = 512;
+
+	private static final int MAX_FILE_PATHS = 4096;
+
+	private static final String FILE_PROTOCOL = "file"; //$NON-NLS-1$
+
+	/**
+	 * The image data by URL. A <code>null</code> value stands for an image
+	 * which could not be loaded.
+	 */
+	private static final Map<String, SoftReference<ImageData>> imageData = new LinkedHashMap<String, SoftReference<ImageData>>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SoftReference<ImageData>> eldest) {
+			return size() > MAX_IMAGES;
+		}
+	};
+
+	/**
+	 * The file paths by URL. A <code>null</code> value stands for an image
+	 * which is not a file.
+	 */
+	private static final Map<String, String> filePaths = new LinkedHashMap<String, String>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_FILE_PATHS;
+		}
+	};
+
+	private static int hits;
+
+	private static int misses;
+
+	private ImageDataCache() {
+	}
+
+	/**
+	 * Returns the image data of the image at the given URL, decoding it with
+	 * the loader if it is not cached. The image data returned is a copy, which
+	 * the caller may change.
+	 *
+	 * @param url
+	 *            the URL of the image
+	 * @param loader
+	 *            decodes the image, returns <code>null</code> if it cannot
+	 * @return the image data, or <code>null</code> if the image could not be
+	 *         loaded
+	 */
+	static ImageData getImageData(URL url, Function<URL, ImageData> loader) {
+		if (FILE_PROTOCOL.equalsIgnoreCase(url.getProtocol())) {
+			return loader.apply(url);
+		}
+		String key = url.toExternalForm();
+		synchronized (imageData) {
+			if (imageData.containsKey(key)) {
+				SoftReference<ImageData> reference = imageData.get(key);
+				if (reference == null) {
+					hits++;
+					return null;
+				}
+				ImageData data = reference.get();
+				if (data != null) {
+					hits++;
+					return (ImageData) data.clone();
+				}
+			}
+			misses++;
+		}
+		// decode outside of the lock, an image decoded twice is harmless
+		ImageData data = loader.apply(url);
+		synchronized (imageData) {
+			imageData.put(key, data == null ? null : new SoftReference<>(data));
+		}
+		return data == null ? null : (ImageData) data.clone();
+	}
+
+	/**
+	 * Returns the file path of the image at the given URL, resolving it with
+	 * the resolver if it is not cached.
+	 *
+	 * @param url
+	 *            the URL of the image
+	 * @param resolver
+	 *            returns the file path, or <code>null</code> if the image is
+	 *            not a file or does not exist
+	 * @return the file path, or <code>null</code>
+	 */
+	static String getFilePath(URL url, Function<URL, String> resolver) {
+		if (FILE_PROTOCOL.equalsIgnoreCase(url.getProtocol())) {
+			return resolver.apply(url);
+		}
+		String key = url.toExternalForm();
+		synchronized (filePaths) {
+			if (filePaths.containsKey(key)) {
+				return filePaths.get(key);
+			}
+		}
+		String path = resolver.apply(url);
+		synchronized (filePaths) {
+			filePaths.put(key, path);
+		}
+		return path;
+	}
+
+	/**
+	 * @return a description of the use of the cache, for tracing
+	 */
+	static String getStatistics() {
+		synchronized (imageData) {
+			return "Image data cache: " + imageData.size() + " images, " + hits + " hits, " + misses //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ " misses"; //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.resource;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageDataProvider;
+
+/**
+ * Decodes the image data of image descriptors in background threads, for
+ * {@link ResourceManager#createImageAsync(ImageDescriptor, Image, Runnable)}.
+ * Only the descriptors of image files and URLs are decoded, as other
+ * descriptors may expect to be called in the thread of the display. The
+ * decoded image data is kept until an image is created from it by
+ * {@link ImageDescriptor#createResource(Device)}, softly referenced, for at
+ * most {@link #MAX_DECODED} descriptors.
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+final class ImageDecoder {
+
+	private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 5, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "JFace Image Decoder"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.setPriority(Thread.NORM_PRIORITY - 1);
+				return thread;
+			});
+
+	static {
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * The most descriptors whose decoded image data is kept. The image data of
+	 * the descriptors decoded first is dropped beyond that, and decoded again
+	 * in the calling thread if an image is created from it later.
+	 */
+	static final int MAX_DECODED = 1000;
+
+	/**
+	 * Softly references the decoded image data of a descriptor.
+	 */
+	private static final class DecodedReference extends SoftReference<ImageData[]> {
+		final ImageDescriptor descriptor;
+
+		DecodedReference(ImageDescriptor descriptor, ImageData[] data) {
+			super(data, cleared);
+			this.descriptor = descriptor;
+		}
+	}
+
+	/**
+	 * The references whose image data was collected.
+	 */
+	private static final ReferenceQueue<ImageData[]> cleared = new ReferenceQueue<>();
+
+	/**
+	 * The image data at 100% and 200% zoom by descriptor, in the order of
+	 * decoding. The image data at 100% is <code>null</code> if the image could
+	 * not be decoded.
+	 */
+	private static final Map<ImageDescriptor, DecodedReference> decoded = new LinkedHashMap<ImageDescriptor, DecodedReference>(
+			16, 0.75f, false) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ImageDescriptor, DecodedReference> eldest) {
+			return size() > MAX_DECODED;
+		}
+	};
+
+	/**
+	 * The decodings in progress.
+	 */
+	private static final Map<ImageDescriptor, CompletableFuture<Void>> pending = new HashMap<>();
+
+	/**
+	 * Whether any image was decoded in the background. Until then, images are
+	 * created without taking the lock of {@link #decoded}.
+	 */
+	private static volatile boolean used;
+
+	private ImageDecoder() {
+	}
+
+	/**
+	 * @param descriptor
+	 * @return <code>true</code> if the image data of the descriptor can be
+	 *         decoded in a background thread
+	 */
+	static boolean canDecode(ImageDescriptor descriptor) {
+		Class<?> type = descriptor.getClass();
+		return type == URLImageDescriptor.class || type == FileImageDescriptor.class;
+	}
+
+	/**
+	 * @param descriptor
+	 * @return <code>true</code> if the image of the descriptor was decoded
+	 *         and no image was created from it yet, or it could not be decoded
+	 */
+	static boolean isDecoded(ImageDescriptor descriptor) {
+		if (!used) {
+			return false;
+		}
+		synchronized (decoded) {
+			expungeCleared();
+			SoftReference<ImageData[]> reference = decoded.get(descriptor);
+			return reference != null && reference.get() != null;
+		}
+	}
+
+	/**
+	 * Removes the entries whose image data was collected. Must be called
+	 * holding the lock of {@link #decoded}.
+	 */
+	private static void expungeCleared() {
+		Reference<? extends ImageData[]> reference;
+		while ((reference = cleared.poll()) != null) {
+			ImageDescriptor descriptor = ((DecodedReference) reference).descriptor;
+			if (decoded.get(descriptor) == reference) {
+				decoded.remove(descriptor);
+			}
+		}
+	}
+
+	/**
+	 * Decodes the image data of the descriptor in the background, unless it is
+	 * decoded already.
+	 *
+	 * @param descriptor
+	 * @return completes once decoded, even if the image could not be decoded
+	 */
+	static CompletableFuture<Void> decode(ImageDescriptor descriptor) {
+		synchronized (decoded) {
+			used = true;
+			CompletableFuture<Void> future = pending.get(descriptor);
+			if (future == null) {
+				future = CompletableFuture.runAsync(() -> {
+					ImageData[] data = new ImageData[2];
+					try {
+						data[0] = descriptor.getImageData(100);
+						if (data[0] != null) {
+							data[1] = descriptor.getImageData(200);
+						}
+					} finally {
+						synchronized (decoded) {
+							expungeCleared();
+							decoded.put(descriptor, new DecodedReference(descriptor, data));
+							pending.remove(descriptor);
+						}
+					}
+				}, executor);
+				pending.put(descriptor, future);
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * Creates the image of the descriptor from the decoded image data.
+	 *
+	 * @param descriptor
+	 * @param device
+	 * @return the image, or <code>null</code> if the image data is not
+	 *         decoded
+	 */
+	static Image createImage(ImageDescriptor descriptor, Device device) {
+		if (!used) {
+			return null;
+		}
+		ImageData[] data;
+		synchronized (decoded) {
+			expungeCleared();
+			if (decoded.isEmpty()) {
+				return null;
+			}
+			SoftReference<ImageData[]> reference = decoded.remove(descriptor);
+			data = reference == null ? null : reference.get();
+		}
+		if (data == null || data[0] == null) {
+			return null;
+		}
+		// SWT asks for the image data again when the zoom changes
+		SoftReference<ImageData[]> reference = new SoftReference<>(data);
+		return new Image(device, (ImageDataProvider) zoom -> {
+			ImageData[] decodedData = reference.get();
+			if (decodedData != null && (zoom == 100 || zoom == 200)) {
+				return decodedData[zoom / 200];
+			}
+			return descriptor.getImageData(zoom);
+		});
+	}
+}
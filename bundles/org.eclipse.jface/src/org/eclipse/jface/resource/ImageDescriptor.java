@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -161,7 +161,11 @@ public abstract class ImageDescriptor extends DeviceResourceDescriptor {
 
     @Override
 	public Object createResource(Device device) throws DeviceResourceException {
-        Image result = createImage(false, device);
+        // use the image data decoded in the background, if any
+        Image result = ImageDecoder.createImage(this, device);
+        if (result == null) {
+            result = createImage(false, device);
+        }
         if (result == null) {
             throw new DeviceResourceException(this);
         }
@@ -315,6 +319,18 @@ public abstract class ImageDescriptor extends DeviceResourceDescriptor {
      */
     public abstract ImageData getImageData();
 
+    /**
+     * Returns the image data of this image for the given zoom level, in
+     * percent, for the decoding in the background.
+     *
+     * @param zoom the zoom level
+     * @return a new image data, or <code>null</code> if there is no image data
+     *         for the zoom level
+     */
+    ImageData getImageData(int zoom) {
+        return zoom == 100 ? getImageData() : null;
+    }
+
     /**
      * Returns the shared image descriptor for a missing image.
      *
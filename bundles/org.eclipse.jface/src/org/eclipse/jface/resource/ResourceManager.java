@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
 
 /**
  * This class manages SWT resources. It manages reference-counted instances of resources
@@ -205,6 +206,57 @@ public abstract class ResourceManager {
 		}
     }
 
+    /**
+     * Creates an image, given an image descriptor, without decoding the image in the
+     * calling thread. If the image is allocated already, or its image data was decoded,
+     * this returns the image as {@link #createImageWithDefault(ImageDescriptor)} does.
+     * Otherwise this returns the given placeholder, without allocating anything, and
+     * decodes the image data in a background thread. Once decoded, the given runnable
+     * runs in the thread of the display, so that the caller can ask for the image
+     * again. Only the image data of image files and URLs is decoded in the background,
+     * other descriptors are created as {@link #createImageWithDefault(ImageDescriptor)}
+     * does. Label providers typically use this to update the element showing the
+     * image:
+     *
+     * <pre>
+     * Image image = resourceManager.createImageAsync(descriptor, placeholder,
+     * 		() -&gt; viewer.update(element, null));
+     * </pre>
+     *
+     * Images allocated in this manner must be disposed by
+     * {@link #destroyImage(ImageDescriptor)}, unless the placeholder was returned.
+     *
+     * @param descriptor descriptor for the image to create
+     * @param placeholder the image to return while the image is decoded, may be
+     * <code>null</code>
+     * @param whenDecoded runs in the thread of the display once the image is decoded,
+     * may be <code>null</code>
+     * @return the Image described by this descriptor (possibly shared by other equivalent
+     * ImageDescriptors), or the placeholder
+     *
+     * @since 3.13
+     */
+    public final Image createImageAsync(ImageDescriptor descriptor, Image placeholder,
+    		Runnable whenDecoded) {
+    	Assert.isNotNull(descriptor);
+
+        if (!ImageDecoder.canDecode(descriptor) || find(descriptor) != null
+        		|| ImageDecoder.isDecoded(descriptor)) {
+            return createImageWithDefault(descriptor);
+        }
+        final Device device = getDevice();
+        ImageDecoder.decode(descriptor).whenComplete((result, exception) -> {
+            if (whenDecoded != null && device instanceof Display && !device.isDisposed()) {
+                try {
+                    ((Display) device).asyncExec(whenDecoded);
+                } catch (SWTException e) {
+                    // the display was disposed meanwhile
+                }
+            }
+        });
+        return placeholder;
+    }
+
     /**
      * Returns the default image that will be returned in the event that the intended
      * image is missing.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,7 +51,7 @@ class URLImageDescriptor extends ImageDescriptor {
 			if (tempURL != null) {
 				URL xUrl = getxURL(tempURL, zoom);
 				if (xUrl != null) {
-					return getFilePath(xUrl, zoom == 100);
+					return ImageDataCache.getFilePath(xUrl, u -> getFilePath(u, zoom == 100));
 				}
 			}
 			return null;
@@ -109,7 +109,29 @@ class URLImageDescriptor extends ImageDescriptor {
 		return getImageData(getURL(url));
 	}
 
+	@Override
+	ImageData getImageData(int zoom) {
+		if (zoom != 100 && !InternalPolicy.DEBUG_LOAD_URL_IMAGE_DESCRIPTOR_2x) {
+			return null;
+		}
+		URL tempURL = getURL(url);
+		if (tempURL != null) {
+			URL xUrl = getxURL(tempURL, zoom);
+			if (xUrl != null) {
+				return getImageData(xUrl);
+			}
+		}
+		return null;
+	}
+
 	private static ImageData getImageData(URL url) {
+		if (url == null) {
+			return null;
+		}
+		return ImageDataCache.getImageData(url, URLImageDescriptor::loadImageData);
+	}
+
+	private static ImageData loadImageData(URL url) {
 		ImageData result = null;
 		try (InputStream in = getStream(url)) {
 			if (in != null) {
@@ -287,7 +309,7 @@ class URLImageDescriptor extends ImageDescriptor {
 			// Try to see if we can optimize using SWTs file based image support.
 			URL pathURL = getURL(url);
 			if (pathURL != null) {
-				String path = getFilePath(pathURL, true);
+				String path = ImageDataCache.getFilePath(pathURL, u -> getFilePath(u, true));
 				if (path != null) {
 					try {
 						return new Image(device, path);
@@ -20,8 +20,10 @@ package org.eclipse.jface.viewers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IStatus;
@@ -32,6 +34,7 @@ import org.eclipse.jface.util.Policy;
 import org.eclipse.jface.util.SafeRunnable;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.events.TreeEvent;
@@ -99,6 +102,26 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 */
 	private boolean isExpandableCheckFilters = false;
 
+	/**
+	 * Indicates if children are fetched in the background when nodes are
+	 * expanded.
+	 */
+	private boolean asynchronousExpansion = false;
+
+	/**
+	 * Fetches children in the background, or <code>null</code> if not created
+	 * yet.
+	 */
+	private TreeExpansionScheduler expansionScheduler;
+
+	/**
+	 * Children of {@link #prefetchedParent} fetched in the background, returned
+	 * by {@link #getRawChildren(Object)} while they are materialized.
+	 */
+	private Object prefetchedParent;
+
+	private Object[] prefetchedChildren;
+
 	/**
 	 * Safe runnable used to update an item.
 	 */
@@ -353,8 +376,17 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 
 		// Optimize for no comparator
 		if (comparator == null) {
+			// Look up existing elements in a set rather than scanning the
+			// items once per added element
+			Set<Object> existingElements = null;
+			if (!usingElementMap() && elements.length > 1) {
+				existingElements = new HashSet<>(items.length * 4 / 3 + 1);
+				for (Item item : items) {
+					existingElements.add(item.getData());
+				}
+			}
 			for (Object element : elements) {
-				if (itemExists(items, element)) {
+				if (existingElements != null ? existingElements.contains(element) : itemExists(items, element)) {
 					internalRefresh(element);
 				} else {
 					createTreeItem(widget, element, -1);
@@ -384,7 +416,9 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 
 				// Use a separate index variable to search within the existing
 				// elements that compare equally, see
-				// TreeViewerTestBug205700.testAddEquallySortedElements.
+				// TreeViewerTestBug205700.testAddEquallySortedElements. The
+				// index is the first of these elements, so that the next
+				// element starts searching from there.
 				int insertionIndexInItems = indexInItems;
 				while( insertionIndexInItems < items.length
 						&& internalCompare(comparator, parentPath, element,
@@ -449,6 +483,14 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 * Returns the index where the item should be inserted. It uses sorter to
 	 * determine the correct position, if sorter is not assigned, returns the
 	 * index of the element after the last.
+	 * <p>
+	 * The returned index is the first one whose item does not sort before the
+	 * element. It is found by an exponential search starting at
+	 * <code>lastInsertion</code> followed by a binary search, so that adding
+	 * a sorted list of <i>m</i> elements among <i>n</i> items takes
+	 * <i>O(m log(n/m))</i> comparisons: a linear merge when many elements are
+	 * added, a binary search per element when few are.
+	 * </p>
 	 *
 	 * @param items
 	 *            the items to search
@@ -475,19 +517,30 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		if (comparator == null) {
 			return size;
 		}
-		int min = lastInsertion, max = size - 1;
-
+		// Gallop to find a range whose last item does not sort before the
+		// element
+		int min = lastInsertion;
+		int max = size - 1;
+		int step = 1;
 		while (min <= max) {
-			int mid = (min + max) / 2;
-			Object data = items[mid].getData();
-			int compare = internalCompare(comparator, parentPath, data, element);
-			if (compare == 0) {
-				return mid;// Return if we already match
+			int probe = Math.min(min + step - 1, max);
+			Object data = items[probe].getData();
+			if (internalCompare(comparator, parentPath, data, element) >= 0) {
+				max = probe;
+				break;
 			}
-			if (compare < 0) {
+			min = probe + 1;
+			step <<= 1;
+		}
+
+		// Binary search for the first such item in the range
+		while (min < max) {
+			int mid = (min + max) >>> 1;
+			Object data = items[mid].getData();
+			if (internalCompare(comparator, parentPath, data, element) < 0) {
 				min = mid + 1;
 			} else {
-				max = mid - 1;
+				max = mid;
 			}
 		}
 		return min;
@@ -743,6 +796,13 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		Assert.isNotNull(elementOrTreePath);
 		Widget w = internalGetWidgetToSelect(elementOrTreePath);
 		if (w != null) {
+			if (expansionScheduler != null) {
+				if (w instanceof Item) {
+					expansionScheduler.cancel((Item) w);
+				} else {
+					expansionScheduler.cancelAll();
+				}
+			}
 			internalCollapseToLevel(w, level);
 		}
 	}
@@ -823,6 +883,26 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		}
 	}
 
+	/**
+	 * Creates the children of the given widget from children which were
+	 * already fetched from the content provider.
+	 *
+	 * @param widget
+	 *            the widget
+	 * @param rawChildren
+	 *            the unfiltered and unsorted children of the widget's element
+	 */
+	void createChildren(Widget widget, Object[] rawChildren) {
+		prefetchedParent = widget.getData();
+		prefetchedChildren = rawChildren;
+		try {
+			createChildren(widget, false);
+		} finally {
+			prefetchedParent = null;
+			prefetchedChildren = null;
+		}
+	}
+
 	/**
 	 * Creates a single item for the given parent and synchronizes it with the
 	 * given element.
@@ -1064,7 +1144,12 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 			return;
 		Widget w = internalExpand(elementOrTreePath, true);
 		if (w != null) {
-			internalExpandToLevel(w, level);
+			TreeExpansionScheduler scheduler = getExpansionScheduler();
+			if (scheduler != null) {
+				scheduler.expandToLevel(w, level);
+			} else {
+				internalExpandToLevel(w, level);
+			}
 		}
 	}
 
@@ -1336,6 +1421,9 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 				path = null;
 			}
 			if (parent != null) {
+				if (prefetchedChildren != null && parent == prefetchedParent) {
+					return prefetchedChildren;
+				}
 				if (equals(parent, getRoot())) {
 					return super.getRawChildren(parent);
 				}
@@ -1467,6 +1555,9 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 *            the SWT tree event
 	 */
 	protected void handleTreeCollapse(TreeEvent event) {
+		if (expansionScheduler != null) {
+			expansionScheduler.cancel((Item) event.item);
+		}
 		if (event.item.getData() != null) {
 			fireTreeCollapsed(new TreeExpansionEvent(this, event.item.getData()));
 		}
@@ -1479,7 +1570,10 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 *            the SWT tree event
 	 */
 	protected void handleTreeExpand(TreeEvent event) {
-		createChildren(event.item);
+		TreeExpansionScheduler scheduler = getExpansionScheduler();
+		if (scheduler == null || !scheduler.expand((Item) event.item)) {
+			createChildren(event.item);
+		}
 		if (event.item.getData() != null) {
 			fireTreeExpanded(new TreeExpansionEvent(this, event.item.getData()));
 		}
@@ -1501,8 +1595,20 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		});
 	}
 
+	@Override
+	protected void handleDispose(DisposeEvent event) {
+		if (expansionScheduler != null) {
+			expansionScheduler.dispose();
+			expansionScheduler = null;
+		}
+		super.handleDispose(event);
+	}
+
 	@Override
 	protected void inputChanged(Object input, Object oldInput) {
+		if (expansionScheduler != null) {
+			expansionScheduler.cancelAll();
+		}
 		preservingSelection(() -> {
 		    Control tree = getControl();
 		    tree.setRedraw(false);
@@ -3178,4 +3284,73 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		}
 	}
 
+	/**
+	 * Sets whether the children of expanded nodes are fetched in the
+	 * background.
+	 * <p>
+	 * When enabled and the content provider implements
+	 * {@link IThreadSafeContentProvider}, expanding a node and
+	 * {@link #expandToLevel(Object, int)} no longer block the UI thread while
+	 * the content provider computes children. The children of all nodes being
+	 * expanded are fetched concurrently on a small pool of worker threads, and
+	 * a pending placeholder is shown until they are created. Collapsing a node
+	 * cancels the pending fetches below it. Filtering, sorting and
+	 * <code>hasChildren</code> calls still happen on the UI thread.
+	 * </p>
+	 * <p>
+	 * Content providers which do not implement
+	 * {@link IThreadSafeContentProvider} are always called synchronously.
+	 * </p>
+	 *
+	 * @param asynchronous
+	 *            <code>true</code> to fetch children in the background
+	 * @see #isAsynchronousExpansion()
+	 * @since 3.13
+	 */
+	public void setAsynchronousExpansion(boolean asynchronous) {
+		this.asynchronousExpansion = asynchronous;
+		if (!asynchronous && expansionScheduler != null) {
+			expansionScheduler.dispose();
+			expansionScheduler = null;
+		}
+	}
+
+	/**
+	 * Returns whether the children of expanded nodes are fetched in the
+	 * background.
+	 *
+	 * @return <code>true</code> if asynchronous expansion is enabled
+	 * @see #setAsynchronousExpansion(boolean)
+	 * @since 3.13
+	 */
+	public boolean isAsynchronousExpansion() {
+		return asynchronousExpansion;
+	}
+
+	/**
+	 * Returns whether children are being fetched in the background.
+	 *
+	 * @return <code>true</code> if an asynchronous expansion is in progress
+	 * @see #setAsynchronousExpansion(boolean)
+	 * @since 3.13
+	 */
+	public boolean isExpansionPending() {
+		return expansionScheduler != null && expansionScheduler.isPending();
+	}
+
+	private TreeExpansionScheduler getExpansionScheduler() {
+		if (!asynchronousExpansion) {
+			return null;
+		}
+		IContentProvider cp = getContentProvider();
+		if (!(cp instanceof IThreadSafeContentProvider)
+				|| !(cp instanceof ITreeContentProvider || cp instanceof ITreePathContentProvider)) {
+			return null;
+		}
+		if (expansionScheduler == null) {
+			expansionScheduler = new TreeExpansionScheduler(this);
+		}
+		return expansionScheduler;
+	}
+
 }
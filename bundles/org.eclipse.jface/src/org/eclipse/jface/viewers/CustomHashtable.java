@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,416 +19,396 @@ import java.util.NoSuchElementException;
  * CustomHashtable associates keys with values. Keys and values cannot be null.
  * The size of the Hashtable is the number of key/value pairs it contains.
  * The capacity is the number of key/value pairs the Hashtable can hold.
- * The load factor is a float value which determines how full the Hashtable
- * gets before expanding the capacity. If the load factor of the Hashtable
- * is exceeded, the capacity is doubled.
+ * If three quarters of the capacity are exceeded, the capacity is doubled.
  * <p>
  * CustomHashtable allows a custom comparator and hash code provider.
+ * <p>
+ * The table uses open addressing with linear probing: keys, values and hash
+ * codes are kept in parallel arrays, so no object is allocated per entry, and
+ * the cached hash codes avoid calling the comparer on probe collisions and
+ * when rehashing.
  */
 /* package */final class CustomHashtable {
 
-    /**
-     * HashMapEntry is an internal class which is used to hold the entries of a Hashtable.
-     */
-    private static class HashMapEntry {
-        Object key, value;
-
-        HashMapEntry next;
-
-        HashMapEntry(Object theKey, Object theValue) {
-            key = theKey;
-            value = theValue;
-        }
-    }
-
-    private static final class EmptyEnumerator implements Enumeration {
-        @Override
+	private static final class EmptyEnumerator implements Enumeration {
+		@Override
 		public boolean hasMoreElements() {
-            return false;
-        }
+			return false;
+		}
 
-        @Override
+		@Override
 		public Object nextElement() {
-            throw new NoSuchElementException();
-        }
-    }
-
-    private class HashEnumerator implements Enumeration {
-        boolean key;
+			throw new NoSuchElementException();
+		}
+	}
 
-        int start;
+	private class HashEnumerator implements Enumeration {
+		boolean key;
 
-        HashMapEntry entry;
+		int index;
 
-        HashEnumerator(boolean isKey) {
-            key = isKey;
-            start = firstSlot;
-        }
+		HashEnumerator(boolean isKey) {
+			key = isKey;
+		}
 
-        @Override
+		@Override
 		public boolean hasMoreElements() {
-            if (entry != null) {
-				return true;
-			}
-            while (start <= lastSlot) {
-				if (elementData[start++] != null) {
-                    entry = elementData[start - 1];
-                    return true;
-                }
+			while (index < keyTable.length) {
+				if (keyTable[index] != null) {
+					return true;
+				}
+				index++;
 			}
-            return false;
-        }
+			return false;
+		}
 
-        @Override
+		@Override
 		public Object nextElement() {
-            if (hasMoreElements()) {
-                Object result = key ? entry.key : entry.value;
-                entry = entry.next;
-                return result;
-            } else {
+			if (hasMoreElements()) {
+				Object result = key ? keyTable[index] : valueTable[index];
+				index++;
+				return result;
+			} else {
 				throw new NoSuchElementException();
 			}
-        }
-    }
-
-    transient int elementCount;
-
-    transient HashMapEntry[] elementData;
-
-    private float loadFactor;
-
-    private int threshold;
-
-    transient int firstSlot = 0;
-
-    transient int lastSlot = -1;
-
-    transient private IElementComparer comparer;
-
-    private static final EmptyEnumerator emptyEnumerator = new EmptyEnumerator();
-
-    /**
-     * The default capacity used when not specified in the constructor.
-     */
-    public static final int DEFAULT_CAPACITY = 13;
-
-    /**
-     * Constructs a new Hashtable using the default capacity
-     * and load factor.
-     */
-    public CustomHashtable() {
-        this(13);
-    }
-
-    /**
-     * Constructs a new Hashtable using the specified capacity
-     * and the default load factor.
-     *
-     * @param capacity the initial capacity
-     */
-    public CustomHashtable(int capacity) {
-        this(capacity, null);
-    }
-
-    /**
-     * Constructs a new hash table with the default capacity and the given
-     * element comparer.
-     *
-     * @param comparer the element comparer to use to compare keys and obtain
-     *   hash codes for keys, or <code>null</code>  to use the normal
-     *   <code>equals</code> and <code>hashCode</code> methods
-     */
-    public CustomHashtable(IElementComparer comparer) {
-        this(DEFAULT_CAPACITY, comparer);
-    }
-
-    /**
-     * Constructs a new hash table with the given capacity and the given
-     * element comparer.
-     *
-     * @param capacity the maximum number of elements that can be added without
-     *   rehashing
-     * @param comparer the element comparer to use to compare keys and obtain
-     *   hash codes for keys, or <code>null</code>  to use the normal
-     *   <code>equals</code> and <code>hashCode</code> methods
-     */
-    public CustomHashtable(int capacity, IElementComparer comparer) {
-        if (capacity >= 0) {
-            elementCount = 0;
-            elementData = new HashMapEntry[capacity == 0 ? 1 : capacity];
-            firstSlot = elementData.length;
-            loadFactor = 0.75f;
-            computeMaxSize();
-        } else {
+		}
+	}
+
+	private static final int MINIMUM_LENGTH = 4;
+
+	private static final int MAXIMUM_LENGTH = 1 << 30;
+
+	transient int elementCount;
+
+	/**
+	 * The keys, <code>null</code> for free slots. The length is a power of two.
+	 */
+	transient Object[] keyTable;
+
+	/**
+	 * The values, at the same index as their keys.
+	 */
+	transient Object[] valueTable;
+
+	/**
+	 * The spread hash codes of the keys, at the same index as their keys.
+	 */
+	transient int[] hashTable;
+
+	private int threshold;
+
+	transient private IElementComparer comparer;
+
+	private static final EmptyEnumerator emptyEnumerator = new EmptyEnumerator();
+
+	/**
+	 * The default capacity used when not specified in the constructor.
+	 */
+	public static final int DEFAULT_CAPACITY = 13;
+
+	/**
+	 * Constructs a new Hashtable using the default capacity
+	 * and load factor.
+	 */
+	public CustomHashtable() {
+		this(13);
+	}
+
+	/**
+	 * Constructs a new Hashtable using the specified capacity
+	 * and the default load factor.
+	 *
+	 * @param capacity the initial capacity
+	 */
+	public CustomHashtable(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Constructs a new hash table with the default capacity and the given
+	 * element comparer.
+	 *
+	 * @param comparer the element comparer to use to compare keys and obtain
+	 *   hash codes for keys, or <code>null</code>  to use the normal
+	 *   <code>equals</code> and <code>hashCode</code> methods
+	 */
+	public CustomHashtable(IElementComparer comparer) {
+		this(DEFAULT_CAPACITY, comparer);
+	}
+
+	/**
+	 * Constructs a new hash table with the given capacity and the given
+	 * element comparer.
+	 *
+	 * @param capacity the maximum number of elements that can be added without
+	 *   rehashing
+	 * @param comparer the element comparer to use to compare keys and obtain
+	 *   hash codes for keys, or <code>null</code>  to use the normal
+	 *   <code>equals</code> and <code>hashCode</code> methods
+	 */
+	public CustomHashtable(int capacity, IElementComparer comparer) {
+		if (capacity < 0) {
 			throw new IllegalArgumentException();
 		}
-        this.comparer = comparer;
-    }
-
-    /**
-     * Constructs a new hash table with enough capacity to hold all keys in the
-     * given hash table, then adds all key/value pairs in the given hash table
-     * to the new one, using the given element comparer.
-     * @param table the original hash table to copy from
-     *
-     * @param comparer the element comparer to use to compare keys and obtain
-     *   hash codes for keys, or <code>null</code>  to use the normal
-     *   <code>equals</code> and <code>hashCode</code> methods
-     */
-    public CustomHashtable(CustomHashtable table, IElementComparer comparer) {
-        this(table.size() * 2, comparer);
-        for (int i = table.elementData.length; --i >= 0;) {
-            HashMapEntry entry = table.elementData[i];
-            while (entry != null) {
-                put(entry.key, entry.value);
-                entry = entry.next;
-            }
-        }
-    }
-
-    /**
-     * Returns the element comparer used  to compare keys and to obtain
-     * hash codes for keys, or <code>null</code> if no comparer has been
-     * provided.
-     *
-     * @return the element comparer or <code>null</code>
-     *
-     * @since 3.2
-     */
-    public IElementComparer getComparer() {
-    	return comparer;
-    }
-
-    private void computeMaxSize() {
-        threshold = (int) (elementData.length * loadFactor);
-    }
-
-    /**
-     * Answers if this Hashtable contains the specified object as a key
-     * of one of the key/value pairs.
-     *
-     * @param		key	the object to look for as a key in this Hashtable
-     * @return		true if object is a key in this Hashtable, false otherwise
-     */
-    public boolean containsKey(Object key) {
-        return getEntry(key) != null;
-    }
-
-    /**
-     * Answers an Enumeration on the values of this Hashtable. The
-     * results of the Enumeration may be affected if the contents
-     * of this Hashtable are modified.
-     *
-     * @return		an Enumeration of the values of this Hashtable
-     */
-    public Enumeration elements() {
-        if (elementCount == 0) {
-			return emptyEnumerator;
+		int length = MINIMUM_LENGTH;
+		while (length < capacity && length < MAXIMUM_LENGTH) {
+			length <<= 1;
 		}
-        return new HashEnumerator(false);
-    }
-
-    /**
-     * Answers the value associated with the specified key in
-     * this Hashtable.
-     *
-     * @param		key	the key of the value returned
-     * @return		the value associated with the specified key, null if the specified key
-     *				does not exist
-     */
-    public Object get(Object key) {
-        int index = (hashCode(key) & 0x7FFFFFFF) % elementData.length;
-        HashMapEntry entry = elementData[index];
-        while (entry != null) {
-            if (keyEquals(key, entry.key)) {
-				return entry.value;
+		allocate(length);
+		this.comparer = comparer;
+	}
+
+	/**
+	 * Constructs a new hash table with enough capacity to hold all keys in the
+	 * given hash table, then adds all key/value pairs in the given hash table
+	 * to the new one, using the given element comparer.
+	 * @param table the original hash table to copy from
+	 *
+	 * @param comparer the element comparer to use to compare keys and obtain
+	 *   hash codes for keys, or <code>null</code>  to use the normal
+	 *   <code>equals</code> and <code>hashCode</code> methods
+	 */
+	public CustomHashtable(CustomHashtable table, IElementComparer comparer) {
+		this(table.size() * 2, comparer);
+		Object[] keys = table.keyTable;
+		for (int i = keys.length; --i >= 0;) {
+			if (keys[i] != null) {
+				put(keys[i], table.valueTable[i]);
 			}
-            entry = entry.next;
-        }
-        return null;
-    }
-
-    private HashMapEntry getEntry(Object key) {
-        int index = (hashCode(key) & 0x7FFFFFFF) % elementData.length;
-        HashMapEntry entry = elementData[index];
-        while (entry != null) {
-            if (keyEquals(key, entry.key)) {
-				return entry;
+		}
+	}
+
+	/**
+	 * Returns the element comparer used  to compare keys and to obtain
+	 * hash codes for keys, or <code>null</code> if no comparer has been
+	 * provided.
+	 *
+	 * @return the element comparer or <code>null</code>
+	 *
+	 * @since 3.2
+	 */
+	public IElementComparer getComparer() {
+		return comparer;
+	}
+
+	private void allocate(int length) {
+		keyTable = new Object[length];
+		valueTable = new Object[length];
+		hashTable = new int[length];
+		threshold = length - (length >>> 2);
+	}
+
+	/**
+	 * Answers if this Hashtable contains the specified object as a key
+	 * of one of the key/value pairs.
+	 *
+	 * @param		key	the object to look for as a key in this Hashtable
+	 * @return		true if object is a key in this Hashtable, false otherwise
+	 */
+	public boolean containsKey(Object key) {
+		return indexOf(key, hash(key)) >= 0;
+	}
+
+	/**
+	 * Answers an Enumeration on the values of this Hashtable. The
+	 * results of the Enumeration may be affected if the contents
+	 * of this Hashtable are modified.
+	 *
+	 * @return		an Enumeration of the values of this Hashtable
+	 */
+	public Enumeration elements() {
+		if (elementCount == 0) {
+			return emptyEnumerator;
+		}
+		return new HashEnumerator(false);
+	}
+
+	/**
+	 * Answers the value associated with the specified key in
+	 * this Hashtable.
+	 *
+	 * @param		key	the key of the value returned
+	 * @return		the value associated with the specified key, null if the specified key
+	 *				does not exist
+	 */
+	public Object get(Object key) {
+		int index = indexOf(key, hash(key));
+		return index >= 0 ? valueTable[index] : null;
+	}
+
+	/**
+	 * Answers the slot of the given key, or the one's complement of the free
+	 * slot ending its probe sequence if the key is not in this Hashtable.
+	 */
+	private int indexOf(Object key, int hash) {
+		Object[] keys = keyTable;
+		int mask = keys.length - 1;
+		int index = hash & mask;
+		Object candidate;
+		while ((candidate = keys[index]) != null) {
+			if (hashTable[index] == hash && keyEquals(key, candidate)) {
+				return index;
 			}
-            entry = entry.next;
-        }
-        return null;
-    }
-
-    /**
-     * Answers the hash code for the given key.
-     */
-    private int hashCode(Object key) {
-        if (comparer == null) {
-			return key.hashCode();
-		} else {
-			return comparer.hashCode(key);
+			index = (index + 1) & mask;
 		}
-    }
-
-    /**
-     * Compares two keys for equality.
-     */
-    private boolean keyEquals(Object a, Object b) {
-        if (comparer == null) {
+		return ~index;
+	}
+
+	/**
+	 * Answers the hash code for the given key, with the high bits spread into
+	 * the low bits used to index the table.
+	 */
+	private int hash(Object key) {
+		int hash = comparer == null ? key.hashCode() : comparer.hashCode(key);
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Compares two keys for equality.
+	 */
+	private boolean keyEquals(Object a, Object b) {
+		if (comparer == null) {
 			return a.equals(b);
 		} else {
 			return comparer.equals(a, b);
 		}
-    }
-
-    /**
-     * Answers an Enumeration on the keys of this Hashtable. The
-     * results of the Enumeration may be affected if the contents
-     * of this Hashtable are modified.
-     *
-     * @return		an Enumeration of the keys of this Hashtable
-     */
-    public Enumeration keys() {
-        if (elementCount == 0) {
+	}
+
+	/**
+	 * Answers an Enumeration on the keys of this Hashtable. The
+	 * results of the Enumeration may be affected if the contents
+	 * of this Hashtable are modified.
+	 *
+	 * @return		an Enumeration of the keys of this Hashtable
+	 */
+	public Enumeration keys() {
+		if (elementCount == 0) {
 			return emptyEnumerator;
 		}
-        return new HashEnumerator(true);
-    }
-
-    /**
-     * Associate the specified value with the specified key in this Hashtable.
-     * If the key already exists, the old value is replaced. The key and value
-     * cannot be null.
-     *
-     * @param		key	the key to add
-     * @param		value	the value to add
-     * @return		the old value associated with the specified key, null if the key did
-     *				not exist
-     */
-    public Object put(Object key, Object value) {
-        if (key != null && value != null) {
-            int index = (hashCode(key) & 0x7FFFFFFF) % elementData.length;
-            HashMapEntry entry = elementData[index];
-            while (entry != null && !keyEquals(key, entry.key)) {
-				entry = entry.next;
-			}
-            if (entry == null) {
-                if (++elementCount > threshold) {
-                    rehash();
-                    index = (hashCode(key) & 0x7FFFFFFF) % elementData.length;
-                }
-                if (index < firstSlot) {
-					firstSlot = index;
-				}
-                if (index > lastSlot) {
-					lastSlot = index;
-				}
-                entry = new HashMapEntry(key, value);
-                entry.next = elementData[index];
-                elementData[index] = entry;
-                return null;
-            }
-            Object result = entry.value;
-            entry.key = key; // important to avoid hanging onto keys that are equal but "old" -- see bug 30607
-            entry.value = value;
-            return result;
-        } else {
+		return new HashEnumerator(true);
+	}
+
+	/**
+	 * Associate the specified value with the specified key in this Hashtable.
+	 * If the key already exists, the old value is replaced. The key and value
+	 * cannot be null.
+	 *
+	 * @param		key	the key to add
+	 * @param		value	the value to add
+	 * @return		the old value associated with the specified key, null if the key did
+	 *				not exist
+	 */
+	public Object put(Object key, Object value) {
+		if (key == null || value == null) {
 			throw new NullPointerException();
 		}
-    }
-
-    /**
-     * Increases the capacity of this Hashtable. This method is sent when
-     * the size of this Hashtable exceeds the load factor.
-     */
-    private void rehash() {
-        int length = elementData.length << 1;
-        if (length == 0) {
-			length = 1;
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+		if (index >= 0) {
+			Object result = valueTable[index];
+			keyTable[index] = key; // important to avoid hanging onto keys that are equal but "old" -- see bug 30607
+			valueTable[index] = value;
+			return result;
 		}
-        firstSlot = length;
-        lastSlot = -1;
-        HashMapEntry[] newData = new HashMapEntry[length];
-        for (int i = elementData.length; --i >= 0;) {
-            HashMapEntry entry = elementData[i];
-            while (entry != null) {
-                int index = (hashCode(entry.key) & 0x7FFFFFFF) % length;
-                if (index < firstSlot) {
-					firstSlot = index;
-				}
-                if (index > lastSlot) {
-					lastSlot = index;
+		if (++elementCount > threshold) {
+			rehash();
+			index = indexOf(key, hash);
+		}
+		index = ~index;
+		keyTable[index] = key;
+		valueTable[index] = value;
+		hashTable[index] = hash;
+		return null;
+	}
+
+	/**
+	 * Increases the capacity of this Hashtable. This method is sent when
+	 * the size of this Hashtable exceeds the load factor. The cached hash
+	 * codes are reused, so the comparer is not called.
+	 */
+	private void rehash() {
+		Object[] oldKeys = keyTable;
+		Object[] oldValues = valueTable;
+		int[] oldHashes = hashTable;
+		if (oldKeys.length >= MAXIMUM_LENGTH) {
+			threshold = MAXIMUM_LENGTH - 1;
+			return;
+		}
+		allocate(oldKeys.length << 1);
+		int mask = keyTable.length - 1;
+		for (int i = oldKeys.length; --i >= 0;) {
+			if (oldKeys[i] != null) {
+				int index = oldHashes[i] & mask;
+				while (keyTable[index] != null) {
+					index = (index + 1) & mask;
 				}
-                HashMapEntry next = entry.next;
-                entry.next = newData[index];
-                newData[index] = entry;
-                entry = next;
-            }
-        }
-        elementData = newData;
-        computeMaxSize();
-    }
-
-    /**
-     * Remove the key/value pair with the specified key from this Hashtable.
-     *
-     * @param		key	the key to remove
-     * @return		the value associated with the specified key, null if the specified key
-     *				did not exist
-     */
-    public Object remove(Object key) {
-        HashMapEntry last = null;
-        int index = (hashCode(key) & 0x7FFFFFFF) % elementData.length;
-        HashMapEntry entry = elementData[index];
-        while (entry != null && !keyEquals(key, entry.key)) {
-            last = entry;
-            entry = entry.next;
-        }
-        if (entry != null) {
-            if (last == null) {
-				elementData[index] = entry.next;
-			} else {
-				last.next = entry.next;
+				keyTable[index] = oldKeys[i];
+				valueTable[index] = oldValues[i];
+				hashTable[index] = oldHashes[i];
 			}
-            elementCount--;
-            return entry.value;
-        }
-        return null;
-    }
-
-    /**
-     * Answers the number of key/value pairs in this Hashtable.
-     *
-     * @return		the number of key/value pairs in this Hashtable
-     */
-    public int size() {
-        return elementCount;
-    }
-
-    @Override
+		}
+	}
+
+	/**
+	 * Remove the key/value pair with the specified key from this Hashtable.
+	 *
+	 * @param		key	the key to remove
+	 * @return		the value associated with the specified key, null if the specified key
+	 *				did not exist
+	 */
+	public Object remove(Object key) {
+		int index = indexOf(key, hash(key));
+		if (index < 0) {
+			return null;
+		}
+		Object result = valueTable[index];
+		// Shift back the following entries of the probe sequence which may
+		// move into the freed slot, so that lookups need no tombstones
+		int mask = keyTable.length - 1;
+		int hole = index;
+		for (int i = (index + 1) & mask; keyTable[i] != null; i = (i + 1) & mask) {
+			if (((i - hashTable[i]) & mask) >= ((i - hole) & mask)) {
+				keyTable[hole] = keyTable[i];
+				valueTable[hole] = valueTable[i];
+				hashTable[hole] = hashTable[i];
+				hole = i;
+			}
+		}
+		keyTable[hole] = null;
+		valueTable[hole] = null;
+		hashTable[hole] = 0;
+		elementCount--;
+		return result;
+	}
+
+	/**
+	 * Answers the number of key/value pairs in this Hashtable.
+	 *
+	 * @return		the number of key/value pairs in this Hashtable
+	 */
+	public int size() {
+		return elementCount;
+	}
+
+	@Override
 	public String toString() {
-        if (size() == 0) {
+		if (size() == 0) {
 			return "{}"; //$NON-NLS-1$
 		}
 
-        StringBuffer buffer = new StringBuffer();
-        buffer.append('{');
-        for (int i = elementData.length; --i >= 0;) {
-            HashMapEntry entry = elementData[i];
-            while (entry != null) {
-                buffer.append(entry.key);
-                buffer.append('=');
-                buffer.append(entry.value);
-                buffer.append(", "); //$NON-NLS-1$
-                entry = entry.next;
-            }
-        }
-        // Remove the last ", "
-        if (elementCount > 0) {
-			buffer.setLength(buffer.length() - 2);
+		StringBuffer buffer = new StringBuffer();
+		buffer.append('{');
+		for (int i = keyTable.length; --i >= 0;) {
+			if (keyTable[i] != null) {
+				buffer.append(keyTable[i]);
+				buffer.append('=');
+				buffer.append(valueTable[i]);
+				buffer.append(", "); //$NON-NLS-1$
+			}
 		}
-        buffer.append('}');
-        return buffer.toString();
-    }
+		// Remove the last ", "
+		buffer.setLength(buffer.length() - 2);
+		buffer.append('}');
+		return buffer.toString();
+	}
 }
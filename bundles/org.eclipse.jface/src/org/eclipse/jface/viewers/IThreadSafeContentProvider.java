@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers;
+
+/**
+ * A marker interface for tree content providers whose
+ * <code>getChildren</code> methods may be called from a background thread,
+ * concurrently for different parents.
+ * <p>
+ * This interface is implemented together with {@link ITreeContentProvider} or
+ * {@link ITreePathContentProvider}. It allows an {@link AbstractTreeViewer} in
+ * asynchronous expansion mode to fetch children without blocking the UI
+ * thread. All other methods of the content provider are still called from the
+ * UI thread only.
+ * </p>
+ *
+ * @see AbstractTreeViewer#setAsynchronousExpansion(boolean)
+ * @since 3.13
+ */
+public interface IThreadSafeContentProvider extends IContentProvider {
+}
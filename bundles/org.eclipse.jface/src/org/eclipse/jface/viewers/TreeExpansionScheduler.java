@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.util.Policy;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Item;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * Expands the nodes of an {@link AbstractTreeViewer} without blocking the UI
+ * thread on the content provider.
+ * <p>
+ * The children of every node of the expansion frontier are fetched on a
+ * bounded pool of worker threads. While a fetch is in progress the dummy child
+ * of the node shows a pending label. Completed fetches are materialized into
+ * items on the UI thread, a bounded number of nodes at a time, after which the
+ * children of each node are scheduled in turn if more levels were requested.
+ * Collapsing a node cancels the pending fetches of the node and its
+ * descendants.
+ * </p>
+ * <p>
+ * Only the <code>getChildren</code> methods of the content provider are
+ * called from the worker threads, which requires the content provider to
+ * implement {@link IThreadSafeContentProvider}. Filtering and sorting happen
+ * on the UI thread when the children are materialized, as filters and
+ * comparators are not required to be thread-safe.
+ * </p>
+ */
+/* package */class TreeExpansionScheduler {
+
+	private static final int MAX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * Maximum number of nodes materialized by a single UI runnable.
+	 */
+	private static final int BATCH_SIZE = 20;
+
+	private static final String PENDING = JFaceResources.getString("AbstractTreeViewer.pending"); //$NON-NLS-1$
+
+	private final AbstractTreeViewer viewer;
+
+	private final Display display;
+
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * Fetches not materialized yet, keyed by item. Accessed from the UI thread
+	 * only.
+	 */
+	private final Map<Item, Fetch> pending = new HashMap<>();
+
+	/**
+	 * Fetches completed by the worker threads, guarded by itself.
+	 */
+	private final LinkedList<Fetch> completed = new LinkedList<>();
+
+	/**
+	 * Whether {@link #materializer} is posted to the display, guarded by
+	 * {@link #completed}.
+	 */
+	private boolean materializeScheduled;
+
+	private final Runnable materializer = this::materialize;
+
+	private class Fetch implements Runnable {
+		final Item item;
+
+		final Object parent;
+
+		final TreePath path;
+
+		final IContentProvider contentProvider;
+
+		int level;
+
+		volatile boolean cancelled;
+
+		Future<?> future;
+
+		Object[] children;
+
+		Fetch(Item item, TreePath path, IContentProvider contentProvider, int level) {
+			this.item = item;
+			this.parent = item.getData();
+			this.path = path;
+			this.contentProvider = contentProvider;
+			this.level = level;
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			try {
+				if (path != null) {
+					children = ((ITreePathContentProvider) contentProvider).getChildren(path);
+				} else {
+					children = ((ITreeContentProvider) contentProvider).getChildren(parent);
+				}
+				if (children == null) {
+					children = new Object[0];
+				}
+			} catch (RuntimeException e) {
+				// the children are fetched again on the UI thread
+				Policy.getLog().log(new Status(IStatus.ERROR, Policy.JFACE,
+						"Exception while fetching children in the background", e)); //$NON-NLS-1$
+				children = null;
+			}
+			synchronized (completed) {
+				completed.add(this);
+				if (!materializeScheduled && !display.isDisposed()) {
+					materializeScheduled = true;
+					display.asyncExec(materializer);
+				}
+			}
+		}
+
+		void cancel() {
+			cancelled = true;
+			future.cancel(false);
+			if (!item.isDisposed()) {
+				Item[] items = viewer.getItems(item);
+				if (items.length > 0 && items[0].getData() == null) {
+					items[0].setText(""); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param viewer
+	 *            the viewer whose nodes are expanded
+	 */
+	TreeExpansionScheduler(AbstractTreeViewer viewer) {
+		this.viewer = viewer;
+		this.display = viewer.getControl().getDisplay();
+	}
+
+	/**
+	 * Fetches the children of the given item, which is being expanded by the
+	 * user, in the background.
+	 *
+	 * @param item
+	 *            the item
+	 * @return <code>false</code> if the children of the item are already
+	 *         created
+	 */
+	boolean expand(Item item) {
+		Item[] items = viewer.getItems(item);
+		if (items.length == 0 || items[0].getData() != null || item.getData() == null) {
+			return false;
+		}
+		fetch(item, 1);
+		return true;
+	}
+
+	/**
+	 * Expands the subtree rooted at the given widget to the given level,
+	 * fetching the children of nodes which are not materialized yet in the
+	 * background.
+	 *
+	 * @param widget
+	 *            the tree control or an item
+	 * @param level
+	 *            non-negative level, or <code>ALL_LEVELS</code>
+	 */
+	void expandToLevel(Widget widget, int level) {
+		if (level != AbstractTreeViewer.ALL_LEVELS && level <= 0) {
+			return;
+		}
+		Item[] children = viewer.getChildren(widget);
+		if (children == null) {
+			return;
+		}
+		if (widget instanceof Item) {
+			Item item = (Item) widget;
+			if (children.length == 0 || item.getData() == null) {
+				return;
+			}
+			if (children[0].getData() == null) {
+				fetch(item, level);
+				viewer.setExpanded(item, true);
+				return;
+			}
+			viewer.setExpanded(item, true);
+		}
+		if (level == AbstractTreeViewer.ALL_LEVELS || level > 1) {
+			int nextLevel = level == AbstractTreeViewer.ALL_LEVELS ? AbstractTreeViewer.ALL_LEVELS : level - 1;
+			for (Item child : children) {
+				expandToLevel(child, nextLevel);
+			}
+		}
+	}
+
+	private void fetch(Item item, int level) {
+		Fetch fetch = pending.get(item);
+		if (fetch != null) {
+			if (fetch.level != AbstractTreeViewer.ALL_LEVELS
+					&& (level == AbstractTreeViewer.ALL_LEVELS || level > fetch.level)) {
+				fetch.level = level;
+			}
+			return;
+		}
+		IContentProvider contentProvider = viewer.getContentProvider();
+		TreePath path = null;
+		if (contentProvider instanceof ITreePathContentProvider) {
+			path = viewer.getTreePathFromItem(item);
+		}
+		fetch = new Fetch(item, path, contentProvider, level);
+		pending.put(item, fetch);
+		viewer.getItems(item)[0].setText(PENDING);
+		fetch.future = getExecutor().submit(fetch);
+	}
+
+	private void materialize() {
+		List<Fetch> batch = new ArrayList<>(BATCH_SIZE);
+		synchronized (completed) {
+			while (batch.size() < BATCH_SIZE && !completed.isEmpty()) {
+				batch.add(completed.removeFirst());
+			}
+			if (completed.isEmpty()) {
+				materializeScheduled = false;
+			} else {
+				display.asyncExec(materializer);
+			}
+		}
+		if (viewer.getControl().isDisposed()) {
+			return;
+		}
+		for (Fetch fetch : batch) {
+			if (fetch.cancelled || pending.get(fetch.item) != fetch) {
+				continue;
+			}
+			pending.remove(fetch.item);
+			Item item = fetch.item;
+			if (item.isDisposed() || item.getData() != fetch.parent) {
+				// the item was refreshed meanwhile
+				continue;
+			}
+			if (fetch.children == null) {
+				viewer.createChildren(item);
+			} else {
+				viewer.createChildren(item, fetch.children);
+			}
+			viewer.setExpanded(item, true);
+			if (fetch.level == AbstractTreeViewer.ALL_LEVELS || fetch.level > 1) {
+				int nextLevel = fetch.level == AbstractTreeViewer.ALL_LEVELS ? AbstractTreeViewer.ALL_LEVELS
+						: fetch.level - 1;
+				for (Item child : viewer.getItems(item)) {
+					expandToLevel(child, nextLevel);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cancels the pending fetches of the given item and its descendants.
+	 *
+	 * @param item
+	 *            the collapsed item
+	 */
+	void cancel(Item item) {
+		for (Iterator<Fetch> iterator = pending.values().iterator(); iterator.hasNext();) {
+			Fetch fetch = iterator.next();
+			if (fetch.item.isDisposed() || isSelfOrDescendant(fetch.item, item)) {
+				fetch.cancel();
+				iterator.remove();
+			}
+		}
+	}
+
+	private boolean isSelfOrDescendant(Item candidate, Item item) {
+		for (Item current = candidate; current != null; current = viewer.getParentItem(current)) {
+			if (current == item) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Cancels all pending fetches.
+	 */
+	void cancelAll() {
+		for (Fetch fetch : pending.values()) {
+			fetch.cancel();
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Returns whether fetches are in progress.
+	 *
+	 * @return <code>true</code> if some nodes are not materialized yet
+	 */
+	boolean isPending() {
+		return !pending.isEmpty();
+	}
+
+	/**
+	 * Cancels all pending fetches and stops the worker threads.
+	 */
+	void dispose() {
+		cancelAll();
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	private ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 5, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), runnable -> {
+						Thread thread = new Thread(runnable, "Tree children fetcher"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						thread.setPriority(Thread.NORM_PRIORITY - 1);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+}
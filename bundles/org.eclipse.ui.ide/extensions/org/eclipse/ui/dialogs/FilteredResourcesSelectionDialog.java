@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -962,6 +962,18 @@ public class FilteredResourcesSelectionDialog extends
 					&& (this.showDerived || !resource.isDerived());
 		}
 
+		/**
+		 * Matching a resource only reads it, so this filter is thread safe.
+		 * Subclasses may match items in other ways, they are not considered
+		 * thread safe unless they override this method.
+		 *
+		 * @see org.eclipse.ui.dialogs.FilteredItemsSelectionDialog.ItemsFilter#isThreadSafe()
+		 */
+		@Override
+		public boolean isThreadSafe() {
+			return getClass() == ResourceFilter.class;
+		}
+
 		private boolean matchName(IResource resource) {
 			String name = resource.getName();
 			if (nameMatches(name)) {
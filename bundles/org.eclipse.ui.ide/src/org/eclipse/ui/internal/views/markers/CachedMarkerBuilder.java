@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -129,8 +129,10 @@ public class CachedMarkerBuilder {
 		}
 
 		if (isIncremental()) {
-			if (incrementJob != null) {
-				incrementJob.clearEntries();
+			synchronized (getUpdateScheduler().getSchedulingLock()) {
+				if (incrementJob != null) {
+					incrementJob.clearUpdates();
+				}
 			}
 		}
 	}
@@ -451,11 +453,12 @@ public class CachedMarkerBuilder {
 				// ensure cancellation before calling the method
 				// updateJob.cancel();
 			} else {
-				/*
-				 * updateJob = isIncremental() ? new IncrementUpdateJob(this):
-				 * new MarkerUpdateJob(this);
-				 */
-				updateJob = new MarkerUpdateJob(this);
+				if (isIncremental()) {
+					incrementJob = new IncrementUpdateJob(this);
+					updateJob = incrementJob;
+				} else {
+					updateJob = new MarkerUpdateJob(this);
+				}
 				updateJob.setPriority(Job.LONG);
 				updateJob.setSystem(true);
 			}
@@ -599,18 +602,14 @@ public class CachedMarkerBuilder {
 ///////	<Incremental update code>///////
 		private IncrementUpdateJob incrementJob;
 	/**
-	 * Checks whether the builder should perform incrementally Note : Incremental
-	 * updating method is NOT used and tested yet but left out for further
-	 * investigation(*).
+	 * Checks whether the builder should perform incrementally. Marker changes
+	 * are then applied to the markers gathered before, which are only
+	 * gathered again for a clean update, see {@link IncrementUpdateJob}.
 	 *
 	 * @return Returns true if we should collect markers incrementally.
 	 */
 	boolean isIncremental() {
-		/*
-		 * We do not update incrementally. We have
-		 * code for further investigation(*) for this anyway.
-		 */
-		return false;
+		return true;
 	}
 
 	/**
@@ -640,13 +639,12 @@ public class CachedMarkerBuilder {
 	 */
 	void incrementalUpdate(MarkerUpdate update) {
 		synchronized (getUpdateScheduler().getSchedulingLock()) {
-			if (incrementJob == null) {
-				scheduleUpdateJob(MarkerUpdateScheduler.SHORT_DELAY, true);
+			// without a job the markers are not gathered yet, their first
+			// gathering includes the update
+			if (incrementJob != null) {
+				incrementJob.addUpdate(update);
 			}
 		}
-		if (incrementJob != null) {
-			incrementJob.addUpdate(update);
-		}
 	}
 ///////	</Incremental update code>///////
 
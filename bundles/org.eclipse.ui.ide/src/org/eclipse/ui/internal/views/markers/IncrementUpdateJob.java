@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 IBM Corporation and others.
+ * Copyright (c) 2015, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,263 +11,140 @@
 
 package org.eclipse.ui.internal.views.markers;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.views.markers.internal.MarkerMessages;
 
 /**
- * The job that performs incremental update. Once the processing is complete it
- * schedules an UI update. If it'll be possible and beneficial switch to
- * incremental updatation, this has been left out for further investigation(*).
- * only, and not used currently.
+ * The job that performs incremental update. It applies the marker changes
+ * queued by the {@link MarkersChangeListener} to the sorted and grouped
+ * markers, and only gathers all markers again when a clean update was
+ * requested, as for a change of the filters, or when the markers are not
+ * sorted and grouped. Once the processing is complete it schedules an UI
+ * update.
  *
  * @since 3.6
  *
  */
 class IncrementUpdateJob extends MarkerUpdateJob {
 
-	private LinkedList<MarkerEntry> incrementEntryList;
-	private LinkedList<MarkerUpdate> updateQueue;
+	private final LinkedList<MarkerUpdate> updateQueue = new LinkedList<>();
 
 	/**
 	 * @param builder
 	 */
 	public IncrementUpdateJob(CachedMarkerBuilder builder) {
 		super(builder);
-		incrementEntryList = new LinkedList<>();
+		// gather the markers on the first run
+		setClean();
 	}
 
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
 		monitor.beginTask(MarkerMessages.MarkerView_processUpdates, IProgressMonitor.UNKNOWN);
-		boolean clean= isClean();
-		if (clean) {
-			clearEntries();
-		}
-		Collection<MarkerEntry> markerEntries = incrementalEntries();
-		if (clean) {
-			/*
-			 * Unfortunately we cannot lock marker operations between gathering
-			 * and updation. We have this code in place only for further
-			 * investigation
-			 */
-			clean = !clean(markerEntries, monitor);
-			LinkedList<MarkerUpdate> queue = getUpdatesQueue();
-			synchronized (queue) {
-				queue.clear();
-			}
-		}
 		if (monitor.isCanceled()) {
 			return Status.CANCEL_STATUS;
 		}
-		if (!clean) {
-			builder.registerTypesToListener();
-			if (!processUpdates(monitor)) {
+		if (takeClean() || !processUpdates(monitor)) {
+			monitor.setTaskName(MarkerMessages.MarkerView_searching_for_markers);
+			if (!rebuild(monitor)) {
+				setClean();
 				return Status.CANCEL_STATUS;
 			}
 		}
-		if (!processMarkerEntries(markerEntries, monitor)) {
-			return Status.CANCEL_STATUS;
-		}
-		if (monitor.isCanceled()) {
-			return Status.CANCEL_STATUS;
-		}
-		// update with sorted entries
-		updateIncrementalList(markerEntries);
-
-		if (monitor.isCanceled()) {
-			return Status.CANCEL_STATUS;
-		}
 		builder.getUpdateScheduler().scheduleUIUpdate(MarkerUpdateScheduler.SHORT_DELAY);
-		if (monitor.isCanceled()) {
-			return Status.CANCEL_STATUS;
-		}
 		builder.setBuilding(false);
 		updateDone();
 		return Status.OK_STATUS;
 	}
 
 	/**
-	 * Update the list
+	 * Gather, sort and group all markers.
 	 *
-	 * @param markerEntries
+	 * @param monitor
+	 * @return <code>false</code> if canceled
 	 */
-	private boolean updateIncrementalList(Collection<MarkerEntry> markerEntries) {
-		markerEntries.clear();
-		Markers clone = builder.getMarkers();
-		synchronized (clone) {
-			clone = clone.getClone();
-		}
-		for (MarkerEntry entry : clone.getMarkerEntryArray()) {
-			markerEntries.add(entry);
-		}
-		return true;
+	private boolean rebuild(IProgressMonitor monitor) {
+		// the markers gathered include the changes queued so far
+		clearUpdates();
+		Collection<MarkerEntry> markerEntries = new LinkedList<>();
+		if (!clean(markerEntries, monitor) || monitor.isCanceled()) {
+			return false;
+		}
+		monitor.setTaskName(MarkerMessages.MarkerView_processUpdates);
+		if (!processMarkerEntries(markerEntries, monitor) || monitor.isCanceled()) {
+			return false;
+		}
+		// the changes received while gathering may be missing, apply them
+		return processUpdates(monitor);
 	}
 
 	/**
-	 * Process the incremental updates
+	 * Apply the queued marker changes to the sorted and grouped markers.
 	 *
 	 * @param monitor
+	 * @return <code>false</code> if the markers have to be gathered again
 	 */
 	private boolean processUpdates(IProgressMonitor monitor) {
-		Collection<MarkerEntry> markerEntries = incrementalEntries();
-		int addCount = 0, removedCount = 0, changedCount = 0, size = 0, newSize = 0;
-		LinkedList<MarkerUpdate> queue = getUpdatesQueue();
-		MarkerUpdate next = null;
-		do {
-			synchronized (queue) {
-				if (!queue.isEmpty()) {
-					next = queue.removeFirst();
-				} else {
-					next = null;
-				}
+		List<MarkerUpdate> updates;
+		synchronized (updateQueue) {
+			updates = new ArrayList<>(updateQueue);
+			updateQueue.clear();
+		}
+		Markers markers = builder.getMarkers();
+		if (updates.isEmpty()) {
+			return markers.isSorted();
+		}
+
+		// the entries of all changed markers are replaced by the latest ones
+		Set<IMarker> removed = new HashSet<>();
+		Map<IMarker, MarkerEntry> added = new LinkedHashMap<>();
+		boolean[] changeFlags = new boolean[] { false, false, false };
+		for (MarkerUpdate update : updates) {
+			for (MarkerEntry entry : update.removed) {
+				removed.add(entry.getMarker());
+				added.remove(entry.getMarker());
+				changeFlags[1] = true;
 			}
-			if (monitor.isCanceled() || next == null) {
-				break;
+			for (MarkerEntry entry : update.added) {
+				removed.add(entry.getMarker());
+				added.put(entry.getMarker(), entry);
+				changeFlags[0] = true;
 			}
-			/**
-			 * The following performs incremental updation of the markers that
-			 * were gathered intially, and keeps them synched at any point with
-			 * the markers of interest in Workspace
-			 */
-			// unfortunately marker operations cannot be locked
-			// so locking between gathering of markers and
-			// marker deltas is not possible
-			size = markerEntries.size();
-			handleRemovedEntries(markerEntries, next.removed, monitor);
-			newSize = markerEntries.size();
-			removedCount += size - newSize;
-
-			handleChangedEntries(markerEntries, next.changed, monitor);
-			changedCount += next.changed.size();
-
-			size = newSize;
-			handleAddedEntries(markerEntries, next.added, monitor);
-			newSize = markerEntries.size();
-			removedCount += newSize - size;
-		} while (next != null);
-		boolean[] changeFlags = new boolean[] { addCount > 0, removedCount > 0,
-				changedCount > 0 };
-		for (boolean changeFlag : changeFlags) {
-			if (changeFlag) {
-				builder.updateChangeFlags(changeFlags);
-				return true;
+			for (MarkerEntry entry : update.changed) {
+				removed.add(entry.getMarker());
+				added.put(entry.getMarker(), entry);
+				changeFlags[2] = true;
 			}
 		}
-		return false;
-	}
-
-	/**
-	 * @param added
-	 * @param monitor
-	 */
-	private void handleAddedEntries(Collection<MarkerEntry> markerEntries, Collection<MarkerEntry> added,
-			IProgressMonitor monitor) {
 		MarkerContentGenerator generator = builder.getGenerator();
-		Iterator<MarkerEntry> iterator = added.iterator();
-		while (iterator.hasNext()) {
-			MarkerEntry entry = iterator.next();
-			if (generator.select(entry)) {
-				markerEntries.add(entry);
+		Collection<MarkerEntry> shown = new ArrayList<>(added.size());
+		for (MarkerEntry entry : added.values()) {
+			if (!entry.checkIfMarkerStale() && generator.select(entry)) {
+				shown.add(entry);
 			}
 		}
+		builder.updateChangeFlags(changeFlags);
+		return markers.updateWithChanges(shown, removed, monitor);
 	}
 
 	/**
-	 * @param changed
-	 * @param monitor
+	 * Clear the queued updates
 	 */
-	private void handleChangedEntries(Collection<MarkerEntry> markerEntries,
-			Collection<MarkerEntry> changed, IProgressMonitor monitor) {
-		MarkerContentGenerator generator = builder.getGenerator();
-		Iterator<MarkerEntry> iterator = changed.iterator();
-		while (iterator.hasNext()) {
-			MarkerEntry entry = iterator.next();
-			Iterator<MarkerEntry> iterator2 = markerEntries.iterator();
-			while (iterator2.hasNext()) {
-				MarkerEntry oldEntry = iterator2.next();
-				if (oldEntry.getMarker().equals(entry.getMarker())) {
-					iterator2.remove();
-				}
-			}
-			if (!generator.select(entry)) {
-				iterator.remove();
-			}
-		}
-		markerEntries.addAll(changed);
-	}
-
-	/**
-	 * @param removed
-	 * @param monitor
-	 */
-	private void handleRemovedEntries(Collection<MarkerEntry> markerEntries,
-			Collection<MarkerEntry> removed, IProgressMonitor monitor) {
-		boolean found = false;
-		Iterator<MarkerEntry> iterator = markerEntries.iterator();
-		while (iterator.hasNext()) {
-			MarkerEntry entry = iterator.next();
-			found = entry.getStaleState();
-			if (found) {
-				iterator.remove();
-			}
-			if (removed.isEmpty()) {
-				continue;
-			}
-			Iterator<MarkerEntry> iterator2 = removed.iterator();
-			while (iterator2.hasNext()) {
-				MarkerEntry stale = iterator2.next();
-				if (stale.getMarker().equals(entry.getMarker())) {
-					iterator2.remove();
-					if (!found) {
-						iterator.remove();
-					}
-					break;
-				}
-			}
-		}
-		if (removed.isEmpty()) {
-			// TODO: do we check for residuals?
-			return;
-		}
-		// TODO: do we check for residuals?
-		iterator = markerEntries.iterator();
-		while (iterator.hasNext()) {
-			MarkerEntry entry = iterator.next();
-			if (entry.getMarker() != null && !entry.getMarker().exists()) {
-				iterator.remove();
-			}
-		}
-	}
-
-	/**
-	 * Clean
-	 */
-	void clearEntries() {
-		incrementEntryList = new LinkedList<>();
-	}
-
-	/**
-	 * @return Returns the incrementEntryies.
-	 */
-	Collection<MarkerEntry> incrementalEntries() {
-		return incrementEntryList;
-	}
-
-	/**
-	 * @return the updateQueue that holds the updates and maintains ordering
-	 */
-	LinkedList<MarkerUpdate> getUpdatesQueue() {
-		synchronized (builder.MARKER_INCREMENTAL_UPDATE_FAMILY) {
-			if (updateQueue == null) {
-				updateQueue = new LinkedList<>();
-			}
-			return updateQueue;
+	void clearUpdates() {
+		synchronized (updateQueue) {
+			updateQueue.clear();
 		}
 	}
 
@@ -277,9 +154,8 @@ class IncrementUpdateJob extends MarkerUpdateJob {
 	 * @param update
 	 */
 	void addUpdate(MarkerUpdate update) {
-		LinkedList<MarkerUpdate> updateList = getUpdatesQueue();
-		synchronized (updateList) {
-			updateList.addLast(update);
+		synchronized (updateQueue) {
+			updateQueue.addLast(update);
 		}
 	}
 
@@ -290,4 +166,4 @@ class IncrementUpdateJob extends MarkerUpdateJob {
 		}
 		return super.belongsTo(family);
 	}
-}
\ No newline at end of file
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.ui.internal.views.markers;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.ui.views.markers.MarkerItem;
+import org.eclipse.ui.views.markers.internal.MarkerGroupingEntry;
 import org.eclipse.ui.views.markers.internal.MarkerMessages;
 
 class MarkerCategory extends MarkerSupportItem {
@@ -28,6 +29,8 @@ class MarkerCategory extends MarkerSupportItem {
 
 	private String name;
 
+	private MarkerGroupingEntry groupingEntry;
+
 	private int severity = -1;
 
 	private Markers markers;
@@ -40,14 +43,18 @@ class MarkerCategory extends MarkerSupportItem {
 	 * @param startIndex
 	 * @param endIndex
 	 *            the builder used to generate the children lazily.
+	 * @param categoryName
+	 * @param groupingEntry
+	 *            the group value of the markers in the category
 	 */
 	MarkerCategory(Markers markers, int startIndex,
-			int endIndex, String categoryName) {
+			int endIndex, String categoryName, MarkerGroupingEntry groupingEntry) {
 		this.markers = markers;
 		start = startIndex;
 		end = endIndex;
 		refreshing=false;
 		name = categoryName;
+		this.groupingEntry = groupingEntry;
 	}
 
 	@Override
@@ -127,6 +134,15 @@ class MarkerCategory extends MarkerSupportItem {
 		return name;
 	}
 
+	/**
+	 * Return the group value of the markers in the receiver.
+	 *
+	 * @return MarkerGroupingEntry
+	 */
+	MarkerGroupingEntry getGroupingEntry() {
+		return groupingEntry;
+	}
+
 	@Override
 	MarkerSupportItem getParent() {
 		return null;
@@ -115,6 +115,25 @@ class MarkerComparator implements Comparator<MarkerItem> {
 		}
 		return value;
 	}
+	/**
+	 * Return whether the receiver only compares by the fields of this
+	 * plug-in. Their values are cached by {@link MarkerEntry#cacheSortKeys()},
+	 * so that the entries can be sorted in parallel.
+	 *
+	 * @return boolean
+	 */
+	boolean isBuiltIn() {
+		if (category != null && !MarkerSupportInternalUtilities.isBuiltIn(category)) {
+			return false;
+		}
+		for (MarkerField field : fields) {
+			if (!MarkerSupportInternalUtilities.isBuiltIn(field)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Comparator to compare the two MarkerEntry(s) by various fields
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,11 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
@@ -70,6 +75,16 @@ public class MarkerContentGenerator {
 	private static final String TAG_MARKER_LIMIT = "markerLimit"; //$NON-NLS-1$
 	private static final String TAG_MARKER_LIMIT_ENABLED = "markerLimitEnabled"; //$NON-NLS-1$
 
+	/**
+	 * The number of markers selected by a task when gathering in parallel.
+	 */
+	private static final int SELECT_CHUNK_SIZE = 500;
+
+	/**
+	 * The number of markers from which on they are gathered in parallel.
+	 */
+	private static final int PARALLEL_SELECT_THRESHOLD = 4 * SELECT_CHUNK_SIZE;
+
 	/*Use this to indicate filter change rather than a null*/
 	private final Collection<MarkerFieldFilterGroup> FILTERS_CHANGED = Collections.emptySet();
 
@@ -1078,42 +1093,81 @@ public class MarkerContentGenerator {
 		IResource[] selected = getSelectedResources();
 		Collection<MarkerFieldFilterGroup> enabled = getEnabledFilters();
 		boolean filtersAreANDed = andFilters();
-		Iterator<IResource> iterator = resources.iterator();
-		while (iterator.hasNext()) {
-			IMarker[] markers = null;
+		boolean parallel = ForkJoinPool.getCommonPoolParallelism() > 1;
+		// the markers of several resources are found in parallel
+		Stream<IResource> resourceStream = parallel && resources.size() > 1 ? resources.parallelStream()
+				: resources.stream();
+		List<IMarker[]> found = resourceStream.map(resource -> {
 			try {
-				IResource resource = iterator.next();
 				if (!resource.isAccessible()) {
-					continue;
+					return null;
 				}
-				markers = resource.findMarkers(typeId, includeSubTypes, IResource.DEPTH_INFINITE);
+				return resource.findMarkers(typeId, includeSubTypes, IResource.DEPTH_INFINITE);
 			} catch (CoreException e) {
 				MarkerSupportInternalUtilities.logViewError(e);
+				return null;
 			}
-			if (markers == null) {
-				continue;
-			}
-			if (monitor.isCanceled()) {
-				return false;
+		}).filter(Objects::nonNull).collect(Collectors.toList());
+		if (monitor.isCanceled()) {
+			return false;
+		}
+		// the groups build their filters lazily, build them before selecting in parallel
+		for (MarkerFieldFilterGroup group : enabled) {
+			group.prepareSelect();
+			// the filters of other plug-ins may not be thread safe
+			parallel &= group.isBuiltIn();
+		}
+		for (IMarker[] markers : found) {
+			int length = markers.length;
+			int chunks = (length + SELECT_CHUNK_SIZE - 1) / SELECT_CHUNK_SIZE;
+			IntStream chunkStream = IntStream.range(0, chunks);
+			if (parallel && length >= PARALLEL_SELECT_THRESHOLD) {
+				chunkStream = chunkStream.parallel();
 			}
-			MarkerEntry entry = null;
-			int lenght = markers.length;
-			for (int i = 0; i < lenght; i++) {
-				entry = new MarkerEntry(markers[i]);
-				if (select(entry, selected, enabled, filtersAreANDed)) {
-					result.add(entry);
-				}
-				entry.clearCache();
-				if (i % 500 == 0) {
-					if (monitor.isCanceled()) {
-						return false;
-					}
+			List<List<MarkerEntry>> selectedChunks = chunkStream
+					.mapToObj(i -> selectMarkers(markers, i * SELECT_CHUNK_SIZE,
+							Math.min((i + 1) * SELECT_CHUNK_SIZE, length), selected, enabled, filtersAreANDed,
+							monitor))
+					.collect(Collectors.toList());
+			for (List<MarkerEntry> selectedChunk : selectedChunks) {
+				if (selectedChunk == null) {
+					return false;
 				}
+				result.addAll(selectedChunk);
 			}
 		}
 		return true;
 	}
 
+	/**
+	 * Create the entries of the markers in [from, to) and select them. Runs in
+	 * any thread, each entry is only accessed by a single thread.
+	 *
+	 * @param markers
+	 * @param from
+	 * @param to
+	 * @param selected
+	 * @param enabled
+	 * @param filtersAreANDed
+	 * @param monitor
+	 * @return the selected entries or <code>null</code> if canceled
+	 */
+	private static List<MarkerEntry> selectMarkers(IMarker[] markers, int from, int to, IResource[] selected,
+			Collection<MarkerFieldFilterGroup> enabled, boolean filtersAreANDed, IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			return null;
+		}
+		List<MarkerEntry> result = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			MarkerEntry entry = new MarkerEntry(markers[i]);
+			if (select(entry, selected, enabled, filtersAreANDed)) {
+				result.add(entry);
+			}
+			entry.clearCache();
+		}
+		return result;
+	}
+
 	void dispose() {
 		if (filterPreferenceListener != null) {
 			IDEWorkbenchPlugin.getDefault().getPreferenceStore().removePropertyChangeListener(filterPreferenceListener);
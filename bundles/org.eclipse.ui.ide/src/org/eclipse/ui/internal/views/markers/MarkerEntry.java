@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -59,6 +59,8 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 
 	// The key for the string we built for display
 	private static final String LOCATION_STRING = "LOCATION_STRING"; //$NON-NLS-1$
+	// The cached value of an attribute which is not set
+	private static final Object NO_VALUE = new Object();
 	private MarkerCategory category;
 	private Map<String, Object> cache;
 
@@ -120,6 +122,9 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 */
 	Object getAttributeValue(String attribute) {
 		Object value = getCache().get(attribute);
+		if (value == NO_VALUE) {
+			return null;
+		}
 		if(value == null) {
 			if(stale){
 				return value;
@@ -128,11 +133,10 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 				value = marker.getAttribute(attribute);
 			} catch (CoreException e) {
 				checkIfMarkerStale() ;
-				value = null;
-			}
-			if(value != null) {
-				getCache().put(attribute, value);
+				return null;
 			}
+			// remember unset attributes too, comparisons ask for them again
+			getCache().put(attribute, value == null ? NO_VALUE : value);
 		}
 		if (value instanceof CollationKey) {
 			return ((CollationKey) value).getSourceString();
@@ -178,7 +182,9 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	CollationKey getCollationKey(String attribute, String defaultValue) {
 		String attributeValue;
 		Object value = getCache().get(attribute);
-		if (value != null) {
+		if (value == NO_VALUE) {
+			attributeValue = defaultValue;
+		} else if (value != null) {
 			// Only return a collation key otherwise
 			//use the value to generate it
 			if (value instanceof CollationKey) {
@@ -352,6 +358,27 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 		return cache;
 	}
 
+	/**
+	 * Cache the values compared by the fields of this plug-in. Comparing the
+	 * receiver by these fields then only reads the cache, so that it can be
+	 * compared from several threads at once until the cache is cleared.
+	 */
+	void cacheSortKeys() {
+		getCache();
+		if (marker == null) {
+			return;
+		}
+		getAttributeValue(IMarker.SEVERITY);
+		getCollationKey(IMarker.MESSAGE, MarkerSupportInternalUtilities.UNKNOWN_ATRRIBTE_VALUE_STRING);
+		getAttributeValue(IMarker.LOCATION);
+		getAttributeValue(IMarker.LINE_NUMBER);
+		getAttributeValue(IMarker.PRIORITY);
+		getAttributeValue(IMarker.USER_EDITABLE);
+		getAttributeValue(IMarker.DONE);
+		getAttributeValue(MarkerViewUtil.NAME_ATTRIBUTE);
+		getPath();
+	}
+
 	/**
 	 * Clear the cached values for performance reasons.
 	 */
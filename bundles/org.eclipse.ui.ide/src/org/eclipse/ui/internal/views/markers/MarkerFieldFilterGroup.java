@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -586,6 +586,33 @@ class MarkerFieldFilterGroup {
 		return select(testEntry);
 	}
 
+	/**
+	 * Builds the filters and the resources of the working set, which
+	 * {@link #select(MarkerEntry)} otherwise builds lazily, so that entries can
+	 * then be selected from several threads at once.
+	 */
+	void prepareSelect() {
+		getFieldFilters();
+		if (scope == ON_WORKING_SET && workingSet != null && wSetResources == null) {
+			computeWorkingSetResources();
+		}
+	}
+
+	/**
+	 * Return whether the receiver only selects by the filters of this plug-in,
+	 * so that entries can be selected from several threads at once.
+	 *
+	 * @return boolean
+	 */
+	boolean isBuiltIn() {
+		for (MarkerFieldFilter filter : getFieldFilters()) {
+			if (!MarkerSupportInternalUtilities.isBuiltIn(filter)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Return whether or not this MarkerEntry can be shown.
 	 *
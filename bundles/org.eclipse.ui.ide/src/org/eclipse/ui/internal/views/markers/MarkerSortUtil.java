@@ -1,6 +1,6 @@
 /*
  *
- * Copyright (c) 1994, 2015
+ * Copyright (c) 1994, 2017
  * Hewlett-Packard Company
  *
  * Permission to use, copy, modify, distribute and sell this software
@@ -30,6 +30,8 @@ package org.eclipse.ui.internal.views.markers;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -64,6 +66,15 @@ public class MarkerSortUtil {
 	 */
 	private static float MERGE_OR_HEAP_SWITCH=1.5f;
 
+	/*
+	 * When at least this many elements are to be sorted completely by the
+	 * fields of this plug-in, and more than one processor is available, the
+	 * sort keys of all elements are cached and the elements are sorted by a
+	 * parallel merge sort. Unlike the heapsort, this keeps the caches of all
+	 * elements while sorting.
+	 */
+	private static int PARALLEL_SORT_THRESHOLD = 20000;
+
 	/**
 	 * Sorts [first,middle] in the array of [first,last] using a variant of
 	 * modified heapsort, such that
@@ -295,6 +306,26 @@ public class MarkerSortUtil {
 		array[first].clearCache();
 	}
 
+	/**
+	 * Sorts [from,to] in the array with a parallel merge sort of sorted runs.
+	 * The values compared are cached first, so that the comparisons only read
+	 * the caches of the entries.
+	 *
+	 * @param entries
+	 * @param comparator
+	 * @param from
+	 * @param to
+	 */
+	private static void parallelSort(MarkerEntry[] entries, Comparator<MarkerItem> comparator,
+			int from, int to) {
+		IntStream.rangeClosed(from, to).parallel().forEach(i -> entries[i].cacheSortKeys());
+		Arrays.parallelSort(entries, from, to + 1, comparator);
+		// clear cache for first to last since we are done with sort
+		for (int i = from; i <= to; i++) {
+			entries[i].clearCache();
+		}
+	}
+
 	/**
 	 * Sorts [from,first+k-1] in the array of [from,to] using a variant of
 	 * modified heapsort, such that
@@ -314,12 +345,38 @@ public class MarkerSortUtil {
 	public static void sortStartingKElement(MarkerEntry[] entries,
  Comparator<MarkerItem> comparator, int from, int to,
 			int k, IProgressMonitor monitor) {
+		sortStartingKElement(entries, comparator, from, to, k, false, monitor);
+	}
+
+	/**
+	 * Sorts [from,first+k-1] in the array of [from,to] as
+	 * {@link #sortStartingKElement(MarkerEntry[], Comparator, int, int, int, IProgressMonitor)}
+	 * does. Large ranges to be sorted completely are sorted in parallel if
+	 * allowed, which requires that the comparator only compares by the
+	 * values cached by {@link MarkerEntry#cacheSortKeys()}.
+	 *
+	 * @param entries
+	 * @param comparator
+	 * @param from
+	 * @param to
+	 * @param k
+	 * @param parallel
+	 *            whether the range may be sorted in parallel
+	 * @param monitor
+	 */
+	static void sortStartingKElement(MarkerEntry[] entries, Comparator<MarkerItem> comparator, int from, int to,
+			int k, boolean parallel, IProgressMonitor monitor) {
 		// check range valid
 		int last = from + k-1;
 		if (entries.length == 0 || from < 0 || from >= to || last < from
 				|| last > to || to > entries.length - 1 || to < 0)
 			return;
 		int n=to-from+1;
+		if (parallel && n >= PARALLEL_SORT_THRESHOLD && (((float) n / k) <= MERGE_OR_HEAP_SWITCH)
+				&& ForkJoinPool.getCommonPoolParallelism() > 1) {
+			parallelSort(entries, comparator, from, to);
+			return;
+		}
 		if (n <= BATCH_SIZE && (((float) n / k) <= MERGE_OR_HEAP_SWITCH)
 				/*|| ((float) n / k) <= MERGE_OR_HEAP_SWITCH*/) {
 			// use arrays sort
@@ -375,6 +432,20 @@ public class MarkerSortUtil {
 			int k, int limit) {
 		sortStartingKElement(fArray1, comparator, from, k, limit,new NullProgressMonitor());
 	}
+
+	/**
+	 * @param fArray1
+	 * @param comparator
+	 * @param from
+	 * @param to
+	 * @param k
+	 * @param parallel
+	 */
+	public static void sortStartingKElement(MockMarkerEntry[] fArray1, Comparator<MarkerItem> comparator, int from,
+			int to, int k, boolean parallel) {
+		sortStartingKElement(fArray1, comparator, from, to, k, parallel, new NullProgressMonitor());
+	}
+
 	/**
 	 * Sorts [0,k-1] in the array of [0,entries.length-1] using a variant of
 	 * modified heapsort, such that
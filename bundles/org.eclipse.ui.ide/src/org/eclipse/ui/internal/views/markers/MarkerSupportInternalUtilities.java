@@ -282,6 +282,18 @@ public class MarkerSupportInternalUtilities {
 		return marker.getAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
 	}
 
+	/**
+	 * Return whether the field or filter is implemented by this plug-in. The
+	 * fields and filters of other plug-ins may not expect to be called from
+	 * several threads at once.
+	 *
+	 * @param fieldOrFilter
+	 * @return boolean
+	 */
+	static boolean isBuiltIn(Object fieldOrFilter) {
+		return fieldOrFilter.getClass().getClassLoader() == MarkerSupportInternalUtilities.class.getClassLoader();
+	}
+
 	/**
 	 * Return the id for the field.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 IBM Corporation and others.
+ * Copyright (c) 2015, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -148,17 +148,26 @@ class MarkerUpdateJob extends Job {
 	/**
 	 * @return Returns if the a clean is requested.
 	 */
-	boolean isClean() {
+	synchronized boolean isClean() {
 		return clean;
 	}
 
 	/**
 	 * Request a clean
 	 */
-	void setClean() {
+	synchronized void setClean() {
 		this.clean = true;
 	}
 
+	/**
+	 * @return Returns if a clean is requested, and resets the request.
+	 */
+	synchronized boolean takeClean() {
+		boolean requested = clean;
+		clean = false;
+		return requested;
+	}
+
 	/**
 	 * @return last update time
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,7 +20,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
@@ -56,6 +58,10 @@ class Markers {
 	private Map<IMarker, MarkerEntry> markerToEntryMap;
 	private Integer[] markerCounts;
 
+	// whether the entries are sorted and grouped, so that marker changes can
+	// be applied to them
+	private boolean sorted;
+
 	Markers(CachedMarkerBuilder builder) {
 		this.builder = builder;
 		inChange = false;
@@ -75,6 +81,7 @@ class Markers {
 		boolean initialVal = inChange;
 		try {
 			inChange = true;
+			sorted = false;
 			if (markerToEntryMap != null) {
 				markerToEntryMap.clear();
 				markerToEntryMap = null;
@@ -83,6 +90,7 @@ class Markers {
 			if (markerEntries.size() == 0) {
 				categories = EMPTY_CATEGORY_ARRAY;
 				markerEntryArray = EMPTY_ENTRY_ARRAY;
+				sorted = sortAndGroup;
 				return true;
 			}
 			if (monitor.isCanceled()) {
@@ -146,8 +154,10 @@ class Markers {
 		boolean initialVal = inChange;
 		try {
 			inChange = true;
+			sorted = false;
 			if (builder.isShowingHierarchy()) {
 				Comparator<MarkerItem> comparator = builder.getComparator().getFieldsComparator();
+				boolean parallel = builder.getComparator().isBuiltIn();
 				for (MarkerCategory category : categories) {
 					if (monitor.isCanceled()) {
 						return false;
@@ -158,7 +168,7 @@ class Markers {
 					int effLimit = getShowingLimit(avaliable);
 					MarkerSortUtil.sortStartingKElement(markerEntryArray,
 							comparator, category.start, category.end, effLimit,
-							monitor);
+							parallel, monitor);
 				}
 			} else {
 				if (monitor.isCanceled()) {
@@ -167,18 +177,227 @@ class Markers {
 				int avaialble = markerEntryArray.length - 1;
 				int effLimit = getShowingLimit(avaialble);
 				MarkerSortUtil.sortStartingKElement(markerEntryArray,
-						builder.getComparator(), effLimit, monitor);
+						builder.getComparator(), 0, markerEntryArray.length - 1, effLimit,
+						builder.getComparator().isBuiltIn(), monitor);
 			}
 			if (monitor.isCanceled()) {
 				return false;
 			}
 			monitor.worked(50);
+			sorted = true;
 			return true;
 		} finally {
 			inChange = initialVal;
 		}
 	}
 
+	/**
+	 * @return Returns true if the entries are sorted and grouped.
+	 */
+	synchronized boolean isSorted() {
+		return sorted;
+	}
+
+	/**
+	 * Update the sorted and grouped marker entries with marker changes,
+	 * without gathering, sorting and grouping all markers again. The entries
+	 * of the removed markers are dropped and the added entries are inserted
+	 * at their position found by binary search, creating categories as
+	 * needed.
+	 *
+	 * @param added
+	 *            the new entries to show
+	 * @param removed
+	 *            the markers whose present entries are dropped
+	 * @param monitor
+	 * @return <code>false</code> if the entries are not sorted and grouped,
+	 *         or if the update was canceled, so that the markers have to be
+	 *         gathered again
+	 */
+	synchronized boolean updateWithChanges(Collection<MarkerEntry> added, Set<IMarker> removed,
+			IProgressMonitor monitor) {
+		if (!sorted) {
+			return false;
+		}
+		boolean initialVal = inChange;
+		try {
+			inChange = true;
+			sorted = false;
+			markerToEntryMap = null;
+			markerCounts = null;
+			List<MarkerEntry> entries = new ArrayList<>(markerEntryArray.length + added.size());
+			// ranges whose sorted entries do not reach the showing limit:
+			// {first unsorted, end, count to sort}
+			List<int[]> unsortedRanges = new ArrayList<>();
+			Comparator<MarkerItem> comparator;
+			if (builder.isShowingHierarchy()) {
+				comparator = builder.getComparator().getFieldsComparator();
+				categories = updateCategories(added, removed, comparator, entries, unsortedRanges);
+			} else {
+				comparator = builder.getComparator();
+				List<MarkerEntry> additions = new ArrayList<>(added);
+				additions.sort(comparator);
+				mergeRange(0, markerEntryArray.length - 1, additions, removed, comparator, entries,
+						unsortedRanges);
+				categories = EMPTY_CATEGORY_ARRAY;
+			}
+			markerEntryArray = entries.toArray(new MarkerEntry[entries.size()]);
+			boolean parallel = builder.getComparator().isBuiltIn();
+			for (int[] range : unsortedRanges) {
+				MarkerSortUtil.sortStartingKElement(markerEntryArray, comparator, range[0], range[1], range[2],
+						parallel, monitor);
+			}
+			if (monitor.isCanceled()) {
+				return false;
+			}
+			sorted = true;
+			return true;
+		} finally {
+			inChange = initialVal;
+		}
+	}
+
+	/**
+	 * Apply the changes to the categories, appending their entries to
+	 * entries.
+	 *
+	 * @return the new categories
+	 */
+	private MarkerCategory[] updateCategories(Collection<MarkerEntry> added, Set<IMarker> removed,
+			Comparator<MarkerItem> comparator, List<MarkerEntry> entries, List<int[]> unsortedRanges) {
+		MarkerGroup group = builder.getCategoryGroup();
+		Map<MarkerGroupingEntry, List<MarkerEntry>> additions = new TreeMap<>(group.getEntriesComparator());
+		for (MarkerEntry entry : added) {
+			IMarker marker = entry.getMarker();
+			try {
+				MarkerGroupingEntry groupingEntry = group.findGroupValue(marker.getType(), marker);
+				List<MarkerEntry> list = additions.get(groupingEntry);
+				if (list == null) {
+					list = new ArrayList<>();
+					additions.put(groupingEntry, list);
+				}
+				list.add(entry);
+			} catch (CoreException e) {
+				entry.checkIfMarkerStale();
+			}
+		}
+		Map<MarkerGroupingEntry, MarkerCategory> present = new TreeMap<>(group.getEntriesComparator());
+		for (MarkerCategory category : categories) {
+			present.put(category.getGroupingEntry(), category);
+		}
+		Set<MarkerGroupingEntry> groupingEntries = new TreeSet<>(group.getEntriesComparator());
+		groupingEntries.addAll(present.keySet());
+		groupingEntries.addAll(additions.keySet());
+
+		List<MarkerCategory> newCategories = new ArrayList<>(groupingEntries.size());
+		for (MarkerGroupingEntry groupingEntry : groupingEntries) {
+			List<MarkerEntry> categoryAdditions = additions.get(groupingEntry);
+			if (categoryAdditions == null) {
+				categoryAdditions = Collections.emptyList();
+			} else {
+				categoryAdditions.sort(comparator);
+			}
+			MarkerCategory category = present.get(groupingEntry);
+			int start = entries.size();
+			if (category == null) {
+				mergeRange(0, -1, categoryAdditions, removed, comparator, entries, unsortedRanges);
+			} else {
+				mergeRange(category.start, category.end, categoryAdditions, removed, comparator, entries,
+						unsortedRanges);
+			}
+			if (entries.size() == start) {
+				continue;
+			}
+			String name = category == null ? group.getMarkerField().getValue(entries.get(start))
+					: category.getName();
+			newCategories.add(new MarkerCategory(this, start, entries.size() - 1, name, groupingEntry));
+		}
+		return newCategories.toArray(new MarkerCategory[newCategories.size()]);
+	}
+
+	/**
+	 * Append the entries in [from, to] which are not removed to entries,
+	 * inserting the sorted additions.
+	 * <p>
+	 * Only the first {@link #getSortedLength(int)} entries of a range are
+	 * sorted, the others are not smaller than them. Additions greater than
+	 * these sorted entries are appended to the unsorted ones, and the range is
+	 * added to unsortedRanges if less entries than the showing limit are
+	 * sorted.
+	 * </p>
+	 */
+	private void mergeRange(int from, int to, List<MarkerEntry> additions, Set<IMarker> removed,
+			Comparator<MarkerItem> comparator, List<MarkerEntry> entries, List<int[]> unsortedRanges) {
+		int sortedEnd = from + getSortedLength(to - from + 1);
+		List<MarkerEntry> sortedEntries = new ArrayList<>(sortedEnd - from);
+		List<MarkerEntry> unsortedEntries = new ArrayList<>(to - sortedEnd + 1);
+		for (int i = from; i <= to; i++) {
+			MarkerEntry entry = markerEntryArray[i];
+			IMarker marker = entry.getMarker();
+			if (marker == null || entry.getStaleState() || removed.contains(marker)) {
+				continue;
+			}
+			(i < sortedEnd ? sortedEntries : unsortedEntries).add(entry);
+		}
+
+		int start = entries.size();
+		MarkerEntry greatest = sortedEntries.isEmpty() ? null : sortedEntries.get(sortedEntries.size() - 1);
+		boolean partial = sortedEnd <= to;
+		int index = 0;
+		for (MarkerEntry entry : additions) {
+			if (partial && (greatest == null || comparator.compare(entry, greatest) > 0)) {
+				unsortedEntries.add(entry);
+				continue;
+			}
+			int insertion = insertionPoint(sortedEntries, index, entry, comparator);
+			entries.addAll(sortedEntries.subList(index, insertion));
+			entries.add(entry);
+			index = insertion;
+		}
+		entries.addAll(sortedEntries.subList(index, sortedEntries.size()));
+		int sortedCount = entries.size() - start;
+		entries.addAll(unsortedEntries);
+
+		int toSort = getSortedLength(entries.size() - start) - sortedCount;
+		if (toSort > 0 && !unsortedEntries.isEmpty()) {
+			unsortedRanges.add(new int[] { start + sortedCount, entries.size() - 1, toSort });
+		}
+	}
+
+	/**
+	 * Return the index in [low, entries.size()] after the entries not greater
+	 * than entry.
+	 */
+	private static int insertionPoint(List<MarkerEntry> entries, int low, MarkerEntry entry,
+			Comparator<MarkerItem> comparator) {
+		int high = entries.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(entries.get(middle), entry) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Return the number of entries sorted at the start of a range of entries
+	 * by {@link #sortMarkerEntries(IProgressMonitor)}.
+	 *
+	 * @param size
+	 *            the number of entries in the range
+	 */
+	private int getSortedLength(int size) {
+		MarkerContentGenerator generator = builder.getGenerator();
+		int limit = generator.getMarkerLimits();
+		if (generator.isMarkerLimitsEnabled() && limit > 0 && size > limit + 1) {
+			return limit;
+		}
+		return size;
+	}
+
 	/**
 	 * get marker limit to show, if any.
 	 *
@@ -216,7 +435,7 @@ class Markers {
 			end = entry.getValue();
 			markerCategories[i++] = new MarkerCategory(this, start, end,
 					builder.getCategoryGroup().getMarkerField()
-							.getValue(newMarkers[start]));
+							.getValue(newMarkers[start]), entry.getKey());
 			start = end + 1;
 		}
 		return markerCategories;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 IBM Corporation and others.
+ * Copyright (c) 2015, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -178,10 +178,8 @@ class MarkersChangeListener implements IResourceChangeListener {
 	 * of the markers that were gathered initially, and keeps them synched at
 	 * any point with the markers of interest in Workspace. Unfortunately marker
 	 * operations cannot be locked so locking between gathering of markers and
-	 * marker deltas is not possible.
-	 *
-	 * Note : this method of updating is NOT used and tested yet and has holes
-	 * but left out SOLELY for further investigation(*).
+	 * marker deltas is not possible; the changes received while gathering are
+	 * applied again afterwards, see {@link IncrementUpdateJob}.
 	 *
 	 * @param event
 	 */
@@ -538,6 +536,20 @@ class MarkerUpdateScheduler {
 		// updateTimer.reset();
 	}
 
+	/**
+	 * Schedule marker update for marker changes, which does not gather the
+	 * markers again if the builder updates them incrementally.
+	 */
+	void scheduleChangeUpdate(long delay, boolean cancelPrevious) {
+		//we do not need to make this atomic (?)
+		builder.setBuilding(true);
+		if (cancelPrevious) {
+			cancelQueuedUIUpdates();
+			cancelUpdate();
+		}
+		updateJob = builder.scheduleUpdateJob(delay, !builder.isIncremental());
+	}
+
 	/**
 	 * Schedule marker update.
 	 */
@@ -801,7 +813,7 @@ class MarkerUpdateScheduler {
 
 		private void go(long delay, boolean cancelPrevious) {
 			timeB4Update = System.currentTimeMillis() + delay;
-			scheduleUpdate(delay + AFTER_MARGIN, cancelPrevious);
+			scheduleChangeUpdate(delay + AFTER_MARGIN, cancelPrevious);
 		}
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -115,6 +116,20 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
                 IDEWorkbenchPlugin.IDE_WORKBENCH, 0, message, e));
     }
 
+    /**
+     * Add an entry to the error table for the resource which could not be
+     * exported, or for each file which could not be compressed
+     */
+    private void addExportError(IResource exportResource, IOException e) {
+        if (e instanceof ZipFileExporter.CompressionException) {
+            for (Map.Entry<IFile, Throwable> failure : ((ZipFileExporter.CompressionException) e).getFailures().entrySet()) {
+                addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, failure.getKey().getFullPath().makeRelative(), failure.getValue().getMessage()), failure.getValue());
+            }
+        } else {
+            addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
+        }
+    }
+
     /**
      *  Answer the total number of file resources that exist at or below self
      *  in the resources hierarchy.
@@ -192,12 +207,17 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
 
         if (exportResource.getType() == IResource.FILE) {
         	String destinationName = createDestinationName(leadupDepth, exportResource);
-            monitor.subTask(destinationName);
+            if (exporter instanceof ZipFileExporter) {
+            	long throughput = ((ZipFileExporter) exporter).getThroughput() / (1024 * 1024);
+            	monitor.subTask(NLS.bind(DataTransferMessages.ZipExport_progress, destinationName, Long.valueOf(throughput)));
+            } else {
+            	monitor.subTask(destinationName);
+            }
 
             try {
                 exporter.write((IFile) exportResource, destinationName);
             } catch (IOException e) {
-                addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
+                addExportError(exportResource, e);
             } catch (CoreException e) {
                 addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
             }
@@ -219,7 +239,7 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
                 try {
             		exporter.write((IContainer) exportResource, destinationName + IPath.SEPARATOR);
                 } catch (IOException e) {
-                    addError(NLS.bind(DataTransferMessages.DataTransfer_errorExporting, exportResource.getFullPath().makeRelative(), e.getMessage()), e);
+                    addExportError(exportResource, e);
                 }
             }
 
@@ -333,6 +353,8 @@ public class ArchiveFileExportOperation implements IRunnableWithProgress {
 
             try {
                 exporter.finished();
+            } catch (ZipFileExporter.CompressionException e) {
+                addExportError(null, e);
             } catch (IOException e) {
                 throw new InvocationTargetException(
                         e,
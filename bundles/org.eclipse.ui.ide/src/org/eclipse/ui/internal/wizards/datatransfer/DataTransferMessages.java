@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -139,6 +139,7 @@ public class DataTransferMessages extends NLS {
 	public static String ZipExport_alreadyExistsError;
 	public static String ZipExport_cannotOpen;
 	public static String ZipExport_cannotClose;
+	public static String ZipExport_progress;
 	public static String ZipExport_selectDestinationTitle;
 	public static String ZipExport_destinationEmpty;
 
@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.wizards.datatransfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a zip file, with entries whose contents are already compressed, so
+ * that the entries can be compressed in parallel, and with entries whose
+ * contents are streamed, in which case the sizes and checksum in the local
+ * header are written once the contents are. An entry whose contents could
+ * not be read is removed from the file.
+ * <p>
+ * The ZIP64 extensions are used for the entries, sizes and offsets which do
+ * not fit into the original format. File names are encoded in UTF-8, as by
+ * {@link java.util.zip.ZipOutputStream}.
+ * </p>
+ */
+public class ZipArchiveWriter {
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final int VERSION = 20;
+	private static final int ZIP64_VERSION = 45;
+	private static final int UTF8_FLAG = 0x0800;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+	/**
+	 * The contents of an empty deflated entry.
+	 */
+	private static final byte[] EMPTY_DEFLATED = { 0x03, 0x00 };
+
+	static final int BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * The central directory record of an entry written.
+	 */
+	private static class Entry {
+		byte[] name;
+		int method;
+		int dosTime;
+		long crc;
+		long compressedSize;
+		long size;
+		long offset;
+	}
+
+	private final FileChannel channel;
+
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * The number of bytes written to the channel, or to the buffer.
+	 */
+	private long position;
+
+	/**
+	 * Creates a zip file.
+	 *
+	 * @param filename
+	 *            the file to write to, replaced if it exists
+	 * @throws IOException
+	 */
+	public ZipArchiveWriter(String filename) throws IOException {
+		channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Writes the entry of a folder.
+	 *
+	 * @param name
+	 *            the name of the entry, ending with a slash
+	 * @param time
+	 *            the time of the last modification
+	 * @param compressed
+	 *            whether the entry is deflated
+	 * @throws IOException
+	 */
+	public void writeFolder(String name, long time, boolean compressed) throws IOException {
+		if (compressed) {
+			writeEntry(name, time, ZipEntry.DEFLATED, 0, 0, EMPTY_DEFLATED, EMPTY_DEFLATED.length);
+		} else {
+			writeEntry(name, time, ZipEntry.STORED, 0, 0, EMPTY_DEFLATED, 0);
+		}
+	}
+
+	/**
+	 * Writes an entry with the given contents.
+	 *
+	 * @param name
+	 *            the name of the entry
+	 * @param time
+	 *            the time of the last modification
+	 * @param method
+	 *            {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+	 * @param crc
+	 *            the checksum of the uncompressed contents
+	 * @param size
+	 *            the size of the uncompressed contents
+	 * @param data
+	 *            the contents, compressed by the method
+	 * @param length
+	 *            the number of bytes of data to write
+	 * @throws IOException
+	 */
+	public void writeEntry(String name, long time, int method, long crc, long size, byte[] data, int length)
+			throws IOException {
+		Entry entry = newEntry(name, time, method);
+		entry.crc = crc;
+		entry.size = size;
+		entry.compressedSize = length;
+		writeLocalHeader(entry, false);
+		write(data, length);
+	}
+
+	/**
+	 * Writes an entry with the contents read from the stream, compressing them
+	 * if asked to. The local header is rewritten once the contents are
+	 * written, as the sizes and checksum are not known before. If the contents
+	 * cannot be read, the file is truncated to the entries written before, so
+	 * that other entries can still be written.
+	 *
+	 * @param name
+	 *            the name of the entry
+	 * @param time
+	 *            the time of the last modification
+	 * @param compressed
+	 *            whether to deflate the contents
+	 * @param contents
+	 *            the contents, not closed
+	 * @return the number of bytes read
+	 * @throws IOException
+	 */
+	public long writeEntry(String name, long time, boolean compressed, InputStream contents) throws IOException {
+		Entry entry = newEntry(name, time, compressed ? ZipEntry.DEFLATED : ZipEntry.STORED);
+		writeLocalHeader(entry, true);
+
+		CRC32 crc = new CRC32();
+		Deflater deflater = compressed ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+		byte[] readBuffer = new byte[BUFFER_SIZE];
+		byte[] deflateBuffer = compressed ? new byte[BUFFER_SIZE] : null;
+		long start = position;
+		try {
+			int n;
+			while ((n = contents.read(readBuffer)) != -1) {
+				crc.update(readBuffer, 0, n);
+				entry.size += n;
+				if (compressed) {
+					deflater.setInput(readBuffer, 0, n);
+					while (!deflater.needsInput()) {
+						write(deflateBuffer, deflater.deflate(deflateBuffer));
+					}
+				} else {
+					write(readBuffer, n);
+				}
+			}
+			if (compressed) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					write(deflateBuffer, deflater.deflate(deflateBuffer));
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			discard(entry, e);
+			throw e;
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+		entry.crc = crc.getValue();
+		entry.compressedSize = position - start;
+
+		// rewrite the checksum, and the sizes in the ZIP64 extra field
+		flush();
+		ByteBuffer patch = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		patch.putInt((int) entry.crc).flip();
+		writeAt(patch, entry.offset + 14);
+		patch = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+		patch.putLong(entry.size).putLong(entry.compressedSize).flip();
+		writeAt(patch, entry.offset + LOCAL_HEADER_SIZE + entry.name.length + 4);
+		return entry.size;
+	}
+
+	/**
+	 * Writes the central directory, and closes the file.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		try {
+			long start = position;
+			for (Entry entry : entries) {
+				writeCentralHeader(entry);
+			}
+			long size = position - start;
+			int count = entries.size();
+			if (count >= ZIP64_MAGIC_COUNT || start >= ZIP64_MAGIC || size >= ZIP64_MAGIC) {
+				long end64 = position;
+				reserve(56 + 20);
+				buffer.putInt(ZIP64_END_SIGNATURE);
+				buffer.putLong(44);
+				buffer.putShort((short) ZIP64_VERSION);
+				buffer.putShort((short) ZIP64_VERSION);
+				buffer.putInt(0);
+				buffer.putInt(0);
+				buffer.putLong(count);
+				buffer.putLong(count);
+				buffer.putLong(size);
+				buffer.putLong(start);
+				buffer.putInt(ZIP64_LOCATOR_SIGNATURE);
+				buffer.putInt(0);
+				buffer.putLong(end64);
+				buffer.putInt(1);
+			}
+			reserve(22);
+			buffer.putInt(END_SIGNATURE);
+			buffer.putShort((short) 0);
+			buffer.putShort((short) 0);
+			buffer.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+			buffer.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+			buffer.putInt((int) Math.min(size, ZIP64_MAGIC));
+			buffer.putInt((int) Math.min(start, ZIP64_MAGIC));
+			buffer.putShort((short) 0);
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private Entry newEntry(String name, long time, int method) {
+		Entry entry = new Entry();
+		entry.name = name.getBytes(StandardCharsets.UTF_8);
+		entry.method = method;
+		entry.dosTime = toDosTime(time);
+		entry.offset = position;
+		entries.add(entry);
+		return entry;
+	}
+
+	/**
+	 * Removes the last entry, whose contents could not be written, from the
+	 * file.
+	 */
+	private void discard(Entry entry, Exception failure) {
+		entries.remove(entries.size() - 1);
+		try {
+			flush();
+			channel.truncate(entry.offset);
+			position = entry.offset;
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	private void writeLocalHeader(Entry entry, boolean streamed) throws IOException {
+		boolean zip64 = streamed || entry.offset >= ZIP64_MAGIC;
+		reserve(LOCAL_HEADER_SIZE + entry.name.length + 20);
+		buffer.putInt(LOCAL_HEADER_SIGNATURE);
+		buffer.putShort((short) (zip64 ? ZIP64_VERSION : VERSION));
+		buffer.putShort((short) UTF8_FLAG);
+		buffer.putShort((short) entry.method);
+		buffer.putInt(entry.dosTime);
+		buffer.putInt((int) entry.crc);
+		if (streamed) {
+			buffer.putInt((int) ZIP64_MAGIC);
+			buffer.putInt((int) ZIP64_MAGIC);
+		} else {
+			buffer.putInt((int) entry.compressedSize);
+			buffer.putInt((int) entry.size);
+		}
+		buffer.putShort((short) entry.name.length);
+		buffer.putShort((short) (streamed ? 20 : 0));
+		buffer.put(entry.name);
+		if (streamed) {
+			buffer.putShort((short) ZIP64_EXTRA_ID);
+			buffer.putShort((short) 16);
+			buffer.putLong(entry.size);
+			buffer.putLong(entry.compressedSize);
+		}
+		position += LOCAL_HEADER_SIZE + entry.name.length + (streamed ? 20 : 0);
+	}
+
+	private void writeCentralHeader(Entry entry) throws IOException {
+		boolean size64 = entry.size >= ZIP64_MAGIC;
+		boolean compressedSize64 = entry.compressedSize >= ZIP64_MAGIC;
+		boolean offset64 = entry.offset >= ZIP64_MAGIC;
+		int extraLength = (size64 ? 8 : 0) + (compressedSize64 ? 8 : 0) + (offset64 ? 8 : 0);
+		if (extraLength > 0) {
+			extraLength += 4;
+		}
+		int version = extraLength > 0 ? ZIP64_VERSION : VERSION;
+		reserve(46 + entry.name.length + extraLength);
+		buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+		buffer.putShort((short) version);
+		buffer.putShort((short) version);
+		buffer.putShort((short) UTF8_FLAG);
+		buffer.putShort((short) entry.method);
+		buffer.putInt(entry.dosTime);
+		buffer.putInt((int) entry.crc);
+		buffer.putInt((int) (compressedSize64 ? ZIP64_MAGIC : entry.compressedSize));
+		buffer.putInt((int) (size64 ? ZIP64_MAGIC : entry.size));
+		buffer.putShort((short) entry.name.length);
+		buffer.putShort((short) extraLength);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putShort((short) 0);
+		buffer.putInt(0);
+		buffer.putInt((int) (offset64 ? ZIP64_MAGIC : entry.offset));
+		buffer.put(entry.name);
+		if (extraLength > 0) {
+			buffer.putShort((short) ZIP64_EXTRA_ID);
+			buffer.putShort((short) (extraLength - 4));
+			if (size64) {
+				buffer.putLong(entry.size);
+			}
+			if (compressedSize64) {
+				buffer.putLong(entry.compressedSize);
+			}
+			if (offset64) {
+				buffer.putLong(entry.offset);
+			}
+		}
+		position += 46 + entry.name.length + extraLength;
+	}
+
+	/**
+	 * Makes room in the buffer for a header.
+	 */
+	private void reserve(int length) throws IOException {
+		if (buffer.remaining() < length) {
+			flush();
+		}
+	}
+
+	private void write(byte[] data, int length) throws IOException {
+		if (length <= buffer.remaining()) {
+			buffer.put(data, 0, length);
+		} else {
+			flush();
+			if (length <= buffer.remaining()) {
+				buffer.put(data, 0, length);
+			} else {
+				ByteBuffer wrapped = ByteBuffer.wrap(data, 0, length);
+				while (wrapped.hasRemaining()) {
+					channel.write(wrapped);
+				}
+			}
+		}
+		position += length;
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void writeAt(ByteBuffer data, long offset) throws IOException {
+		while (data.hasRemaining()) {
+			offset += channel.write(data, offset);
+		}
+	}
+
+	/**
+	 * Converts the time to the MS-DOS format, as by
+	 * {@link java.util.zip.ZipOutputStream}.
+	 */
+	private static int toDosTime(long time) {
+		LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		if (date.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (date.getYear() - 1980) << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16
+				| date.getHour() << 11 | date.getMinute() << 5 | date.getSecond() >> 1;
+	}
+}
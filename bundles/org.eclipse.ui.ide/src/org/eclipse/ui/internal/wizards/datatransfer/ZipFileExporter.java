@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,25 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.wizards.datatransfer;
 
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -24,121 +37,291 @@ import org.eclipse.core.runtime.CoreException;
 
 
 /**
- *	Exports resources to a .zip file
+ *	Exports resources to a .zip file.
+ *	<p>
+ *	The contents of each file are read once. The files up to
+ *	{@link #MAX_BUFFERED_SIZE} are compressed in parallel, and written in the
+ *	order of the calls to {@link #write(IFile, String)}. Larger files are
+ *	compressed while they are read, once the files before them are written.
+ *	The files which could not be compressed in parallel are reported by a
+ *	{@link CompressionException}, thrown once the entries before and after
+ *	them are written.
+ *	</p>
  */
 public class ZipFileExporter implements IFileExporter {
-    private ZipOutputStream outputStream;
-
-    private boolean useCompression = true;
-
-    private boolean resolveLinks;
-
-    /**
-     * Create an instance of this class.
-     *
-     * @param filename
-     *            java.lang.String
-     * @param compress
-     *            boolean
-     * @param resolveLinks
-     *            boolean
-     * @exception java.io.IOException
-     */
-    public ZipFileExporter(String filename, boolean compress, boolean resolveLinks) throws IOException {
-        this.resolveLinks = resolveLinks;
-        outputStream = new ZipOutputStream(new FileOutputStream(filename));
-        useCompression = compress;
-    }
-
-    /**
-     *	Do all required cleanup now that we're finished with the
-     *	currently-open .zip
-     *
-     *	@exception java.io.IOException
-     */
-    @Override
+
+	/**
+	 * The largest file which is read into memory to be compressed in
+	 * parallel.
+	 */
+	private static final int MAX_BUFFERED_SIZE = 1024 * 1024;
+
+	private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * The most files compressed, or waiting to be, at a time.
+	 */
+	private static final int MAX_PENDING = THREADS * 2;
+
+	/**
+	 * An entry compressed in parallel, ready to be written.
+	 */
+	private static class CompressedEntry {
+		String name;
+		long time;
+		int method;
+		long crc;
+		long size;
+		byte[] data;
+		int length;
+	}
+
+	/**
+	 * An entry compressed in parallel, not written yet.
+	 */
+	private static class PendingEntry {
+		final IFile file;
+		final Future<CompressedEntry> future;
+
+		PendingEntry(IFile file, Future<CompressedEntry> future) {
+			this.file = file;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * Signals that files could not be compressed in parallel. It is thrown by
+	 * the next call writing to the archive, which is not the call writing
+	 * these files.
+	 */
+	public static class CompressionException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private final Map<IFile, Throwable> failures;
+
+		CompressionException(Map<IFile, Throwable> failures) {
+			super(failures.values().iterator().next().getMessage(), failures.values().iterator().next());
+			this.failures = failures;
+		}
+
+		/**
+		 * @return the cause of the failure by file which could not be
+		 *         compressed, in the order the files were written
+		 */
+		public Map<IFile, Throwable> getFailures() {
+			return Collections.unmodifiableMap(failures);
+		}
+	}
+
+	private static final ThreadLocal<Deflater> deflaters = ThreadLocal
+			.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+	private ZipArchiveWriter writer;
+
+	private boolean useCompression = true;
+
+	private boolean resolveLinks;
+
+	private final ThreadPoolExecutor executor;
+
+	private final Deque<PendingEntry> pending = new ArrayDeque<>();
+
+	private Map<IFile, Throwable> failures = new LinkedHashMap<>();
+
+	private final byte[] readBuffer = new byte[MAX_BUFFERED_SIZE + 1];
+
+	private final long startTime = System.nanoTime();
+
+	private long bytesRead;
+
+	/**
+	 * Create an instance of this class.
+	 *
+	 * @param filename
+	 *            java.lang.String
+	 * @param compress
+	 *            boolean
+	 * @param resolveLinks
+	 *            boolean
+	 * @exception java.io.IOException
+	 */
+	public ZipFileExporter(String filename, boolean compress, boolean resolveLinks) throws IOException {
+		this.resolveLinks = resolveLinks;
+		writer = new ZipArchiveWriter(filename);
+		useCompression = compress;
+		executor = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "Zip File Exporter"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 *	Do all required cleanup now that we're finished with the
+	 *	currently-open .zip
+	 *
+	 *	@exception java.io.IOException
+	 */
+	@Override
 	public void finished() throws IOException {
-        outputStream.close();
-    }
-
-    /**
-     *	Write the contents of the file to the tar archive.
-     *
-     *	@param entry
-     *	@param contents
-     *  @exception java.io.IOException
-     *  @exception org.eclipse.core.runtime.CoreException
-     */
-    private void write(ZipEntry entry, IFile contents) throws IOException, CoreException {
-        byte[] readBuffer = new byte[4096];
-
-        // If the contents are being compressed then we get the below for free.
-        if (!useCompression) {
-            entry.setMethod(ZipEntry.STORED);
-        	InputStream contentStream = contents.getContents(false);
-        	int length = 0;
-            CRC32 checksumCalculator = new CRC32();
-            try {
-                int n;
-                while ((n = contentStream.read(readBuffer)) > 0) {
-                    checksumCalculator.update(readBuffer, 0, n);
-                    length += n;
-                }
-            } finally {
-                if (contentStream != null) {
-					contentStream.close();
-				}
-            }
-
-            entry.setSize(length);
-            entry.setCrc(checksumCalculator.getValue());
-        }
-
-        // set the timestamp
-        long localTimeStamp = contents.getLocalTimeStamp();
-        if(localTimeStamp != IResource.NULL_STAMP)
-        	entry.setTime(localTimeStamp);
-
-        outputStream.putNextEntry(entry);
-    	InputStream contentStream = contents.getContents(false);
-        try {
-            int n;
-            while ((n = contentStream.read(readBuffer)) > 0) {
-                outputStream.write(readBuffer, 0, n);
-            }
-        } finally {
-            if (contentStream != null) {
+		try {
+			writePending(0);
+			writer.close();
+		} finally {
+			executor.shutdownNow();
+		}
+		throwFailures();
+	}
+
+	/**
+	 * Returns the number of bytes of file contents read per second, since the
+	 * archive was opened.
+	 *
+	 * @return the throughput in bytes per second
+	 */
+	public long getThroughput() {
+		long elapsed = System.nanoTime() - startTime;
+		return elapsed <= 0 ? 0 : (long) (bytesRead * 1e9 / elapsed);
+	}
+
+	/**
+	 *	Write the contents of the file to the zip archive. The contents are
+	 *	read in the calling thread, so that the errors are reported for the
+	 *	file which caused them.
+	 *
+	 *	@param name
+	 *	@param contents
+	 *  @exception java.io.IOException
+	 *  @exception org.eclipse.core.runtime.CoreException
+	 */
+	private void write(String name, IFile contents) throws IOException, CoreException {
+		long localTimeStamp = contents.getLocalTimeStamp();
+		long time = localTimeStamp != IResource.NULL_STAMP ? localTimeStamp : System.currentTimeMillis();
+
+		InputStream contentStream = contents.getContents(false);
+		try {
+			int length = 0;
+			int n;
+			while (length < readBuffer.length
+					&& (n = contentStream.read(readBuffer, length, readBuffer.length - length)) != -1) {
+				length += n;
+			}
+			if (length <= MAX_BUFFERED_SIZE) {
+				bytesRead += length;
+				byte[] data = Arrays.copyOf(readBuffer, length);
+				writePending(MAX_PENDING - 1);
+				pending.add(new PendingEntry(contents, executor.submit(() -> compress(name, time, data))));
+				writePending(MAX_PENDING);
+			} else {
+				writePending(0);
+				InputStream remaining = new SequenceInputStream(
+						new ByteArrayInputStream(readBuffer, 0, length), contentStream);
+				bytesRead += writer.writeEntry(name, time, useCompression, remaining);
+			}
+		} finally {
+			if (contentStream != null) {
 				contentStream.close();
 			}
-        }
-        outputStream.closeEntry();
-    }
+		}
+		throwFailures();
+	}
+
+	private CompressedEntry compress(String name, long time, byte[] data) {
+		CompressedEntry entry = new CompressedEntry();
+		entry.name = name;
+		entry.time = time;
+		entry.size = data.length;
+		CRC32 checksumCalculator = new CRC32();
+		checksumCalculator.update(data, 0, data.length);
+		entry.crc = checksumCalculator.getValue();
+		if (!useCompression) {
+			entry.method = ZipEntry.STORED;
+			entry.data = data;
+			entry.length = data.length;
+			return entry;
+		}
+
+		entry.method = ZipEntry.DEFLATED;
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+		deflater.setInput(data);
+		deflater.finish();
+		byte[] compressed = new byte[data.length + (data.length >> 8) + 64];
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			length += deflater.deflate(compressed, length, compressed.length - length);
+		}
+		entry.data = compressed;
+		entry.length = length;
+		return entry;
+	}
 
-    @Override
+	/**
+	 * Writes the compressed entries, in order, until at most the given number
+	 * of entries are pending. The entries which could not be compressed are
+	 * skipped, and kept in {@link #failures}.
+	 */
+	private void writePending(int maxPending) throws IOException {
+		while (!pending.isEmpty() && (pending.size() > maxPending || pending.peek().future.isDone())) {
+			PendingEntry pendingEntry = pending.remove();
+			CompressedEntry entry;
+			try {
+				entry = pendingEntry.future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (ExecutionException e) {
+				failures.put(pendingEntry.file, e.getCause());
+				continue;
+			}
+			writer.writeEntry(entry.name, entry.time, entry.method, entry.crc, entry.size, entry.data,
+					entry.length);
+		}
+	}
+
+	/**
+	 * Throws the files which could not be compressed since they were last
+	 * thrown. The files which failed while another error was thrown are
+	 * thrown by the next call.
+	 */
+	private void throwFailures() throws CompressionException {
+		if (!failures.isEmpty()) {
+			Map<IFile, Throwable> thrown = failures;
+			failures = new LinkedHashMap<>();
+			throw new CompressionException(thrown);
+		}
+	}
+
+	@Override
 	public void write(IContainer container, String destinationPath)
-            throws IOException {
-        if (!resolveLinks && container.isLinked(IResource.DEPTH_INFINITE)) {
-            return;
-        }
-        ZipEntry newEntry = new ZipEntry(destinationPath);
-        outputStream.putNextEntry(newEntry);
-    }
-
-    /**
-     *  Write the passed resource to the current archive.
-     *
-     *  @param resource org.eclipse.core.resources.IFile
-     *  @param destinationPath java.lang.String
-     *  @exception java.io.IOException
-     *  @exception org.eclipse.core.runtime.CoreException
-     */
-    @Override
+			throws IOException {
+		if (!resolveLinks && container.isLinked(IResource.DEPTH_INFINITE)) {
+			return;
+		}
+		writePending(0);
+		writer.writeFolder(destinationPath, System.currentTimeMillis(), useCompression);
+		throwFailures();
+	}
+
+	/**
+	 *  Write the passed resource to the current archive.
+	 *
+	 *  @param resource org.eclipse.core.resources.IFile
+	 *  @param destinationPath java.lang.String
+	 *  @exception java.io.IOException
+	 *  @exception org.eclipse.core.runtime.CoreException
+	 */
+	@Override
 	public void write(IFile resource, String destinationPath)
-            throws IOException, CoreException {
-        if (!resolveLinks && resource.isLinked(IResource.DEPTH_INFINITE)) {
-            return;
-        }
-        ZipEntry newEntry = new ZipEntry(destinationPath);
-        write(newEntry, resource);
-    }
+			throws IOException, CoreException {
+		if (!resolveLinks && resource.isLinked(IResource.DEPTH_INFINITE)) {
+			return;
+		}
+		write(destinationPath, resource);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, 2015 Google Inc and others.
+ * Copyright (C) 2014, 2017 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.internal.UISynchronizer;
 import org.eclipse.ui.monitoring.IUiFreezeEventLogger;
 import org.eclipse.ui.monitoring.PreferenceConstants;
 import org.eclipse.ui.monitoring.StackSample;
@@ -42,7 +43,8 @@ import org.eclipse.ui.monitoring.UiFreezeEvent;
 /**
  * Event loop monitoring thread. Detects events that take long time to process, collects stack
  * traces of the UI thread during processing of those events, and logs the long events to the error
- * log.
+ * log. The duration of every event is recorded in the latency histograms of the
+ * {@link UiLatencyMonitor}.
  */
 public class EventLoopMonitorThread extends Thread {
 	private static final int EVENT_HISTORY_SIZE = 100;
@@ -73,6 +75,8 @@ public class EventLoopMonitorThread extends Thread {
 		public int maxStackSamples;
 		/** If true, log freeze events to the Eclipse error log on the local machine. */
 		public boolean logToErrorLog;
+		/** @see org.eclipse.ui.monitoring.PreferenceConstants#COLLECT_FREEZE_PROFILE */
+		public boolean collectFreezeProfile;
 		/** @see org.eclipse.ui.monitoring.PreferenceConstants#UI_THREAD_FILTER */
 		public String uiThreadFilter;
 		/** @see org.eclipse.ui.monitoring.PreferenceConstants#NONINTERESTING_THREAD_FILTER */
@@ -132,6 +136,25 @@ public class EventLoopMonitorThread extends Thread {
 		private int[] nestingLevelStack = new int[64];
 		private int nestingLevelStackSize;
 
+		/**
+		 * The {@link System#nanoTime()} of the start of each external event dispatch on the
+		 * stack of nesting levels.
+		 */
+		private final long[] externalDispatchStartStack = new long[64];
+
+		/**
+		 * The sum of the nesting levels on the stack. The dispatch of the current event is
+		 * nested in as many other dispatches.
+		 */
+		private int baseDepth;
+
+		/**
+		 * The {@link System#nanoTime()} when the dispatch of each event in progress was started,
+		 * indexed by the total depth of the event. Time spent in nested external event loops is
+		 * not counted.
+		 */
+		private long[] eventStartTimes = new long[64];
+
 		@Override
 		public void handleEvent(Event event) {
 			/*
@@ -167,6 +190,7 @@ public class EventLoopMonitorThread extends Thread {
 				if (eventHistory != null) {
 					eventHistory.recordEvent(event.type, event.detail, nestingLevel);
 				}
+				startEventLatency();
 				// Log a long interval, start the timer.
 				handleEventTransition(true, true);
 				break;
@@ -174,6 +198,9 @@ public class EventLoopMonitorThread extends Thread {
 				if (!doesEventIndicateResponsiveUI(event.detail)) {
 					break;  // Ignore events that may be produced during a UI freeze.
 				}
+				if (nestingLevel > 0) {
+					recordEventLatency(event.detail);
+				}
 				if (--nestingLevel < 0) {
 					// This may happen if some PreEvent events had occurred before we
 					// started listening to SWT events.
@@ -222,9 +249,28 @@ public class EventLoopMonitorThread extends Thread {
 			}
 		}
 
+		private void startEventLatency() {
+			int depth = baseDepth + nestingLevel;
+			if (depth >= eventStartTimes.length) {
+				eventStartTimes = Arrays.copyOf(eventStartTimes, depth * 2);
+			}
+			eventStartTimes[depth] = System.nanoTime();
+		}
+
+		private void recordEventLatency(int eventType) {
+			int depth = baseDepth + nestingLevel;
+			long startTime = eventStartTimes[depth];
+			if (startTime != 0) {
+				latencyMonitor.recordEvent(eventType, System.nanoTime() - startTime);
+				eventStartTimes[depth] = 0;
+			}
+		}
+
 		private void saveAndResetNestingLevel() {
 			if (nestingLevelStackSize < nestingLevelStack.length) {
+				externalDispatchStartStack[nestingLevelStackSize] = System.nanoTime();
 				nestingLevelStack[nestingLevelStackSize++] = nestingLevel;
+				baseDepth += nestingLevel;
 				nestingLevel = 0;
 			} else {
 				MonitoringPlugin.logError(
@@ -237,6 +283,14 @@ public class EventLoopMonitorThread extends Thread {
 		private void restoreNestingLevel() {
 			if (nestingLevelStackSize > 0) {
 				nestingLevel = nestingLevelStack[--nestingLevelStackSize];
+				baseDepth -= nestingLevel;
+				// Don't count the time spent in the external event loop, which may be idle.
+				long pause = System.nanoTime() - externalDispatchStartStack[nestingLevelStackSize];
+				for (int depth = baseDepth + nestingLevel; depth > 0; depth--) {
+					if (eventStartTimes[depth] != 0) {
+						eventStartTimes[depth] += pause;
+					}
+				}
 			} else {
 				// This may happen if some PreExternalEventDispatch events had occurred before we
 				// started listening to SWT events.
@@ -353,8 +407,11 @@ public class EventLoopMonitorThread extends Thread {
 	private final int maxLoggedStackSamples;
 	private final long deadlockThreshold;
 	private final long uiThreadId;
+	private final UiLatencyMonitor latencyMonitor;
 	private final Object sleepMonitor;
 	private final boolean logToErrorLog;
+	private final boolean collectFreezeProfile;
+	private FreezeProfile freezeProfile;
 	private EventHistory eventHistory;
 	private ThreadMXBean threadMXBean;
 	private boolean dumpLockedMonitors;
@@ -390,9 +447,11 @@ public class EventLoopMonitorThread extends Thread {
 		allThreadsSampleInterval = longEventErrorThreshold * 2 / 3;
 		deadlockThreshold = args.deadlockThreshold;
 		logToErrorLog = args.logToErrorLog;
+		collectFreezeProfile = args.collectFreezeProfile;
 		uiThreadFilter = new FilterHandler(args.uiThreadFilter);
 		noninterestingThreadFilter = new FilterHandler(args.noninterestingThreadFilter);
 		sleepMonitor = new Object();
+		latencyMonitor = MonitoringPlugin.getDefault().getLatencyMonitor();
 	}
 
 	/**
@@ -406,6 +465,8 @@ public class EventLoopMonitorThread extends Thread {
 			display.removeListener(SWT.PreExternalEventDispatch, eventLoopState);
 			display.removeListener(SWT.PostExternalEventDispatch, eventLoopState);
 		}
+		UISynchronizer.setAsyncExecWrapper(null);
+		latencyMonitor.setEnabled(false);
 		wakeUp();
 	}
 
@@ -451,7 +512,11 @@ public class EventLoopMonitorThread extends Thread {
 
 		loadLoggerExtensions();
 
-		if (!logToErrorLog && externalLoggers.isEmpty()) {
+		if (collectFreezeProfile) {
+			freezeProfile = MonitoringPlugin.getDefault().getFreezeProfile();
+		}
+
+		if (!logToErrorLog && externalLoggers.isEmpty() && !collectFreezeProfile) {
 			MonitoringPlugin.logWarning(Messages.EventLoopMonitorThread_logging_disabled_error);
 		}
 
@@ -617,6 +682,13 @@ public class EventLoopMonitorThread extends Thread {
 				while (numSamples > 0 && eventEnd <= stackSamples[numSamples - 1].getTimestamp()) {
 					--numSamples;
 				}
+				if (freezeProfile != null && numSamples > 0
+						&& uiThreadFilter.shouldLogEvent(stackSamples, numSamples, uiThreadId)) {
+					// Aggregate all samples, before they are reduced for logging.
+					freezeProfile.addSamples(stackSamples, numSamples, eventEnd);
+					freezeProfile.saveIfNeeded();
+				}
+
 				if (numSamples > maxLoggedStackSamples) {
 					// Remove the last stack sample if it is too close to the end of the event.
 					if (eventEnd - stackSamples[numSamples - 1].getTimestamp() < sampleInterval) {
@@ -640,6 +712,10 @@ public class EventLoopMonitorThread extends Thread {
 
 			lastEventStartOrResumeTime = currEventStartOrResumeTime;
 		}
+
+		if (freezeProfile != null) {
+			freezeProfile.save();
+		}
 	}
 
 	private ThreadInfo[] captureThreadStacks(boolean dumpAllThreads) {
@@ -744,6 +820,8 @@ public class EventLoopMonitorThread extends Thread {
 		display.addListener(SWT.PostEvent, eventLoopState);
 		display.addListener(SWT.PreExternalEventDispatch, eventLoopState);
 		display.addListener(SWT.PostExternalEventDispatch, eventLoopState);
+		latencyMonitor.setEnabled(true);
+		UISynchronizer.setAsyncExecWrapper(latencyMonitor::wrapAsyncExec);
 	}
 
 	/**
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.monitoring.StackSample;
+
+/**
+ * Merges the UI thread stack samples of all UI freezes into a call tree, which is persisted in
+ * the collapsed stack format read by flame graph tools: one line per call path, with the frames
+ * from the outermost to the innermost separated by semicolons, followed by a space and the time
+ * in milliseconds spent in the path.
+ * <p>
+ * Frames are identified by class and method name, ignoring line numbers, and interned so that
+ * every frame name is kept in memory once. The number of nodes of the tree is bounded; samples
+ * that do not fit are attributed to the deepest existing frame. This class is thread-safe.
+ * </p>
+ */
+public class FreezeProfile {
+	/** The name of the file in the state location of the plug-in. */
+	public static final String FILE_NAME = "freeze_profile.txt"; //$NON-NLS-1$
+	private static final int MAX_NODES = 100000;
+	private static final long SAVE_INTERVAL = 60 * 1000; // 1 minute
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static class Node {
+		final int frame;
+		long selfTime;
+		Node[] children = NO_CHILDREN;
+		int childCount;
+
+		Node(int frame) {
+			this.frame = frame;
+		}
+
+		Node findChild(int childFrame) {
+			for (int i = 0; i < childCount; i++) {
+				if (children[i].frame == childFrame) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(int childFrame) {
+			if (childCount == children.length) {
+				children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+			}
+			Node child = new Node(childFrame);
+			children[childCount++] = child;
+			return child;
+		}
+	}
+
+	private final File file;
+	/** Frame identifiers keyed by class name and method name. */
+	private final Map<String, Map<String, Integer>> frameIds = new HashMap<>();
+	private final List<String> frameNames = new ArrayList<>();
+	private final Node root = new Node(-1);
+	private int nodeCount;
+	private boolean dirty;
+	private long lastSaveTime;
+
+	/**
+	 * Creates a profile persisted in the given file, and loads the profile saved in it.
+	 *
+	 * @param file the file, or {@code null} if the profile is not persisted
+	 */
+	public FreezeProfile(File file) {
+		this.file = file;
+		if (file != null && file.isFile()) {
+			try (Reader reader = new InputStreamReader(new FileInputStream(file),
+					StandardCharsets.UTF_8)) {
+				read(reader);
+			} catch (IOException | RuntimeException e) {
+				MonitoringPlugin.logError(NLS.bind(Messages.FreezeProfile_read_error_1, file), e);
+			}
+		}
+		lastSaveTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Adds the stacks of the UI thread of the given samples of a UI freeze. Each sample is
+	 * weighted by the time until the next sample, or until the end of the freeze for the last
+	 * one.
+	 *
+	 * @param samples the stack samples, the UI thread being the first thread of each sample
+	 * @param numSamples the number of samples to add
+	 * @param endTime the time when the freeze ended, in milliseconds since January 1, 1970 UTC
+	 */
+	public synchronized void addSamples(StackSample[] samples, int numSamples, long endTime) {
+		for (int i = 0; i < numSamples; i++) {
+			long next = i + 1 < numSamples ? samples[i + 1].getTimestamp() : endTime;
+			long weight = Math.max(1, next - samples[i].getTimestamp());
+			addStack(samples[i].getStackTraces()[0].getStackTrace(), weight);
+		}
+	}
+
+	/**
+	 * Adds a stack.
+	 *
+	 * @param stack the stack, the innermost frame being the first one
+	 * @param time the time in milliseconds spent in the stack
+	 */
+	public synchronized void addStack(StackTraceElement[] stack, long time) {
+		Node node = root;
+		for (int i = stack.length; --i >= 0;) {
+			node = getOrAddChild(node, internFrame(stack[i].getClassName(), stack[i].getMethodName()));
+		}
+		node.selfTime += time;
+		dirty = true;
+	}
+
+	private Node getOrAddChild(Node node, int frame) {
+		Node child = node.findChild(frame);
+		if (child == null) {
+			if (nodeCount >= MAX_NODES) {
+				return node;
+			}
+			child = node.addChild(frame);
+			nodeCount++;
+		}
+		return child;
+	}
+
+	private int internFrame(String className, String methodName) {
+		Map<String, Integer> methods = frameIds.get(className);
+		if (methods == null) {
+			methods = new HashMap<>();
+			frameIds.put(className, methods);
+		}
+		Integer id = methods.get(methodName);
+		if (id == null) {
+			id = frameNames.size();
+			frameNames.add(className + '.' + methodName);
+			methods.put(methodName, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the total time in milliseconds of the stacks added to the profile.
+	 */
+	public synchronized long getTotalTime() {
+		return getTotalTime(root);
+	}
+
+	private static long getTotalTime(Node node) {
+		long total = node.selfTime;
+		for (int i = 0; i < node.childCount; i++) {
+			total += getTotalTime(node.children[i]);
+		}
+		return total;
+	}
+
+	/**
+	 * Discards all stacks.
+	 */
+	public synchronized void clear() {
+		root.children = NO_CHILDREN;
+		root.childCount = 0;
+		root.selfTime = 0;
+		nodeCount = 0;
+		frameIds.clear();
+		frameNames.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Writes the profile in the collapsed stack format.
+	 *
+	 * @param writer the writer, which is not closed
+	 * @throws IOException if the profile cannot be written
+	 */
+	public synchronized void write(Writer writer) throws IOException {
+		write(writer, root, new StringBuilder());
+		writer.flush();
+	}
+
+	private void write(Writer writer, Node node, StringBuilder path) throws IOException {
+		int length = path.length();
+		if (node != root) {
+			if (length != 0) {
+				path.append(';');
+			}
+			path.append(frameNames.get(node.frame));
+			if (node.selfTime != 0) {
+				writer.write(path.toString());
+				writer.write(' ');
+				writer.write(Long.toString(node.selfTime));
+				writer.write('\n');
+			}
+		}
+		for (int i = 0; i < node.childCount; i++) {
+			write(writer, node.children[i], path);
+		}
+		path.setLength(length);
+	}
+
+	/**
+	 * Adds the stacks read in the collapsed stack format.
+	 *
+	 * @param reader the reader, which is not closed
+	 * @throws IOException if the stacks cannot be read
+	 */
+	public synchronized void read(Reader reader) throws IOException {
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		while ((line = lines.readLine()) != null) {
+			int separator = line.lastIndexOf(' ');
+			if (separator <= 0) {
+				continue;
+			}
+			long time = Long.parseLong(line.substring(separator + 1).trim());
+			Node node = root;
+			int start = 0;
+			while (start < separator) {
+				int end = line.indexOf(';', start);
+				if (end < 0 || end > separator) {
+					end = separator;
+				}
+				int dot = line.lastIndexOf('.', end - 1);
+				if (dot < start) {
+					dot = end;
+				}
+				String className = line.substring(start, dot);
+				String methodName = dot < end ? line.substring(dot + 1, end) : ""; //$NON-NLS-1$
+				node = getOrAddChild(node, internFrame(className, methodName));
+				start = end + 1;
+			}
+			node.selfTime += time;
+		}
+	}
+
+	/**
+	 * Saves the profile if it has changed and was not saved for some time.
+	 */
+	public void saveIfNeeded() {
+		synchronized (this) {
+			if (!dirty || System.currentTimeMillis() - lastSaveTime < SAVE_INTERVAL) {
+				return;
+			}
+		}
+		save();
+	}
+
+	/**
+	 * Saves the profile if it has changed.
+	 */
+	public synchronized void save() {
+		if (file == null || !dirty) {
+			return;
+		}
+		File temporary = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(temporary), StandardCharsets.UTF_8))) {
+				write(writer);
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			dirty = false;
+		} catch (IOException e) {
+			MonitoringPlugin.logError(NLS.bind(Messages.FreezeProfile_write_error_1, file), e);
+		}
+		lastSaveTime = System.currentTimeMillis();
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.ui.monitoring.ILatencyHistogram;
+
+/**
+ * A histogram with logarithmic buckets, each power of two being divided into
+ * {@link #SUB_BUCKET_COUNT} linear sub-buckets. Recording a value does not allocate memory
+ * and may be done concurrently with reading.
+ */
+public class LatencyHistogram implements ILatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	/** Values larger than this, about 19 hours in microseconds, are clamped. */
+	private static final long MAX_TRACKABLE_VALUE = (1L << 36) - 1;
+	private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param value the latency in microseconds
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		} else if (value > MAX_TRACKABLE_VALUE) {
+			value = MAX_TRACKABLE_VALUE;
+		}
+		counts.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long currentMax = max.get();
+		while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * Discards all recorded latencies.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public long getMaxValue() {
+		return max.get();
+	}
+
+	@Override
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) total.get() / n;
+	}
+
+	@Override
+	public long getValueAtPercentile(double percentile) {
+		long n = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			n += counts.get(i);
+		}
+		if (n == 0) {
+			return 0;
+		}
+		double fraction = Math.min(Math.max(percentile, 0), 100) / 100;
+		long rank = Math.max(1, (long) Math.ceil(fraction * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueInBucket(i), getMaxValue());
+			}
+		}
+		return getMaxValue();
+	}
+
+	/**
+	 * Returns the index of the bucket containing the given non-negative value. Values smaller
+	 * than {@link #SUB_BUCKET_COUNT} have a bucket each.
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * Returns the largest value falling into the bucket with the given index.
+	 */
+	static long highestValueInBucket(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
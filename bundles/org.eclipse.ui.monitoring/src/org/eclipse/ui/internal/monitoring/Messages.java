@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 Google, Inc and others.
+ * Copyright (c) 2014, 2017 Google, Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,6 +38,8 @@ final class Messages extends NLS {
 	public static String EventLoopMonitorThread_max_event_loop_depth_exceeded_1;
 	public static String EventLoopMonitorThread_workbench_was_null;
 	public static String FilterHandler_missing_thread_error;
+	public static String FreezeProfile_read_error_1;
+	public static String FreezeProfile_write_error_1;
 	public static String MonitoringStartup_initialization_error;
 
 	private Messages() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014 Google Inc and others.
+ * Copyright (C) 2014, 2017 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,24 +14,41 @@ package org.eclipse.ui.internal.monitoring;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.ui.monitoring.IUiLatencyMonitor;
 import org.eclipse.ui.monitoring.PreferenceConstants;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
 /**
  * The activator class that controls the plug-in life cycle.
  */
 public class MonitoringPlugin extends AbstractUIPlugin {
 	private static MonitoringPlugin plugin;
+	private final UiLatencyMonitor latencyMonitor = new UiLatencyMonitor();
+	private ServiceRegistration<IUiLatencyMonitor> latencyMonitorRegistration;
+	private FreezeProfile freezeProfile;
 
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		latencyMonitorRegistration =
+				context.registerService(IUiLatencyMonitor.class, latencyMonitor, null);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		if (latencyMonitorRegistration != null) {
+			latencyMonitorRegistration.unregister();
+			latencyMonitorRegistration = null;
+		}
+		synchronized (this) {
+			if (freezeProfile != null) {
+				freezeProfile.save();
+				freezeProfile = null;
+			}
+		}
 		plugin = null;
 		super.stop(context);
 	}
@@ -40,6 +57,25 @@ public class MonitoringPlugin extends AbstractUIPlugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the monitor collecting the latency histograms of the UI thread.
+	 */
+	public UiLatencyMonitor getLatencyMonitor() {
+		return latencyMonitor;
+	}
+
+	/**
+	 * Returns the profile merging the stack samples of the UI freezes, loading it from the state
+	 * location of the plug-in the first time.
+	 */
+	public synchronized FreezeProfile getFreezeProfile() {
+		if (freezeProfile == null) {
+			freezeProfile =
+					new FreezeProfile(getStateLocation().append(FreezeProfile.FILE_NAME).toFile());
+		}
+		return freezeProfile;
+	}
+
 	public static void logError(String message, Throwable e) {
 		log(new Status(IStatus.ERROR, PreferenceConstants.PLUGIN_ID, message, e));
 	}
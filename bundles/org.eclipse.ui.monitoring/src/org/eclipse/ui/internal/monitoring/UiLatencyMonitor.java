@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.ui.monitoring.ILatencyHistogram;
+import org.eclipse.ui.monitoring.IUiLatencyMonitor;
+
+/**
+ * Keeps the latency histograms of the UI thread. The histograms of event types and asyncExec
+ * origins are created the first time a latency is recorded for them, so that the UI thread
+ * does not allocate memory afterwards. The number of asyncExec origins is bounded, the
+ * runnables of further origins are recorded in the histogram of {@link #OTHER_ORIGIN}.
+ */
+public class UiLatencyMonitor implements IUiLatencyMonitor {
+	/**
+	 * The origin of the asyncExec runnables recorded once the histograms of
+	 * {@link #MAX_ASYNC_EXEC_ORIGINS} other origins exist.
+	 */
+	static final String OTHER_ORIGIN = "other"; //$NON-NLS-1$
+	static final int MAX_ASYNC_EXEC_ORIGINS = 256;
+	private static final int MAX_EVENT_TYPE = 127;
+	private static final String LAMBDA_MARKER = "$$Lambda$"; //$NON-NLS-1$
+	private static final ClassValue<String> ORIGINS = new ClassValue<String>() {
+		@Override
+		protected String computeValue(Class<?> type) {
+			String name = type.getName();
+			int lambda = name.indexOf(LAMBDA_MARKER);
+			return lambda < 0 ? name : name.substring(0, lambda);
+		}
+	};
+	private static final double[] EXPORTED_PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private final AtomicReferenceArray<LatencyHistogram> eventTypeHistograms =
+			new AtomicReferenceArray<>(MAX_EVENT_TYPE + 1);
+	private final ConcurrentMap<String, LatencyHistogram> asyncExecHistograms =
+			new ConcurrentHashMap<>();
+	private volatile boolean enabled;
+
+	/**
+	 * Sets whether the runnables passed to {@code Display.asyncExec} are measured. They are
+	 * measured while the event loop is monitored.
+	 */
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Records the dispatch duration of an event.
+	 *
+	 * @param eventType the SWT event type
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void recordEvent(int eventType, long nanos) {
+		long micros = nanos / 1000;
+		histogram.record(micros);
+		if (eventType < 0 || eventType > MAX_EVENT_TYPE) {
+			return;
+		}
+		LatencyHistogram eventTypeHistogram = eventTypeHistograms.get(eventType);
+		if (eventTypeHistogram == null) {
+			eventTypeHistograms.compareAndSet(eventType, null, new LatencyHistogram());
+			eventTypeHistogram = eventTypeHistograms.get(eventType);
+		}
+		eventTypeHistogram.record(micros);
+	}
+
+	/**
+	 * Records the run duration of a runnable passed to {@code Display.asyncExec}.
+	 *
+	 * @param origin the origin of the runnable, as returned by {@link #getOrigin(Runnable)}
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void recordAsyncExec(String origin, long nanos) {
+		LatencyHistogram originHistogram = asyncExecHistograms.get(origin);
+		if (originHistogram == null) {
+			if (asyncExecHistograms.size() >= MAX_ASYNC_EXEC_ORIGINS) {
+				origin = OTHER_ORIGIN;
+			}
+			originHistogram = asyncExecHistograms.computeIfAbsent(origin, key -> new LatencyHistogram());
+		}
+		originHistogram.record(nanos / 1000);
+	}
+
+	/**
+	 * Wraps a runnable passed to {@code Display.asyncExec} to record its run duration. Called
+	 * on the thread calling {@code asyncExec}, so that the UI thread does not need to compute
+	 * the origin of the runnable. The runnable is returned unwrapped while the monitor is
+	 * disabled.
+	 */
+	Runnable wrapAsyncExec(Runnable runnable) {
+		if (!enabled) {
+			return runnable;
+		}
+		String origin = getOrigin(runnable);
+		return () -> {
+			long start = System.nanoTime();
+			try {
+				runnable.run();
+			} finally {
+				recordAsyncExec(origin, System.nanoTime() - start);
+			}
+		};
+	}
+
+	/**
+	 * Returns the name of the class declaring the runnable, which is the class of the runnable
+	 * unless it is a lambda expression. The name is computed once per class.
+	 */
+	static String getOrigin(Runnable runnable) {
+		return ORIGINS.get(runnable.getClass());
+	}
+
+	@Override
+	public ILatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	@Override
+	public ILatencyHistogram getHistogram(int eventType) {
+		if (eventType < 0 || eventType > MAX_EVENT_TYPE) {
+			return null;
+		}
+		return eventTypeHistograms.get(eventType);
+	}
+
+	@Override
+	public Map<String, ILatencyHistogram> getAsyncExecHistograms() {
+		return Collections.unmodifiableMap(new TreeMap<String, ILatencyHistogram>(asyncExecHistograms));
+	}
+
+	@Override
+	public void reset() {
+		histogram.reset();
+		for (int i = 0; i <= MAX_EVENT_TYPE; i++) {
+			LatencyHistogram eventTypeHistogram = eventTypeHistograms.get(i);
+			if (eventTypeHistogram != null) {
+				eventTypeHistogram.reset();
+			}
+		}
+		for (LatencyHistogram originHistogram : asyncExecHistograms.values()) {
+			originHistogram.reset();
+		}
+	}
+
+	@Override
+	public void export(Writer writer) throws IOException {
+		writer.write("histogram,count,mean,max"); //$NON-NLS-1$
+		for (double percentile : EXPORTED_PERCENTILES) {
+			writer.write(",p" + percentile); //$NON-NLS-1$
+		}
+		writer.write('\n');
+		exportHistogram(writer, "all", histogram); //$NON-NLS-1$
+		for (int i = 0; i <= MAX_EVENT_TYPE; i++) {
+			LatencyHistogram eventTypeHistogram = eventTypeHistograms.get(i);
+			if (eventTypeHistogram != null) {
+				exportHistogram(writer, "event:" + i, eventTypeHistogram); //$NON-NLS-1$
+			}
+		}
+		for (Map.Entry<String, ILatencyHistogram> entry : getAsyncExecHistograms().entrySet()) {
+			exportHistogram(writer, "asyncExec:" + entry.getKey(), entry.getValue()); //$NON-NLS-1$
+		}
+		writer.flush();
+	}
+
+	private static void exportHistogram(Writer writer, String name, ILatencyHistogram histogram)
+			throws IOException {
+		StringBuilder buf = new StringBuilder(name);
+		buf.append(',').append(histogram.getCount());
+		buf.append(',').append(String.format(Locale.ROOT, "%.1f", histogram.getMean())); //$NON-NLS-1$
+		buf.append(',').append(histogram.getMaxValue());
+		for (double percentile : EXPORTED_PERCENTILES) {
+			buf.append(',').append(histogram.getValueAtPercentile(percentile));
+		}
+		buf.append('\n');
+		writer.write(buf.toString());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Google, Inc and others.
+ * Copyright (c) 2014, 2017 Google, Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,6 +31,7 @@ public final class Messages extends NLS {
 	public static String MonitoringPreferencePage_error_threshold_label;
 	public static String MonitoringPreferencePage_error_threshold_too_low_error;
 	public static String MonitoringPreferencePage_log_freeze_events_label;
+	public static String MonitoringPreferencePage_collect_freeze_profile_label;
 	public static String MonitoringPreferencePage_max_stack_samples_label;
 	public static String MonitoringPreferencePage_noninteresting_thread_filter_label;
 	public static String MonitoringPreferencePage_remove_ui_thread_filter_button_label;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014, 2015 Google Inc and others.
+ * Copyright (C) 2014, 2017 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -129,6 +129,8 @@ public class MonitoringPreferencePage extends FieldEditorPreferencePage
 				Messages.MonitoringPreferencePage_enable_monitoring_label, block);
 		createBooleanEditor(PreferenceConstants.LOG_TO_ERROR_LOG,
 				Messages.MonitoringPreferencePage_log_freeze_events_label, block);
+		createBooleanEditor(PreferenceConstants.COLLECT_FREEZE_PROFILE,
+				Messages.MonitoringPreferencePage_collect_freeze_profile_label, block);
 
 		longEventWarningThreshold = createIntegerEditor(
 				PreferenceConstants.LONG_EVENT_WARNING_THRESHOLD_MILLIS,
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.monitoring;
+
+/**
+ * A histogram of latencies measured on the UI thread. All values are in microseconds and have
+ * a relative precision of about 3%.
+ *
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @since 1.2
+ */
+public interface ILatencyHistogram {
+	/**
+	 * Returns the number of recorded latencies.
+	 */
+	long getCount();
+
+	/**
+	 * Returns the largest recorded latency in microseconds, or zero if the histogram is empty.
+	 */
+	long getMaxValue();
+
+	/**
+	 * Returns the mean of the recorded latencies in microseconds, or zero if the histogram is
+	 * empty.
+	 */
+	double getMean();
+
+	/**
+	 * Returns the latency in microseconds below which the given percentage of the recorded
+	 * latencies fall, for example {@code getValueAtPercentile(99.9)}.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency, or zero if the histogram is empty
+	 */
+	long getValueAtPercentile(double percentile);
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Collects the duration of every event dispatched on the UI thread while UI responsiveness
+ * monitoring is enabled. Unlike {@link IUiFreezeEventLogger}, which receives the individual
+ * events exceeding the freeze threshold, the monitor keeps histograms of all latencies, so
+ * that percentiles can be compared between releases.
+ * <p>
+ * The monitor is registered as an OSGi service by the {@code org.eclipse.ui.monitoring}
+ * plug-in. The histograms returned are live views, which keep changing as events are
+ * dispatched.
+ * </p>
+ *
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @since 1.2
+ */
+public interface IUiLatencyMonitor {
+	/**
+	 * Returns the histogram of the dispatch durations of all events.
+	 */
+	ILatencyHistogram getHistogram();
+
+	/**
+	 * Returns the histogram of the dispatch durations of the events of the given type.
+	 *
+	 * @param eventType an SWT event type, such as {@code SWT.Paint}, or {@code SWT.None} for
+	 *     runnables passed to {@code Display.asyncExec}
+	 * @return the histogram, or {@code null} if no event of this type was dispatched
+	 */
+	ILatencyHistogram getHistogram(int eventType);
+
+	/**
+	 * Returns the histograms of the run durations of the runnables passed to
+	 * {@code Display.asyncExec}, keyed by the name of the class declaring the runnable.
+	 * The number of histograms is bounded. Once it is reached, the runnables declared by
+	 * other classes are recorded in the histogram keyed by {@code "other"}.
+	 */
+	Map<String, ILatencyHistogram> getAsyncExecHistograms();
+
+	/**
+	 * Discards all recorded latencies.
+	 */
+	void reset();
+
+	/**
+	 * Writes the percentiles of all histograms as comma-separated values.
+	 *
+	 * @param writer the writer, which is not closed
+	 * @throws IOException if the values cannot be written
+	 */
+	void export(Writer writer) throws IOException;
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2014 Google Inc and others.
+ * Copyright (C) 2014, 2017 Google Inc and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -55,6 +55,14 @@ public class PreferenceConstants {
 	 * message if all stack frames of the thread match the filter.
 	 */
 	public static final String NONINTERESTING_THREAD_FILTER = "noninteresting_thread_filter"; //$NON-NLS-1$
+	/**
+	 * If true, the stack samples of the UI thread collected during UI freezes are merged into a
+	 * profile, which is saved in the collapsed stack format used by flame graph tools in the
+	 * state location of the {@code org.eclipse.ui.monitoring} plug-in.
+	 *
+	 * @since 1.2
+	 */
+	public static final String COLLECT_FREEZE_PROFILE = "collect_freeze_profile"; //$NON-NLS-1$
 
 	private PreferenceConstants() {}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2015 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,41 +15,99 @@ package org.eclipse.ui.internal.navigator.extensions;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.eclipse.ui.internal.navigator.VisibilityAssistant;
 import org.eclipse.ui.internal.navigator.VisibilityAssistant.VisibilityListener;
 
 /**
  * A cache for evaluated {@link NavigatorContentDescriptor}.
+ * <p>
+ * The descriptors are cached by element, for at most a given number of
+ * elements, dropping the least recently used ones beyond. This keeps the
+ * number of softly reachable objects, which make the garbage collection
+ * pathologically slow, in line without depending on the GC.
+ * </p>
+ * <p>
+ * Whether a descriptor whose expression only tests the type of the element
+ * applies to an element is also cached, by class of the element, so that the
+ * expression is evaluated once for all the elements of a class.
+ * </p>
  */
 public class EvaluationCache implements VisibilityListener {
-	// TODO Have an LRU cache with max size as well as SoftReferences, to help
-	// prevent pathological GC performance that can happen where there are a
-	// large number of softly reachable objects, as well as helping to reduce
-	// dependence on the GC from keeping this cache's size in line in the first
-	// place.
 
-	// TODO Counters for cache hits, misses, replacements, etc.
+	/**
+	 * The default number of elements for which the descriptors are cached, in
+	 * each of the overrides and not overrides cases.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10000;
 
 	// TODO Either the overrides and not overrides case should "share" parts of
 	// their data structures (for example, this can be a map of key -> pair
 	// instead of two maps) OR not bother tracking "overrides or not" state here
 	// and instead let users of this class handle it with two instances of this
 	// class.
-	private final Map<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>> evaluations = new HashMap<>();
-	private final Map<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>> evaluationsWithOverrides = new HashMap<>();
+	private final Map<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>> evaluations;
+	private final Map<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>> evaluationsWithOverrides;
 
 	private final ReferenceQueue<Object> evaluationsQueue = new ReferenceQueue<>();
 	private final ReferenceQueue<Object> evaluationsWithOverridesQueue = new ReferenceQueue<>();
 
+	/**
+	 * Whether the descriptors apply to the elements of a class.
+	 */
+	private final Map<Class<?>, Map<NavigatorContentDescriptor, Boolean>> typeEvaluations = new WeakHashMap<>();
+
+	private final int maxSize;
+
+	private int hitCount;
+	private int missCount;
+	private int evictionCount;
+	private int typeHitCount;
+
 	/**
 	 * @param anAssistant the VisisbilityAssistant to register with, must be non-null
 	 */
 	public EvaluationCache(VisibilityAssistant anAssistant) {
+		this(anAssistant, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param anAssistant
+	 *            the VisisbilityAssistant to register with, must be non-null
+	 * @param maxSize
+	 *            the number of elements for which the descriptors are cached,
+	 *            in each of the overrides and not overrides cases
+	 */
+	public EvaluationCache(VisibilityAssistant anAssistant, int maxSize) {
+		this.maxSize = maxSize;
+		evaluations = createMap();
+		evaluationsWithOverrides = createMap();
 		anAssistant.addListener(this);
 	}
 
+	private Map<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>> createMap() {
+		return new LinkedHashMap<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>>(
+				16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<EvaluationReference<Object>, EvaluationValueReference<NavigatorContentDescriptor[]>> eldest) {
+				if (size() <= maxSize) {
+					return false;
+				}
+				// Clear the key from the value so we don't try to remove any
+				// potential new mapping upon cleanUpStaleEntries()
+				eldest.getValue().clear();
+				evictionCount++;
+				return true;
+			}
+		};
+	}
+
 	private void cleanUpStaleEntries() {
 		// TODO Only clean up to a certain number of entries per call when merely accessing or setting?
 		// TODO Periodic task to run this every now and then, ala org.eclipse.core.runtime.jobs.Job?
@@ -120,10 +178,14 @@ public class EvaluationCache implements VisibilityListener {
 		if (anElement == null)
 			return null;
 
-		if (toComputeOverrides) {
-			return getDescriptorsFromMap(anElement, evaluations);
+		NavigatorContentDescriptor[] descriptors = getDescriptorsFromMap(anElement,
+				toComputeOverrides ? evaluations : evaluationsWithOverrides);
+		if (descriptors != null) {
+			hitCount++;
+		} else {
+			missCount++;
 		}
-		return getDescriptorsFromMap(anElement, evaluationsWithOverrides);
+		return descriptors;
 	}
 
 	private static void setDescriptorsInMap(Object anElement, NavigatorContentDescriptor[] theDescriptors,
@@ -170,6 +232,77 @@ public class EvaluationCache implements VisibilityListener {
 		}
 	}
 
+	/**
+	 * Finds whether the given descriptor applies to the elements of the given
+	 * class. Only meaningful for the descriptors whose expression only tests
+	 * the type of the element.
+	 *
+	 * @param aDescriptor
+	 *            the descriptor
+	 * @param aType
+	 *            the class of the element
+	 * @return whether the descriptor applies, or {@code null} if not currently
+	 *         in the cache
+	 */
+	public final Boolean getTypeEvaluation(NavigatorContentDescriptor aDescriptor, Class<?> aType) {
+		Map<NavigatorContentDescriptor, Boolean> descriptors = typeEvaluations.get(aType);
+		Boolean enabled = descriptors == null ? null : descriptors.get(aDescriptor);
+		if (enabled != null) {
+			typeHitCount++;
+		}
+		return enabled;
+	}
+
+	/**
+	 * Caches whether the given descriptor applies to the elements of the given
+	 * class.
+	 *
+	 * @param aDescriptor
+	 *            the descriptor
+	 * @param aType
+	 *            the class of the element
+	 * @param enabled
+	 *            whether the descriptor applies
+	 */
+	public final void setTypeEvaluation(NavigatorContentDescriptor aDescriptor, Class<?> aType, boolean enabled) {
+		Map<NavigatorContentDescriptor, Boolean> descriptors = typeEvaluations.get(aType);
+		if (descriptors == null) {
+			typeEvaluations.put(aType, descriptors = new HashMap<>());
+		}
+		descriptors.put(aDescriptor, Boolean.valueOf(enabled));
+	}
+
+	/**
+	 * @return the number of look ups of descriptors by element which found
+	 *         them
+	 */
+	public int getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the number of look ups of descriptors by element which did not
+	 *         find them
+	 */
+	public int getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return the number of elements dropped from the cache as it was full
+	 */
+	public int getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return the number of look ups by class which found whether a
+	 *         descriptor applies
+	 */
+	public int getTypeHitCount() {
+		return typeHitCount;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 *
@@ -200,5 +333,6 @@ public class EvaluationCache implements VisibilityListener {
 		}
 		evaluations.clear();
 		evaluationsWithOverrides.clear();
+		typeEvaluations.clear();
 	}
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2015 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.core.expressions.ElementHandler;
 import org.eclipse.core.expressions.EvaluationResult;
 import org.eclipse.core.expressions.Expression;
 import org.eclipse.core.expressions.ExpressionConverter;
+import org.eclipse.core.expressions.ExpressionTagNames;
 import org.eclipse.core.expressions.IEvaluationContext;
 
 import org.eclipse.core.runtime.CoreException;
@@ -76,6 +77,10 @@ public final class NavigatorContentDescriptor implements
 
 	private Expression possibleChildren;
 
+	private boolean enablementTypeOnly;
+
+	private boolean possibleChildrenTypeOnly;
+
 	private Expression initialActivation;
 
 	private String icon;
@@ -257,6 +262,7 @@ public final class NavigatorContentDescriptor implements
 			children = configElement.getChildren(TAG_TRIGGER_POINTS);
 			if (children.length == 1) {
 				enablement = new CustomAndExpression(children[0]);
+				enablementTypeOnly = isTypeOnly(children[0]);
 			} else {
 				throw new WorkbenchException(NLS.bind(
 						CommonNavigatorMessages.Attribute_Missing_Warning,
@@ -270,6 +276,7 @@ public final class NavigatorContentDescriptor implements
 			children = configElement.getChildren(TAG_POSSIBLE_CHILDREN);
 			if (children.length == 1) {
 				possibleChildren = new CustomAndExpression(children[0]);
+				possibleChildrenTypeOnly = isTypeOnly(children[0]);
 			} else if(children.length > 1){
 				throw new WorkbenchException(NLS.bind(
 						CommonNavigatorMessages.Attribute_Missing_Warning,
@@ -283,6 +290,7 @@ public final class NavigatorContentDescriptor implements
 			try {
 				enablement = ElementHandler.getDefault().create(
 						ExpressionConverter.getDefault(), children[0]);
+				enablementTypeOnly = isTypeOnly(children[0]);
 			} catch (CoreException e) {
 				NavigatorPlugin.log(IStatus.ERROR, 0, e.getMessage(), e);
 			}
@@ -451,6 +459,51 @@ public final class NavigatorContentDescriptor implements
 		return false;
 	}
 
+	/**
+	 * Returns whether the expression of the given element only combines
+	 * <code>instanceof</code> expressions, so that its result only depends on
+	 * the class of the evaluated element. The <code>adapt</code> expressions
+	 * are not, as the adapters of an element may differ from the ones of
+	 * another element of the same class.
+	 */
+	private static boolean isTypeOnly(IConfigurationElement anExpression) {
+		for (IConfigurationElement child : anExpression.getChildren()) {
+			String tag = child.getName();
+			if (ExpressionTagNames.INSTANCEOF.equals(tag)) {
+				continue;
+			}
+			if (!ExpressionTagNames.AND.equals(tag) && !ExpressionTagNames.OR.equals(tag)
+					&& !ExpressionTagNames.NOT.equals(tag)) {
+				return false;
+			}
+			if (!isTypeOnly(child)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if whether this extension is enabled for an element only
+	 *         depends on the class of the element.
+	 * @see #isTriggerPoint(Object)
+	 */
+	public boolean isTriggerPointTypeOnly() {
+		return enablement != null && enablementTypeOnly;
+	}
+
+	/**
+	 * @return True if whether this extension could provide an element as a
+	 *         child only depends on the class of the element.
+	 * @see #isPossibleChild(Object)
+	 */
+	public boolean isPossibleChildTypeOnly() {
+		if (possibleChildren != null) {
+			return possibleChildrenTypeOnly;
+		}
+		return isTriggerPointTypeOnly();
+	}
+
 	/**
 	 * A convenience method to check all elements in a selection.
 	 *
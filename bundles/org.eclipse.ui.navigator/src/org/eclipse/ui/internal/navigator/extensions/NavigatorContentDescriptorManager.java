@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2016 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.internal.navigator.NavigatorPlugin;
 import org.eclipse.ui.internal.navigator.NavigatorSafeRunnable;
@@ -166,12 +167,12 @@ public class NavigatorContentDescriptorManager {
 		}
 
 		if (considerOverrides) {
-			addDescriptorsConsideringOverrides(anElement, firstClassDescriptorsSet, aVisibilityAssistant, descriptors, possibleChild);
+			addDescriptorsConsideringOverrides(anElement, firstClassDescriptorsSet, aVisibilityAssistant, descriptors, possibleChild, cache);
 		} else {
 			/* Find other ContentProviders which enable for this object */
 			for (NavigatorContentDescriptor descriptor : firstClassDescriptorsSet) {
 				if (aVisibilityAssistant.isActive(descriptor) && aVisibilityAssistant.isVisible(descriptor)
-						&& (possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement))) {
+						&& isEnabledFor(descriptor, anElement, possibleChild, cache)) {
 					descriptors.add(descriptor);
 				}
 			}
@@ -195,9 +196,30 @@ public class NavigatorContentDescriptorManager {
 		return c;
 	}
 
+	/**
+	 * Evaluates whether the descriptor applies to the element, or looks it up
+	 * by class of the element if it only depends on the class.
+	 */
+	private static boolean isEnabledFor(NavigatorContentDescriptor descriptor, Object anElement,
+			boolean possibleChild, EvaluationCache cache) {
+		boolean typeOnly = possibleChild
+				? descriptor.isPossibleChildTypeOnly() && !(anElement instanceof IStructuredSelection)
+				: descriptor.isTriggerPointTypeOnly();
+		if (!typeOnly || anElement == null) {
+			return possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement);
+		}
+		Boolean enabled = cache.getTypeEvaluation(descriptor, anElement.getClass());
+		if (enabled == null) {
+			enabled = Boolean.valueOf(
+					possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement));
+			cache.setTypeEvaluation(descriptor, anElement.getClass(), enabled.booleanValue());
+		}
+		return enabled.booleanValue();
+	}
+
 	private boolean addDescriptorsConsideringOverrides(Object anElement,
 			Set<NavigatorContentDescriptor> theChildDescriptors, VisibilityAssistant aVisibilityAssistant,
-			Set<NavigatorContentDescriptor> theFoundDescriptors, boolean possibleChild) {
+			Set<NavigatorContentDescriptor> theFoundDescriptors, boolean possibleChild, EvaluationCache cache) {
 		int initialSize = theFoundDescriptors.size();
 
 		NavigatorContentDescriptor descriptor;
@@ -209,7 +231,7 @@ public class NavigatorContentDescriptorManager {
 
 			boolean isApplicable = aVisibilityAssistant.isActive(descriptor)
 					&& aVisibilityAssistant.isVisible(descriptor)
-					&& (possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement));
+					&& isEnabledFor(descriptor, anElement, possibleChild, cache);
 
 			if (descriptor.hasOverridingExtensions()) {
 
@@ -217,7 +239,7 @@ public class NavigatorContentDescriptorManager {
 
 				Set<NavigatorContentDescriptor> overridingDescriptors = new TreeSet<NavigatorContentDescriptor>(ExtensionSequenceNumberComparator.INSTANCE);
 				isOverridden = addDescriptorsConsideringOverrides(anElement, descriptor.getOverriddingExtensions(),
-						aVisibilityAssistant, overridingDescriptors, possibleChild);
+						aVisibilityAssistant, overridingDescriptors, possibleChild, cache);
 
 				if (!isOverridden && isApplicable) {
 					theFoundDescriptors.add(descriptor);
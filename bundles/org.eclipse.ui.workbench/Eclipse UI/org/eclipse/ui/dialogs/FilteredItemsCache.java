@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.dialogs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * A cache of the items of a {@link FilteredItemsSelectionDialog}, which
+ * survives between the openings of the dialog. The cache is filled by the
+ * first search of the dialog and then kept up to date through
+ * {@link #add(Object)}, {@link #remove(Object)} and {@link #update(Object)},
+ * or emptied through {@link #invalidate()}, by the owner of the cache.
+ * <p>
+ * The item names are indexed by prefix and by trigram, so that a search only
+ * has to match the candidates of its pattern instead of all items. The names
+ * are matched ignoring case, like {@link SearchPattern} does.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @see FilteredItemsSelectionDialog#getItemsCache()
+ * @since 3.109
+ */
+public class FilteredItemsCache {
+
+	private final Function<Object, String> nameProvider;
+
+	private boolean filled;
+
+	/**
+	 * Incremented on every change, to detect changes while filling.
+	 */
+	private int generation;
+
+	/**
+	 * The ids of the items, which index {@link #items} and {@link #keys}.
+	 */
+	private final Map<Object, Integer> ids = new HashMap<>();
+
+	/**
+	 * The items by id, <code>null</code> for removed items.
+	 */
+	private Object[] items = new Object[0];
+
+	/**
+	 * The normalized names by id.
+	 */
+	private String[] keys = new String[0];
+
+	/**
+	 * The next id.
+	 */
+	private int size;
+
+	/**
+	 * The ids of the items by normalized name.
+	 */
+	private final NavigableMap<String, IdList> nameIndex = new TreeMap<>();
+
+	/**
+	 * The ids of the items by trigram of the normalized name, built on the
+	 * first search by wildcard pattern. Removed items are skipped when
+	 * reading.
+	 */
+	private Map<Long, IdList> trigramIndex;
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param nameProvider
+	 *            returns the name of an item, as
+	 *            {@link FilteredItemsSelectionDialog#getElementName(Object)}
+	 *            does
+	 */
+	public FilteredItemsCache(Function<Object, String> nameProvider) {
+		this.nameProvider = nameProvider;
+	}
+
+	/**
+	 * Returns whether the cache holds the items, otherwise the next search
+	 * of the dialog fills it.
+	 *
+	 * @return <code>true</code> if the cache is filled
+	 */
+	public synchronized boolean isFilled() {
+		return filled;
+	}
+
+	/**
+	 * Empties the cache, so that the next search of the dialog gathers the
+	 * items again.
+	 */
+	public synchronized void invalidate() {
+		generation++;
+		filled = false;
+		clear();
+	}
+
+	/**
+	 * Adds a new item to the cache. Does nothing if the cache is not filled.
+	 *
+	 * @param item
+	 *            the item to add
+	 */
+	public synchronized void add(Object item) {
+		generation++;
+		if (filled) {
+			internalAdd(item);
+		}
+	}
+
+	/**
+	 * Removes an item from the cache. Does nothing if the cache is not
+	 * filled.
+	 *
+	 * @param item
+	 *            the item to remove
+	 */
+	public synchronized void remove(Object item) {
+		generation++;
+		if (filled) {
+			internalRemove(item);
+		}
+	}
+
+	/**
+	 * Updates an item of the cache whose name changed. Does nothing if the
+	 * cache is not filled.
+	 *
+	 * @param item
+	 *            the changed item
+	 */
+	public synchronized void update(Object item) {
+		generation++;
+		if (filled) {
+			internalRemove(item);
+			internalAdd(item);
+		}
+	}
+
+	/**
+	 * Fills the cache with all items, when the owner of the cache knows them
+	 * already. Otherwise the next search of the dialog fills the cache.
+	 *
+	 * @param allItems
+	 *            all items
+	 */
+	public synchronized void fill(Collection<?> allItems) {
+		generation++;
+		fill(allItems, generation);
+	}
+
+	/**
+	 * Returns the number of items in the cache.
+	 *
+	 * @return the number of items
+	 */
+	public synchronized int size() {
+		return ids.size();
+	}
+
+	/**
+	 * Returns the items whose names may match the pattern under the match
+	 * rule, as defined by {@link SearchPattern}. The items returned are a
+	 * superset of the matching items, in no particular order.
+	 *
+	 * @param pattern
+	 *            the pattern as returned by {@link SearchPattern#getPattern()}
+	 * @param matchRule
+	 *            the rule as returned by {@link SearchPattern#getMatchRule()}
+	 * @return the candidate items, or <code>null</code> if the cache is not
+	 *         filled
+	 */
+	public synchronized List<Object> getCandidates(String pattern, int matchRule) {
+		if (!filled) {
+			return null;
+		}
+		String key = normalize(pattern);
+		switch (matchRule) {
+		case SearchPattern.RULE_BLANK_MATCH:
+			return getAll();
+		case SearchPattern.RULE_EXACT_MATCH:
+			IdList exact = nameIndex.get(key);
+			return exact == null ? new ArrayList<>() : toItems(exact);
+		case SearchPattern.RULE_PATTERN_MATCH:
+			return getPatternCandidates(key);
+		case SearchPattern.RULE_CAMELCASE_MATCH:
+			// a camel case match starts with the same character, as does a
+			// prefix match
+			return key.isEmpty() ? getAll() : getPrefixCandidates(key.substring(0, 1));
+		default:
+			return getPrefixCandidates(key);
+		}
+	}
+
+	/**
+	 * Returns the number of changes, to detect changes while filling.
+	 *
+	 * @return the generation
+	 */
+	synchronized int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Fills the cache with all items, unless it changed since the given
+	 * generation.
+	 *
+	 * @param allItems
+	 *            all items
+	 * @param fillGeneration
+	 *            the generation when gathering the items started
+	 * @return <code>true</code> if the cache was filled
+	 */
+	synchronized boolean fill(Collection<?> allItems, int fillGeneration) {
+		if (fillGeneration != generation) {
+			return false;
+		}
+		clear();
+		for (Object item : allItems) {
+			internalAdd(item);
+		}
+		filled = true;
+		return true;
+	}
+
+	private void clear() {
+		ids.clear();
+		items = new Object[0];
+		keys = new String[0];
+		size = 0;
+		nameIndex.clear();
+		trigramIndex = null;
+	}
+
+	private void internalAdd(Object item) {
+		if (ids.containsKey(item)) {
+			return;
+		}
+		String name = nameProvider.apply(item);
+		String key = normalize(name == null ? "" : name); //$NON-NLS-1$
+		if (size == items.length) {
+			int capacity = Math.max(16, size * 2);
+			items = Arrays.copyOf(items, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+		}
+		int id = size++;
+		items[id] = item;
+		keys[id] = key;
+		ids.put(item, Integer.valueOf(id));
+		nameIndex.computeIfAbsent(key, k -> new IdList()).add(id);
+		if (trigramIndex != null) {
+			indexTrigrams(id, key);
+		}
+	}
+
+	private void internalRemove(Object item) {
+		Integer id = ids.remove(item);
+		if (id == null) {
+			return;
+		}
+		int index = id.intValue();
+		String key = keys[index];
+		IdList list = nameIndex.get(key);
+		list.remove(index);
+		if (list.size == 0) {
+			nameIndex.remove(key);
+		}
+		items[index] = null;
+		keys[index] = null;
+		// drop the removed ids once they make up half of the ids
+		if (size > 64 && ids.size() < size / 2) {
+			compact();
+		}
+	}
+
+	private void compact() {
+		List<Object> live = getAll();
+		clear();
+		for (Object item : live) {
+			internalAdd(item);
+		}
+	}
+
+	private List<Object> getAll() {
+		List<Object> result = new ArrayList<>(ids.size());
+		for (int id = 0; id < size; id++) {
+			if (items[id] != null) {
+				result.add(items[id]);
+			}
+		}
+		return result;
+	}
+
+	private List<Object> toItems(IdList list) {
+		List<Object> result = new ArrayList<>(list.size);
+		for (int i = 0; i < list.size; i++) {
+			result.add(items[list.ids[i]]);
+		}
+		return result;
+	}
+
+	private List<Object> getPrefixCandidates(String prefix) {
+		List<Object> result = new ArrayList<>();
+		for (Map.Entry<String, IdList> entry : nameIndex.tailMap(prefix, true).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) {
+				break;
+			}
+			IdList list = entry.getValue();
+			for (int i = 0; i < list.size; i++) {
+				result.add(items[list.ids[i]]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the candidates of a wildcard pattern, which contain all
+	 * trigrams of the literal parts of the pattern, or start with its
+	 * leading literal part.
+	 */
+	private List<Object> getPatternCandidates(String pattern) {
+		if (pattern.indexOf('\\') != -1) {
+			// escaped wildcards are literals, do not bother
+			return getAll();
+		}
+		List<String> literals = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i <= pattern.length(); i++) {
+			if (i == pattern.length() || pattern.charAt(i) == '*' || pattern.charAt(i) == '?') {
+				if (i > start) {
+					literals.add(pattern.substring(start, i));
+				}
+				start = i + 1;
+			}
+		}
+		IdList candidates = null;
+		for (String literal : literals) {
+			for (int i = 0; i + 3 <= literal.length(); i++) {
+				IdList list = getTrigramIndex().get(Long.valueOf(trigram(literal, i)));
+				if (list == null) {
+					return new ArrayList<>();
+				}
+				candidates = candidates == null ? list : candidates.intersect(list);
+			}
+		}
+		if (candidates != null) {
+			List<Object> result = new ArrayList<>(candidates.size);
+			for (int i = 0; i < candidates.size; i++) {
+				Object item = items[candidates.ids[i]];
+				if (item != null) {
+					result.add(item);
+				}
+			}
+			return result;
+		}
+		if (!pattern.isEmpty() && pattern.charAt(0) != '*' && pattern.charAt(0) != '?') {
+			return getPrefixCandidates(literals.get(0));
+		}
+		return getAll();
+	}
+
+	private Map<Long, IdList> getTrigramIndex() {
+		if (trigramIndex == null) {
+			trigramIndex = new HashMap<>();
+			for (int id = 0; id < size; id++) {
+				if (keys[id] != null) {
+					indexTrigrams(id, keys[id]);
+				}
+			}
+		}
+		return trigramIndex;
+	}
+
+	private void indexTrigrams(int id, String key) {
+		for (int i = 0; i + 3 <= key.length(); i++) {
+			IdList list = trigramIndex.computeIfAbsent(Long.valueOf(trigram(key, i)), k -> new IdList());
+			// ids grow, a repeated trigram of the same name is the last one
+			if (list.size == 0 || list.ids[list.size - 1] != id) {
+				list.add(id);
+			}
+		}
+	}
+
+	private static long trigram(String key, int index) {
+		return ((long) key.charAt(index) << 32) | ((long) key.charAt(index + 1) << 16) | key.charAt(index + 2);
+	}
+
+	/**
+	 * Normalizes the case of the text, so that texts equal ignoring case are
+	 * equal.
+	 */
+	private static String normalize(String text) {
+		char[] chars = text.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * A list of ascending ids.
+	 */
+	private static final class IdList {
+		int[] ids = new int[2];
+
+		int size;
+
+		void add(int id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+		void remove(int id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+				size--;
+			}
+		}
+
+		IdList intersect(IdList other) {
+			IdList result = new IdList();
+			int i = 0;
+			int j = 0;
+			while (i < size && j < other.size) {
+				if (ids[i] < other.ids[j]) {
+					i++;
+				} else if (ids[i] > other.ids[j]) {
+					j++;
+				} else {
+					result.add(ids[i]);
+					i++;
+					j++;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,8 +22,10 @@ import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -31,7 +33,10 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.IHandler;
@@ -137,6 +142,23 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 
 	private static final String DIALOG_WIDTH = "DIALOG_WIDTH"; //$NON-NLS-1$
 
+	/**
+	 * The number of items matched at once, and between progress reports.
+	 */
+	private static final int FILTER_CHUNK_SIZE = 500;
+
+	/**
+	 * The number of items from which thread safe filters match in parallel.
+	 */
+	private static final int PARALLEL_FILTER_THRESHOLD = 2000;
+
+	/**
+	 * The number of filtered items sorted before they are shown, enough for
+	 * the visible rows of the list. The following items are sorted in
+	 * growing blocks when the list asks for them.
+	 */
+	private static final int FIRST_PAGE_SIZE = 256;
+
 	/**
 	 * Represents an empty selection in the pattern input field (used only for
 	 * initial pattern).
@@ -1168,6 +1190,33 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 			AbstractContentProvider contentProvider, ItemsFilter itemsFilter,
 			IProgressMonitor progressMonitor) throws CoreException;
 
+	/**
+	 * Returns the cache of the items of the dialog, which survives between the
+	 * openings of the dialog. When a cache is returned, the search fills it
+	 * once with all items passed to the content provider by
+	 * {@link #fillContentProvider(AbstractContentProvider, ItemsFilter, IProgressMonitor)},
+	 * and then only matches the candidates of the cache index against the
+	 * filter.
+	 * <p>
+	 * Subclasses returning a cache must pass all items to the content provider,
+	 * regardless of the filter pattern, and their filters must only match items
+	 * whose name matches the filter pattern. The owner of the cache keeps it up
+	 * to date with the items, and invalidates it when the items passed to the
+	 * content provider change otherwise.
+	 * </p>
+	 * <p>
+	 * The default implementation returns <code>null</code>, all items are
+	 * searched again for every pattern which is not a sub-pattern of the last
+	 * one.
+	 * </p>
+	 *
+	 * @return the items cache, or <code>null</code>
+	 * @since 3.109
+	 */
+	protected FilteredItemsCache getItemsCache() {
+		return null;
+	}
+
 	/**
 	 * Removes selected items from history.
 	 *
@@ -1204,15 +1253,6 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		contentProvider.addHistoryElement(item);
 	}
 
-	/**
-	 * Returns a history comparator.
-	 *
-	 * @return decorated comparator
-	 */
-	private Comparator getHistoryComparator() {
-		return new HistoryComparator();
-	}
-
 	/**
 	 * Returns the history of selected elements.
 	 *
@@ -2021,23 +2061,13 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 			if (lastCompletedFilter != null
 					&& lastCompletedFilter.isSubFilter(this.itemsFilter)) {
 
-				int length = lastCompletedResult.size() / 500;
+				int length = lastCompletedResult.size() / FILTER_CHUNK_SIZE;
 				monitor
 						.beginTask(
 								WorkbenchMessages.FilteredItemsSelectionDialog_cacheSearchJob_taskName,
 								length);
 
-				for (int pos = 0; pos < lastCompletedResult.size(); pos++) {
-
-					Object item = lastCompletedResult.get(pos);
-					if (monitor.isCanceled())
-						break;
-					contentProvider.add(item, itemsFilter);
-
-					if ((pos % 500) == 0) {
-						monitor.worked(1);
-					}
-				}
+				addMatchingItems(lastCompletedResult.toArray(), monitor);
 
 			} else {
 
@@ -2048,7 +2078,12 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 									WorkbenchMessages.FilteredItemsSelectionDialog_searchJob_taskName,
 									100);
 
-				fillContentProvider(contentProvider, itemsFilter, subMonitor.split(95));
+				FilteredItemsCache cache = getItemsCache();
+				if (cache != null) {
+					filterCachedContent(cache, subMonitor.split(95));
+				} else {
+					fillContentProvider(contentProvider, itemsFilter, subMonitor.split(95));
+				}
 
 				if (monitor != null && !monitor.isCanceled()) {
 					subMonitor.worked(2);
@@ -2059,6 +2094,97 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 
 		}
 
+		/**
+		 * Filters the candidates of the cache, which is filled first if
+		 * needed.
+		 *
+		 * @param cache
+		 *            the items cache
+		 * @param monitor
+		 *            for monitoring progress
+		 * @throws CoreException
+		 */
+		private void filterCachedContent(FilteredItemsCache cache,
+				IProgressMonitor monitor) throws CoreException {
+			SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
+			List candidates = cache.getCandidates(itemsFilter.getPattern(),
+					itemsFilter.getMatchRule());
+			if (candidates == null) {
+				int generation = cache.getGeneration();
+				ItemsCollector collector = new ItemsCollector();
+				fillContentProvider(collector, itemsFilter, subMonitor.split(80));
+				if (subMonitor.isCanceled()) {
+					return;
+				}
+				// a concurrent change of the items leaves the cache empty
+				cache.fill(collector.items, generation);
+				candidates = collector.items;
+			}
+
+			subMonitor.setWorkRemaining(candidates.size() / FILTER_CHUNK_SIZE + 1);
+			addMatchingItems(candidates.toArray(), subMonitor);
+		}
+
+		/**
+		 * Adds the candidates matched by the filter to the content provider.
+		 * Large numbers of candidates are matched in parallel, in chunks, if
+		 * the filter is thread safe.
+		 *
+		 * @param candidates
+		 *            the items to match
+		 * @param monitor
+		 *            for monitoring progress, worked once per chunk
+		 */
+		private void addMatchingItems(Object[] candidates,
+				IProgressMonitor monitor) {
+			int chunks = (candidates.length + FILTER_CHUNK_SIZE - 1) / FILTER_CHUNK_SIZE;
+			if (candidates.length < PARALLEL_FILTER_THRESHOLD
+					|| itemsFilter == null || !itemsFilter.isThreadSafe()
+					|| ForkJoinPool.getCommonPoolParallelism() <= 1) {
+				for (int pos = 0; pos < candidates.length; pos++) {
+					if (monitor.isCanceled())
+						break;
+					contentProvider.add(candidates[pos], itemsFilter);
+
+					if ((pos % FILTER_CHUNK_SIZE) == 0) {
+						monitor.worked(1);
+					}
+				}
+				return;
+			}
+
+			IntStream.range(0, chunks).parallel().forEach(chunk -> {
+				if (monitor.isCanceled()) {
+					return;
+				}
+				int to = Math.min(candidates.length, (chunk + 1) * FILTER_CHUNK_SIZE);
+				List matches = new ArrayList();
+				for (int pos = chunk * FILTER_CHUNK_SIZE; pos < to; pos++) {
+					if (itemsFilter.matchItem(candidates[pos])) {
+						matches.add(candidates[pos]);
+					}
+				}
+				contentProvider.addMatching(matches, itemsFilter);
+			});
+			// the workers only check for cancellation, report in this thread
+			monitor.worked(chunks);
+		}
+
+	}
+
+	/**
+	 * Collects all items passed by
+	 * {@link FilteredItemsSelectionDialog#fillContentProvider(AbstractContentProvider, ItemsFilter, IProgressMonitor)}
+	 * to fill the items cache.
+	 */
+	private class ItemsCollector extends AbstractContentProvider {
+
+		private final List items = Collections.synchronizedList(new ArrayList());
+
+		@Override
+		public void add(Object item, ItemsFilter itemsFilter) {
+			items.add(item);
+		}
 	}
 
 	/**
@@ -2392,6 +2518,18 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		 */
 		public abstract boolean matchItem(Object item);
 
+		/**
+		 * Returns whether {@link #matchItem(Object)} may be called from
+		 * several threads at once. Large numbers of items are then matched in
+		 * parallel. The default implementation returns <code>false</code>.
+		 *
+		 * @return <code>true</code> if the filter is thread safe
+		 * @since 3.109
+		 */
+		public boolean isThreadSafe() {
+			return false;
+		}
+
 		/**
 		 * Checks consistency of an item. Item is inconsistent if was changed or
 		 * removed.
@@ -2448,7 +2586,7 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		 * Raw result of the searching (unsorted, unfiltered).
 		 * <p>
 		 * Standard object flow:
-		 * <code>items -> lastSortedItems -> lastFilteredItems</code>
+		 * <code>items -> lastFilteredItems</code>
 		 */
 		private Set items;
 
@@ -2463,20 +2601,12 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		private List filters;
 
 		/**
-		 * Result of the last filtering.
-		 * <p>
-		 * Standard object flow:
-		 * <code>items -> lastSortedItems -> lastFilteredItems</code>
-		 */
-		private List lastFilteredItems;
-
-		/**
-		 * Result of the last sorting.
+		 * Result of the last filtering, sorted as far as it was shown.
 		 * <p>
 		 * Standard object flow:
-		 * <code>items -> lastSortedItems -> lastFilteredItems</code>
+		 * <code>items -> lastFilteredItems</code>
 		 */
-		private List lastSortedItems;
+		private LazySortedItems lastFilteredItems;
 
 		/**
 		 * Used for <code>getFilteredItems()</code> method canceling (when the
@@ -2495,9 +2625,7 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		public ContentProvider() {
 			this.items = Collections.synchronizedSet(new HashSet(2048));
 			this.duplicates = Collections.synchronizedSet(new HashSet(256));
-			this.lastFilteredItems = new ArrayList();
-			this.lastSortedItems = Collections.synchronizedList(new ArrayList(
-					2048));
+			this.lastFilteredItems = LazySortedItems.EMPTY;
 		}
 
 		/**
@@ -2524,7 +2652,6 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 			reset = true;
 			this.items.clear();
 			this.duplicates.clear();
-			this.lastSortedItems.clear();
 		}
 
 		/**
@@ -2598,11 +2725,6 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 			if (filter == null || filter.getPattern().length() == 0) {
 				items.remove(item);
 				duplicates.remove(item);
-				this.lastSortedItems.remove(item);
-			}
-
-			synchronized (lastSortedItems) {
-				Collections.sort(lastSortedItems, getHistoryComparator());
 			}
 			return item;
 		}
@@ -2619,10 +2741,6 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 			if (filter == null || !filter.matchItem(item)) {
 				this.items.remove(item);
 				this.duplicates.remove(item);
-				this.lastSortedItems.remove(item);
-			}
-			synchronized (lastSortedItems) {
-				Collections.sort(lastSortedItems, getHistoryComparator());
 			}
 			this.refresh();
 		}
@@ -2690,19 +2808,18 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		}
 
 		/**
-		 * Gets sorted items.
+		 * Adds items already matched by the filter, which may be called from
+		 * several threads at once.
 		 *
-		 * @return sorted items
+		 * @param matches
+		 *            the matching items
+		 * @param itemsFilter
+		 *            the filter which matched the items
 		 */
-		private Object[] getSortedItems() {
-			if (lastSortedItems.size() != items.size()) {
-				synchronized (lastSortedItems) {
-					lastSortedItems.clear();
-					lastSortedItems.addAll(items);
-					Collections.sort(lastSortedItems, getHistoryComparator());
-				}
+		public void addMatching(Collection matches, ItemsFilter itemsFilter) {
+			if (itemsFilter == filter) {
+				this.items.addAll(matches);
 			}
-			return lastSortedItems.toArray();
 		}
 
 		/**
@@ -2712,7 +2829,7 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		 */
 		public void rememberResult(ItemsFilter itemsFilter) {
 			List itemsList = Collections.synchronizedList(Arrays
-					.asList(getSortedItems()));
+					.asList(items.toArray()));
 			// synchronization
 			if (itemsFilter == filter) {
 				lastCompletedFilter = itemsFilter;
@@ -2771,7 +2888,7 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 
 			// the TableViewer's root (the input) is treated as parent
 
-			lastFilteredItems = Arrays.asList(getFilteredItems(list.getInput(), subMonitor.split(100)));
+			lastFilteredItems = getFilteredItems(list.getInput(), subMonitor.split(100));
 
 			if (reset || subMonitor.isCanceled()) {
 				return;
@@ -2783,43 +2900,42 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		}
 
 		private void checkDuplicates(IProgressMonitor monitor) {
-			synchronized (lastFilteredItems) {
-				SubMonitor subMonitor = SubMonitor.convert(monitor,
-						WorkbenchMessages.FilteredItemsSelectionDialog_cacheRefreshJob_checkDuplicates,
-						lastFilteredItems.size());
-				HashMap<String, Object> helperMap = new HashMap<>();
-				for (int i = 0; i < lastFilteredItems.size(); i++) {
-					if (reset || subMonitor.isCanceled())
-						return;
-					Object item = lastFilteredItems.get(i);
-
-					if (!(item instanceof ItemsListSeparator)) {
-						Object previousItem = helperMap.put(getElementName(item), item);
-						if (previousItem != null) {
-							setDuplicateElement(previousItem, true);
-							setDuplicateElement(item, true);
-						} else {
-							setDuplicateElement(item, false);
-						}
-					}
+			// the duplicates do not depend on the order, do not sort
+			Object[] filteredItems = lastFilteredItems.toUnsortedArray();
+			SubMonitor subMonitor = SubMonitor.convert(monitor,
+					WorkbenchMessages.FilteredItemsSelectionDialog_cacheRefreshJob_checkDuplicates,
+					filteredItems.length);
+			HashMap<String, Object> helperMap = new HashMap<>();
+			for (Object item : filteredItems) {
+				if (reset || subMonitor.isCanceled())
+					return;
 
-					subMonitor.worked(1);
+				Object previousItem = helperMap.put(getElementName(item), item);
+				if (previousItem != null) {
+					setDuplicateElement(previousItem, true);
+					setDuplicateElement(item, true);
+				} else {
+					setDuplicateElement(item, false);
 				}
-				helperMap.clear();
+
+				subMonitor.worked(1);
 			}
+			helperMap.clear();
 		}
 
 		/**
-		 * Returns an array of items filtered using the provided
-		 * <code>ViewerFilter</code>s with a separator added.
+		 * Returns the items filtered using the provided
+		 * <code>ViewerFilter</code>s, with the history items first and a
+		 * separator added. Only the first page of items is sorted, the
+		 * following items are sorted when they are accessed.
 		 *
 		 * @param parent
 		 *            the parent
 		 * @param monitor
 		 *            progress monitor, can be <code>null</code>
-		 * @return an array of filtered items
+		 * @return the filtered items
 		 */
-		protected Object[] getFilteredItems(Object parent,
+		protected LazySortedItems getFilteredItems(Object parent,
 				IProgressMonitor monitor) {
 			int ticks = 100;
 			if (monitor == null) {
@@ -2836,8 +2952,7 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 				ticks /= 2;
 			}
 
-			// get already sorted array
-			Object[] filteredElements = getSortedItems();
+			Object[] filteredElements = items.toArray();
 
 			monitor.worked(ticks);
 
@@ -2852,39 +2967,30 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 
 			if (filteredElements == null || monitor.isCanceled()) {
 				monitor.done();
-				return new Object[0];
-			}
-
-			ArrayList preparedElements = new ArrayList();
-			boolean hasHistory = false;
-
-			if (filteredElements.length > 0) {
-				if (isHistoryElement(filteredElements[0])) {
-					hasHistory = true;
-				}
+				return LazySortedItems.EMPTY;
 			}
 
-			int reportEvery = filteredElements.length / ticks;
-
-			// add separator
+			// move the history items to the front
+			int historyCount = 0;
 			for (int i = 0; i < filteredElements.length; i++) {
 				Object item = filteredElements[i];
-
-				if (hasHistory && !isHistoryElement(item)) {
-					preparedElements.add(itemsListSeparator);
-					hasHistory = false;
-				}
-
-				preparedElements.add(item);
-
-				if (reportEvery != 0 && ((i + 1) % reportEvery == 0)) {
-					monitor.worked(1);
+				if (isHistoryElement(item)) {
+					filteredElements[i] = filteredElements[historyCount];
+					filteredElements[historyCount++] = item;
 				}
 			}
 
+			// add separator
+			Object separator = historyCount > 0
+					&& historyCount < filteredElements.length ? itemsListSeparator
+					: null;
+			LazySortedItems sortedItems = new LazySortedItems(filteredElements,
+					historyCount, separator, getItemsComparator());
+			sortedItems.sortUpTo(FIRST_PAGE_SIZE);
+
 			monitor.done();
 
-			return preparedElements.toArray();
+			return sortedItems;
 		}
 
 		/**
@@ -2908,6 +3014,167 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 
 	}
 
+	/**
+	 * The filtered items, with the history items first, which are sorted on
+	 * demand. The items are sorted up to the accessed index, in blocks which
+	 * double in size, so that showing the first page of many items does not
+	 * sort all of them. The history items are sorted as one block.
+	 */
+	private static final class LazySortedItems extends AbstractList implements
+			RandomAccess {
+
+		static final LazySortedItems EMPTY = new LazySortedItems(new Object[0],
+				0, null, null);
+
+		private final Object[] elements;
+
+		private final int historyCount;
+
+		private final Object separator;
+
+		private final Comparator comparator;
+
+		/**
+		 * The number of elements in their final place.
+		 */
+		private int sortedCount;
+
+		/**
+		 * @param elements
+		 *            the items, with the history items first
+		 * @param historyCount
+		 *            the number of history items
+		 * @param separator
+		 *            the separator shown after the history items, or
+		 *            <code>null</code>
+		 * @param comparator
+		 *            the comparator of the items
+		 */
+		LazySortedItems(Object[] elements, int historyCount, Object separator,
+				Comparator comparator) {
+			this.elements = elements;
+			this.historyCount = historyCount;
+			this.separator = separator;
+			this.comparator = comparator;
+		}
+
+		@Override
+		public synchronized Object get(int index) {
+			int elementIndex = index;
+			if (separator != null && index >= historyCount) {
+				if (index == historyCount) {
+					return separator;
+				}
+				elementIndex--;
+			}
+			sortUpTo(elementIndex + 1);
+			return elements[elementIndex];
+		}
+
+		@Override
+		public int size() {
+			return separator == null ? elements.length : elements.length + 1;
+		}
+
+		/**
+		 * Returns the items in no particular order, without the separator.
+		 *
+		 * @return the items
+		 */
+		synchronized Object[] toUnsortedArray() {
+			return elements.clone();
+		}
+
+		/**
+		 * Sorts the items up to the given number of items.
+		 *
+		 * @param count
+		 *            the number of items to sort
+		 */
+		synchronized void sortUpTo(int count) {
+			int limit = Math.min(count, elements.length);
+			while (sortedCount < limit) {
+				int from = sortedCount;
+				int to;
+				if (from < historyCount) {
+					to = historyCount;
+				} else {
+					to = Math.min(elements.length, from
+							+ Math.max(FIRST_PAGE_SIZE, from - historyCount));
+					if (to < elements.length) {
+						// move the smallest remaining items into the block
+						select(from, to - 1, elements.length);
+					}
+				}
+				Arrays.sort(elements, from, to, comparator);
+				sortedCount = to;
+			}
+		}
+
+		/**
+		 * Partially sorts the elements between <code>from</code> and
+		 * <code>to</code>, so that the element at <code>index</code> is in
+		 * its sorted place and no element before it is greater.
+		 */
+		private void select(int from, int index, int to) {
+			int lo = from;
+			int hi = to;
+			while (hi - lo > 1) {
+				Object pivot = median(elements[lo], elements[(lo + hi) >>> 1],
+						elements[hi - 1]);
+				// three way partition: < pivot, == pivot, > pivot
+				int lt = lo;
+				int gt = hi;
+				int i = lo;
+				while (i < gt) {
+					int result = comparator.compare(elements[i], pivot);
+					if (result < 0) {
+						swap(lt++, i++);
+					} else if (result > 0) {
+						swap(i, --gt);
+					} else {
+						i++;
+					}
+				}
+				if (index < lt) {
+					if (lt == hi) {
+						// an inconsistent comparator, do not loop forever
+						Arrays.sort(elements, lo, hi, comparator);
+						return;
+					}
+					hi = lt;
+				} else if (index >= gt) {
+					if (gt == lo) {
+						Arrays.sort(elements, lo, hi, comparator);
+						return;
+					}
+					lo = gt;
+				} else {
+					return;
+				}
+			}
+		}
+
+		private Object median(Object a, Object b, Object c) {
+			if (comparator.compare(a, b) < 0) {
+				if (comparator.compare(b, c) < 0) {
+					return b;
+				}
+				return comparator.compare(a, c) < 0 ? c : a;
+			}
+			if (comparator.compare(a, c) < 0) {
+				return a;
+			}
+			return comparator.compare(b, c) < 0 ? c : b;
+		}
+
+		private void swap(int i, int j) {
+			Object element = elements[i];
+			elements[i] = elements[j];
+			elements[j] = element;
+		}
+	}
+
 	/**
 	 * DetailsContentViewer objects are wrappers for labels.
 	 * DetailsContentViewer provides means to change label's image and text when
@@ -3043,28 +3310,6 @@ public abstract class FilteredItemsSelectionDialog extends SelectionStatusDialog
 		}
 	}
 
-	/**
-	 * Compares items according to the history.
-	 */
-	private class HistoryComparator implements Comparator {
-
-		@Override
-		public int compare(Object o1, Object o2) {
-			boolean h1 = isHistoryElement(o1);
-			boolean h2 = isHistoryElement(o2);
-			if (h1 == h2)
-				return getItemsComparator().compare(o1, o2);
-
-			if (h1)
-				return -2;
-			if (h2)
-				return +2;
-
-			return 0;
-		}
-
-	}
-
 
 	/**
 	 * Get the control where the search pattern is entered. Any filtering should
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -281,4 +281,17 @@ public interface IPreferenceConstants {
 	 */
 	public static final String SAVE_AUTOMATICALLY_INTERVAL = "SAVE_AUTOMATICALLY_INTERVAL"; //$NON-NLS-1$
 
+	/**
+	 * Preference value that specifies the number of jobs computing lightweight
+	 * decorations concurrently. Pending elements are shared among the jobs,
+	 * and a decorator is never called by two jobs at the same time.
+	 * <p>
+	 * The integer default value for this preference is: <code>1</code>, which
+	 * computes all decorations in a single job.
+	 * </p>
+	 *
+	 * @since 3.109
+	 */
+	public static final String DECORATION_THREADS = "DECORATION_THREADS"; //$NON-NLS-1$
+
 }
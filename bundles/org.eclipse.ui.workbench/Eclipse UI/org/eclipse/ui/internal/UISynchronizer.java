@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.ui.internal;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.UnaryOperator;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Synchronizer;
 import org.eclipse.ui.internal.StartupThreading.StartupRunnable;
@@ -40,6 +41,8 @@ public class UISynchronizer extends Synchronizer {
 	 */
 	private boolean use32Threading = false;
 
+	private static volatile UnaryOperator<Runnable> asyncExecWrapper;
+
 	/**
 	 * Setting this variable to the value {@link Boolean#TRUE} will allow a
 	 * thread to execute code during the startup sequence.
@@ -119,9 +122,26 @@ public class UISynchronizer extends Synchronizer {
 				}
 			}
 		}
+		UnaryOperator<Runnable> wrapper = asyncExecWrapper;
+		if (runnable != null && wrapper != null) {
+			runnable = wrapper.apply(runnable);
+		}
     	super.asyncExec(runnable);
     }
 
+	/**
+	 * Sets the function wrapping the runnables passed to
+	 * {@link #asyncExec(Runnable)}, for example to measure how long they run.
+	 * The function is called on the thread calling <code>asyncExec</code>.
+	 *
+	 * @param wrapper
+	 *            the wrapping function, or <code>null</code> to run the
+	 *            runnables unwrapped
+	 */
+	public static void setAsyncExecWrapper(UnaryOperator<Runnable> wrapper) {
+		asyncExecWrapper = wrapper;
+	}
+
 	@Override
 	public void syncExec(Runnable runnable) {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -79,6 +79,7 @@ public class WorkbenchPreferenceInitializer extends AbstractPreferenceInitialize
 		node.putInt(IPreferenceConstants.OPEN_PERSP_MODE,
 				IPreferenceConstants.OPM_ACTIVE_PAGE);
 		node.put(IPreferenceConstants.ENABLED_DECORATORS, ""); //$NON-NLS-1$
+		node.putInt(IPreferenceConstants.DECORATION_THREADS, 1);
 		node.putInt(IPreferenceConstants.EDITORLIST_SELECTION_SCOPE,
 				IPreferenceConstants.EDITORLIST_SET_PAGE_SCOPE); // Current
 																 // Window
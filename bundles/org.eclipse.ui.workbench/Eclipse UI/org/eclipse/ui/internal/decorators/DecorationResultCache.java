@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.decorators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.jface.viewers.IDecorationContext;
+
+/**
+ * The DecorationResultCache holds a bounded number of decoration results, keyed
+ * by element and decoration context.
+ * <p>
+ * The cache is a segmented LRU: new results are kept in a probationary segment
+ * and move to a protected segment when a viewer asks for them, which means the
+ * element is shown. Results that were computed but never shown are evicted
+ * first, so the elements visible in viewers keep their decorations.
+ * </p>
+ * <p>
+ * Each result remembers the lightweight decorators that were applied, so that
+ * a change of a single decorator only invalidates the results it contributed
+ * to, and the adapted element it was computed for, so that a change of the
+ * adapted element invalidates it too. This class is safe for use by several
+ * threads.
+ * </p>
+ */
+class DecorationResultCache {
+
+	private static final LightweightDecoratorDefinition[] NO_DECORATORS = new LightweightDecoratorDefinition[0];
+
+	private static final class Key {
+		final Object element;
+
+		final IDecorationContext context;
+
+		Key(Object element, IDecorationContext context) {
+			this.element = element;
+			this.context = context;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return element.equals(other.element) && context.equals(other.context);
+		}
+
+		@Override
+		public int hashCode() {
+			return element.hashCode() * 31 + context.hashCode();
+		}
+	}
+
+	private static final class Entry {
+		final DecorationResult result;
+
+		final Object adaptedElement;
+
+		final LightweightDecoratorDefinition[] decorators;
+
+		final boolean perRound;
+
+		Entry(DecorationResult result, Object adaptedElement, LightweightDecoratorDefinition[] decorators,
+				boolean perRound) {
+			this.result = result;
+			this.adaptedElement = adaptedElement;
+			this.decorators = decorators == null ? NO_DECORATORS : decorators;
+			this.perRound = perRound;
+		}
+
+		boolean isDecoratedBy(LightweightDecoratorDefinition definition) {
+			for (LightweightDecoratorDefinition decorator : decorators) {
+				if (decorator == definition) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	// Both segments are in access order, least recently used first
+	private final LinkedHashMap<Key, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final LinkedHashMap<Key, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Set<IDecorationContext> contexts = new LinkedHashSet<>();
+
+	private final int maximumSize;
+
+	private final int maximumProtectedSize;
+
+	/**
+	 * Create a new cache holding at most the given number of results.
+	 *
+	 * @param maximumSize
+	 *            the maximum number of results, at least <code>1</code>
+	 */
+	DecorationResultCache(int maximumSize) {
+		this.maximumSize = Math.max(1, maximumSize);
+		this.maximumProtectedSize = Math.max(1, this.maximumSize * 4 / 5);
+	}
+
+	/**
+	 * Return the result for the element, which is about to be shown, and give
+	 * it priority over the results that have not been shown.
+	 *
+	 * @param element
+	 * @param context
+	 * @return DecorationResult or <code>null</code>
+	 */
+	synchronized DecorationResult get(Object element, IDecorationContext context) {
+		Key key = new Key(element, context);
+		Entry entry = protectedSegment.get(key);
+		if (entry != null) {
+			return entry.result;
+		}
+		entry = probation.remove(key);
+		if (entry == null) {
+			return null;
+		}
+		protectedSegment.put(key, entry);
+		if (protectedSegment.size() > maximumProtectedSize) {
+			// Demote the least recently shown result
+			Iterator<Map.Entry<Key, Entry>> eldest = protectedSegment.entrySet().iterator();
+			Map.Entry<Key, Entry> demoted = eldest.next();
+			eldest.remove();
+			probation.put(demoted.getKey(), demoted.getValue());
+		}
+		return entry.result;
+	}
+
+	/**
+	 * Return whether there is a result for the element, without changing its
+	 * priority.
+	 *
+	 * @param element
+	 * @param context
+	 * @return boolean
+	 */
+	synchronized boolean contains(Object element, IDecorationContext context) {
+		Key key = new Key(element, context);
+		return protectedSegment.containsKey(key) || probation.containsKey(key);
+	}
+
+	/**
+	 * Add the result for the element, evicting the least recently used
+	 * results that were not shown if the cache is full.
+	 *
+	 * @param element
+	 * @param adaptedElement
+	 *            the adapted value of element, may be <code>null</code>
+	 * @param context
+	 * @param result
+	 * @param decorators
+	 *            the lightweight decorators that were applied, may be
+	 *            <code>null</code>
+	 * @param perRound
+	 *            whether the result may change without an event, so that it
+	 *            is only kept until {@link #removePerRound()}
+	 */
+	synchronized void put(Object element, Object adaptedElement, IDecorationContext context,
+			DecorationResult result, LightweightDecoratorDefinition[] decorators, boolean perRound) {
+		Key key = new Key(element, context);
+		Entry entry = new Entry(result, adaptedElement, decorators, perRound);
+		contexts.add(context);
+		if (protectedSegment.containsKey(key)) {
+			protectedSegment.put(key, entry);
+			return;
+		}
+		probation.put(key, entry);
+		while (size() > maximumSize) {
+			Map<Key, Entry> segment = probation.isEmpty() ? protectedSegment : probation;
+			Iterator<Key> eldest = segment.keySet().iterator();
+			eldest.next();
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Remove the results for the elements in all contexts, and the results of
+	 * the elements adapted to one of them.
+	 *
+	 * @param elements
+	 */
+	synchronized void remove(Object[] elements) {
+		Set<Object> removed = new HashSet<>(Arrays.asList(elements));
+		removed.remove(null);
+		if (removed.isEmpty()) {
+			return;
+		}
+		removeMatching(protectedSegment, removed);
+		removeMatching(probation, removed);
+	}
+
+	private static void removeMatching(Map<Key, Entry> segment, Set<Object> elements) {
+		for (Iterator<Map.Entry<Key, Entry>> it = segment.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Key, Entry> candidate = it.next();
+			Object adaptedElement = candidate.getValue().adaptedElement;
+			if (elements.contains(candidate.getKey().element)
+					|| (adaptedElement != null && elements.contains(adaptedElement))) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove the results that one of the given decorators contributed to, or
+	 * that one of them applies to now.
+	 *
+	 * @param definitions
+	 *            the changed decorators
+	 * @param manager
+	 *            the manager used to find the decorators that apply to an
+	 *            element now
+	 */
+	void remove(LightweightDecoratorDefinition[] definitions, LightweightDecoratorManager manager) {
+		List<Map.Entry<Key, Entry>> candidates;
+		synchronized (this) {
+			candidates = new ArrayList<>(protectedSegment.entrySet());
+			candidates.addAll(probation.entrySet());
+		}
+		// Computing the decorators is done without holding the lock so that
+		// viewers are not blocked meanwhile
+		List<Map.Entry<Key, Entry>> obsolete = new ArrayList<>();
+		for (Map.Entry<Key, Entry> candidate : candidates) {
+			if (isObsolete(candidate.getKey().element, candidate.getValue(), definitions, manager)) {
+				obsolete.add(candidate);
+			}
+		}
+		synchronized (this) {
+			for (Map.Entry<Key, Entry> candidate : obsolete) {
+				Key key = candidate.getKey();
+				// Keep results recomputed in the meantime
+				if (protectedSegment.get(key) == candidate.getValue()) {
+					protectedSegment.remove(key);
+				} else if (probation.get(key) == candidate.getValue()) {
+					probation.remove(key);
+				}
+			}
+		}
+	}
+
+	private boolean isObsolete(Object element, Entry entry, LightweightDecoratorDefinition[] definitions,
+			LightweightDecoratorManager manager) {
+		LightweightDecoratorDefinition[] current = null;
+		for (LightweightDecoratorDefinition definition : definitions) {
+			if (entry.isDecoratedBy(definition)) {
+				return true;
+			}
+			if (definition.isEnabled()) {
+				if (current == null) {
+					current = manager.getDecoratorsFor(element);
+				}
+				for (LightweightDecoratorDefinition decorator : current) {
+					if (decorator == definition) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove the results which may change without an event, once the round of
+	 * updates which computed them is over.
+	 */
+	synchronized void removePerRound() {
+		protectedSegment.values().removeIf(entry -> entry.perRound);
+		probation.values().removeIf(entry -> entry.perRound);
+	}
+
+	/**
+	 * Remove all results.
+	 */
+	synchronized void clear() {
+		probation.clear();
+		protectedSegment.clear();
+		contexts.clear();
+	}
+
+	/**
+	 * Return the number of results.
+	 *
+	 * @return int
+	 */
+	synchronized int size() {
+		return probation.size() + protectedSegment.size();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,12 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.decorators;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import org.eclipse.core.runtime.Assert;
@@ -35,24 +35,36 @@ import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.internal.IPreferenceConstants;
 import org.eclipse.ui.internal.WorkbenchMessages;
+import org.eclipse.ui.internal.WorkbenchPlugin;
 import org.eclipse.ui.progress.UIJob;
 import org.eclipse.ui.progress.WorkbenchJob;
 
 /**
  * The DecorationScheduler is the class that handles the decoration of elements
- * using a background thread.
+ * using a background thread. If more than one decoration thread is configured
+ * with {@link IPreferenceConstants#DECORATION_THREADS}, worker jobs share the
+ * elements awaiting decoration with the decoration job.
  */
 public class DecorationScheduler {
 
 	static final ILabelProviderListener[] EMPTY_LISTENER_LIST = new ILabelProviderListener[0];
 
+	/** The maximum number of decoration results kept. */
+	static final int RESULT_CACHE_SIZE = 10000;
+
 	// When decorations are computed they are added to this cache via
-	// decorated() method
-	Map resultCache = new HashMap();
+	// decorated() method. It is written by several jobs at once when
+	// decorating in parallel.
+	DecorationResultCache resultCache = new DecorationResultCache(RESULT_CACHE_SIZE);
+
+	// The lightweight decorators enabled when results were last cached, used
+	// to find the decorators whose enablement changed
+	private LightweightDecoratorDefinition[] cachedDefinitions;
 
 	// Objects that need an icon and text computed for display to the user
-	List awaitingDecoration = new ArrayList();
+	LinkedList awaitingDecoration = new LinkedList();
 
 	// Objects that are awaiting a label update.
 	Set pendingUpdate = new HashSet();
@@ -68,11 +80,16 @@ public class DecorationScheduler {
 
 	Job decorationJob;
 
+	// Jobs helping the decoration job, one less than the number of
+	// decoration threads
+	private Job[] workerJobs = new Job[0];
+
 	UIJob updateJob;
 
-	private Collection removedListeners = Collections.synchronizedSet(new HashSet());
+	// The last time the update job was scheduled while decorating
+	private long lastDecorated;
 
-	private Job clearJob;
+	private Collection removedListeners = Collections.synchronizedSet(new HashSet());
 
 	// Static used for the updates to indicate an update is required
 	static final int NEEDS_INIT = -1;
@@ -80,6 +97,21 @@ public class DecorationScheduler {
 	/** Amount of time to delay the update notification when max reached. */
 	static final int UPDATE_DELAY = 100;
 
+	/**
+	 * Amount of time after which the decorations computed so far are shown
+	 * while elements are still awaiting decoration.
+	 */
+	static final int DECORATED_INTERVAL = 500;
+
+	/**
+	 * Amount of time the update job may spend notifying listeners before
+	 * yielding to the event loop, so that the UI stays responsive.
+	 */
+	static final int FRAME_BUDGET = 16;
+
+	/** The number of elements in the first update notification. */
+	static final int INITIAL_BATCH_SIZE = 100;
+
 	/**
 	 * Return a new instance of the receiver configured for the supplied
 	 * DecoratorManager.
@@ -211,21 +243,23 @@ public class DecorationScheduler {
 
 	private DecorationResult internalGetResult(Object element,
 			IDecorationContext context) {
-		Map results = (Map) resultCache.get(context);
-		if (results != null) {
-			return (DecorationResult) results.get(element);
-		}
-		return null;
+		return resultCache.get(element, context);
 	}
 
-	protected void internalPutResult(Object element,
-			IDecorationContext context, DecorationResult result) {
-		Map results = (Map) resultCache.get(context);
-		if (results == null) {
-			results = new HashMap();
-			resultCache.put(context, results);
+	protected void internalPutResult(Object element, Object adaptedElement,
+			IDecorationContext context, DecorationResult result,
+			LightweightDecoratorDefinition[] decorators) {
+		synchronized (resultCache) {
+			if (cachedDefinitions == null) {
+				cachedDefinitions = decoratorManager.getLightweightManager().enabledDefinitions();
+			}
 		}
-		results.put(element, result);
+		// Declarative decorators cannot tell when their enablement changes,
+		// so their results are computed again for every round of updates
+		boolean perRound = decoratorManager.getLightweightManager().hasDeclarativeDecoratorFor(element)
+				|| (adaptedElement != null
+						&& decoratorManager.getLightweightManager().hasDeclarativeDecoratorFor(adaptedElement));
+		resultCache.put(element, adaptedElement, context, result, decorators, perRound);
 	}
 
 	/**
@@ -245,6 +279,7 @@ public class DecorationScheduler {
 
 		// Give it a bit of a lag for other updates to occur
 		updateJob.schedule(UPDATE_DELAY);
+		lastDecorated = System.currentTimeMillis();
 	}
 
 	/**
@@ -264,7 +299,7 @@ public class DecorationScheduler {
 		if (shutdown || awaitingDecoration.isEmpty()) {
 			return null;
 		}
-		Object element = awaitingDecoration.remove(0);
+		Object element = awaitingDecoration.removeFirst();
 
 		return (DecorationReference) awaitingDecorationValues.remove(element);
 	}
@@ -294,83 +329,70 @@ public class DecorationScheduler {
 					}
 				}
 
-				SubMonitor subMonitor = SubMonitor.convert(monitor,
-						WorkbenchMessages.DecorationScheduler_CalculatingTask, awaitingDecoration.size());
-				// will block if there are no resources to be decorated
-				DecorationReference reference;
-
-				while ((reference = nextElement()) != null) {
-
-					subMonitor.split(1);
-
-					monitor.subTask(reference.getSubTask());
-					Object element = reference.getElement();
-					boolean force = reference.shouldForceUpdate();
-					IDecorationContext[] contexts = reference.getContexts();
-					for (IDecorationContext context : contexts) {
-						ensureResultCached(element, force, context);
-					}
-					// Only notify listeners when we have exhausted the
-					// queue of decoration requests.
-					synchronized (DecorationScheduler.this) {
-						if (awaitingDecoration.isEmpty()) {
-							decorated();
-						}
-					}
-				}
+				scheduleWorkers();
+				decorateAwaiting(monitor);
 				return Status.OK_STATUS;
 			}
 
-			/**
-			 * Ensure that a result is cached for the given element and context
-			 *
-			 * @param element
-			 *            the elements
-			 * @param force
-			 *            whether an update should be forced
-			 * @param context
-			 *            the decoration context
-			 */
-			private void ensureResultCached(Object element, boolean force,
-					IDecorationContext context) {
-				boolean elementIsCached = internalGetResult(element, context) != null;
-				if (elementIsCached) {
-					synchronized (pendingKey) {
-						pendingUpdate.add(element);
-					}
+			@Override
+			public boolean belongsTo(Object family) {
+				return DecoratorManager.FAMILY_DECORATE == family;
+			}
 
-				}
+			@Override
+			public boolean shouldRun() {
+				return PlatformUI.isWorkbenchRunning();
+			}
+		};
 
-				if (!elementIsCached) {
-					DecorationBuilder cacheResult = new DecorationBuilder(context);
-					// Calculate the decoration
-					decoratorManager.getLightweightManager().getDecorations(element, cacheResult);
-
-					// If we should update regardless then put a result
-					// anyways
-					if (cacheResult.hasValue() || force) {
-
-						// Synchronize on the result lock as we want to
-						// be sure that we do not try and decorate during
-						// label update servicing.
-						// Note: resultCache and pendingUpdate modifications
-						// must be done atomically.
-
-						// Add the decoration even if it's empty in
-						// order to indicate that the decoration is
-						// ready
-						internalPutResult(element, context, cacheResult.createResult());
-
-						// Add an update for only the original element
-						// to
-						// prevent multiple updates and clear the cache.
-						synchronized (pendingKey) {
-							pendingUpdate.add(element);
-						}
+		decorationJob.setSystem(true);
+		decorationJob.setPriority(Job.DECORATE);
+		decorationJob.schedule();
+	}
 
+	/**
+	 * Schedule the worker jobs for the configured number of decoration
+	 * threads. Only called by the decoration job.
+	 */
+	private void scheduleWorkers() {
+		int workerCount = getDecorationThreads() - 1;
+		if (workerJobs.length != workerCount) {
+			Job[] workers = new Job[workerCount];
+			System.arraycopy(workerJobs, 0, workers, 0, Math.min(workerCount, workerJobs.length));
+			for (int i = workerJobs.length; i < workerCount; i++) {
+				workers[i] = createWorkerJob();
+			}
+			workerJobs = workers;
+		}
+		for (Job worker : workerJobs) {
+			worker.schedule();
+		}
+	}
 
-					}
-				}
+	/**
+	 * Return the number of jobs that decorate elements concurrently.
+	 *
+	 * @return int at least <code>1</code>
+	 */
+	private int getDecorationThreads() {
+		WorkbenchPlugin plugin = WorkbenchPlugin.getDefault();
+		if (plugin == null) {
+			return 1;
+		}
+		return Math.max(1, plugin.getPreferenceStore().getInt(IPreferenceConstants.DECORATION_THREADS));
+	}
+
+	/**
+	 * Create a job helping the decoration job.
+	 *
+	 * @return Job
+	 */
+	private Job createWorkerJob() {
+		Job worker = new Job(WorkbenchMessages.DecorationScheduler_CalculationJobName) {
+			@Override
+			public IStatus run(IProgressMonitor monitor) {
+				decorateAwaiting(monitor);
+				return Status.OK_STATUS;
 			}
 
 			@Override
@@ -383,10 +405,102 @@ public class DecorationScheduler {
 				return PlatformUI.isWorkbenchRunning();
 			}
 		};
+		worker.setSystem(true);
+		worker.setPriority(Job.DECORATE);
+		return worker;
+	}
 
-		decorationJob.setSystem(true);
-		decorationJob.setPriority(Job.DECORATE);
-		decorationJob.schedule();
+	/**
+	 * Decorate the elements awaiting decoration until there are none left.
+	 * This runs in the decoration job and in the worker jobs at the same time.
+	 *
+	 * @param monitor
+	 *            the progress monitor
+	 */
+	private void decorateAwaiting(IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor,
+				WorkbenchMessages.DecorationScheduler_CalculatingTask, awaitingDecoration.size());
+		// will block if there are no resources to be decorated
+		DecorationReference reference;
+
+		while ((reference = nextElement()) != null) {
+
+			subMonitor.split(1);
+
+			monitor.subTask(reference.getSubTask());
+			Object element = reference.getElement();
+			Object adaptedElement = reference.getAdaptedElement();
+			boolean force = reference.shouldForceUpdate();
+			IDecorationContext[] contexts = reference.getContexts();
+			for (IDecorationContext context : contexts) {
+				ensureResultCached(element, adaptedElement, force, context);
+			}
+			// Only notify listeners when we have exhausted the
+			// queue of decoration requests, or when decorating
+			// takes long enough for the user to notice.
+			synchronized (this) {
+				if (awaitingDecoration.isEmpty()
+						|| System.currentTimeMillis() - lastDecorated >= DECORATED_INTERVAL) {
+					decorated();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ensure that a result is cached for the given element and context
+	 *
+	 * @param element
+	 *            the elements
+	 * @param adaptedElement
+	 *            the adapted value of element, may be <code>null</code>
+	 * @param force
+	 *            whether an update should be forced
+	 * @param context
+	 *            the decoration context
+	 */
+	private void ensureResultCached(Object element, Object adaptedElement, boolean force,
+			IDecorationContext context) {
+		// A forced update computes the decoration again
+		boolean elementIsCached = !force && resultCache.contains(element, context);
+		if (elementIsCached) {
+			synchronized (pendingKey) {
+				pendingUpdate.add(element);
+			}
+
+		}
+
+		if (!elementIsCached) {
+			DecorationBuilder cacheResult = new DecorationBuilder(context);
+			// Calculate the decoration
+			LightweightDecoratorDefinition[] decorators = decoratorManager.getLightweightManager()
+					.getDecorations(element, cacheResult);
+
+			// If we should update regardless then put a result
+			// anyways
+			if (cacheResult.hasValue() || force) {
+
+				// Synchronize on the result lock as we want to
+				// be sure that we do not try and decorate during
+				// label update servicing.
+				// Note: resultCache and pendingUpdate modifications
+				// must be done atomically.
+
+				// Add the decoration even if it's empty in
+				// order to indicate that the decoration is
+				// ready
+				internalPutResult(element, adaptedElement, context, cacheResult.createResult(), decorators);
+
+				// Add an update for only the original element
+				// to
+				// prevent multiple updates and clear the cache.
+				synchronized (pendingKey) {
+					pendingUpdate.add(element);
+				}
+
+
+			}
+		}
 	}
 
 	/**
@@ -398,9 +512,6 @@ public class DecorationScheduler {
 		if (updateJob != null && updateJob.getState() != Job.NONE) {
 			return true;
 		}
-		if (clearJob != null && clearJob.getState() != Job.NONE) {
-			return true;
-		}
 		return false;
 	}
 
@@ -409,30 +520,57 @@ public class DecorationScheduler {
 	 * likely obsolete now.
 	 */
 	void clearResults() {
-		if (clearJob == null) {
-			clearJob = getClearJob();
+		synchronized (resultCache) {
+			cachedDefinitions = null;
+			resultCache.clear();
 		}
-		clearJob.schedule();
 	}
 
-	private Job getClearJob() {
-		Job clear = new Job(WorkbenchMessages.DecorationScheduler_ClearResultsJob) {
+	/**
+	 * The decorations of the elements are obsolete. Clear their results, and
+	 * the results of the elements that adapt to them.
+	 *
+	 * @param elements
+	 */
+	void clearResults(Object[] elements) {
+		resultCache.remove(elements);
+	}
+
+	/**
+	 * The decorators have changed. Clear the results they contributed to or
+	 * that they apply to.
+	 *
+	 * @param definitions
+	 */
+	void clearResults(LightweightDecoratorDefinition[] definitions) {
+		if (definitions.length > 0) {
+			resultCache.remove(definitions, decoratorManager.getLightweightManager());
+		}
+	}
 
-			@Override
-			protected IStatus run(IProgressMonitor monitor) {
+	/**
+	 * The enablement of decorators has changed. Clear the results of the
+	 * decorators that were enabled or disabled since the results were cached.
+	 */
+	void enablementChanged() {
+		LightweightDecoratorDefinition[] previous;
+		LightweightDecoratorDefinition[] current = decoratorManager.getLightweightManager().enabledDefinitions();
+		synchronized (resultCache) {
+			previous = cachedDefinitions;
+			if (previous == null) {
 				resultCache.clear();
-				return Status.OK_STATUS;
+				return;
 			}
-
-			@Override
-			public boolean shouldRun() {
-				return PlatformUI.isWorkbenchRunning();
+			cachedDefinitions = current;
+		}
+		Set changed = new HashSet(Arrays.asList(previous));
+		for (LightweightDecoratorDefinition definition : current) {
+			if (!changed.remove(definition)) {
+				changed.add(definition);
 			}
-
-		};
-		clear.setSystem(true);
-
-		return clear;
+		}
+		clearResults((LightweightDecoratorDefinition[]) changed
+				.toArray(new LightweightDecoratorDefinition[changed.size()]));
 	}
 
 	/**
@@ -443,12 +581,17 @@ public class DecorationScheduler {
 	private WorkbenchJob getUpdateJob() {
 		WorkbenchJob job = new WorkbenchJob(WorkbenchMessages.DecorationScheduler_UpdateJobName) {
 
+			// The index of the first element not notified yet
 			int currentIndex = NEEDS_INIT;
 
-			LabelProviderChangedEvent labelProviderChangedEvent;
+			Object[] elements;
 
 			ILabelProviderListener[] listeners;
 
+			// The number of elements notified at once, adjusted so that a
+			// notification fits into the frame budget
+			int batchSize = INITIAL_BATCH_SIZE;
+
 			@Override
 			public IStatus runInUIThread(IProgressMonitor monitor) {
 
@@ -476,49 +619,70 @@ public class DecorationScheduler {
 				monitor.beginTask(WorkbenchMessages.DecorationScheduler_UpdatingTask, IProgressMonitor.UNKNOWN);
 
 				long startTime = System.currentTimeMillis();
-				while (currentIndex < listeners.length) {
-					ILabelProviderListener listener = listeners[currentIndex];
-					currentIndex++;
-
-					// If it was removed in the meantime then skip it.
-					if (!removedListeners.contains(listener)) {
-						decoratorManager.fireListener(
-								labelProviderChangedEvent, listener);
+				while (currentIndex < elements.length) {
+					int end = Math.min(elements.length, currentIndex + batchSize);
+					Object[] batch = currentIndex == 0 && end == elements.length ? elements
+							: Arrays.copyOfRange(elements, currentIndex, end);
+					LabelProviderChangedEvent event = new LabelProviderChangedEvent(decoratorManager, batch);
+					long batchStartTime = System.currentTimeMillis();
+					for (ILabelProviderListener listener : listeners) {
+						// If it was removed in the meantime then skip it.
+						if (!removedListeners.contains(listener)) {
+							decoratorManager.fireListener(event, listener);
+						}
 					}
+					currentIndex = end;
 
-					// If it is taking long enough for the user to notice then
-					// cancel the updates.
-					if ((System.currentTimeMillis() - startTime) >= UPDATE_DELAY / 2) {
+					long now = System.currentTimeMillis();
+					adjustBatchSize(batch.length, now - batchStartTime);
+					// If the next batch would not fit into the frame then
+					// let the event loop run first.
+					if (now - startTime >= FRAME_BUDGET) {
 						break;
 					}
 				}
 
 				monitor.done();
 
-				if (currentIndex >= listeners.length) {
+				if (currentIndex >= elements.length) {
 				    resetState();
 					if (!hasPendingUpdates()) {
 						decorated();
 					}
-					labelProviderChangedEvent = null;
+					elements = null;
 					listeners = EMPTY_LISTENER_LIST;
 				} else {
-					schedule(UPDATE_DELAY);// Reschedule if we are not done
+					schedule();// Reschedule if we are not done
 				}
 				return Status.OK_STATUS;
 			}
 
+			/**
+			 * Size the next batch so that notifying it takes about the frame
+			 * budget, given the time taken by the last batch.
+			 */
+			private void adjustBatchSize(int lastSize, long elapsed) {
+				if (elapsed <= 0) {
+					batchSize = Math.max(batchSize, lastSize * 2);
+				} else {
+					batchSize = (int) Math.max(1, lastSize * FRAME_BUDGET / elapsed);
+				}
+			}
+
             /**
              * Clear any cached information.
              */
             private void resetState() {
                 currentIndex = NEEDS_INIT;// Reset
                 removedListeners.clear();
-                // Other decoration requests may have occurred due to
-                // updates or we may have timed out updating listeners.
-                // Only clear the results if there are none pending.
+                // The results are kept for the next time the elements are
+                // shown. They are evicted when the cache is full, cleared
+                // when their elements or decorators change, and all cleared
+                // on label changes which do not name the elements. The
+                // results of declarative decorators are cleared once no
+                // decoration requests are pending, as before.
                 if (awaitingDecoration.isEmpty()) {
-                    resultCache.clear();
+                    resultCache.removePerRound();
                 }
             }
 
@@ -528,9 +692,8 @@ public class DecorationScheduler {
 				removedListeners.clear();
 				currentIndex = 0;
 				synchronized (pendingKey) {
-					Object[] elements = pendingUpdate.toArray(new Object[pendingUpdate.size()]);
+					elements = pendingUpdate.toArray(new Object[pendingUpdate.size()]);
 					pendingUpdate.clear();
-					labelProviderChangedEvent = new LabelProviderChangedEvent(decoratorManager, elements);
 				}
 				listeners = decoratorManager.getListeners();
 			}
@@ -559,7 +722,7 @@ public class DecorationScheduler {
 	 * @return boolean true if the element is ready.
 	 */
 	public boolean isDecorationReady(Object element, IDecorationContext context) {
-		return internalGetResult(element, context) != null;
+		return resultCache.contains(element, context);
 	}
 
 	/**
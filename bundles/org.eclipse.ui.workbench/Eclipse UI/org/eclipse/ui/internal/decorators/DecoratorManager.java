@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,9 +11,11 @@
 package org.eclipse.ui.internal.decorators;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.StringTokenizer;
 import org.eclipse.core.runtime.CoreException;
@@ -568,6 +570,23 @@ public class DecoratorManager implements ILabelProviderListener,
 		return newResult;
 	}
 
+	/**
+	 * Return the elements together with the resources they adapt to.
+	 *
+	 * @param elements
+	 * @return Object[]
+	 */
+	private Object[] withResourceAdapters(Object[] elements) {
+		Collection<Object> result = new LinkedHashSet<>(Arrays.asList(elements));
+		for (Object element : elements) {
+			Object adapted = getResourceAdapter(element);
+			if (adapted != null) {
+				result.add(adapted);
+			}
+		}
+		return result.toArray();
+	}
+
 	/**
 	 * Get the resource adapted object for the supplied element. Return
 	 * <code>null</code>. if there isn't one.
@@ -689,7 +708,6 @@ public class DecoratorManager implements ILabelProviderListener,
 	 * may occur due to changes in enablement.
 	 */
 	public void clearCaches() {
-		getLightweightManager().reset();
 		fullTextRunnable.clearReferences();
 		fullImageRunnable.clearReferences();
 	}
@@ -698,8 +716,8 @@ public class DecoratorManager implements ILabelProviderListener,
 	 * Enablement had changed. Fire the listeners and write the preference.
 	 */
 	public void updateForEnablementChange() {
-		// Clear any results that may be around as all labels have changed
-		scheduler.clearResults();
+		// Clear the results of the decorators that were enabled or disabled
+		scheduler.enablementChanged();
 		fireListenersInUIThread(new LabelProviderChangedEvent(this));
 		writeDecoratorsPreference();
 	}
@@ -727,11 +745,14 @@ public class DecoratorManager implements ILabelProviderListener,
 	@Override
 	public void labelProviderChanged(LabelProviderChangedEvent event) {
 		Object[] elements = event.getElements();
-		scheduler.clearResults();
 		// If the elements are not specified send out a general update
 		if (elements == null) {
+			// The decorator may depend on anything, so no result is known
+			// to be still valid
+			scheduler.clearResults();
 			fireListeners(event);
 		} else {
+			scheduler.clearResults(withResourceAdapters(elements));
 			// Assume that someone is going to care about the
 			// decoration result and just start it right away
 			for (Object element : elements) {
@@ -1012,6 +1033,29 @@ public class DecoratorManager implements ILabelProviderListener,
 		return decoratorArray;
 	}
 
+	/**
+	 * Clear the cached results that the decorator has contributed to, or all
+	 * results if the decorator is unknown.
+	 *
+	 * @param decorator
+	 *            the decorator that has changed
+	 */
+	private void clearResultsFor(Object decorator) {
+		for (LightweightDecoratorDefinition definition : getLightweightManager().getDefinitions()) {
+			if (definition.getDecorator() == decorator) {
+				scheduler.clearResults(new LightweightDecoratorDefinition[] { definition });
+				return;
+			}
+		}
+		// Results of full decorators are not cached
+		for (FullDecoratorDefinition definition : getFullDefinitions()) {
+			if (definition.getDecorator() == decorator) {
+				return;
+			}
+		}
+		scheduler.clearResults();
+	}
+
 	/**
 	 * Returns the lightweightManager. This method is public for use by test
 	 * cases. No other classes outside of this package should use this method.
@@ -1033,7 +1077,7 @@ public class DecoratorManager implements ILabelProviderListener,
 
 		IBaseLabelProvider provider = getBaseLabelProvider(decoratorId);
 		if (provider != null) {
-			scheduler.clearResults();
+			clearResultsFor(provider);
 			fireListeners(new LabelProviderChangedEvent(provider));
 		}
 
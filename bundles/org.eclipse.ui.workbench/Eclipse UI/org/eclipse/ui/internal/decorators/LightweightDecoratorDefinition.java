@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.decorators;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -88,6 +90,11 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 
 	private boolean hasReadQuadrant;
 
+	// Statistics of the calls to decorate(Object, IDecoration)
+	private final AtomicLong decorationTime = new AtomicLong();
+
+	private final AtomicInteger decorationCount = new AtomicInteger();
+
 	private String[] objectClasses;
 
 	LightweightDecoratorDefinition(String identifier,
@@ -158,7 +165,7 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 *
 	 * @return boolean <code>true</code> if this is declarative
 	 */
-	private boolean isDeclarative() {
+	boolean isDeclarative() {
 		return definingElement.getAttribute(DecoratorDefinition.ATT_CLASS) == null;
 	}
 
@@ -265,6 +272,35 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 
 	}
 
+	/**
+	 * Record the time spent decorating an element.
+	 *
+	 * @param nanos
+	 *            the elapsed time in nanoseconds
+	 */
+	void recordDecoration(long nanos) {
+		decorationTime.addAndGet(nanos);
+		decorationCount.incrementAndGet();
+	}
+
+	/**
+	 * Return the total time spent decorating elements since startup.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getDecorationTime() {
+		return decorationTime.get();
+	}
+
+	/**
+	 * Return the number of elements decorated since startup.
+	 *
+	 * @return int
+	 */
+	int getDecorationCount() {
+		return decorationCount.get();
+	}
+
 	/**
 	 * Returns the lightweight decorator, or <code>null</code> if not enabled.
 	 *
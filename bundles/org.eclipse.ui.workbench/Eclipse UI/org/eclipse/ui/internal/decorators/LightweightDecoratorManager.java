@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import org.eclipse.ui.internal.ObjectContributorManager;
 import org.eclipse.ui.internal.WorkbenchMessages;
 import org.eclipse.ui.internal.WorkbenchPlugin;
 import org.eclipse.ui.internal.misc.StatusUtil;
+import org.eclipse.ui.internal.misc.UIStats;
 import org.eclipse.ui.internal.util.Util;
 
 /**
@@ -35,35 +36,22 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * The runnable is the object used to run the decorations so that an error
 	 * in someones decorator will not kill the thread. It is implemented here to
 	 * prevent aborting of decoration i.e. successful decorations will still be
-	 * applied.
+	 * applied. A runnable is created for each decoration as decorations may be
+	 * computed by several jobs at once.
 	 */
 
 	private static class LightweightRunnable implements ISafeRunnable {
 
-		static class RunnableData {
+		private final Object element;
 
-			final DecorationBuilder builder;
+		private final DecorationBuilder builder;
 
-			final LightweightDecoratorDefinition decorator;
+		private final LightweightDecoratorDefinition decorator;
 
-			final Object element;
-
-			public RunnableData(Object object, DecorationBuilder builder, LightweightDecoratorDefinition definition) {
-				this.element = object;
-				this.builder = builder;
-				this.decorator = definition;
-			}
-
-			boolean isConsistent() {
-				return builder != null && decorator != null && element != null;
-			}
-		}
-
-		private volatile RunnableData data = new RunnableData(null, null, null);
-
-		void setValues(Object object, DecorationBuilder builder,
-				LightweightDecoratorDefinition definition) {
-			data = new RunnableData(object, builder, definition);
+		LightweightRunnable(Object object, DecorationBuilder builder, LightweightDecoratorDefinition definition) {
+			this.element = object;
+			this.builder = builder;
+			this.decorator = definition;
 		}
 
 		/*
@@ -73,23 +61,14 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		public void handleException(Throwable exception) {
 			IStatus status = StatusUtil.newStatus(IStatus.ERROR, exception
 					.getMessage(), exception);
-			LightweightDecoratorDefinition decorator = data.decorator;
-			String message;
-			if (decorator == null) {
-				message = WorkbenchMessages.DecoratorError;
-			} else {
-				String name = decorator.getName();
-				if (name == null) {
-					// decorator definition is not accessible anymore
-					name = decorator.getId();
-				}
-				message = NLS.bind(WorkbenchMessages.DecoratorWillBeDisabled, name);
+			String name = decorator.getName();
+			if (name == null) {
+				// decorator definition is not accessible anymore
+				name = decorator.getId();
 			}
+			String message = NLS.bind(WorkbenchMessages.DecoratorWillBeDisabled, name);
 			WorkbenchPlugin.log(message, status);
-			if (decorator != null) {
-				decorator.crashDisable();
-			}
-			clearReferences();
+			decorator.crashDisable();
 		}
 
 		/*
@@ -97,27 +76,10 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		 */
 		@Override
 		public void run() throws Exception {
-			// Copy to local variables, see
-			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=300358
-			RunnableData data = this.data;
-			if (data.isConsistent()) {
-				data.decorator.decorate(data.element, data.builder);
-			}
-			clearReferences();
-		}
-
-		/**
-		 * Clear all of the references in the receiver.
-		 *
-		 * @since 3.1
-		 */
-		void clearReferences() {
-			data = new RunnableData(null, null, null);
+			decorator.decorate(element, builder);
 		}
 	}
 
-	private LightweightRunnable runnable = new LightweightRunnable();
-
 	// The lightweight definitions read from the registry
 	private LightweightDecoratorDefinition[] lightweightDefinitions;
 
@@ -278,13 +240,6 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		return false;
 	}
 
-	/**
-	 * Reset any cached values.
-	 */
-	void reset() {
-		runnable.clearReferences();
-	}
-
 	/**
 	 * Shutdown the decorator manager by disabling all of the decorators so that
 	 * dispose() will be called on them.
@@ -328,7 +283,11 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		List elements = new ArrayList(1);
 		elements.add(element);
 		LightweightDecoratorDefinition[] decoratorArray = EMPTY_LIGHTWEIGHT_DEF;
-		List contributors = getContributors(elements);
+		List contributors;
+		// The contributor lookup caches are not thread safe
+		synchronized (this) {
+			contributors = getContributors(elements);
+		}
 		if (!contributors.isEmpty()) {
 			Collection decorators = DecoratorManager.getDecoratorsFor(element,
 					(DecoratorDefinition[]) contributors
@@ -344,6 +303,35 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		return decoratorArray;
 	}
 
+	/**
+	 * Return whether an enabled declarative decorator may apply to the
+	 * element. Its enablement may change without any event.
+	 *
+	 * @param element
+	 *            the element to decorate
+	 * @return <code>true</code> if a declarative decorator is registered for
+	 *         the type of the element
+	 */
+	boolean hasDeclarativeDecoratorFor(Object element) {
+		if (element == null) {
+			return false;
+		}
+		List elements = new ArrayList(1);
+		elements.add(element);
+		List contributors;
+		// The contributor lookup caches are not thread safe
+		synchronized (this) {
+			contributors = getContributors(elements);
+		}
+		for (Object contributor : contributors) {
+			LightweightDecoratorDefinition definition = (LightweightDecoratorDefinition) contributor;
+			if (definition.isEnabled() && definition.isDeclarative()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Fill the decoration with all of the results of the decorators.
 	 *
@@ -352,12 +340,15 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * @param decoration
 	 *            The DecorationResult we are working on. where adaptable is
 	 *            true.
+	 * @return the decorators that were applied
 	 */
-	public void getDecorations(Object element, DecorationBuilder decoration) {
-		for (LightweightDecoratorDefinition decorator : getDecoratorsFor(element)) {
+	public LightweightDecoratorDefinition[] getDecorations(Object element, DecorationBuilder decoration) {
+		LightweightDecoratorDefinition[] decorators = getDecoratorsFor(element);
+		for (LightweightDecoratorDefinition decorator : decorators) {
 			decoration.setCurrentDefinition(decorator);
 			decorate(element, decoration, decorator);
 		}
+		return decorators;
 	}
 
 	/**
@@ -373,8 +364,44 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	private void decorate(Object element, DecorationBuilder decoration,
 			LightweightDecoratorDefinition decorator) {
 
-		runnable.setValues(element, decoration, decorator);
-		SafeRunner.run(runnable);
+		// Decorators are not required to be thread safe, so each one only
+		// decorates a single element at a time
+		synchronized (decorator) {
+			long start = System.nanoTime();
+			SafeRunner.run(new LightweightRunnable(element, decoration, decorator));
+			long elapsed = System.nanoTime() - start;
+			decorator.recordDecoration(elapsed);
+			UIStats.record(UIStats.DECORATE_LIGHTWEIGHT, decorator.getId(), element.getClass().getName(),
+					elapsed / 1000000);
+		}
+	}
+
+	/**
+	 * Return the total time the decorator with the supplied id spent
+	 * decorating elements, for diagnosing slow decorators.
+	 *
+	 * @param decoratorId
+	 *            the id of the decorator
+	 * @return the time in milliseconds or <code>0</code> if there is no such
+	 *         decorator
+	 */
+	public long getDecorationTime(String decoratorId) {
+		LightweightDecoratorDefinition definition = getDecoratorDefinition(decoratorId);
+		return definition == null ? 0 : definition.getDecorationTime() / 1000000;
+	}
+
+	/**
+	 * Return the number of elements the decorator with the supplied id
+	 * decorated.
+	 *
+	 * @param decoratorId
+	 *            the id of the decorator
+	 * @return the number of elements or <code>0</code> if there is no such
+	 *         decorator
+	 */
+	public int getDecorationCount(String decoratorId) {
+		LightweightDecoratorDefinition definition = getDecoratorDefinition(decoratorId);
+		return definition == null ? 0 : definition.getDecorationCount();
 	}
 
 
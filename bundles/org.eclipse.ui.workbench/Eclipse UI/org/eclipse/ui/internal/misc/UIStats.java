@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,10 +58,12 @@ public class UIStats {
 
 	public static final int EARLY_STARTUP = 15;
 
+	public static final int DECORATE_LIGHTWEIGHT = 16;
+
 	/**
 	 * Change this value when you add a new event constant.
 	 */
-	public static final int LAST_VALUE = EARLY_STARTUP;
+	public static final int LAST_VALUE = DECORATE_LIGHTWEIGHT;
 
     private static boolean debug[] = new boolean[LAST_VALUE+1];
 
@@ -84,6 +86,7 @@ public class UIStats {
         events[UI_JOB] = PlatformUI.PLUGIN_ID + "/perf/uijob"; //$NON-NLS-1$
 		events[CONTENT_TYPE_LOOKUP] = PlatformUI.PLUGIN_ID + "/perf/contentTypes"; //$NON-NLS-1$
 		events[EARLY_STARTUP] = PlatformUI.PLUGIN_ID + "/perf/earlyStartup"; //$NON-NLS-1$
+		events[DECORATE_LIGHTWEIGHT] = PlatformUI.PLUGIN_ID + "/perf/decorator.lightweight"; //$NON-NLS-1$
 
         for (int i = 0; i <= LAST_VALUE; i++) {
         	//don't log any performance events if the general performance stats is disabled
@@ -137,6 +140,26 @@ public class UIStats {
         }
     }
 
+	/**
+	 * Records a performance event whose duration was measured by the caller.
+	 * Unlike {@link #start(int, String)} and
+	 * {@link #end(int, Object, String)} this may be called from any thread.
+	 *
+	 * @param event
+	 *            The event id
+	 * @param blame
+	 *            An object that is responsible for the event that occurred
+	 * @param label
+	 *            The event label
+	 * @param elapsed
+	 *            The duration of the event in milliseconds
+	 */
+	public static void record(int event, Object blame, String label, long elapsed) {
+		if (debug[event]) {
+			PerformanceStats.getStats(events[event], blame).addRun(elapsed, label);
+		}
+	}
+
    	/**
    	 * Special hook to signal that application startup is complete and the event
    	 * loop has started running.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2015 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,7 +22,7 @@ import org.eclipse.osgi.util.NLS;
  * The GroupInfo is the object used to display group properties.
  */
 
-class GroupInfo extends JobTreeElement implements IProgressMonitor {
+public class GroupInfo extends JobTreeElement implements IProgressMonitor {
 	private List<JobInfo> infos = new ArrayList<>();
 	private Object lock = new Object();
 	private String taskName = ProgressMessages.SubTaskInfo_UndefinedTaskName;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2006 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,7 @@ package org.eclipse.ui.internal.progress;
 /**
  * The IJobProgressManagerListener is a class that listeners to the JobProgressManager.
  */
-interface IJobProgressManagerListener {
+public interface IJobProgressManagerListener {
 
     /**
      * Refresh the viewer as a result of an addition of info.
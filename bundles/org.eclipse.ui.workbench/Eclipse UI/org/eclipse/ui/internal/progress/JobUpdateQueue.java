@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.progress;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock free queue of the pending job notifications of the
+ * {@link IJobProgressManagerListener}s, which are posted from any thread and
+ * dispatched in the UI thread.
+ * <p>
+ * Each job is queued once until it is dispatched, and the transitions posted
+ * for it are merged per listener: an update of a job whose addition or removal
+ * is pending is dropped, and the removal of a job whose addition is pending
+ * cancels both, as the listener never saw the job. Posting a transition which
+ * does not change the pending state of the listener allocates nothing.
+ * </p>
+ */
+public final class JobUpdateQueue {
+
+	/**
+	 * The job was added.
+	 */
+	public static final int ADD = 1;
+
+	/**
+	 * The job was updated.
+	 */
+	public static final int UPDATE = 1 << 1;
+
+	/**
+	 * The job was removed.
+	 */
+	public static final int REMOVE = 1 << 2;
+
+	/**
+	 * Receives the dispatched transitions.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		/**
+		 * Notifies the listener of the merged transitions of the job.
+		 *
+		 * @param info
+		 *            the job
+		 * @param listener
+		 *            the listener
+		 * @param transitions
+		 *            a combination of {@link #ADD}, {@link #UPDATE} and
+		 *            {@link #REMOVE}, never <code>0</code>
+		 */
+		void handle(JobInfo info, IJobProgressManagerListener listener, int transitions);
+	}
+
+	private final ConcurrentMap<JobInfo, PendingJob> pending = new ConcurrentHashMap<>();
+
+	private final Queue<PendingJob> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Posts a transition of the job for the listener.
+	 *
+	 * @param info
+	 *            the job
+	 * @param listener
+	 *            the listener to notify
+	 * @param transition
+	 *            one of {@link #ADD}, {@link #UPDATE} and {@link #REMOVE}
+	 */
+	public void post(JobInfo info, IJobProgressManagerListener listener, int transition) {
+		for (;;) {
+			PendingJob job = pending.get(info);
+			if (job == null) {
+				PendingJob created = new PendingJob(info);
+				job = pending.putIfAbsent(info, created);
+				if (job == null) {
+					job = created;
+					queue.offer(created);
+				}
+			}
+			if (job.post(listener, transition)) {
+				return;
+			}
+			// dispatched meanwhile, queue the job again
+			pending.remove(info, job);
+		}
+	}
+
+	/**
+	 * Dispatches the pending transitions in the order the jobs were queued,
+	 * until the given number of notifications was reached.
+	 *
+	 * @param maxNotifications
+	 *            the number of notifications after which no further job is
+	 *            dispatched
+	 * @param handler
+	 *            the handler notifying the listeners
+	 * @return <code>true</code> if jobs are left to dispatch
+	 */
+	public boolean dispatch(int maxNotifications, Handler handler) {
+		int notifications = 0;
+		while (notifications < maxNotifications) {
+			PendingJob job = queue.poll();
+			if (job == null) {
+				return false;
+			}
+			pending.remove(job.info, job);
+			Transitions transitions = job.state.getAndSet(Transitions.DISPATCHED);
+			for (int i = 0; i < transitions.listeners.length; i++) {
+				if (transitions.flags[i] != 0) {
+					handler.handle(job.info, transitions.listeners[i], transitions.flags[i]);
+					notifications++;
+				}
+			}
+		}
+		return !queue.isEmpty();
+	}
+
+	/**
+	 * Returns whether jobs are left to dispatch.
+	 *
+	 * @return <code>true</code> if jobs are left to dispatch
+	 */
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	/**
+	 * Merges a transition into the pending transitions of a listener.
+	 *
+	 * @param flags
+	 *            the pending transitions
+	 * @param transition
+	 *            the new transition
+	 * @return the merged transitions
+	 */
+	public static int merge(int flags, int transition) {
+		switch (transition) {
+		case ADD:
+			// removed and added again before the listener was told: refresh it
+			return (flags & REMOVE) != 0 ? (flags & ~REMOVE) | UPDATE : flags | ADD;
+		case UPDATE:
+			return (flags & (ADD | REMOVE)) != 0 ? flags : flags | UPDATE;
+		case REMOVE:
+			return (flags & ADD) != 0 ? 0 : REMOVE;
+		default:
+			throw new IllegalArgumentException("Unknown transition " + transition); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * The queued job, whose transitions are replaced atomically.
+	 */
+	private static final class PendingJob {
+		final JobInfo info;
+
+		final AtomicReference<Transitions> state = new AtomicReference<>(Transitions.NONE);
+
+		PendingJob(JobInfo info) {
+			this.info = info;
+		}
+
+		/**
+		 * @return <code>false</code> if the job was dispatched already
+		 */
+		boolean post(IJobProgressManagerListener listener, int transition) {
+			for (;;) {
+				Transitions current = state.get();
+				if (current == Transitions.DISPATCHED) {
+					return false;
+				}
+				Transitions next = current.merge(listener, transition);
+				if (next == current || state.compareAndSet(current, next)) {
+					return true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The immutable pending transitions of the listeners of a job.
+	 */
+	private static final class Transitions {
+		static final Transitions NONE = new Transitions(new IJobProgressManagerListener[0], new int[0]);
+
+		static final Transitions DISPATCHED = new Transitions(new IJobProgressManagerListener[0], new int[0]);
+
+		final IJobProgressManagerListener[] listeners;
+
+		final int[] flags;
+
+		private Transitions(IJobProgressManagerListener[] listeners, int[] flags) {
+			this.listeners = listeners;
+			this.flags = flags;
+		}
+
+		Transitions merge(IJobProgressManagerListener listener, int transition) {
+			int index = 0;
+			while (index < listeners.length && listeners[index] != listener) {
+				index++;
+			}
+			int current = index < listeners.length ? flags[index] : 0;
+			int merged = JobUpdateQueue.merge(current, transition);
+			if (merged == current && index < listeners.length) {
+				return this;
+			}
+			int length = Math.max(listeners.length, index + 1);
+			IJobProgressManagerListener[] newListeners = Arrays.copyOf(listeners, length);
+			int[] newFlags = Arrays.copyOf(flags, length);
+			newListeners[index] = listener;
+			newFlags[index] = merged;
+			return new Transitions(newListeners, newFlags);
+		}
+	}
+}
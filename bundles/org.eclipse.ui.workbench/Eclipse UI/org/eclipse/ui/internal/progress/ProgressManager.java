@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2016 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,11 +28,9 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.StreamSupport;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IProgressMonitorWithBlocking;
@@ -143,36 +141,21 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 	private final INotificationListener notificationListener;
 
 	/**
-	 * Lock object for synchronizing updates of {@code pendingJobUpdates},
-	 * {@code pendingGroupUpdates}, {@code pendingJobRemoval},
-	 * {@code pendingGroupRemoval} and {@code pendingJobAddition}.
+	 * The pending notifications of the listeners about the jobs, which are
+	 * merged until they are dispatched in the UI thread.
 	 */
-	private final Object pendingUpdatesMutex = new Object();
+	private final JobUpdateQueue pendingJobUpdates = new JobUpdateQueue();
 
-	/**
-	 * Modification guarded by {@link #pendingUpdatesMutex}.
-	 */
-	private Map<JobInfo, Set<IJobProgressManagerListener>> pendingJobUpdates = new LinkedHashMap<>();
+	private final Set<GroupInfo> pendingGroupUpdates = ConcurrentHashMap.newKeySet();
 
-	/**
-	 * Modification guarded by {@link #pendingUpdatesMutex}.
-	 */
-	private Set<GroupInfo> pendingGroupUpdates = new LinkedHashSet<>();
+	private final Set<GroupInfo> pendingGroupRemoval = ConcurrentHashMap.newKeySet();
 
 	/**
-	 * Modification guarded by {@link #pendingUpdatesMutex}.
+	 * The number of listener notifications about jobs after which a refresh
+	 * leaves the remaining ones to the next refresh, to keep the UI responsive
+	 * while thousands of jobs are reported.
 	 */
-	private Map<JobInfo, Set<IJobProgressManagerListener>> pendingJobRemoval = new LinkedHashMap<>();
-
-	/**
-	 * Modification guarded by {@link #pendingUpdatesMutex}.
-	 */
-	private Set<GroupInfo> pendingGroupRemoval = new LinkedHashSet<>();
-
-	/**
-	 * Modification guarded by {@link #pendingUpdatesMutex}.
-	 */
-	private Map<JobInfo, Set<IJobProgressManagerListener>> pendingJobAddition = new LinkedHashMap<>();
+	private static final int MAX_JOB_NOTIFICATIONS_PER_REFRESH = 1000;
 
 	private static final String IMAGE_KEY = "org.eclipse.ui.progress.images"; //$NON-NLS-1$
 
@@ -352,43 +335,52 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 	}
 
 	/* Visible for testing */ public void notifyListeners() {
-		Set<GroupInfo> localPendingGroupUpdates, localPendingGroupRemoval;
-		Map<JobInfo, Set<IJobProgressManagerListener>> localPendingJobUpdates, localPendingJobAddition,
-				localPendingJobRemoval;
-		synchronized (pendingUpdatesMutex) {
-			localPendingJobUpdates = pendingJobUpdates;
-			pendingJobUpdates = new LinkedHashMap<>();
-			localPendingGroupUpdates = pendingGroupUpdates;
-			pendingGroupUpdates = new LinkedHashSet<>();
-			localPendingJobRemoval = pendingJobRemoval;
-			pendingJobRemoval = new LinkedHashMap<>();
-			localPendingGroupRemoval = pendingGroupRemoval;
-			pendingGroupRemoval = new LinkedHashSet<>();
-			localPendingJobAddition = pendingJobAddition;
-			pendingJobAddition = new LinkedHashMap<>();
-		}
-
-		localPendingJobAddition.entrySet().forEach(e -> e.getValue().forEach(listener -> listener.addJob(e.getKey())));
-
-		// Adds all non null JobInfo#getGroupInfo to the list of groups to
-		// be refreshed
-		localPendingJobUpdates.entrySet().stream().map(e -> e.getKey().getGroupInfo()).filter(Objects::nonNull)
-				.forEach(localPendingGroupUpdates::add);
-
-		localPendingJobUpdates.entrySet()
-				.forEach(e -> e.getValue().forEach(listener -> listener.refreshJobInfo(e.getKey())));
+		Set<GroupInfo> localPendingGroupUpdates = new LinkedHashSet<>();
+		boolean jobsLeft = pendingJobUpdates.dispatch(MAX_JOB_NOTIFICATIONS_PER_REFRESH,
+				(info, listener, transitions) -> {
+					if ((transitions & JobUpdateQueue.ADD) != 0) {
+						listener.addJob(info);
+					}
+					if ((transitions & JobUpdateQueue.UPDATE) != 0) {
+						listener.refreshJobInfo(info);
+						// the group of the job is refreshed as well
+						GroupInfo group = info.getGroupInfo();
+						if (group != null) {
+							localPendingGroupUpdates.add(group);
+						}
+					}
+					if ((transitions & JobUpdateQueue.REMOVE) != 0) {
+						listener.removeJob(info);
+					}
+				});
 
 		// refresh groups
+		drain(pendingGroupUpdates, localPendingGroupUpdates);
 		localPendingGroupUpdates.forEach(groupInfo -> listeners.forEach(listener -> listener.refreshGroup(groupInfo)));
 
-		localPendingJobRemoval.entrySet()
-				.forEach(e -> e.getValue().forEach(listener -> listener.removeJob(e.getKey())));
-
+		if (jobsLeft) {
+			// the groups are removed after their jobs
+			uiRefreshThrottler.throttledExec();
+			return;
+		}
+		Set<GroupInfo> localPendingGroupRemoval = new LinkedHashSet<>();
+		drain(pendingGroupRemoval, localPendingGroupRemoval);
 		localPendingGroupRemoval.forEach(group -> {
 			listeners.forEach(listener -> listener.removeGroup(group));
 		});
 	}
 
+	/* Visible for testing */ public boolean hasPendingUpdates() {
+		return !pendingJobUpdates.isEmpty() || !pendingGroupUpdates.isEmpty() || !pendingGroupRemoval.isEmpty();
+	}
+
+	private static void drain(Set<GroupInfo> pendingGroups, Set<GroupInfo> groups) {
+		for (Iterator<GroupInfo> iterator = pendingGroups.iterator(); iterator.hasNext();) {
+			groups.add(iterator.next());
+			iterator.remove();
+		}
+	}
+
 	private void setUpImages() {
 		URL iconsRoot = ProgressManagerUtil.getIconsRoot();
 		try {
@@ -635,9 +627,7 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 	 * @param info
 	 */
 	public void refreshJobInfo(JobInfo info) {
-		synchronized (pendingUpdatesMutex) {
-			rememberListenersForJob(info, pendingJobUpdates);
-		}
+		postForListeners(info, JobUpdateQueue.UPDATE);
 		uiRefreshThrottler.throttledExec();
 	}
 
@@ -648,9 +638,7 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 	 * @param info
 	 */
 	public void refreshGroup(GroupInfo info) {
-		synchronized (pendingUpdatesMutex) {
-			pendingGroupUpdates.add(info);
-		}
+		pendingGroupUpdates.add(info);
 		uiRefreshThrottler.throttledExec();
 	}
 
@@ -663,9 +651,7 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 	public void removeJobInfo(JobInfo info) {
 		Job job = info.getJob();
 		managedJobs.remove(job);
-		synchronized (pendingUpdatesMutex) {
-			rememberListenersForJob(info, pendingJobRemoval);
-		}
+		postForListeners(info, JobUpdateQueue.REMOVE);
 		runnableMonitors.remove(job);
 		uiRefreshThrottler.throttledExec();
 	}
@@ -677,9 +663,7 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 	 *            GroupInfo
 	 */
 	public void removeGroup(GroupInfo group) {
-		synchronized (pendingUpdatesMutex) {
-			pendingGroupRemoval.add(group);
-		}
+		pendingGroupRemoval.add(group);
 		uiRefreshThrottler.throttledExec();
 	}
 
@@ -695,18 +679,16 @@ public class ProgressManager extends ProgressProvider implements IProgressServic
 		}
 
 		managedJobs.add(info.getJob());
-		synchronized (pendingUpdatesMutex) {
-			rememberListenersForJob(info, pendingJobAddition);
-		}
+		postForListeners(info, JobUpdateQueue.ADD);
 		uiRefreshThrottler.throttledExec();
 	}
 
-	private void rememberListenersForJob(JobInfo info, Map<JobInfo, Set<IJobProgressManagerListener>> listenersMap) {
-		Set<IJobProgressManagerListener> localListeners = listenersMap.computeIfAbsent(info,
-				k -> new LinkedHashSet<>());
-		StreamSupport.stream(listeners.spliterator(), false)
-				.filter(listener -> !isCurrentDisplaying(info.getJob(), listener.showsDebug()))
-				.forEach(localListeners::add);
+	private void postForListeners(JobInfo info, int transition) {
+		for (IJobProgressManagerListener listener : listeners) {
+			if (!isCurrentDisplaying(info.getJob(), listener.showsDebug())) {
+				pendingJobUpdates.post(info, listener, transition);
+			}
+		}
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 IBM Corporation and others.
+ * Copyright (c) 2013, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -500,6 +500,42 @@ public class BindingLookupTest {
 		assertEquals(commandMatches, matches);
 	}
 
+	@Test
+	public void testLookupAfterChanges() {
+		ECommandService cs = workbenchContext
+				.get(ECommandService.class);
+		ParameterizedCommand cmd = cs.createCommand(TEST_ID1, null);
+		ParameterizedCommand cmd2 = cs.createCommand(TEST_ID2, null);
+
+		EBindingService wBS = workbenchContext
+				.get(EBindingService.class);
+		TriggerSequence seq = wBS.createSequence("CTRL+5 T");
+		TriggerSequence partialMatch = wBS.createSequence("CTRL+5");
+		assertFalse(wBS.isPartialMatch(partialMatch));
+		assertNull(wBS.getPerfectMatch(seq));
+
+		// the look ups above must not hide the changes of the tables
+		Binding db = createDefaultBinding(wBS, seq, cmd, ID_DIALOG_AND_WINDOW);
+		wBS.activateBinding(db);
+		assertTrue(wBS.isPartialMatch(partialMatch));
+		assertEquals(cmd, wBS.getPerfectMatch(seq).getParameterizedCommand());
+
+		IEclipseContext c1 = workbenchContext.createChild("c1");
+		c1.activate();
+		EContextService contextService = c1.get(EContextService.class);
+		contextService.activateContext(ID_WINDOW);
+		EBindingService bs1 = c1.get(EBindingService.class);
+		Binding windowBinding = createDefaultBinding(bs1, seq, cmd2, ID_WINDOW);
+		bs1.activateBinding(windowBinding);
+		assertEquals(cmd2, bs1.getPerfectMatch(seq).getParameterizedCommand());
+
+		bs1.deactivateBinding(windowBinding);
+		assertEquals(cmd, bs1.getPerfectMatch(seq).getParameterizedCommand());
+		wBS.deactivateBinding(db);
+		assertFalse(bs1.isPartialMatch(partialMatch));
+		assertNull(bs1.getPerfectMatch(seq));
+	}
+
 	private Binding createDefaultBinding(EBindingService bs,
 			TriggerSequence sequence, ParameterizedCommand command,
 			String contextId) {
@@ -14,9 +14,11 @@ package org.eclipse.e4.ui.tests.css.core.parser;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 
+import org.eclipse.e4.ui.css.core.impl.dom.CSSComputedStyleCache;
 import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
 import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
@@ -108,6 +110,121 @@ public class ViewCSSTest {
 		assertEquals("color: blue;", buttonStyle.getCssText());
 	}
 
+	@Test
+	public void testGetComputedStyle_classAndIdRules() throws Exception {
+		String css = "#main { color: red; }\n" + ".primary { color: blue; }\n" + "Button { color: green; }\n"
+				+ ".other { color: yellow; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		TestElement button = new TestElement("Button", engine);
+		assertEquals("color: green;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		button.setClass("secondary primary");
+		CSSStyleDeclaration buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(1, buttonStyle.getLength());
+		assertEquals("color: blue;", buttonStyle.getCssText());
+
+		button.setId("main");
+		buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(1, buttonStyle.getLength());
+		assertEquals("color: red;", buttonStyle.getCssText());
+
+		TestElement label = new TestElement("Label", engine);
+		label.setClass("other");
+		assertEquals("color: yellow;", viewCSS.getComputedStyle(label, null).getCssText());
+	}
+
+	@Test
+	public void testGetComputedStyle_documentOrderAcrossBuckets() throws Exception {
+		// Rules of equal specificity which end up in different index buckets
+		// must still be applied in document order
+		String css = "Shell .primary { color: red; }\n" + "Shell Button { color: blue; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		TestElement shell = new TestElement("Shell", engine);
+		TestElement button = new TestElement("Button", shell, engine);
+		button.setClass("primary");
+
+		CSSStyleDeclaration buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(1, buttonStyle.getLength());
+		assertEquals("color: red;", buttonStyle.getCssText());
+	}
+
+	@Test
+	public void testGetComputedStyle_pseudoClass() throws Exception {
+		String css = "Button { color: blue; }\n" + ":selected { color: red; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		TestElement button = new TestElement("Button", engine);
+		button.addStaticPseudoInstance("selected");
+
+		assertEquals("color: blue;", viewCSS.getComputedStyle(button, null).getCssText());
+		CSSStyleDeclaration selectedStyle = viewCSS.getComputedStyle(button, "selected");
+		assertEquals(1, selectedStyle.getLength());
+		assertEquals("color: red;", selectedStyle.getCssText());
+	}
+
+	@Test
+	public void testGetComputedStyle_styleSheetAdded() throws Exception {
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: blue; }"));
+		ViewCSS viewCSS = new ViewCSSImpl(docCss);
+
+		TestElement button = new TestElement("Button", engine);
+		assertEquals("color: blue;", viewCSS.getComputedStyle(button, null).getCssText());
+
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: red; }"));
+		CSSStyleDeclaration buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(1, buttonStyle.getLength());
+		assertEquals("color: red;", buttonStyle.getCssText());
+
+		docCss.removeAllStyleSheets();
+		assertNull(viewCSS.getComputedStyle(button, null));
+	}
+
+	@Test
+	public void testGetComputedStyle_sharedBetweenEquivalentElements() throws Exception {
+		String css = "Tree > TreeItem { color: blue; }\n" + "TreeItem[expanded='true'] { color: red; }\n";
+		ViewCSSImpl viewCSS = (ViewCSSImpl) createViewCss(css);
+		CSSComputedStyleCache cache = viewCSS.getComputedStyleCache();
+
+		TestElement tree = new TestElement("Tree", engine);
+		TestElement item1 = new TestElement("TreeItem", tree, engine);
+		TestElement item2 = new TestElement("TreeItem", tree, engine);
+
+		CSSStyleDeclaration style1 = viewCSS.getComputedStyle(item1, null);
+		CSSStyleDeclaration style2 = viewCSS.getComputedStyle(item2, null);
+		assertSame(style1, style2);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+
+		// attributes tested by the style sheet are part of the signature
+		item2.setAttribute("expanded", "true");
+		assertEquals("color: red;", viewCSS.getComputedStyle(item2, null).getCssText());
+		assertEquals("color: blue;", viewCSS.getComputedStyle(item1, null).getCssText());
+
+		// so are the ancestors
+		TestElement shell = new TestElement("Shell", engine);
+		TestElement item3 = new TestElement("TreeItem", shell, engine);
+		assertNull(viewCSS.getComputedStyle(item3, null));
+	}
+
+	@Test
+	public void testGetComputedStyle_sharedStylesClearedOnStyleSheetChange() throws Exception {
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: blue; }"));
+		ViewCSSImpl viewCSS = new ViewCSSImpl(docCss);
+
+		TestElement button = new TestElement("Button", engine);
+		assertEquals("color: blue;", viewCSS.getComputedStyle(button, null).getCssText());
+		assertEquals(1, viewCSS.getComputedStyleCache().size());
+
+		docCss.removeAllStyleSheets();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: red; }"));
+		assertEquals("color: red;", viewCSS.getComputedStyle(button, null).getCssText());
+		assertEquals(1, viewCSS.getComputedStyleCache().size());
+	}
+
 	private static ViewCSS createViewCss(String css) throws IOException {
 		CSSStyleSheet styleSheet = ParserTestUtil.parseCss(css);
 		DocumentCSSImpl docCss = new DocumentCSSImpl();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
@@ -44,6 +45,10 @@ import org.eclipse.e4.ui.model.application.ui.menu.MToolBarElement;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolControl;
 import org.eclipse.e4.ui.workbench.Selector;
 import org.eclipse.e4.ui.workbench.modeling.EModelService;
+import org.eclipse.e4.ui.workbench.modeling.ElementMatcher;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -442,4 +447,103 @@ public class EModelServiceFindTest {
 		assertEquals(1, elements.size());
 		assertEquals(part, elements.get(0));
 	}
+
+	private void assertIndexedFind(EModelService modelService, MUIElement searchRoot, String id,
+			List<String> tags, int searchFlags) {
+		// the selector overload always traverses the model
+		List<MUIElement> expected = modelService.findElements(searchRoot, MUIElement.class, searchFlags,
+				new ElementMatcher(id, MUIElement.class, tags));
+		assertEquals(expected, modelService.findElements(searchRoot, id, MUIElement.class, tags, searchFlags));
+	}
+
+	@Test
+	public void testFindElementsAfterModelChanges() {
+		MApplication application = createApplication();
+		EModelService modelService = application.getContext().get(EModelService.class);
+
+		MWindow window = modelService.createModelElement(MWindow.class);
+		application.getChildren().add(window);
+		MPerspectiveStack perspectiveStack = modelService.createModelElement(MPerspectiveStack.class);
+		window.getChildren().add(perspectiveStack);
+		MPerspective perspectiveA = modelService.createModelElement(MPerspective.class);
+		perspectiveStack.getChildren().add(perspectiveA);
+		MPerspective perspectiveB = modelService.createModelElement(MPerspective.class);
+		perspectiveStack.getChildren().add(perspectiveB);
+		perspectiveStack.setSelectedElement(perspectiveB);
+
+		MPartStack sharedStack = modelService.createModelElement(MPartStack.class);
+		window.getSharedElements().add(sharedStack);
+		MPart sharedPart = modelService.createModelElement(MPart.class);
+		sharedPart.setElementId("twoValidIds");
+		sharedStack.getChildren().add(sharedPart);
+		MPlaceholder placeholderA = modelService.createModelElement(MPlaceholder.class);
+		placeholderA.setRef(sharedStack);
+		perspectiveA.getChildren().add(placeholderA);
+
+		int[] flags = { EModelService.ANYWHERE, EModelService.PRESENTATION, EModelService.IN_ACTIVE_PERSPECTIVE,
+				EModelService.IN_ANY_PERSPECTIVE | EModelService.IN_PART, EModelService.OUTSIDE_PERSPECTIVE };
+		List<String> tags = Arrays.asList("twoValidTags");
+		for (int searchFlags : flags) {
+			assertIndexedFind(modelService, application, "twoValidIds", null, searchFlags);
+			assertIndexedFind(modelService, window, "twoValidIds", null, searchFlags);
+			assertIndexedFind(modelService, application, null, tags, searchFlags);
+		}
+
+		MPart part = modelService.findElements(application, "twoValidIds", MPart.class, null).get(0);
+		part.setElementId("renamedId");
+		assertSame(part, modelService.find("renamedId", application));
+		part.getTags().add("twoValidTags");
+
+		MPlaceholder placeholderB = modelService.createModelElement(MPlaceholder.class);
+		perspectiveB.getChildren().add(placeholderB);
+		placeholderB.setRef(sharedStack);
+		perspectiveA.getChildren().remove(placeholderA);
+		MPart added = modelService.createModelElement(MPart.class);
+		added.getTags().add("twoValidTags");
+		perspectiveB.getChildren().add(0, added);
+
+		for (int searchFlags : flags) {
+			assertIndexedFind(modelService, application, "twoValidIds", null, searchFlags);
+			assertIndexedFind(modelService, application, "renamedId", null, searchFlags);
+			assertIndexedFind(modelService, window, null, tags, searchFlags);
+			assertIndexedFind(modelService, application, null, tags, searchFlags);
+		}
+
+		sharedStack.getChildren().remove(sharedPart);
+		assertEquals(0, modelService.findElements(application, "twoValidIds", MPart.class, null).size());
+		added.getTags().clear();
+		assertIndexedFind(modelService, application, null, tags, EModelService.ANYWHERE);
+	}
+
+	@Test
+	public void testFindElementsFromModelListener() {
+		MApplication application = createApplication();
+		EModelService modelService = application.getContext().get(EModelService.class);
+		List<Object> found = new ArrayList<>();
+		// added before the first search, like the UIEventPublisher
+		((Notifier) application).eAdapters().add(new EContentAdapter() {
+			@Override
+			public void notifyChanged(Notification notification) {
+				super.notifyChanged(notification);
+				if (!notification.isTouch() && notification.getNewValue() instanceof String) {
+					found.addAll(modelService.findElements(application, (String) notification.getNewValue(),
+							MUIElement.class, null));
+				} else if (notification.getNewValue() instanceof MPart) {
+					found.addAll(modelService.findElements(application, null, MUIElement.class,
+							Arrays.asList("addedTag")));
+				}
+			}
+		});
+		assertEquals(1, modelService.findElements(application, "singleValidId", null, null).size());
+
+		MPart part = modelService.findElements(application, "twoValidIds", MPart.class, null).get(0);
+		part.setElementId("renamedId");
+		assertEquals(Arrays.asList(part), found);
+
+		found.clear();
+		MPart added = modelService.createModelElement(MPart.class);
+		added.getTags().add("addedTag");
+		part.getParent().getChildren().add(added);
+		assertEquals(Arrays.asList(added), found);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 IBM Corporation and others.
+ * Copyright (c) 2010, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,11 +12,16 @@
 
 package org.eclipse.e4.ui.tests.application;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
@@ -24,11 +29,14 @@ import org.eclipse.e4.ui.internal.workbench.E4Workbench;
 import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
 import org.eclipse.e4.ui.internal.workbench.ResourceHandler;
 import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuElement;
+import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
@@ -58,10 +66,15 @@ public class ResourceHandlerTest extends HeadlessStartupTest {
 	}
 
 	private ResourceHandler createHandler(URI uri) {
+		return createHandler(uri, true, false);
+	}
+
+	private ResourceHandler createHandler(URI uri, boolean clearPersistedState, boolean binaryModel) {
 		IEclipseContext localContext = applicationContext.createChild();
 		localContext.set(E4Workbench.INSTANCE_LOCATION, getInstanceLocation());
 		localContext.set(E4Workbench.PERSIST_STATE, Boolean.TRUE);
-		localContext.set(E4Workbench.CLEAR_PERSISTED_STATE, Boolean.TRUE);
+		localContext.set(E4Workbench.CLEAR_PERSISTED_STATE, clearPersistedState);
+		localContext.set(E4Workbench.BINARY_MODEL, binaryModel);
 
 		localContext.set(E4Workbench.INITIAL_WORKBENCH_MODEL_URI, uri);
 
@@ -159,6 +172,49 @@ public class ResourceHandlerTest extends HeadlessStartupTest {
 		assertNotNull(findByElementId(menu2.getChildren(), "fragment.contributedMenuItem.xpath"));
 	}
 
+	@Test
+	public void testBinaryModel() throws IOException {
+		URI uri = URI.createPlatformPluginURI("org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
+		ResourceHandler handler = createHandler(uri, true, true);
+		E4XMIResource resource = (E4XMIResource) handler.loadMostRecentModel();
+		MApplication application = (MApplication) resource.getContents().get(0);
+		String windowId = resource.getID((EObject) application.getChildren().get(1));
+		handler.save();
+
+		// the signature of the binary format starts the file, before the header of EMF
+		byte[] signature = { (byte) 0x89, 'E', '4', 'M', '\r', '\n', 0x1a, '\n' };
+		byte[] start = new byte[signature.length];
+		try (InputStream in = new FileInputStream(resource.getURI().toFileString())) {
+			assertEquals(signature.length, in.read(start));
+		}
+		assertArrayEquals("Saved in the binary format", signature, start);
+
+		// a round trip restores an equal model, with the same ids
+		E4XMIResource loaded = new E4XMIResource(resource.getURI());
+		loaded.load(null);
+		assertTrue("Loaded model differs from the saved one",
+				EcoreUtil.equals(resource.getContents(), loaded.getContents()));
+		List<String> savedIds = new ArrayList<>();
+		for (TreeIterator<EObject> it = resource.getAllContents(); it.hasNext();) {
+			savedIds.add(resource.getID(it.next()));
+		}
+		List<String> loadedIds = new ArrayList<>();
+		for (TreeIterator<EObject> it = loaded.getAllContents(); it.hasNext();) {
+			loadedIds.add(loaded.getID(it.next()));
+		}
+		assertEquals(savedIds, loadedIds);
+
+		// restored by the handler whether the binary format is requested or not
+		E4XMIResource restored = (E4XMIResource) createHandler(uri, false, false).loadMostRecentModel();
+		MApplication restoredApplication = (MApplication) restored.getContents().get(0);
+		assertEquals(2, restoredApplication.getChildren().size());
+		MWindow window = restoredApplication.getChildren().get(1);
+		assertEquals("fragment.contributedWindow", window.getElementId());
+		assertEquals(windowId, restored.getID((EObject) window));
+		assertEquals("platform:/plugin/org.eclipse.e4.ui.tests", window.getContributorURI());
+		assertSame(restoredApplication.getCommands().get(0), restoredApplication.getHandlers().get(0).getCommand());
+	}
+
 	/**
 	 * @param children
 	 * @param id
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,9 +14,13 @@ package org.eclipse.e4.ui.tests.workbench;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.internal.workbench.E4Workbench;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
 import org.eclipse.e4.ui.internal.workbench.swt.PartRenderingEngine;
@@ -27,6 +31,7 @@ import org.eclipse.e4.ui.model.application.ui.menu.ItemType;
 import org.eclipse.e4.ui.model.application.ui.menu.MDirectToolItem;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolItem;
+import org.eclipse.e4.ui.workbench.UIEvents;
 import org.eclipse.e4.ui.workbench.modeling.EModelService;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Event;
@@ -36,6 +41,26 @@ import org.junit.Before;
 import org.junit.Test;
 
 public class MToolItemTest {
+	/**
+	 * A variable which updates the enablement of the tool items when it
+	 * changes.
+	 */
+	private static final String UPDATE_VARIABLE = "org.eclipse.ui.internal.services.EvaluationService.evaluate";
+
+	public static class EnablementHandler {
+		int evaluations;
+
+		@CanExecute
+		public boolean canExecute() {
+			evaluations++;
+			return true;
+		}
+
+		@Execute
+		public void execute() {
+		}
+	}
+
 	protected IEclipseContext appContext;
 	protected E4Workbench wb;
 	private EModelService ems;
@@ -282,4 +307,54 @@ public class MToolItemTest {
 		toolItem2.setSelected(true);
 		assertTrue(toolItemWidget2.getSelection());
 	}
+
+	@Test
+	public void testMToolItem_EnablementEvaluations() {
+		MTrimmedWindow window = ems.createModelElement(MTrimmedWindow.class);
+		MTrimBar trimBar = ems.createModelElement(MTrimBar.class);
+		MToolBar toolBar = ems.createModelElement(MToolBar.class);
+		MDirectToolItem toolItem1 = ems.createModelElement(MDirectToolItem.class);
+		EnablementHandler handler1 = new EnablementHandler();
+		toolItem1.setObject(handler1);
+		MDirectToolItem toolItem2 = ems.createModelElement(MDirectToolItem.class);
+		EnablementHandler handler2 = new EnablementHandler();
+		toolItem2.setObject(handler2);
+
+		window.getTrimBars().add(trimBar);
+		trimBar.getChildren().add(toolBar);
+		toolBar.getChildren().add(toolItem1);
+		toolBar.getChildren().add(toolItem2);
+
+		MApplication application = ems.createModelElement(MApplication.class);
+		application.getChildren().add(window);
+		application.setContext(appContext);
+		appContext.set(MApplication.class, application);
+
+		wb = new E4Workbench(window, appContext);
+		wb.createAndRunUI(window);
+
+		appContext.get(IEventBroker.class).send(UIEvents.REQUEST_ENABLEMENT_UPDATE_TOPIC, UIEvents.ALL_ELEMENT_ID);
+		assertTrue(toolItem1.isEnabled());
+		assertTrue(toolItem2.isEnabled());
+
+		// a change of an update variable evaluates each item once
+		int evaluations1 = handler1.evaluations;
+		int evaluations2 = handler2.evaluations;
+		appContext.set(UPDATE_VARIABLE, new Object());
+		assertEquals(evaluations1 + 1, handler1.evaluations);
+		assertEquals(evaluations2 + 1, handler2.evaluations);
+
+		// other changes do not evaluate the items
+		appContext.set(UPDATE_VARIABLE + ".other", Boolean.TRUE);
+		window.getContext().set(UPDATE_VARIABLE + ".other", Boolean.TRUE);
+		assertEquals(evaluations1 + 1, handler1.evaluations);
+		assertEquals(evaluations2 + 1, handler2.evaluations);
+
+		// a removed item is no longer evaluated
+		toolBar.getChildren().remove(toolItem1);
+		assertNull(toolItem1.getWidget());
+		appContext.set(UPDATE_VARIABLE, new Object());
+		assertEquals(evaluations1 + 1, handler1.evaluations);
+		assertEquals(evaluations2 + 2, handler2.evaluations);
+	}
 }
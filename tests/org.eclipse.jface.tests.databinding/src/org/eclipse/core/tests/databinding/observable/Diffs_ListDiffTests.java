@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,9 @@ package org.eclipse.core.tests.databinding.observable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -22,11 +24,21 @@ import org.eclipse.core.databinding.observable.Diffs;
 import org.eclipse.core.databinding.observable.list.ListDiff;
 import org.eclipse.core.databinding.observable.list.ListDiffEntry;
 import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
+import org.eclipse.core.internal.databinding.observable.LinearListDiff;
+import org.eclipse.core.internal.databinding.observable.ListDifferenceAnalyzer;
 
 /**
  * @since 1.1
  */
 public class Diffs_ListDiffTests extends TestCase {
+	private static final int LARGE_LIST_SIZE = 50000;
+
+	/**
+	 * The size of the lists which are diffed with both the linear and the
+	 * quadratic algorithm, small enough for the quadratic one to finish.
+	 */
+	private static final int COMPARED_LIST_SIZE = 5000;
+
 	public void testListDiffEntryToStringDoesNotThrowNPEForNullListDiffEntry() {
 		ListDiffEntry entry = new ListDiffEntry() {
 			@Override
@@ -253,9 +265,164 @@ public class Diffs_ListDiffTests extends TestCase {
 				Arrays.asList(new Object[] { "c", "a", "b" }));
 	}
 
-	private static void checkComputedListDiff(List<Object> oldList, List<Object> newList) {
-		ListDiff diff = Diffs.computeListDiff(oldList, newList);
+	public void testComputeListDiff_LargeInsert() {
+		List<Object> oldList = createLargeList();
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.add(LARGE_LIST_SIZE / 2, "inserted");
+
+		ListDiff diff = checkComputedListDiff(oldList, newList);
+		assertEquals(1, diff.getDifferences().length);
+		assertEntry(diff.getDifferences()[0], true, LARGE_LIST_SIZE / 2, "inserted");
+	}
+
+	public void testComputeListDiff_LargeRemove() {
+		List<Object> oldList = createLargeList();
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.subList(100, 200).clear();
+
+		ListDiff diff = checkComputedListDiff(oldList, newList);
+		assertEquals(100, diff.getDifferences().length);
+	}
+
+	public void testComputeListDiff_LargeShuffle() {
+		List<Object> oldList = createLargeList();
+		List<Object> newList = new ArrayList<Object>(oldList);
+		Collections.shuffle(newList, new Random(0));
+
+		checkComputedListDiff(oldList, newList);
+		checkComputedListDiff(oldList, newList, false);
+	}
+
+	public void testComputeListDiff_LargeSort() {
+		List<Object> newList = createLargeList();
+		List<Object> oldList = new ArrayList<Object>(newList);
+		Collections.shuffle(oldList, new Random(0));
+
+		checkComputedListDiff(oldList, newList);
+		checkComputedListDiff(oldList, newList, false);
+	}
+
+	public void testComputeListDiff_LargeMoveReportedAsMove() {
+		List<Object> oldList = createLargeList();
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.add(newList.remove(0));
+
+		ListDiff diff = checkComputedListDiff(oldList, newList);
+		assertEquals(2, diff.getDifferences().length);
+		final int[] moves = new int[1];
+		diff.accept(new ListDiffVisitor() {
+			@Override
+			public void handleAdd(int index, Object element) {
+				fail("unexpected addition");
+			}
+
+			@Override
+			public void handleRemove(int index, Object element) {
+				fail("unexpected removal");
+			}
+
+			@Override
+			public void handleMove(int oldIndex, int newIndex, Object element) {
+				assertEquals(0, oldIndex);
+				assertEquals(LARGE_LIST_SIZE - 1, newIndex);
+				moves[0]++;
+			}
+		});
+		assertEquals(1, moves[0]);
+	}
+
+	public void testComputeListDiff_LargeWithoutMoves() {
+		List<Object> oldList = createLargeList();
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.add(newList.remove(0));
+
+		ListDiff diff = checkComputedListDiff(oldList, newList, false);
+		assertEquals(2, diff.getDifferences().length);
+		assertEntry(diff.getDifferences()[0], false, 0, "0");
+		assertEntry(diff.getDifferences()[1], true, LARGE_LIST_SIZE - 1, "0");
+	}
+
+	public void testComputeListDiff_LargeDuplicates() {
+		List<Object> oldList = new ArrayList<Object>();
+		List<Object> newList = new ArrayList<Object>();
+		Random random = new Random(0);
+		for (int i = 0; i < 1000; i++) {
+			oldList.add(String.valueOf(random.nextInt(10)));
+			newList.add(String.valueOf(random.nextInt(10)));
+		}
+		oldList.add(null);
+		newList.add(0, null);
+
+		checkComputedListDiff(oldList, newList);
+		checkComputedListDiff(oldList, newList, false);
+	}
+
+	/**
+	 * Diffs the large list workloads with the linear algorithm used for large
+	 * lists and with the quadratic algorithm used before, and reports the time
+	 * each took.
+	 */
+	public void testCompareWithQuadraticDiff() {
+		List<Object> oldList = createList(COMPARED_LIST_SIZE);
+
+		List<Object> newList = new ArrayList<Object>(oldList);
+		newList.add(COMPARED_LIST_SIZE / 2, "inserted");
+		compareWithQuadraticDiff("insert", oldList, newList);
+
+		newList = new ArrayList<Object>(oldList);
+		newList.subList(100, 200).clear();
+		compareWithQuadraticDiff("remove", oldList, newList);
+
+		newList = new ArrayList<Object>(oldList);
+		newList.add(newList.remove(0));
+		compareWithQuadraticDiff("move", oldList, newList);
+
+		newList = new ArrayList<Object>(oldList);
+		Collections.shuffle(newList, new Random(0));
+		compareWithQuadraticDiff("shuffle", oldList, newList);
+		compareWithQuadraticDiff("sort", newList, oldList);
+	}
+
+	private static void compareWithQuadraticDiff(String workload, List<Object> oldList, List<Object> newList) {
+		List<ListDiffEntry<Object>> linear = new ArrayList<ListDiffEntry<Object>>();
+		long start = System.nanoTime();
+		LinearListDiff.computeDifferences(oldList, newList, true, linear);
+		long linearTime = System.nanoTime() - start;
+
+		List<ListDiffEntry<Object>> quadratic = new ArrayList<ListDiffEntry<Object>>();
+		start = System.nanoTime();
+		ListDifferenceAnalyzer.computeDifferences(oldList, newList, quadratic);
+		long quadraticTime = System.nanoTime() - start;
+
+		assertDiffApplies(Diffs.createListDiff(linear), oldList, newList);
+		assertDiffApplies(Diffs.createListDiff(quadratic), oldList, newList);
+		System.out.println("Diffs_ListDiffTests " + workload + " of " + oldList.size() + " elements: linear "
+				+ linearTime / 1000000 + " ms, quadratic " + quadraticTime / 1000000 + " ms");
+	}
+
+	private static List<Object> createLargeList() {
+		return createList(LARGE_LIST_SIZE);
+	}
+
+	private static List<Object> createList(int size) {
+		List<Object> list = new ArrayList<Object>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(String.valueOf(i));
+		}
+		return list;
+	}
+
+	private static ListDiff checkComputedListDiff(List<Object> oldList, List<Object> newList) {
+		return checkComputedListDiff(oldList, newList, true);
+	}
+
+	private static ListDiff checkComputedListDiff(List<Object> oldList, List<Object> newList, boolean detectMoves) {
+		ListDiff diff = Diffs.computeListDiff(oldList, newList, detectMoves);
+		assertDiffApplies(diff, oldList, newList);
+		return diff;
+	}
 
+	private static void assertDiffApplies(ListDiff diff, List<Object> oldList, List<Object> newList) {
 		final List<Object> list = new ArrayList<Object>(oldList);
 		diff.accept(new ListDiffVisitor() {
 			@Override
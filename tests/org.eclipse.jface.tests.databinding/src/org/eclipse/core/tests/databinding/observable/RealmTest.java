@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 Brad Reynolds and others.
+ * Copyright (c) 2006, 2017 Brad Reynolds and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,32 @@
 
 package org.eclipse.core.tests.databinding.observable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.core.databinding.observable.map.WritableMap;
+import org.eclipse.core.databinding.observable.set.WritableSet;
+import org.eclipse.core.databinding.observable.value.ComputedValue;
+import org.eclipse.core.databinding.observable.value.IValueChangeListener;
+import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.jface.databinding.conformance.util.ChangeEventTracker;
 import org.eclipse.jface.databinding.conformance.util.CurrentRealm;
+import org.eclipse.jface.databinding.conformance.util.ListChangeEventTracker;
+import org.eclipse.jface.databinding.conformance.util.MapChangeEventTracker;
 import org.eclipse.jface.databinding.conformance.util.RealmTester;
+import org.eclipse.jface.databinding.conformance.util.SetChangeEventTracker;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
 
 /**
  * @since 3.2
@@ -35,4 +56,186 @@ public class RealmTest extends TestCase {
 
 		assertEquals("old realm should have been restored", oldRealm, Realm.getDefault());
 	}
+
+	public void testBatchMergesValueChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableValue<String> value = new WritableValue<>(realm, "a", String.class);
+		ValueChangeEventTracker valueTracker = ValueChangeEventTracker.observe(value);
+		ChangeEventTracker changeTracker = ChangeEventTracker.observe(value);
+
+		realm.beginBatch();
+		value.setValue("b");
+		value.setValue("c");
+		assertTrue(realm.isBatching());
+		assertEquals(0, valueTracker.count);
+		assertEquals(0, changeTracker.count);
+		realm.commitBatch();
+
+		assertFalse(realm.isBatching());
+		assertEquals(1, valueTracker.count);
+		assertEquals(1, changeTracker.count);
+		assertEquals("a", valueTracker.event.diff.getOldValue());
+		assertEquals("c", valueTracker.event.diff.getNewValue());
+	}
+
+	public void testBatchMergesListChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableList<String> list = new WritableList<>(realm, new ArrayList<>(Arrays.asList("a", "b")), String.class);
+		List<String> oldList = new ArrayList<>(list);
+		ListChangeEventTracker tracker = ListChangeEventTracker.observe(list);
+
+		realm.beginBatch();
+		list.add("c");
+		list.remove(0);
+		list.add(1, "d");
+		realm.commitBatch();
+
+		assertEquals(1, tracker.count);
+		tracker.event.diff.applyTo(oldList);
+		assertEquals(list, oldList);
+	}
+
+	public void testBatchMergesSetChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableSet<String> set = new WritableSet<>(realm, Arrays.asList("a"), String.class);
+		SetChangeEventTracker tracker = SetChangeEventTracker.observe(set);
+
+		realm.beginBatch();
+		set.add("b");
+		set.add("c");
+		set.remove("b");
+		set.remove("a");
+		realm.commitBatch();
+
+		assertEquals(1, tracker.count);
+		assertEquals(Collections.singleton("c"), tracker.event.diff.getAdditions());
+		assertEquals(Collections.singleton("a"), tracker.event.diff.getRemovals());
+	}
+
+	public void testBatchMergesMapChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableMap<String, Integer> map = new WritableMap<>(realm);
+		map.put("k1", 1);
+		map.put("k2", 2);
+		map.put("k3", 3);
+		Map<String, Integer> oldMap = new HashMap<>(map);
+		MapChangeEventTracker tracker = MapChangeEventTracker.observe(map);
+
+		realm.beginBatch();
+		map.put("k1", 10);
+		map.put("k1", 1);
+		map.remove("k2");
+		map.put("k3", 30);
+		map.put("k4", 4);
+		realm.commitBatch();
+
+		assertEquals(1, tracker.count);
+		assertEquals(Collections.singleton("k4"), tracker.event.diff.getAddedKeys());
+		assertEquals(Collections.singleton("k2"), tracker.event.diff.getRemovedKeys());
+		assertEquals(Collections.singleton("k3"), tracker.event.diff.getChangedKeys());
+		assertEquals(Integer.valueOf(3), tracker.event.diff.getOldValue("k3"));
+		assertEquals(Integer.valueOf(30), tracker.event.diff.getNewValue("k3"));
+		tracker.event.diff.applyTo(oldMap);
+		assertEquals(map, oldMap);
+	}
+
+	public void testBatchSkipsEmptyValueChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableValue<String> value = new WritableValue<>(realm, "a", String.class);
+		ValueChangeEventTracker valueTracker = ValueChangeEventTracker.observe(value);
+		ChangeEventTracker changeTracker = ChangeEventTracker.observe(value);
+
+		realm.beginBatch();
+		value.setValue("b");
+		value.setValue("a");
+		realm.commitBatch();
+
+		assertEquals(0, valueTracker.count);
+		assertEquals(0, changeTracker.count);
+	}
+
+	public void testBatchSkipsEmptyCollectionChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableList<String> list = new WritableList<>(realm, new ArrayList<>(Arrays.asList("a")), String.class);
+		WritableSet<String> set = new WritableSet<>(realm, Arrays.asList("a"), String.class);
+		WritableMap<String, Integer> map = new WritableMap<>(realm);
+		map.put("k1", 1);
+		ListChangeEventTracker listTracker = ListChangeEventTracker.observe(list);
+		SetChangeEventTracker setTracker = SetChangeEventTracker.observe(set);
+		MapChangeEventTracker mapTracker = MapChangeEventTracker.observe(map);
+
+		realm.beginBatch();
+		list.add("b");
+		list.remove("b");
+		set.remove("a");
+		set.add("a");
+		map.put("k1", 10);
+		map.put("k2", 2);
+		map.put("k1", 1);
+		map.remove("k2");
+		realm.commitBatch();
+
+		assertEquals(0, listTracker.count);
+		assertEquals(0, setTracker.count);
+		assertEquals(0, mapTracker.count);
+	}
+
+	public void testBatchRecomputesDependentsOnce() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		final WritableValue<Integer> first = new WritableValue<>(realm, 1, Integer.class);
+		final WritableValue<Integer> second = new WritableValue<>(realm, 2, Integer.class);
+		final int[] computations = new int[1];
+		final ComputedValue<Integer> sum = new ComputedValue<Integer>(realm) {
+			@Override
+			protected Integer calculate() {
+				computations[0]++;
+				return first.getValue() + second.getValue();
+			}
+		};
+		final Set<Integer> values = new HashSet<>();
+		sum.addValueChangeListener(new IValueChangeListener<Integer>() {
+			@Override
+			public void handleValueChange(ValueChangeEvent<? extends Integer> event) {
+				values.add(sum.getValue());
+			}
+		});
+		assertEquals(1, computations[0]);
+
+		realm.batch(new Runnable() {
+			@Override
+			public void run() {
+				first.setValue(10);
+				second.setValue(20);
+			}
+		});
+
+		assertEquals(2, computations[0]);
+		assertEquals(Collections.singleton(30), values);
+	}
+
+	public void testNestedBatch() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		WritableValue<String> value = new WritableValue<>(realm, "a", String.class);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker.observe(value);
+
+		realm.beginBatch();
+		realm.beginBatch();
+		value.setValue("b");
+		realm.commitBatch();
+		assertEquals(0, tracker.count);
+		value.setValue("c");
+		realm.commitBatch();
+
+		assertEquals(1, tracker.count);
+		assertEquals("c", tracker.event.diff.getNewValue());
+	}
+
+	public void testCommitBatchWithoutBatch() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		try {
+			realm.commitBatch();
+			fail("commitBatch should fail when no batch is in progress");
+		} catch (IllegalStateException e) {
+		}
+	}
 }
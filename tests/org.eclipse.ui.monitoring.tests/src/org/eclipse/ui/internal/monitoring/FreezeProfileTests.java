@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link FreezeProfile} class.
+ */
+public class FreezeProfileTests {
+	private static StackTraceElement frame(String className, String methodName, int line) {
+		return new StackTraceElement(className, methodName, className + ".java", line);
+	}
+
+	private static String write(FreezeProfile profile) throws Exception {
+		StringWriter writer = new StringWriter();
+		profile.write(writer);
+		return writer.toString();
+	}
+
+	@Test
+	public void testMergeStacks() throws Exception {
+		FreezeProfile profile = new FreezeProfile(null);
+		profile.addStack(new StackTraceElement[] {
+				frame("a.Paint", "draw", 10), frame("a.Main", "run", 1) }, 100);
+		// Line numbers are ignored.
+		profile.addStack(new StackTraceElement[] {
+				frame("a.Paint", "draw", 20), frame("a.Main", "run", 1) }, 50);
+		profile.addStack(new StackTraceElement[] {
+				frame("a.Job", "join", 5), frame("a.Main", "run", 2) }, 30);
+		profile.addStack(new StackTraceElement[] { frame("a.Main", "run", 3) }, 20);
+
+		assertEquals(200, profile.getTotalTime());
+		assertEquals("a.Main.run 20\n"
+				+ "a.Main.run;a.Paint.draw 150\n"
+				+ "a.Main.run;a.Job.join 30\n", write(profile));
+	}
+
+	@Test
+	public void testReadWrite() throws Exception {
+		String collapsed = "a.Main.run 20\n"
+				+ "a.Main.run;a.Paint.draw 150\n"
+				+ "a.Main.run;a.Paint$1.lambda$0 30\n";
+		FreezeProfile profile = new FreezeProfile(null);
+		profile.read(new StringReader(collapsed));
+		assertEquals(collapsed, write(profile));
+
+		profile.addStack(new StackTraceElement[] {
+				frame("a.Paint", "draw", 10), frame("a.Main", "run", 1) }, 50);
+		assertEquals(250, profile.getTotalTime());
+		assertEquals("a.Main.run 20\n"
+				+ "a.Main.run;a.Paint.draw 200\n"
+				+ "a.Main.run;a.Paint$1.lambda$0 30\n", write(profile));
+
+		profile.clear();
+		assertEquals("", write(profile));
+	}
+}
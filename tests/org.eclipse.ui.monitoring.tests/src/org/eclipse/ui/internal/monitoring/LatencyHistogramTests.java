@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.ui.monitoring.ILatencyHistogram;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram} and {@link UiLatencyMonitor} classes.
+ */
+public class LatencyHistogramTests {
+	@Test
+	public void testBuckets() {
+		long previousHighest = -1;
+		for (int i = 0; i < 1000; i++) {
+			long highest = LatencyHistogram.highestValueInBucket(i);
+			assertTrue(highest > previousHighest);
+			assertEquals(i, LatencyHistogram.bucketIndex(previousHighest + 1));
+			assertEquals(i, LatencyHistogram.bucketIndex(highest));
+			// The width of a bucket is at most 1/32 of its values.
+			assertTrue((highest - previousHighest) * 32 <= Math.max(32, highest + 1));
+			previousHighest = highest;
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000, histogram.getMaxValue());
+		assertEquals(500.5, histogram.getMean(), 0.001);
+		assertEquals(500, histogram.getValueAtPercentile(50), 500 / 32);
+		assertEquals(990, histogram.getValueAtPercentile(99), 990 / 32);
+		assertEquals(1000, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxValue());
+		assertEquals(0, histogram.getValueAtPercentile(99.9));
+	}
+
+	@Test
+	public void testMonitor() throws Exception {
+		UiLatencyMonitor monitor = new UiLatencyMonitor();
+		monitor.recordEvent(SWT.Paint, 2000000);
+		monitor.recordEvent(SWT.KeyDown, 4000000);
+		assertEquals(2, monitor.getHistogram().getCount());
+		assertEquals(2000, monitor.getHistogram(SWT.Paint).getMaxValue());
+		assertNull(monitor.getHistogram(SWT.MouseDown));
+
+		Runnable runnable = () -> {};
+		assertSame(runnable, monitor.wrapAsyncExec(runnable));
+		monitor.setEnabled(true);
+		runnable = monitor.wrapAsyncExec(runnable);
+		runnable.run();
+		String origin = LatencyHistogramTests.class.getName();
+		assertNotNull(monitor.getAsyncExecHistograms().get(origin));
+		assertEquals(1, monitor.getAsyncExecHistograms().get(origin).getCount());
+
+		StringWriter writer = new StringWriter();
+		monitor.export(writer);
+		String exported = writer.toString();
+		assertTrue(exported.startsWith("histogram,count,mean,max,p50.0,"));
+		assertTrue(exported.contains("\nall,2,3000.0,4000,"));
+		assertTrue(exported.contains("\nasyncExec:" + origin + ",1,"));
+
+		monitor.reset();
+		assertEquals(0, monitor.getHistogram().getCount());
+		assertEquals(0, monitor.getHistogram(SWT.Paint).getCount());
+	}
+
+	@Test
+	public void testAsyncExecOrigins() {
+		UiLatencyMonitor monitor = new UiLatencyMonitor();
+		for (int i = 0; i < UiLatencyMonitor.MAX_ASYNC_EXEC_ORIGINS + 10; i++) {
+			monitor.recordAsyncExec("origin" + i, 1000);
+		}
+		Map<String, ILatencyHistogram> histograms = monitor.getAsyncExecHistograms();
+		assertEquals(UiLatencyMonitor.MAX_ASYNC_EXEC_ORIGINS + 1, histograms.size());
+		assertEquals(10, histograms.get(UiLatencyMonitor.OTHER_ORIGIN).getCount());
+		assertEquals(1, histograms.get("origin0").getCount());
+
+		monitor.recordAsyncExec("origin0", 1000);
+		assertEquals(2, histograms.get("origin0").getCount());
+	}
+}
@@ -23,6 +23,8 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	EventLoopMonitorThreadTests.class,
 	FilterHandlerTests.class,
-	DefaultLoggerTests.class})
+	DefaultLoggerTests.class,
+	LatencyHistogramTests.class,
+	FreezeProfileTests.class})
 public class MonitoringTestSuite {
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Google Inc. and others.
+ * Copyright (c) 2015, 2017 Google Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import org.eclipse.ui.internal.navigator.VisibilityAssistant;
 import org.eclipse.ui.internal.navigator.extensions.EvaluationCache;
 import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptor;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptorManager;
 import org.eclipse.ui.navigator.INavigatorActivationService;
 import org.eclipse.ui.navigator.INavigatorViewerDescriptor;
 import org.eclipse.ui.tests.navigator.util.TestNavigatorActivationService;
@@ -124,6 +125,63 @@ public class EvaluationCacheTest extends NavigatorTestBase {
 		Assert.assertNull(cache.getDescriptors(key, true));
 	}
 
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		cache = new EvaluationCache(new VisibilityAssistant(new TestNavigatorViewerDescriptor(),
+				new TestNavigatorActivationService()), 2);
+		Object key1 = new Object();
+		Object key2 = new Object();
+		Object key3 = new Object();
+		NavigatorContentDescriptor[] value = new NavigatorContentDescriptor[0];
+		cache.setDescriptors(key1, value, false);
+		cache.setDescriptors(key2, value, false);
+		// Use the first key, so that the second one is the least recently used.
+		Assert.assertSame(value, cache.getDescriptors(key1, false));
+		cache.setDescriptors(key3, value, false);
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertSame(value, cache.getDescriptors(key1, false));
+		Assert.assertNull(cache.getDescriptors(key2, false));
+		Assert.assertSame(value, cache.getDescriptors(key3, false));
+		// The other "half" of the cache has its own bound.
+		cache.setDescriptors(key2, value, true);
+		Assert.assertSame(value, cache.getDescriptors(key1, false));
+		Assert.assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testHitAndMissCounts() {
+		Object key = new Object();
+		Assert.assertNull(cache.getDescriptors(key, false));
+		cache.setDescriptors(key, new NavigatorContentDescriptor[0], false);
+		cache.getDescriptors(key, false);
+		cache.getDescriptors(key, false);
+		Assert.assertEquals(2, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testTypeEvaluation() {
+		NavigatorContentDescriptor descriptor = NavigatorContentDescriptorManager.getInstance()
+				.getContentDescriptor(TEST_CONTENT);
+		Assert.assertNull(cache.getTypeEvaluation(descriptor, String.class));
+		cache.setTypeEvaluation(descriptor, String.class, true);
+		cache.setTypeEvaluation(descriptor, Integer.class, false);
+		Assert.assertEquals(Boolean.TRUE, cache.getTypeEvaluation(descriptor, String.class));
+		Assert.assertEquals(Boolean.FALSE, cache.getTypeEvaluation(descriptor, Integer.class));
+		Assert.assertEquals(2, cache.getTypeHitCount());
+		cache.onVisibilityOrActivationChange();
+		Assert.assertNull(cache.getTypeEvaluation(descriptor, String.class));
+	}
+
+	@Test
+	public void testTypeOnlyDescriptors() {
+		NavigatorContentDescriptorManager manager = NavigatorContentDescriptorManager.getInstance();
+		// Trigger points with an adapt expression
+		Assert.assertFalse(manager.getContentDescriptor(TEST_CONTENT).isTriggerPointTypeOnly());
+		// Trigger points with an instanceof expression only
+		Assert.assertTrue(manager.getContentDescriptor(TEST_CONTENT2).isTriggerPointTypeOnly());
+	}
+
 	// TODO Some way to reliably test the clearing of entries. Possibly using
 	// java.lang.ref.Reference#enqueue().
 }
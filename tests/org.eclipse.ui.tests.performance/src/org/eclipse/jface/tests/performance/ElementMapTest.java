@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.performance;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+import org.eclipse.ui.tests.performance.TestRunnable;
+
+/**
+ * The ElementMapTest measures filling and querying the element map of a
+ * viewer using hash lookup. The heap dimensions of the performance meter
+ * record the footprint of the map.
+ */
+public class ElementMapTest extends ViewerTest {
+
+	static int LARGE_COUNT = 50000;
+
+	static int LOOKUP_ROUNDS = 20;
+
+	MappedTableViewer viewer;
+
+	TestElement[] elements;
+
+	static class MappedTableViewer extends TableViewer {
+
+		MappedTableViewer(Composite parent) {
+			super(parent);
+		}
+
+		Widget lookup(Object element) {
+			return findItem(element);
+		}
+	}
+
+	public ElementMapTest(String testName, int tagging) {
+		super(testName, tagging);
+	}
+
+	public ElementMapTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Shell shell) {
+		viewer = new MappedTableViewer(shell);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setLabelProvider(getLabelProvider());
+		return viewer;
+	}
+
+	@Override
+	protected Object getInitialInput() {
+		elements = new TestElement[LARGE_COUNT];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new TestElement(i);
+		}
+		return new TestElement[0];
+	}
+
+	/**
+	 * Test mapping a large number of elements.
+	 */
+	public void testMapElements() throws CoreException {
+		openBrowser();
+
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				viewer.setInput(new TestElement[0]);
+				processEvents();
+				startMeasuring();
+				viewer.setInput(elements);
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, slowGTKIterations(), JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test looking up the items of a large number of mapped elements.
+	 */
+	public void testFindItems() throws CoreException {
+		openBrowser();
+		viewer.setInput(elements);
+		processEvents();
+		exerciseLookup();
+	}
+
+	/**
+	 * Test looking up the items of a large number of mapped elements through
+	 * an element comparer.
+	 */
+	public void testFindItemsWithComparer() throws CoreException {
+		openBrowser();
+		viewer.setComparer(new IElementComparer() {
+			@Override
+			public boolean equals(Object a, Object b) {
+				return ((TestElement) a).getText().equals(((TestElement) b).getText());
+			}
+
+			@Override
+			public int hashCode(Object element) {
+				return ((TestElement) element).getText().hashCode();
+			}
+		});
+		viewer.setInput(elements);
+		processEvents();
+		exerciseLookup();
+	}
+
+	private void exerciseLookup() throws CoreException {
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				startMeasuring();
+				for (int round = 0; round < LOOKUP_ROUNDS; round++) {
+					for (TestElement element : elements) {
+						if (viewer.lookup(element) == null) {
+							fail("No item for " + element.getText());
+						}
+					}
+				}
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, ITERATIONS, JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
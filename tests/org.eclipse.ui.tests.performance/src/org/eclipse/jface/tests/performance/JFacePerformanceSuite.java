@@ -45,6 +45,13 @@ public class JFacePerformanceSuite extends FilteredTestSuite {
 		addTest(new TreeAddTest("testAddThousand"));
 		addTest(new FastTreeTest("testAddHundredTenTimes", BasicPerformanceTest.LOCAL));
 		addTest(new TreeAddTest("testAddThousandPreSort", BasicPerformanceTest.GLOBAL));
+		addTest(new TreeAddTest("testAddToPopulatedNode"));
+		addTest(new TreeAddTest("testRemoveFromPopulatedNode"));
+		addTest(new TableViewerAddRemoveTest("testAddToPopulatedTable"));
+		addTest(new TableViewerAddRemoveTest("testRemoveFromPopulatedTable"));
+		addTest(new ElementMapTest("testMapElements"));
+		addTest(new ElementMapTest("testFindItems"));
+		addTest(new ElementMapTest("testFindItemsWithComparer"));
 		addTest(new ProgressMonitorDialogPerformanceTest("testLongNames"));
 		addTest(new ShrinkingTreeTest("testTreeViewerRefresh"));
 		addTest(new CollatorPerformanceTest("testCollator"));
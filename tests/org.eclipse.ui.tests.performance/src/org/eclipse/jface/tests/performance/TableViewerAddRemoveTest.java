@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.performance;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.ViewerSorter;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.tests.performance.TestRunnable;
+
+/**
+ * The TableViewerAddRemoveTest measures adding and removing large sets of
+ * elements to and from a populated sorted TableViewer.
+ */
+public class TableViewerAddRemoveTest extends ViewerTest {
+
+	static int LARGE_COUNT = 20000;
+
+	TableViewer viewer;
+
+	public TableViewerAddRemoveTest(String testName, int tagging) {
+		super(testName, tagging);
+	}
+
+	public TableViewerAddRemoveTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Shell shell) {
+		viewer = new TableViewer(shell);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setLabelProvider(getLabelProvider());
+		viewer.setSorter(new ViewerSorter());
+		return viewer;
+	}
+
+	@Override
+	protected Object getInitialInput() {
+		return new TestElement[0];
+	}
+
+	/**
+	 * Create twice the given number of sorted elements.
+	 */
+	private TestElement[] createSortedElements(int count) {
+		TestElement[] elements = new TestElement[count * 2];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new TestElement(i);
+		}
+		viewer.getSorter().sort(viewer, elements);
+		return elements;
+	}
+
+	/**
+	 * Test addition of a large set of elements interleaved in sort order with
+	 * as many existing elements.
+	 */
+	public void testAddToPopulatedTable() throws CoreException {
+		openBrowser();
+
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				TestElement[] all = createSortedElements(LARGE_COUNT);
+				TestElement[] existing = new TestElement[LARGE_COUNT];
+				TestElement[] added = new TestElement[LARGE_COUNT];
+				for (int i = 0; i < LARGE_COUNT; i++) {
+					existing[i] = all[2 * i];
+					added[i] = all[2 * i + 1];
+				}
+				viewer.setInput(existing);
+				processEvents();
+				startMeasuring();
+				viewer.add(added);
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, ITERATIONS, JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test removal of a large set of elements interleaved with as many
+	 * remaining elements.
+	 */
+	public void testRemoveFromPopulatedTable() throws CoreException {
+		openBrowser();
+
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				TestElement[] all = createSortedElements(LARGE_COUNT);
+				TestElement[] removed = new TestElement[LARGE_COUNT];
+				for (int i = 0; i < LARGE_COUNT; i++) {
+					removed[i] = all[2 * i + 1];
+				}
+				viewer.setInput(all);
+				processEvents();
+				startMeasuring();
+				viewer.remove(removed);
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, ITERATIONS, JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,8 @@ public class TreeAddTest extends TreeTest {
 
 	static int TEST_COUNT = 1000;
 
+	static int LARGE_COUNT = 20000;
+
 	public TreeAddTest(String testName, int tagging) {
 		super(testName, tagging);
 	}
@@ -170,4 +172,72 @@ public class TreeAddTest extends TreeTest {
 		doTestAdd(1000, 2000, true);
 	}
 
+	/**
+	 * Test addition of a large set of siblings to a node which already has as
+	 * many children, interleaved in sort order.
+	 */
+	public void testAddToPopulatedNode() throws CoreException {
+		openBrowser();
+
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				TestTreeElement input = new TestTreeElement(0, null);
+				input.createChildren(LARGE_COUNT * 2);
+				TestTreeElement[] all = input.children;
+				viewer.getSorter().sort(viewer, all);
+				TestTreeElement[] existing = new TestTreeElement[LARGE_COUNT];
+				TestTreeElement[] added = new TestTreeElement[LARGE_COUNT];
+				for (int i = 0; i < LARGE_COUNT; i++) {
+					existing[i] = all[2 * i];
+					added[i] = all[2 * i + 1];
+				}
+				input.children = existing;
+				viewer.setInput(input);
+				processEvents();
+				input.children = all;
+				startMeasuring();
+				viewer.add(input, added);
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, ITERATIONS, JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test removal of a large set of siblings from a node which keeps as many
+	 * children.
+	 */
+	public void testRemoveFromPopulatedNode() throws CoreException {
+		openBrowser();
+
+		exercise(new TestRunnable() {
+			@Override
+			public void run() {
+				TestTreeElement input = new TestTreeElement(0, null);
+				input.createChildren(LARGE_COUNT * 2);
+				TestTreeElement[] all = input.children;
+				TestTreeElement[] kept = new TestTreeElement[LARGE_COUNT];
+				TestTreeElement[] removed = new TestTreeElement[LARGE_COUNT];
+				for (int i = 0; i < LARGE_COUNT; i++) {
+					kept[i] = all[2 * i];
+					removed[i] = all[2 * i + 1];
+				}
+				viewer.setInput(input);
+				processEvents();
+				input.children = kept;
+				startMeasuring();
+				viewer.remove(input, removed);
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, ITERATIONS, JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
 }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ui.internal.wizards.datatransfer.ArchiveFileExportOperation;
+import org.eclipse.ui.tests.harness.util.FileUtil;
+
+/**
+ * Measures the export of a project of one hundred thousand files to a zip
+ * file, with and without compression.
+ */
+public class ArchiveExportTest extends BasicPerformanceTest {
+
+	private static final int FOLDERS = 100;
+
+	private static final int FILES_PER_FOLDER = 1000;
+
+	private IProject project;
+
+	private File archive;
+
+	public ArchiveExportTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		project = FileUtil.createProject("ArchiveExportTest");
+		File root = project.getLocation().toFile();
+		StringBuilder contents = new StringBuilder();
+		for (int f = 0; f < FOLDERS; f++) {
+			File folder = new File(root, "folder" + f);
+			folder.mkdir();
+			for (int i = 0; i < FILES_PER_FOLDER; i++) {
+				// source like text, of 0 to 8 kB
+				contents.setLength(0);
+				int lines = (f * FILES_PER_FOLDER + i) % 200;
+				for (int line = 0; line < lines; line++) {
+					contents.append("\tprivate int field").append(line).append(" = ").append(i * line).append(";\n");
+				}
+				Files.write(new File(folder, "File" + i + ".java").toPath(),
+						contents.toString().getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		archive = File.createTempFile("export", ".zip");
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		if (archive != null) {
+			archive.delete();
+			archive = null;
+		}
+		if (project != null) {
+			FileUtil.deleteProject(project);
+			project = null;
+		}
+		super.doTearDown();
+	}
+
+	/**
+	 * Test the export without compression.
+	 */
+	public void testExportZip() throws Exception {
+		export(false);
+	}
+
+	/**
+	 * Test the export with compression.
+	 */
+	public void testExportZipCompressed() throws Exception {
+		export(true);
+	}
+
+	private void export(boolean compress) throws Exception {
+		ArchiveFileExportOperation operation = new ArchiveFileExportOperation(Collections.singletonList(project),
+				archive.getAbsolutePath());
+		operation.setUseCompression(compress);
+		operation.setUseTarFormat(false);
+
+		startMeasuring();
+		operation.run(new NullProgressMonitor());
+		stopMeasuring();
+		commitMeasurements();
+		assertPerformance();
+
+		assertTrue(operation.getStatus().isOK());
+		try (ZipFile zipFile = new ZipFile(archive)) {
+			// the files, and the .project file
+			assertEquals(FOLDERS * FILES_PER_FOLDER + 1, zipFile.size());
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.commands.CommandManager;
+import org.eclipse.core.commands.ParameterizedCommand;
+import org.eclipse.core.commands.contexts.Context;
+import org.eclipse.core.commands.contexts.ContextManager;
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
+import org.eclipse.e4.core.contexts.EclipseContextFactory;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.bindings.internal.BindingTable;
+import org.eclipse.e4.ui.bindings.internal.BindingTableManager;
+import org.eclipse.e4.ui.bindings.internal.ContextSet;
+import org.eclipse.jface.bindings.Binding;
+import org.eclipse.jface.bindings.keys.IKeyLookup;
+import org.eclipse.jface.bindings.keys.KeyBinding;
+import org.eclipse.jface.bindings.keys.KeyLookupFactory;
+import org.eclipse.jface.bindings.keys.KeySequence;
+import org.eclipse.jface.bindings.keys.KeyStroke;
+
+/**
+ * Measures the look up of key sequences in the binding tables, as done for
+ * every key stroke by the key binding dispatcher, with ten thousand bindings
+ * in fifty active contexts.
+ */
+public class BindingTableLookupTest extends BasicPerformanceTest {
+
+	private static final int CONTEXTS = 50;
+
+	private static final int BINDINGS_PER_CONTEXT = 200;
+
+	private static final int LOOKUPS = 100000;
+
+	private static final String SCHEME_ID = "org.eclipse.ui.defaultAcceleratorConfiguration";
+
+	private IEclipseContext eclipseContext;
+
+	private BindingTableManager manager;
+
+	private ContextSet contextSet;
+
+	private final List<KeySequence> sequences = new ArrayList<>();
+
+	public BindingTableLookupTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		eclipseContext = EclipseContextFactory.create(getName());
+		manager = ContextInjectionFactory.make(BindingTableManager.class, eclipseContext);
+		manager.setActiveSchemes(new String[] { SCHEME_ID });
+		ContextManager contextManager = new ContextManager();
+		CommandManager commandManager = new CommandManager();
+
+		IKeyLookup lookup = KeyLookupFactory.getDefault();
+		int[] modifierKeys = { lookup.getCtrl(), lookup.getAlt(), lookup.getCtrl() | lookup.getShift(),
+				lookup.getAlt() | lookup.getShift() };
+		List<Context> contexts = new ArrayList<>();
+		for (int c = 0; c < CONTEXTS; c++) {
+			Context context = contextManager.getContext("context" + c);
+			context.define("context" + c, null, null);
+			contexts.add(context);
+			BindingTable table = new BindingTable(context);
+			for (int b = 0; b < BINDINGS_PER_CONTEXT; b++) {
+				int i = c * BINDINGS_PER_CONTEXT + b;
+				KeyStroke first = KeyStroke.getInstance(modifierKeys[i % modifierKeys.length],
+						'A' + (i / modifierKeys.length) % 26);
+				KeyStroke second = KeyStroke.getInstance('A' + i % 26);
+				// half of the bindings are sequences of two strokes
+				KeySequence sequence = i % 2 == 0 ? KeySequence.getInstance(first)
+						: KeySequence.getInstance(new KeyStroke[] { first, second });
+				ParameterizedCommand command = new ParameterizedCommand(
+						commandManager.getCommand("command" + i), null);
+				Binding binding = new KeyBinding(sequence, command, SCHEME_ID, context.getId(), null, null,
+						null, Binding.SYSTEM);
+				table.addBinding(binding);
+				if (i % 97 == 0) {
+					sequences.add(sequence);
+					sequences.add(KeySequence.getInstance(first));
+				}
+			}
+			manager.addTable(table);
+		}
+		contextSet = manager.createContextSet(contexts);
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		sequences.clear();
+		contextSet = null;
+		manager = null;
+		eclipseContext.dispose();
+		eclipseContext = null;
+		super.doTearDown();
+	}
+
+	/**
+	 * Test the look ups of a key stroke: whether it starts a longer sequence,
+	 * else which binding it triggers.
+	 */
+	public void testKeyStrokeLookup() {
+		manager.getPerfectMatch(contextSet, sequences.get(0));
+
+		startMeasuring();
+		int matches = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			KeySequence sequence = sequences.get(i % sequences.size());
+			if (!manager.isPartialMatch(contextSet, sequence)
+					&& manager.getPerfectMatch(contextSet, sequence) != null) {
+				matches++;
+			}
+		}
+		stopMeasuring();
+		commitMeasurements();
+		assertPerformance();
+		assertTrue(matches > 0);
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.e4.ui.css.core.dom.ElementAdapter;
+import org.eclipse.e4.ui.css.core.engine.CSSEngine;
+import org.eclipse.e4.ui.css.core.impl.engine.CSSEngineImpl;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.css.ViewCSS;
+
+/**
+ * Measures the time needed to compute the style of every element of a
+ * synthetic widget tree against a theme sized style sheet.
+ */
+public class CSSStylingPerformanceTest extends BasicPerformanceTest {
+
+	private static final String[] TYPES = { "Shell", "Composite", "Tree", "Table", "ToolBar", "CTabFolder",
+			"Button", "Label", "Text", "Combo" };
+
+	private static final int RULES_PER_TYPE = 50;
+
+	private int elementCount;
+
+	public CSSStylingPerformanceTest(int elementCount) {
+		super("Compute styles of " + elementCount + " elements");
+		this.elementCount = elementCount;
+	}
+
+	@Override
+	protected void runTest() throws Throwable {
+		final TestCSSEngine engine = new TestCSSEngine();
+		engine.parseStyleSheet(new StringReader(createStyleSheet()));
+		final ViewCSS viewCSS = engine.getViewCSS();
+		final List<StyledElement> elements = createElements(engine);
+
+		exercise(new TestRunnable() {
+			@Override
+			public void run() throws Exception {
+				startMeasuring();
+				for (StyledElement element : elements) {
+					viewCSS.getComputedStyle(element, null);
+				}
+				stopMeasuring();
+			}
+		});
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static String createStyleSheet() {
+		StringBuilder css = new StringBuilder();
+		for (int i = 0; i < TYPES.length; i++) {
+			String type = TYPES[i];
+			css.append(type).append(" { color: #000000; }\n");
+			for (int j = 0; j < RULES_PER_TYPE; j++) {
+				css.append(type).append(".class").append(j).append(" { background-color: #FFFFFF; }\n");
+				css.append("Shell ").append(type).append("#id").append(j).append(" { color: #FF0000; }\n");
+				css.append(".parent").append(j).append(" > ").append(type).append(" { color: #00FF00; }\n");
+			}
+			css.append(type).append(":selected { color: #0000FF; }\n");
+		}
+		return css.toString();
+	}
+
+	private List<StyledElement> createElements(CSSEngine engine) {
+		List<StyledElement> elements = new ArrayList<>(elementCount);
+		StyledElement root = new StyledElement(TYPES[0], null, engine);
+		elements.add(root);
+		StyledElement parent = root;
+		for (int i = 1; i < elementCount; i++) {
+			StyledElement element = new StyledElement(TYPES[i % TYPES.length], parent, engine);
+			element.cssClass = "class" + (i % RULES_PER_TYPE) + " parent" + (i % 7);
+			if (i % 3 == 0) {
+				element.cssId = "id" + (i % RULES_PER_TYPE);
+			}
+			elements.add(element);
+			// keep the tree a few levels deep
+			parent = (i % 10 == 0) ? elements.get(i / 10) : parent;
+		}
+		return elements;
+	}
+
+	private static class TestCSSEngine extends CSSEngineImpl {
+		@Override
+		public void reapply() {
+		}
+	}
+
+	private static class StyledElement extends ElementAdapter {
+
+		private final String typeName;
+
+		private final StyledElement parent;
+
+		private List<Node> children;
+
+		String cssClass;
+
+		String cssId;
+
+		StyledElement(String typeName, StyledElement parent, CSSEngine engine) {
+			super(null, engine);
+			this.typeName = typeName;
+			this.parent = parent;
+			if (parent != null) {
+				if (parent.children == null) {
+					parent.children = new ArrayList<>();
+				}
+				parent.children.add(this);
+			}
+		}
+
+		@Override
+		public String getLocalName() {
+			return typeName;
+		}
+
+		@Override
+		public String getAttribute(String name) {
+			return "";
+		}
+
+		@Override
+		public String getNamespaceURI() {
+			return null;
+		}
+
+		@Override
+		public Node getParentNode() {
+			return parent;
+		}
+
+		@Override
+		public NodeList getChildNodes() {
+			if (children == null) {
+				return null;
+			}
+			return new NodeList() {
+				@Override
+				public int getLength() {
+					return children.size();
+				}
+
+				@Override
+				public Node item(int index) {
+					return children.get(index);
+				}
+			};
+		}
+
+		@Override
+		public String getCSSId() {
+			return cssId;
+		}
+
+		@Override
+		public String getCSSClass() {
+			return cssClass;
+		}
+
+		@Override
+		public String getCSSStyle() {
+			return null;
+		}
+	}
+}
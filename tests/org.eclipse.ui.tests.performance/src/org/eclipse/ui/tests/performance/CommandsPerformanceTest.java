@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -452,6 +452,41 @@ public final class CommandsPerformanceTest extends BasicPerformanceTest {
 		assertPerformance();
 	}
 
+	/**
+	 * <p>
+	 * Tests how long it takes to compute the bindings when the active contexts
+	 * change to a set of contexts not found in the cache, as when switching
+	 * between many parts. The bindings themselves do not change. It measures
+	 * how long it takes to compute the bindings for two hundred context sets,
+	 * more than the cache holds.
+	 * </p>
+	 *
+	 * @throws ParseException
+	 *             If "CTRL+F" can't be parsed for some strange reason.
+	 */
+	public final void testBindingCacheMissContexts() throws ParseException {
+		// Constants
+		final int cacheMisses = 200;
+		final KeySequence keySequence = KeySequence.getInstance("CTRL+F");
+
+		// Compute once.
+		final List contextList = new ArrayList(contextManager
+				.getActiveContextIds());
+		bindingManager.getPartialMatches(keySequence);
+
+		// Time how long it takes to solve the binding set for each context set.
+		startMeasuring();
+		for (int i = 0; i < cacheMisses; i++) {
+			final Set contextSet = new HashSet(contextList);
+			contextSet.remove(contextList.get(i % contextList.size()));
+			contextManager.setActiveContextIds(contextSet);
+			bindingManager.getPartialMatches(keySequence);
+		}
+		stopMeasuring();
+		commitMeasurements();
+		assertPerformance();
+	}
+
 	/**
 	 * <p>
 	 * Tests how long it takes to do a full computation (i.e., a cache miss) on
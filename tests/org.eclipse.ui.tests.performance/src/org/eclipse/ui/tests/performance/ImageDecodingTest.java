@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.resource.LocalResourceManager;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Measures how long it takes until a table shows five thousand unique icons,
+ * when decoding the icons in the UI thread and when decoding them in the
+ * background.
+ */
+public class ImageDecodingTest extends BasicPerformanceTest {
+
+	private static final int ICONS = 5000;
+
+	private File directory;
+
+	private ImageDescriptor[] descriptors;
+
+	private Shell shell;
+
+	private TableViewer viewer;
+
+	private LocalResourceManager resourceManager;
+
+	private Image placeholder;
+
+	public ImageDecodingTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		directory = Files.createTempDirectory("icons").toFile();
+		descriptors = new ImageDescriptor[ICONS];
+		PaletteData palette = new PaletteData(0xFF0000, 0xFF00, 0xFF);
+		for (int i = 0; i < ICONS; i++) {
+			ImageData data = new ImageData(16, 16, 24, palette);
+			for (int x = 0; x < 16; x++) {
+				for (int y = 0; y < 16; y++) {
+					data.setPixel(x, y, palette.getPixel(new RGB(i % 256, (i / 256 + x * 16) % 256, y * 16)));
+				}
+			}
+			ImageLoader loader = new ImageLoader();
+			loader.data = new ImageData[] { data };
+			File file = new File(directory, "icon" + i + ".png");
+			loader.save(file.getAbsolutePath(), SWT.IMAGE_PNG);
+			descriptors[i] = ImageDescriptor.createFromURL(file.toURI().toURL());
+		}
+
+		Display display = Display.getCurrent();
+		shell = new Shell(display);
+		shell.setSize(500, 500);
+		shell.setLayout(new FillLayout());
+		viewer = new TableViewer(shell);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		resourceManager = new LocalResourceManager(JFaceResources.getResources(display), shell);
+		placeholder = display.getSystemImage(SWT.ICON_INFORMATION);
+		shell.open();
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		if (shell != null) {
+			shell.close();
+			shell = null;
+		}
+		if (directory != null) {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+			directory = null;
+		}
+		super.doTearDown();
+	}
+
+	/**
+	 * Test filling the table, decoding the icons in the UI thread.
+	 */
+	public void testDecodeInUIThread() {
+		viewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public Image getImage(Object element) {
+				return resourceManager.createImageWithDefault((ImageDescriptor) element);
+			}
+		});
+
+		startMeasuring();
+		viewer.setInput(descriptors);
+		processEvents();
+		stopMeasuring();
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test filling the table, decoding the icons in the background. The time
+	 * is measured until every table item shows its icon, which includes the
+	 * updates of the table items once the icons are decoded.
+	 */
+	public void testDecodeInBackground() {
+		viewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public Image getImage(Object element) {
+				return resourceManager.createImageAsync((ImageDescriptor) element, placeholder,
+						() -> viewer.update(element, null));
+			}
+		});
+
+		startMeasuring();
+		viewer.setInput(descriptors);
+		boolean decoded = processEventsUntil(() -> {
+			for (TableItem item : viewer.getTable().getItems()) {
+				if (item.getImage() == placeholder) {
+					return false;
+				}
+			}
+			return true;
+		}, 60000);
+		stopMeasuring();
+		assertTrue("Every table item should show its icon", decoded);
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResourceFactory;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.workbench.modeling.EModelService;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+/**
+ * Measures saving and loading a large application model in the XMI and in the
+ * binary format of the workbench model.
+ */
+public class ModelPersistenceTest extends BasicPerformanceTest {
+
+	private static final int ITERATIONS = 10;
+
+	private File xmiFile;
+
+	private File binaryFile;
+
+	public ModelPersistenceTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		xmiFile = File.createTempFile("workbench", ".xmi");
+		binaryFile = File.createTempFile("workbench", ".bin");
+		MApplication application = ModelServiceFindTest
+				.createApplication(fWorkbench.getService(EModelService.class));
+		save(application, xmiFile, false);
+		save(application, binaryFile, true);
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		xmiFile.delete();
+		binaryFile.delete();
+		super.doTearDown();
+	}
+
+	private static Resource createResource(File file) {
+		ResourceSetImpl resourceSet = new ResourceSetImpl();
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap()
+				.put(Resource.Factory.Registry.DEFAULT_EXTENSION, new E4XMIResourceFactory());
+		return resourceSet.createResource(URI.createFileURI(file.getAbsolutePath()));
+	}
+
+	private static void save(MApplication application, File file, boolean binary) throws IOException {
+		Resource resource = createResource(file);
+		resource.getContents().add((EObject) application);
+		Map<String, Boolean> options = Collections.singletonMap(E4XMIResource.OPTION_BINARY_FORMAT, binary);
+		resource.save(options);
+	}
+
+	private static MApplication load(File file) throws IOException {
+		Resource resource = createResource(file);
+		resource.load(null);
+		return (MApplication) resource.getContents().get(0);
+	}
+
+	private void measureSave(File file, boolean binary) throws IOException {
+		MApplication application = load(file);
+		for (int i = 0; i < ITERATIONS; i++) {
+			startMeasuring();
+			((EObject) application).eResource().save(
+					Collections.singletonMap(E4XMIResource.OPTION_BINARY_FORMAT, binary));
+			stopMeasuring();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private void measureLoad(File file) throws IOException {
+		for (int i = 0; i < ITERATIONS; i++) {
+			startMeasuring();
+			MApplication application = load(file);
+			stopMeasuring();
+			assertEquals(1, application.getChildren().size());
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test saving the model as XMI.
+	 */
+	public void testSaveXMI() throws IOException {
+		measureSave(xmiFile, false);
+	}
+
+	/**
+	 * Test saving the model in the binary format, which is also smaller.
+	 */
+	public void testSaveBinary() throws IOException {
+		measureSave(binaryFile, true);
+		assertTrue("Binary model is smaller than XMI", binaryFile.length() < xmiFile.length());
+	}
+
+	/**
+	 * Test loading the model from XMI.
+	 */
+	public void testLoadXMI() throws IOException {
+		measureLoad(xmiFile);
+	}
+
+	/**
+	 * Test loading the model from the binary format.
+	 */
+	public void testLoadBinary() throws IOException {
+		measureLoad(binaryFile);
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPerspective;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPerspectiveStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartSashContainer;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.model.application.ui.menu.MHandledToolItem;
+import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
+import org.eclipse.e4.ui.workbench.modeling.EModelService;
+
+/**
+ * Measures the look up of elements by id and by tag in a large synthetic
+ * application model of about fifty thousand elements.
+ */
+public class ModelServiceFindTest extends BasicPerformanceTest {
+
+	private static final int PERSPECTIVES = 10;
+
+	private static final int STACKS = 50;
+
+	private static final int PARTS = 20;
+
+	private static final int TOOL_ITEMS = 3;
+
+	private static final int LOOKUPS = 1000;
+
+	private EModelService modelService;
+
+	private MApplication application;
+
+	public ModelServiceFindTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		modelService = fWorkbench.getService(EModelService.class);
+		application = createApplication(modelService);
+	}
+
+	/**
+	 * Create an application with a window holding perspectives of part
+	 * stacks, whose parts have an id, a tag and a tool bar.
+	 *
+	 * @param modelService
+	 *            the service creating the elements
+	 * @return the application
+	 */
+	static MApplication createApplication(EModelService modelService) {
+		MApplication application = modelService.createModelElement(MApplication.class);
+		MWindow window = modelService.createModelElement(MWindow.class);
+		application.getChildren().add(window);
+		MPerspectiveStack perspectiveStack = modelService.createModelElement(MPerspectiveStack.class);
+		window.getChildren().add(perspectiveStack);
+		int count = 0;
+		for (int p = 0; p < PERSPECTIVES; p++) {
+			MPerspective perspective = modelService.createModelElement(MPerspective.class);
+			perspectiveStack.getChildren().add(perspective);
+			MPartSashContainer sash = modelService.createModelElement(MPartSashContainer.class);
+			perspective.getChildren().add(sash);
+			for (int s = 0; s < STACKS; s++) {
+				MPartStack stack = modelService.createModelElement(MPartStack.class);
+				sash.getChildren().add(stack);
+				for (int i = 0; i < PARTS; i++) {
+					MPart part = modelService.createModelElement(MPart.class);
+					part.setElementId("part" + count);
+					part.getTags().add("tag" + (count % 100));
+					part.setContributorURI("platform:/plugin/org.eclipse.ui.tests.performance");
+					count++;
+					MToolBar toolBar = modelService.createModelElement(MToolBar.class);
+					part.setToolbar(toolBar);
+					for (int t = 0; t < TOOL_ITEMS; t++) {
+						MHandledToolItem item = modelService.createModelElement(MHandledToolItem.class);
+						toolBar.getChildren().add(item);
+					}
+					stack.getChildren().add(part);
+				}
+			}
+		}
+		perspectiveStack.setSelectedElement(perspectiveStack.getChildren().get(0));
+		return application;
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		application = null;
+		modelService = null;
+		super.doTearDown();
+	}
+
+	/**
+	 * Test the look up of single parts by id in all perspectives.
+	 */
+	public void testFindById() {
+		int parts = PERSPECTIVES * STACKS * PARTS;
+		modelService.find("part0", application);
+
+		startMeasuring();
+		for (int i = 0; i < LOOKUPS; i++) {
+			String id = "part" + (i * 7919 % parts);
+			assertNotNull(modelService.find(id, application));
+		}
+		stopMeasuring();
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test the look up of tagged parts in the active perspective.
+	 */
+	public void testFindByTag() {
+		modelService.findElements(application, null, MPart.class, Collections.singletonList("tag0"),
+				EModelService.PRESENTATION);
+
+		startMeasuring();
+		for (int i = 0; i < LOOKUPS; i++) {
+			List<MPart> parts = modelService.findElements(application, null, MPart.class,
+					Collections.singletonList("tag" + (i % 100)), EModelService.PRESENTATION);
+			assertEquals(STACKS * PARTS / 100, parts.size());
+		}
+		stopMeasuring();
+		commitMeasurements();
+		assertPerformance();
+	}
+}
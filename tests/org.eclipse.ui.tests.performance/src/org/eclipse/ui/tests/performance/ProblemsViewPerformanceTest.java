@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,8 +17,10 @@ import java.util.Map;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.test.performance.Dimension;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
@@ -38,6 +40,10 @@ public class ProblemsViewPerformanceTest extends BasicPerformanceTest {
 
 	private String PROBLEMS_VIEW_ID = "org.eclipse.ui.tests.performance.problemsView";
 
+	private static final int BASE_MARKERS = 10000;
+
+	private static final int CHANGED_MARKERS = 20;
+
 	/**
 	 * Create a new instance of the receiver.
 	 *
@@ -83,6 +89,85 @@ public class ProblemsViewPerformanceTest extends BasicPerformanceTest {
 
 	}
 
+	/**
+	 * Test the update of a populated problems view by small marker deltas,
+	 * which add, change and remove a few markers among many.
+	 */
+	public void testIncrementalUpdate() throws CoreException {
+		IWorkbenchWindow window = openTestWindow(EMPTY_PERSPECTIVE_ID);
+		final IWorkbenchPage page = window.getActivePage();
+
+		PerformanceProblemsView view;
+
+		try {
+			view = (PerformanceProblemsView) page.showView(PROBLEMS_VIEW_ID);
+		} catch (PartInitException e) {
+			e.printStackTrace();
+			fail();
+			return;
+		}
+
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable) monitor -> {
+			for (int i = 0; i < BASE_MARKERS; i++) {
+				createMarker(root, i);
+			}
+		}, null);
+		waitForUpdates(view);
+
+		tagIfNecessary("UI - Problems View incremental update",
+				Dimension.ELAPSED_PROCESS);
+
+		try {
+			for (int i = 0; i < 100; i++) {
+				final int round = i;
+				startMeasuring();
+				ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable) monitor -> {
+					IMarker[] markers = root.findMarkers(IMarker.PROBLEM, false,
+							IResource.DEPTH_ZERO);
+					for (int j = 0; j < CHANGED_MARKERS; j++) {
+						IMarker marker = markers[(round * 7919 + j * 101) % markers.length];
+						marker.setAttribute(IMarker.SEVERITY, round % 2 == 0 ? IMarker.SEVERITY_WARNING
+								: IMarker.SEVERITY_ERROR);
+					}
+					markers[round % markers.length].delete();
+					createMarker(root, BASE_MARKERS + round);
+				}, null);
+				waitForUpdates(view);
+				stopMeasuring();
+			}
+		} finally {
+			removeMarkers();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Process events until the view processed the pending marker changes.
+	 *
+	 * @param view
+	 */
+	private void waitForUpdates(PerformanceProblemsView view) {
+		do {
+			processEvents();
+		} while (Job.getJobManager().find(view.MARKERSVIEW_UPDATE_JOB_FAMILY).length > 0);
+	}
+
+	/**
+	 * Create a test marker on the resource.
+	 *
+	 * @param resource
+	 * @param index
+	 * @throws CoreException
+	 */
+	private static void createMarker(IResource resource, int index) throws CoreException {
+		Map<String, Object> attribs = new HashMap<>();
+		attribs.put(IMarker.SEVERITY, Integer.valueOf(IMarker.SEVERITY_ERROR));
+		attribs.put(IMarker.MESSAGE, "this is a test " + index);
+		MarkerUtilities.createMarker(resource, attribs, IMarker.PROBLEM);
+	}
+
 	/**
 	 * Remove the created markers
 	 */
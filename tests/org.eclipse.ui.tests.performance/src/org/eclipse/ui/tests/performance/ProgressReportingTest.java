@@ -3,17 +3,21 @@ package org.eclipse.ui.tests.performance;
 import java.lang.reflect.InvocationTargetException;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.test.performance.Dimension;
+import org.eclipse.ui.IPageLayout;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.internal.IPreferenceConstants;
 import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.progress.ProgressManager;
 
 /**
  * Verifies the performance of progress reporting APIs in various contexts which
@@ -40,6 +44,11 @@ public class ProgressReportingTest extends BasicPerformanceTest {
 	 */
 	public static final int VERY_SLOW_OPERATION_ITERATIONS = 100000;
 
+	/**
+	 * Number of jobs scheduled by {@link #testManyShortJobs()}.
+	 */
+	public static final int SHORT_JOBS = 100000;
+
 	/**
 	 * Maximum time to run each test. Increase to get better results during
 	 * profiling.
@@ -311,6 +320,48 @@ public class ProgressReportingTest extends BasicPerformanceTest {
 		});
 	}
 
+	/**
+	 * Test the cost of reporting many short jobs in the progress view, until
+	 * all their updates were delivered to the UI.
+	 */
+	public void testManyShortJobs() throws Exception {
+		IWorkbenchWindow window = openTestWindow();
+		window.getActivePage().showView(IPageLayout.ID_PROGRESS_VIEW);
+		setRunInBackground(true);
+		ProgressManager progressManager = ProgressManager.getInstance();
+		runAsyncTest(() -> {
+			Job.create("Test Job", monitor -> {
+				Object family = new Object();
+				for (int i = 0; i < SHORT_JOBS; i++) {
+					new Job("Short Job " + i) {
+						@Override
+						protected IStatus run(IProgressMonitor jobMonitor) {
+							jobMonitor.beginTask(getName(), 1);
+							jobMonitor.worked(1);
+							jobMonitor.done();
+							return Status.OK_STATUS;
+						}
+
+						@Override
+						public boolean belongsTo(Object jobFamily) {
+							return jobFamily == family;
+						}
+					}.schedule();
+				}
+				try {
+					Job.getJobManager().join(family, null);
+					while (progressManager.hasPendingUpdates()) {
+						Thread.sleep(10);
+					}
+				} catch (InterruptedException e) {
+					throw new OperationCanceledException();
+				}
+
+				endAsyncTest(null);
+			}).schedule();
+		});
+	}
+
 	/**
 	 * Test the cost of monitor.subTask in the progress service
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,7 +35,14 @@ public class UIPerformanceTestSuite extends FilteredTestSuite {
 		addTest(new ViewPerformanceSuite());
 		addTest(new EditorPerformanceSuite());
 		addTest(new TestSuite(CommandsPerformanceTest.class));
+		addTest(new TestSuite(ModelServiceFindTest.class));
+		addTest(new TestSuite(ModelPersistenceTest.class));
+		addTest(new TestSuite(BindingTableLookupTest.class));
+		addTest(new TestSuite(ImageDecodingTest.class));
+		addTest(new TestSuite(ArchiveExportTest.class));
 		addTest(new LabelProviderTestSuite());
 		addTest(new TestSuite(ProgressReportingTest.class));
+		addTest(new ProblemsViewPerformanceTest("testIncrementalUpdate"));
+		addTest(new CSSStylingPerformanceTest(10000));
 	}
 }
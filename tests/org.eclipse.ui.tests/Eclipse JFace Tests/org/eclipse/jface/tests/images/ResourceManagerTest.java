@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2007 IBM Corporation and others.
+ * Copyright (c) 2004, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import org.eclipse.jface.resource.ResourceManager;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
@@ -286,4 +287,60 @@ public class ResourceManagerTest extends TestCase {
     	// Destroy the resource we created
     	globalResourceManager.destroy(descriptor);
     }
+
+    /**
+     * Tests that an image created asynchronously is the placeholder until
+     * decoded, and that the callback runs in the thread of the display.
+     *
+     * @throws Exception
+     */
+    public void testCreateImageAsync() throws Exception {
+        Display display = Display.getCurrent();
+        ImageDescriptor descriptor = getImage("icons/mockeditorpart2.gif");
+        Thread[] callbackThread = new Thread[1];
+
+        Image image = globalResourceManager.createImageAsync(descriptor, testImage,
+                () -> callbackThread[0] = Thread.currentThread());
+        Assert.assertSame("The placeholder should be returned first", testImage, image);
+        Assert.assertNull("Nothing should be allocated yet", globalResourceManager.find(descriptor));
+
+        long end = System.currentTimeMillis() + 10000;
+        while (callbackThread[0] == null && System.currentTimeMillis() < end) {
+            if (!display.readAndDispatch()) {
+                Thread.sleep(10);
+            }
+        }
+        Assert.assertSame("The callback should run in the thread of the display", display.getThread(),
+                callbackThread[0]);
+
+        image = globalResourceManager.createImageAsync(descriptor, testImage, null);
+        Assert.assertNotSame("The image should be created once decoded", testImage, image);
+        validateResource(image);
+        Assert.assertSame(image, globalResourceManager.find(descriptor));
+        Assert.assertEquals(descriptor.getImageData().width, image.getBounds().width);
+        globalResourceManager.destroyImage(descriptor);
+    }
+
+    /**
+     * Tests that the image of a descriptor which is not known to be safe to
+     * decode in the background is created in the calling thread.
+     */
+    public void testCreateImageAsyncInCallingThread() {
+        ImageDescriptor file = getImage("icons/mockeditorpart2.gif");
+        Thread[] decodingThread = new Thread[1];
+        ImageDescriptor descriptor = new ImageDescriptor() {
+            @Override
+            public ImageData getImageData() {
+                decodingThread[0] = Thread.currentThread();
+                return file.getImageData();
+            }
+        };
+
+        Image image = globalResourceManager.createImageAsync(descriptor, testImage,
+                () -> Assert.fail("The image should be created without callback"));
+        Assert.assertNotSame("The image should be created at once", testImage, image);
+        Assert.assertSame(Thread.currentThread(), decodingThread[0]);
+        Assert.assertSame(image, globalResourceManager.find(descriptor));
+        globalResourceManager.destroyImage(descriptor);
+    }
 }
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.images;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.ui.plugin.AbstractUIPlugin;
+
+/**
+ * Tests the image data of the descriptors created from URLs, which is cached.
+ *
+ * @since 3.13
+ */
+public class URLImageDescriptorTest extends TestCase {
+
+	private static ImageDescriptor getImage(String path) {
+		return AbstractUIPlugin.imageDescriptorFromPlugin("org.eclipse.ui.tests", path);
+	}
+
+	/**
+	 * Test that the image data returned for the same image are equal copies.
+	 */
+	public void testImageDataCopies() {
+		ImageData data = getImage("icons/anything.gif").getImageData();
+		assertNotNull(data);
+		byte[] pixels = data.data.clone();
+		Arrays.fill(data.data, (byte) 0);
+
+		ImageData data2 = getImage("icons/anything.gif").getImageData();
+		assertNotSame(data, data2);
+		assertEquals(data.width, data2.width);
+		assertEquals(data.height, data2.height);
+		assertTrue(Arrays.equals(pixels, data2.data));
+	}
+
+	/**
+	 * Test that a missing image stays missing.
+	 *
+	 * @throws MalformedURLException
+	 */
+	public void testMissingImageData() throws MalformedURLException {
+		URL url = new URL(URLImageDescriptorTest.class.getResource("anything.gif"), "missing.gif");
+		ImageDescriptor descriptor = ImageDescriptor.createFromURL(url);
+		assertNull(descriptor.getImageData());
+		assertNull(descriptor.getImageData());
+	}
+}
@@ -28,6 +28,7 @@ public class AllTests extends TestSuite {
 		addTestSuite(MultipleEqualElementsTreeViewerTest.class);
 		addTestSuite(LazySortedCollectionTest.class);
 		addTestSuite(TreeViewerTest.class);
+		addTestSuite(AsynchronousExpansionTreeViewerTest.class);
 		addTestSuite(VirtualTreeViewerTest.class);
 		addTestSuite(SimpleTreeViewerTest.class);
 		addTestSuite(SimpleTableViewerTest.class);
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.IThreadSafeContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.TreeItem;
+
+public class AsynchronousExpansionTreeViewerTest extends ViewerTestCase {
+
+	private TreeViewer fTreeViewer;
+
+	private ThreadSafeContentProvider fContentProvider;
+
+	private static class ThreadSafeContentProvider extends TestModelContentProvider
+			implements IThreadSafeContentProvider {
+
+		final AtomicInteger backgroundCalls = new AtomicInteger();
+
+		volatile Object blockedElement;
+
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public Object[] getChildren(Object element) {
+			if (Display.getCurrent() == null) {
+				backgroundCalls.incrementAndGet();
+			}
+			if (element == blockedElement) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return super.getChildren(element);
+		}
+	}
+
+	public AsynchronousExpansionTreeViewerTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Composite parent) {
+		fTreeViewer = new TreeViewer(parent);
+		fTreeViewer.setAsynchronousExpansion(true);
+		fContentProvider = new ThreadSafeContentProvider();
+		fTreeViewer.setContentProvider(fContentProvider);
+		fTreeViewer.setLabelProvider(new TestLabelProvider());
+		return fTreeViewer;
+	}
+
+	private void waitForExpansion() {
+		long start = System.currentTimeMillis();
+		while (fTreeViewer.isExpansionPending() && System.currentTimeMillis() - start < 10000) {
+			processEvents();
+			sleep(10);
+		}
+		assertFalse("Expansion did not complete", fTreeViewer.isExpansionPending());
+	}
+
+	public void testExpandAll() {
+		fTreeViewer.expandAll();
+		waitForExpansion();
+
+		assertTrue(fContentProvider.backgroundCalls.get() > 0);
+		for (TestElement first : fRootElement.getChildren()) {
+			assertTrue(((TreeItem) fViewer.testFindItem(first)).getExpanded());
+			for (TestElement second : first.getChildren()) {
+				assertTrue(((TreeItem) fViewer.testFindItem(second)).getExpanded());
+				for (TestElement third : second.getChildren()) {
+					assertNotNull(fViewer.testFindItem(third));
+				}
+			}
+		}
+	}
+
+	public void testExpandToLevel() {
+		fTreeViewer.expandToLevel(2);
+		waitForExpansion();
+
+		TestElement first = fRootElement.getFirstChild();
+		TestElement second = first.getFirstChild();
+		assertTrue(((TreeItem) fViewer.testFindItem(first)).getExpanded());
+		assertNotNull(fViewer.testFindItem(second));
+		assertFalse(((TreeItem) fViewer.testFindItem(second)).getExpanded());
+		assertNull(fViewer.testFindItem(second.getFirstChild()));
+	}
+
+	public void testCollapseCancelsPendingExpansion() {
+		TestElement first = fRootElement.getFirstChild();
+		fContentProvider.blockedElement = first;
+		fTreeViewer.expandToLevel(first, 1);
+		assertTrue(fTreeViewer.isExpansionPending());
+
+		fTreeViewer.collapseToLevel(first, AbstractTreeViewer.ALL_LEVELS);
+		assertFalse(fTreeViewer.isExpansionPending());
+		fContentProvider.release.countDown();
+		long start = System.currentTimeMillis();
+		while (System.currentTimeMillis() - start < 200) {
+			processEvents();
+			sleep(10);
+		}
+
+		assertNull(fViewer.testFindItem(first.getFirstChild()));
+		assertFalse(((TreeItem) fViewer.testFindItem(first)).getExpanded());
+
+		// expanding again fetches the children
+		fContentProvider.blockedElement = null;
+		fTreeViewer.expandToLevel(first, 1);
+		waitForExpansion();
+		assertNotNull(fViewer.testFindItem(first.getFirstChild()));
+	}
+
+	public void testContentProviderNotThreadSafe() {
+		fTreeViewer.setContentProvider(new TestModelContentProvider());
+		fTreeViewer.expandToLevel(2);
+
+		assertFalse(fTreeViewer.isExpansionPending());
+		assertNotNull(fViewer.testFindItem(fRootElement.getFirstChild().getFirstChild()));
+	}
+}
@@ -125,6 +125,22 @@ public class Bug205700TreeViewerTest extends TestCase {
 				"Child5" });
 	}
 
+	public void testAddExistingAmongEquallySortedElements() throws Exception {
+		viewer.setSorter(new ViewerSorter());
+		TreeNode first = new TreeNode("Child1");
+		TreeNode second = new TreeNode("Child1");
+		rootNode.add(first);
+		rootNode.add(second);
+		viewer.add(rootNode, new Object[] { first, second });
+		assertItemNames(new String[] { "Child1", "Child1", "Child1", "Child10",
+				"Child5" });
+
+		// the first of the equally sorted items must be found
+		viewer.add(rootNode, child1);
+
+		assertEquals(5, viewer.getTree().getItemCount());
+	}
+
 	private Object createInput() {
 		rootNode = new TreeNode("Root");
 
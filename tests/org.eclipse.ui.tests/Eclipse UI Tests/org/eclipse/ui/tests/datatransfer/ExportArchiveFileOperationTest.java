@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,13 @@
 package org.eclipse.ui.tests.datatransfer;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -32,12 +34,14 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.tests.harness.FileSystemHelper;
 import org.eclipse.ui.dialogs.IOverwriteQuery;
 import org.eclipse.ui.internal.wizards.datatransfer.ArchiveFileExportOperation;
 import org.eclipse.ui.internal.wizards.datatransfer.TarEntry;
 import org.eclipse.ui.internal.wizards.datatransfer.TarException;
 import org.eclipse.ui.internal.wizards.datatransfer.TarFile;
+import org.eclipse.ui.internal.wizards.datatransfer.ZipArchiveWriter;
 import org.eclipse.ui.tests.harness.util.FileUtil;
 import org.eclipse.ui.tests.harness.util.UITestCase;
 
@@ -198,6 +202,110 @@ public class ExportArchiveFileOperationTest extends UITestCase implements
 		verifyFolders(directoryNames.length + emptyDirectoryNames.length, ZIP_FILE_EXT);
 	}
 
+	public void testExportZipContents() throws Exception {
+		exportZipContents(false);
+	}
+
+	public void testExportZipContentsCompressed() throws Exception {
+		exportZipContents(true);
+	}
+
+	/**
+	 * Exports files written in parallel and a file larger than the ones
+	 * compressed in parallel, and compares the contents of the entries with the
+	 * ones of the files.
+	 */
+	private void exportZipContents(boolean compress) throws Exception {
+		byte[] contents = new byte[3 * 1024 * 1024];
+		for (int i = 0; i < contents.length; i++) {
+			contents[i] = (byte) (i % 251 + i / 4096);
+		}
+		project.getFolder(directoryNames[0]).getFile("large.bin").create(new ByteArrayInputStream(contents), true,
+				new NullProgressMonitor());
+
+		filePath = localDirectory + "/" + FILE_NAME + "." + ZIP_FILE_EXT;
+		List resources = new ArrayList();
+		resources.add(project);
+		ArchiveFileExportOperation operation = new ArchiveFileExportOperation(resources, filePath);
+		operation.setUseCompression(compress);
+		operation.setUseTarFormat(false);
+		operation.run(new NullProgressMonitor());
+		assertTrue(operation.getStatus().isOK());
+
+		int files = 0;
+		try (ZipFile zipFile = new ZipFile(filePath)) {
+			Enumeration entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = (ZipEntry) entries.nextElement();
+				assertEquals(compress ? ZipEntry.DEFLATED : ZipEntry.STORED, entry.getMethod());
+				if (entry.isDirectory()) {
+					continue;
+				}
+				IFile file = project.getWorkspace().getRoot().getFile(new Path(entry.getName()));
+				try (InputStream expected = file.getContents(); InputStream actual = zipFile.getInputStream(entry)) {
+					assertTrue(entry.getName(), Arrays.equals(readAll(expected), readAll(actual)));
+				}
+				files++;
+			}
+		}
+		// the files, the large file and the .project file
+		assertEquals(directoryNames.length * fileNames.length + 2, files);
+	}
+
+	/**
+	 * Tests that an entry whose contents cannot be read is removed from the
+	 * archive, and that the entries after it are written.
+	 */
+	public void testZipEntryReadFailure() throws Exception {
+		filePath = localDirectory + "/" + FILE_NAME + "." + ZIP_FILE_EXT;
+		byte[] contents = "contents".getBytes("UTF-8");
+		ZipArchiveWriter writer = new ZipArchiveWriter(filePath);
+		writer.writeEntry("first.txt", System.currentTimeMillis(), true, new ByteArrayInputStream(contents));
+		InputStream failing = new InputStream() {
+			private int read;
+
+			@Override
+			public int read() throws IOException {
+				if (++read > 1024 * 1024) {
+					throw new IOException("Read failure");
+				}
+				return read % 251;
+			}
+		};
+		try {
+			writer.writeEntry("failing.bin", System.currentTimeMillis(), false, failing);
+			fail("The read failure should be thrown");
+		} catch (IOException e) {
+			assertEquals("Read failure", e.getMessage());
+		}
+		writer.writeEntry("last.txt", System.currentTimeMillis(), false, new ByteArrayInputStream(contents));
+		writer.close();
+
+		List names = new ArrayList();
+		try (ZipFile zipFile = new ZipFile(filePath)) {
+			Enumeration entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = (ZipEntry) entries.nextElement();
+				names.add(entry.getName());
+				try (InputStream actual = zipFile.getInputStream(entry)) {
+					assertTrue(entry.getName(), Arrays.equals(contents, readAll(actual)));
+				}
+			}
+		}
+		assertEquals(Arrays.asList("first.txt", "last.txt"), names);
+		assertTrue(new File(filePath).length() < 1024);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
 	public void testExportTar() throws Exception {
 		filePath = localDirectory + "/" + FILE_NAME + "." + TAR_FILE_EXT;
 		List resources = new ArrayList();
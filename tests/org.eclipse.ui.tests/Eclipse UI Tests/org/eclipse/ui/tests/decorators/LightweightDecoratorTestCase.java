@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,18 @@
  *******************************************************************************/
 package org.eclipse.ui.tests.decorators;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.internal.IPreferenceConstants;
+import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.decorators.DecoratorManager;
+import org.eclipse.ui.internal.decorators.LightweightDecoratorManager;
 
 /**
  * @version 1.0
@@ -42,4 +53,147 @@ public class LightweightDecoratorTestCase extends DecoratorEnablementTestCase
 
 	}
 
+	/**
+	 * Decorate with several decoration threads and check the decorator
+	 * statistics.
+	 */
+	public void testParallelDecoration() {
+		IPreferenceStore store = WorkbenchPlugin.getDefault().getPreferenceStore();
+		store.setValue(IPreferenceConstants.DECORATION_THREADS, 4);
+		try {
+			getDecoratorManager().clearCaches();
+			definition.setEnabled(true);
+			getDecoratorManager().updateForEnablementChange();
+			processEvents();
+
+			LightweightDecoratorManager lightweightManager = getDecoratorManager().getLightweightManager();
+			int count = lightweightManager.getDecorationCount(definition.getId());
+			updated = false;
+			// Handles which are not shown anywhere, so none is decorated yet
+			IResource[] resources = new IResource[20];
+			for (int i = 0; i < resources.length; i++) {
+				resources[i] = testFolder.getFile("parallel" + i + ".txt");
+				getDecoratorManager().prepareDecoration(resources[i], resources[i].getName());
+			}
+
+			String id = definition.getId();
+			assertTrue("Resources were decorated",
+					processEventsUntil(() -> lightweightManager.getDecorationCount(id) >= count + resources.length,
+							10000));
+			assertTrue("Got an update", processEventsUntil(() -> updated, 10000));
+			assertTrue(lightweightManager.getDecorationTime(id) >= 0);
+		} finally {
+			store.setToDefault(IPreferenceConstants.DECORATION_THREADS);
+			definition.setEnabled(false);
+			getDecoratorManager().updateForEnablementChange();
+		}
+	}
+
+	/**
+	 * Check that decorations are kept after they are shown and that an update
+	 * of one element leaves the decorations of the others.
+	 */
+	public void testUpdateKeepsOtherDecorations() {
+		try {
+			getDecoratorManager().clearCaches();
+			definition.setEnabled(true);
+			getDecoratorManager().updateForEnablementChange();
+			processEvents();
+
+			IResource first = testFolder.getFile("cachedFirst.txt");
+			IResource second = testFolder.getFile("cachedSecond.txt");
+			assertTrue("Resources were decorated", processEventsUntil(
+					() -> getDecoratorManager().prepareDecoration(first, first.getName())
+							& getDecoratorManager().prepareDecoration(second, second.getName()),
+					10000));
+			processEvents();
+			assertTrue(getDecoratorManager().prepareDecoration(first, first.getName()));
+			assertTrue(getDecoratorManager().prepareDecoration(second, second.getName()));
+
+			TestLightweightDecoratorContributor.contributor.refreshListeners(first);
+			assertTrue("Other decoration was kept",
+					getDecoratorManager().prepareDecoration(second, second.getName()));
+			assertTrue("Resource was decorated again", processEventsUntil(
+					() -> getDecoratorManager().prepareDecoration(first, first.getName()), 10000));
+		} finally {
+			definition.setEnabled(false);
+			getDecoratorManager().updateForEnablementChange();
+		}
+	}
+
+	/**
+	 * Check that a label change which does not name the elements clears all
+	 * decorations.
+	 */
+	public void testGeneralUpdateClearsDecorations() {
+		try {
+			getDecoratorManager().clearCaches();
+			definition.setEnabled(true);
+			getDecoratorManager().updateForEnablementChange();
+			processEvents();
+
+			IResource first = testFolder.getFile("clearedFirst.txt");
+			IResource second = testFolder.getFile("clearedSecond.txt");
+			assertTrue("Resources were decorated", processEventsUntil(
+					() -> getDecoratorManager().prepareDecoration(first, first.getName())
+							& getDecoratorManager().prepareDecoration(second, second.getName()),
+					10000));
+
+			getDecoratorManager().labelProviderChanged(
+					new LabelProviderChangedEvent(TestLightweightDecoratorContributor.contributor));
+			assertFalse("Decoration was cleared", getDecoratorManager().prepareDecoration(first, first.getName()));
+			assertFalse("Decoration was cleared",
+					getDecoratorManager().prepareDecoration(second, second.getName()));
+			assertTrue("Resources were decorated again", processEventsUntil(
+					() -> getDecoratorManager().prepareDecoration(first, first.getName())
+							& getDecoratorManager().prepareDecoration(second, second.getName()),
+					10000));
+		} finally {
+			definition.setEnabled(false);
+			getDecoratorManager().updateForEnablementChange();
+		}
+	}
+
+	/**
+	 * Tests that the decorations of a declarative decorator are computed again
+	 * when its enablement changes without any event.
+	 */
+	public void testDeclarativeDecoratorStateChange() {
+		String id = "org.eclipse.ui.tests.decorators.declaredStateDecorator";
+		String property = "org.eclipse.ui.tests.decorators.declaredState";
+		try {
+			System.setProperty(property, "false");
+			getDecoratorManager().setEnabled(id, true);
+			processEvents();
+
+			IResource resource = testFolder.getFile("declaredState.txt");
+			Image image = PlatformUI.getWorkbench().getSharedImages().getImage(ISharedImages.IMG_OBJ_FILE);
+			Image[] decorated = new Image[1];
+			assertTrue("Resource was decorated", processEventsUntil(() -> {
+				if (!getDecoratorManager().prepareDecoration(resource, resource.getName())) {
+					return false;
+				}
+				decorated[0] = getDecoratorManager().decorateImage(image, resource);
+				return true;
+			}, 10000));
+			Image undecorated = decorated[0];
+			assertTrue("Decoration finished", processEventsUntil(
+					() -> Job.getJobManager().find(DecoratorManager.FAMILY_DECORATE).length == 0, 10000));
+
+			System.setProperty(property, "true");
+			decorated[0] = null;
+			assertTrue("Resource was decorated again", processEventsUntil(() -> {
+				if (!getDecoratorManager().prepareDecoration(resource, resource.getName())) {
+					return false;
+				}
+				decorated[0] = getDecoratorManager().decorateImage(image, resource);
+				return decorated[0] != undecorated;
+			}, 10000));
+			assertNotSame("The overlay of the declarative decorator is shown", undecorated, decorated[0]);
+		} finally {
+			System.clearProperty(property);
+			getDecoratorManager().setEnabled(id, false);
+		}
+	}
+
 }
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.dialogs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ui.dialogs.FilteredItemsCache;
+import org.eclipse.ui.dialogs.SearchPattern;
+
+/**
+ * Tests that the index of the {@link FilteredItemsCache} returns all items
+ * matched by a {@link SearchPattern}.
+ */
+public class FilteredItemsCacheTest extends TestCase {
+
+	private static final String[] NAMES = { "FilteredItemsCache.java", "FilteredItemsSelectionDialog.java",
+			"filteredItems.txt", "SearchPattern.java", "SearchPatternAuto.java", "StringMatcher.java",
+			"NullPointerException.java", "NewPerfData.java", "plugin.xml", "PLUGIN.properties", "build.properties",
+			"about.html", "a", "ab", "" };
+
+	private static final String[] PATTERNS = { "", "f", "F", "filtered", "FILTEREDITEMS", "FIC", "FISD", "NPE",
+			"NPD", "SP", "SPA", "plugin", "plugin.xml", "plugin.xml<", "plugin.xml ", "*.java", "*items*",
+			"*Item?Cache*", "s?arch*", "*.properties", "build*", "a", "ab<", "*", "?", "*a*", "pl*xml", "x" };
+
+	private FilteredItemsCache cache;
+
+	public FilteredItemsCacheTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = new FilteredItemsCache(item -> (String) item);
+		cache.add("ignored");
+		assertFalse(cache.isFilled());
+		assertNull(cache.getCandidates("ignored", SearchPattern.RULE_EXACT_MATCH));
+		fill(NAMES);
+	}
+
+	private void fill(String[] names) {
+		cache.fill(Arrays.asList(names));
+		assertTrue(cache.isFilled());
+	}
+
+	public void testCandidatesContainMatches() {
+		assertCandidatesContainMatches(Arrays.asList(NAMES));
+	}
+
+	public void testAddAndRemove() {
+		cache.add("FilteredItemsIndex.java");
+		cache.remove("FilteredItemsCache.java");
+		cache.update("SearchPattern.java");
+		assertEquals(NAMES.length, cache.size());
+		List<Object> candidates = cache.getCandidates("filteredItemsI", SearchPattern.RULE_PREFIX_MATCH);
+		assertEquals(Arrays.asList("FilteredItemsIndex.java"), candidates);
+		List<String> names = new ArrayList<>(Arrays.asList(NAMES));
+		names.remove("FilteredItemsCache.java");
+		names.add("FilteredItemsIndex.java");
+		assertCandidatesContainMatches(names);
+	}
+
+	public void testRemoveMany() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			names.add("Item" + i + ".java");
+		}
+		fill(names.toArray(new String[names.size()]));
+		// build the trigram index before removing
+		cache.getCandidates("*tem*", SearchPattern.RULE_PATTERN_MATCH);
+		for (int i = 0; i < 900; i++) {
+			cache.remove("Item" + i + ".java");
+		}
+		assertEquals(100, cache.size());
+		Set<Object> candidates = new HashSet<>(cache.getCandidates("*tem9*", SearchPattern.RULE_PATTERN_MATCH));
+		assertEquals(100, candidates.size());
+		assertTrue(candidates.contains("Item999.java"));
+	}
+
+	public void testInvalidate() {
+		cache.invalidate();
+		assertFalse(cache.isFilled());
+		assertEquals(0, cache.size());
+		assertNull(cache.getCandidates("f", SearchPattern.RULE_PREFIX_MATCH));
+	}
+
+	private void assertCandidatesContainMatches(List<String> names) {
+		for (String patternText : PATTERNS) {
+			SearchPattern pattern = new SearchPattern();
+			pattern.setPattern(patternText);
+			Set<Object> candidates = new HashSet<>(
+					cache.getCandidates(pattern.getPattern(), pattern.getMatchRule()));
+			for (String name : names) {
+				if (pattern.matches(name)) {
+					assertTrue("Missing candidate " + name + " for " + patternText, candidates.contains(name));
+				}
+			}
+		}
+	}
+}
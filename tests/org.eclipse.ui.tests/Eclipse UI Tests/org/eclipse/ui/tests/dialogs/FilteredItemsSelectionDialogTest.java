@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.dialogs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.dialogs.DialogSettings;
+import org.eclipse.jface.dialogs.IDialogSettings;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IMemento;
+import org.eclipse.ui.dialogs.FilteredItemsSelectionDialog;
+import org.eclipse.ui.dialogs.FilteredResourcesSelectionDialog;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests the items shown by the {@link FilteredItemsSelectionDialog}: their
+ * order, which is computed lazily beyond the first page, the history items
+ * and the separator, and the matching of many items in parallel.
+ */
+public class FilteredItemsSelectionDialogTest extends UITestCase {
+
+	private static final int ITEMS = 5000;
+
+	private static final long TIMEOUT = 30000;
+
+	private List<String> items;
+
+	private List<TestDialog> dialogs = new ArrayList<>();
+
+	public FilteredItemsSelectionDialogTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		items = new ArrayList<>();
+		for (int i = 0; i < ITEMS; i++) {
+			items.add("item" + i);
+		}
+		Collections.shuffle(items, new Random(0));
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		for (TestDialog dialog : dialogs) {
+			dialog.close();
+		}
+		dialogs.clear();
+		super.doTearDown();
+	}
+
+	/**
+	 * Tests that the items are shown in the order of a full sort.
+	 */
+	public void testOrderMatchesFullSort() {
+		TestDialog dialog = openDialog(false, "item");
+		List<String> expected = new ArrayList<>(items);
+		Collections.sort(expected);
+		assertEquals(expected, dialog.waitForItems(ITEMS));
+	}
+
+	/**
+	 * Tests that items beyond the first page are in their sorted place when
+	 * they are accessed first.
+	 */
+	public void testGetBeyondFirstPage() {
+		TestDialog dialog = openDialog(false, "item");
+		List<String> expected = new ArrayList<>(items);
+		Collections.sort(expected);
+		assertTrue("Items were not shown", dialog.waitForItemCount(ITEMS));
+		for (int index : new int[] { ITEMS - 1, 300, 257, 256, 4000, 1000, 0 }) {
+			assertEquals("Item " + index, expected.get(index), dialog.getItem(index));
+		}
+		assertEquals(expected, dialog.getItems());
+	}
+
+	/**
+	 * Tests that the history items are sorted first, followed by the separator
+	 * and the other items.
+	 */
+	public void testHistoryItemsAndSeparator() {
+		String[] history = { "item42", "item7", "item4000" };
+		TestDialog dialog = openDialog(false, "item", history);
+		List<String> expectedHistory = new ArrayList<>(Arrays.asList(history));
+		Collections.sort(expectedHistory);
+		List<String> expectedOthers = new ArrayList<>(items);
+		expectedOthers.removeAll(expectedHistory);
+		Collections.sort(expectedOthers);
+
+		List<Object> shown = dialog.waitForItems(ITEMS + 1);
+		assertEquals(expectedHistory, shown.subList(0, history.length));
+		Object separator = shown.get(history.length);
+		assertFalse("Separator expected after the history items", separator instanceof String);
+		assertEquals(expectedOthers, shown.subList(history.length + 1, shown.size()));
+	}
+
+	/**
+	 * Tests that matching the items in parallel shows the same items as
+	 * matching them sequentially, when filtering the previous result again.
+	 */
+	public void testParallelMatchesSequential() {
+		TestDialog sequential = openDialog(false, "item");
+		TestDialog parallel = openDialog(true, "item");
+		assertEquals(sequential.waitForItems(ITEMS), parallel.waitForItems(ITEMS));
+
+		// a sub-pattern filters the previous result, which is large enough
+		// to be matched in parallel
+		List<String> expected = new ArrayList<>();
+		for (String item : items) {
+			if (item.startsWith("item1")) {
+				expected.add(item);
+			}
+		}
+		Collections.sort(expected);
+		sequential.setPattern("item1");
+		parallel.setPattern("item1");
+		assertEquals(expected, sequential.waitForItems(expected.size()));
+		assertEquals(expected, parallel.waitForItems(expected.size()));
+	}
+
+	/**
+	 * Tests that only the resource filter itself is matched in parallel, not
+	 * its subclasses, which may not be thread safe.
+	 */
+	public void testResourceFilterThreadSafety() {
+		Shell parent = openTestWindow().getShell();
+		ResourcesDialog dialog = new ResourcesDialog(parent);
+		dialog.setBlockOnOpen(false);
+		dialog.open();
+		try {
+			assertTrue(dialog.createFilter().isThreadSafe());
+			assertFalse(dialog.createSubclassFilter().isThreadSafe());
+		} finally {
+			dialog.close();
+		}
+	}
+
+	private static class ResourcesDialog extends FilteredResourcesSelectionDialog {
+
+		ResourcesDialog(Shell shell) {
+			super(shell, false, ResourcesPlugin.getWorkspace().getRoot(), IResource.FILE);
+		}
+
+		@Override
+		protected ItemsFilter createFilter() {
+			return super.createFilter();
+		}
+
+		ItemsFilter createSubclassFilter() {
+			return new ResourceFilter() {
+				@Override
+				public boolean matchItem(Object item) {
+					return super.matchItem(item);
+				}
+			};
+		}
+	}
+
+	private TestDialog openDialog(boolean threadSafe, String pattern, String... history) {
+		Shell parent = openTestWindow().getShell();
+		TestDialog dialog = new TestDialog(parent, threadSafe);
+		dialogs.add(dialog);
+		for (String item : history) {
+			dialog.getHistory().accessed(item);
+		}
+		dialog.setInitialPattern(pattern);
+		dialog.setBlockOnOpen(false);
+		dialog.open();
+		return dialog;
+	}
+
+	private class TestDialog extends FilteredItemsSelectionDialog {
+
+		private final boolean threadSafe;
+
+		TestDialog(Shell shell, boolean threadSafe) {
+			super(shell, true);
+			this.threadSafe = threadSafe;
+			setListLabelProvider(new LabelProvider());
+			setSelectionHistory(new SelectionHistory() {
+				@Override
+				protected Object restoreItemFromMemento(IMemento memento) {
+					return memento.getTextData();
+				}
+
+				@Override
+				protected void storeItemToMemento(Object item, IMemento memento) {
+					memento.putTextData((String) item);
+				}
+			});
+		}
+
+		SelectionHistory getHistory() {
+			return getSelectionHistory();
+		}
+
+		void setPattern(String pattern) {
+			((Text) getPatternControl()).setText(pattern);
+		}
+
+		boolean waitForItemCount(int count) {
+			return processEventsUntil(() -> getTable().getItemCount() == count, TIMEOUT);
+		}
+
+		List<Object> waitForItems(int count) {
+			assertTrue("Items were not shown", waitForItemCount(count));
+			return getItems();
+		}
+
+		List<Object> getItems() {
+			List<Object> shown = new ArrayList<>();
+			for (int i = 0; i < getTable().getItemCount(); i++) {
+				shown.add(getItem(i));
+			}
+			return shown;
+		}
+
+		Object getItem(int index) {
+			// the table is virtual, asking for the text sets the item
+			getTable().getItem(index).getText();
+			return getTable().getItem(index).getData();
+		}
+
+		private Table getTable() {
+			return findTable(getShell());
+		}
+
+		private Table findTable(Composite composite) {
+			for (Control child : composite.getChildren()) {
+				if (child instanceof Table) {
+					return (Table) child;
+				}
+				if (child instanceof Composite) {
+					Table table = findTable((Composite) child);
+					if (table != null) {
+						return table;
+					}
+				}
+			}
+			return null;
+		}
+
+		@Override
+		protected Control createExtendedContentArea(Composite parent) {
+			return null;
+		}
+
+		@Override
+		protected IDialogSettings getDialogSettings() {
+			return new DialogSettings("FilteredItemsSelectionDialogTest");
+		}
+
+		@Override
+		protected IStatus validateItem(Object item) {
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		protected ItemsFilter createFilter() {
+			return new ItemsFilter() {
+				@Override
+				public boolean matchItem(Object item) {
+					return matches((String) item);
+				}
+
+				@Override
+				public boolean isConsistentItem(Object item) {
+					return true;
+				}
+
+				@Override
+				public boolean isThreadSafe() {
+					return threadSafe;
+				}
+			};
+		}
+
+		@Override
+		protected Comparator getItemsComparator() {
+			return Comparator.<String> naturalOrder();
+		}
+
+		@Override
+		protected void fillContentProvider(AbstractContentProvider contentProvider, ItemsFilter itemsFilter,
+				IProgressMonitor progressMonitor) {
+			for (String item : items) {
+				contentProvider.add(item, itemsFilter);
+			}
+		}
+
+		@Override
+		public String getElementName(Object item) {
+			return (String) item;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,8 @@ import junit.framework.TestSuite;
 	UINewWorkingSetWizardAuto.class,
 	UIEditWorkingSetWizardAuto.class,
 	SearchPatternAuto.class,
+	FilteredItemsCacheTest.class,
+	FilteredItemsSelectionDialogTest.class,
 	UIFilteredResourcesSelectionDialogAuto.class })
 public class UIAutomatedSuite extends TestSuite {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import org.eclipse.ui.tests.markers.MarkerSupportRegistryTests;
 import org.eclipse.ui.tests.markers.MarkerTesterTest;
 import org.eclipse.ui.tests.markers.MarkerViewTests;
 import org.eclipse.ui.tests.markers.MarkerViewUtilTest;
+import org.eclipse.ui.tests.markers.MarkersIncrementalUpdateTest;
 import org.eclipse.ui.tests.markers.ResourceMappingMarkersTest;
 
 import junit.framework.Test;
@@ -54,6 +55,7 @@ public class InternalTestSuite extends TestSuite {
         addTest(new TestSuite(MarkerSortUtilTest.class));
         addTest(new TestSuite(MarkerViewTests.class));
 		addTest(new TestSuite(MarkerViewUtilTest.class));
+		addTest(new TestSuite(MarkersIncrementalUpdateTest.class));
         addTest(Bug99858Test.suite());
         addTest(new TestSuite(WorkbenchWindowSubordinateSourcesTests.class));
         addTest(new TestSuite(ReopenMenuTest.class));
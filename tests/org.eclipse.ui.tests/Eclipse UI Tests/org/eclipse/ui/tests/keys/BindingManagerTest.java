@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,9 +11,12 @@
  *******************************************************************************/
 package org.eclipse.ui.tests.keys;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -978,4 +981,123 @@ public final class BindingManagerTest extends UITestCase {
 				.getBestActiveBindingFor(console);
 		assertEquals(b3.getTriggerSequence(), bestBinding2);
 	}
+
+	/**
+	 * Tests that the bindings resolved for the active contexts from the
+	 * bindings indexed by context are the same as the bindings a new manager
+	 * resolves from only the bindings of the active contexts, as the active
+	 * contexts and the active scheme change.
+	 *
+	 * @throws NotDefinedException
+	 *             If the scheme we try to activate is not defined.
+	 * @throws ParseException
+	 *             If the key sequences cannot be parsed.
+	 */
+	public final void testContextIndexMatchesFullComputation()
+			throws NotDefinedException, ParseException {
+		contextManager.getContext("parent").define("parent", null, null);
+		contextManager.getContext("childA").define("childA", null, "parent");
+		contextManager.getContext("childB").define("childB", null, "parent");
+		contextManager.getContext("other").define("other", null, null);
+		defineSchemes(bindingManager);
+
+		final ParameterizedCommand[] commands = new ParameterizedCommand[4];
+		for (int i = 0; i < commands.length; i++) {
+			commands[i] = ParameterizedCommand.generateCommand(
+					commandManager.getCommand("command" + i), null);
+		}
+		final TriggerSequence[] triggers = new TriggerSequence[5];
+		for (int i = 0; i < triggers.length; i++) {
+			triggers[i] = KeySequence.getInstance("CTRL+" + i);
+		}
+		final Binding[] bindings = new Binding[] {
+				// the child contexts override the parent
+				createBinding(triggers[0], commands[0], "base", "parent", Binding.SYSTEM),
+				createBinding(triggers[0], commands[1], "base", "childA", Binding.SYSTEM),
+				// the derived scheme overrides the base scheme
+				createBinding(triggers[1], commands[2], "base", "childB", Binding.SYSTEM),
+				createBinding(triggers[1], commands[3], "derived", "childB", Binding.SYSTEM),
+				// a conflict in one context
+				createBinding(triggers[2], commands[0], "base", "other", Binding.SYSTEM),
+				createBinding(triggers[2], commands[1], "base", "other", Binding.SYSTEM),
+				// a deleted binding
+				createBinding(triggers[3], commands[2], "derived", "parent", Binding.SYSTEM),
+				createBinding(triggers[3], null, "derived", "parent", Binding.USER),
+				// a conflict between sibling contexts
+				createBinding(triggers[4], commands[3], "base", "childA", Binding.SYSTEM),
+				createBinding(triggers[4], commands[0], "base", "childB", Binding.SYSTEM) };
+		bindingManager.setBindings(bindings);
+
+		final Object[][] states = new Object[][] {
+				{ "derived", new String[] { "childA" } },
+				{ "derived", new String[] { "childB" } },
+				{ "derived", new String[] { "childA", "childB" } },
+				{ "derived", new String[] { "other" } },
+				{ "derived", new String[0] },
+				{ "base", new String[] { "childA", "other" } },
+				{ "base", new String[] { "childB" } },
+				// a cached binding set of a previous scheme
+				{ "derived", new String[] { "childA" } },
+				{ "base", new String[] { "parent", "childB" } } };
+		for (final Object[] state : states) {
+			final String schemeId = (String) state[0];
+			final Set activeContextIds = new HashSet(Arrays
+					.asList((String[]) state[1]));
+			bindingManager.setActiveScheme(bindingManager.getScheme(schemeId));
+			contextManager.setActiveContextIds(activeContextIds);
+
+			// a new manager with the bindings of the active contexts only
+			final Set contextIds = new HashSet();
+			for (final Object contextId : activeContextIds) {
+				String id = (String) contextId;
+				while (id != null) {
+					contextIds.add(id);
+					id = contextManager.getContext(id).getParentId();
+				}
+			}
+			final List contextBindings = new ArrayList();
+			for (final Binding binding : bindings) {
+				if (contextIds.contains(binding.getContextId())) {
+					contextBindings.add(binding);
+				}
+			}
+			final BindingManager fullManager = new BindingManager(
+					contextManager, commandManager);
+			defineSchemes(fullManager);
+			fullManager.setActiveScheme(fullManager.getScheme(schemeId));
+			fullManager.setBindings((Binding[]) contextBindings
+					.toArray(new Binding[contextBindings.size()]));
+
+			final String message = schemeId + " " + activeContextIds;
+			for (final TriggerSequence trigger : triggers) {
+				assertEquals(message, fullManager.getPerfectMatch(trigger),
+						bindingManager.getPerfectMatch(trigger));
+				assertEquals(message, toSet(fullManager.getConflictsFor(trigger)),
+						toSet(bindingManager.getConflictsFor(trigger)));
+			}
+			for (final ParameterizedCommand command : commands) {
+				assertEquals(message, toSet(Arrays.asList(fullManager
+						.getActiveBindingsFor(command))), toSet(Arrays
+						.asList(bindingManager.getActiveBindingsFor(command))));
+			}
+			assertEquals(message, fullManager.getCurrentConflicts().keySet(),
+					bindingManager.getCurrentConflicts().keySet());
+		}
+	}
+
+	private static void defineSchemes(final BindingManager manager) {
+		manager.getScheme("base").define("base", null, null);
+		manager.getScheme("derived").define("derived", null, "base");
+	}
+
+	private static Binding createBinding(final TriggerSequence trigger,
+			final ParameterizedCommand command, final String schemeId,
+			final String contextId, final int type) {
+		return new KeyBinding((KeySequence) trigger, command, schemeId,
+				contextId, null, null, null, type);
+	}
+
+	private static Set toSet(final Collection collection) {
+		return (collection == null) ? null : new HashSet(collection);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,44 @@ public class MarkerSortUtilTest extends UITestCase {
 	public void testCompleteSort() {
 		sortToLimit(ARRAYSIZE,ARRAYSIZE);
 	}
+
+	public void testParallelCompleteSort() {
+		MockMarkerEntry[] fArray1 = generateArray(ARRAYSIZE);
+		MockMarkerEntry[] fArray2 = fArray1.clone();
+		Comparator comparator = (o1, o2) -> ((MockMarkerEntry) o1).name.compareTo(((MockMarkerEntry) o2).name);
+		MarkerSortUtil.sortStartingKElement(fArray1, comparator, 0, ARRAYSIZE - 1, ARRAYSIZE, true);
+		Arrays.sort(fArray2, comparator);
+
+		for (int i = 0; i < ARRAYSIZE; i++) {
+			if (!fArray1[i].equals(fArray2[i])) {
+				fail("Incorrect parallel sorting by MarkerSortUtil.sortStartingKElement(...)");
+			}
+		}
+	}
+
+	public void testCompleteSortOfRange() {
+		sortRange(false);
+	}
+
+	public void testParallelCompleteSortOfRange() {
+		sortRange(true);
+	}
+
+	private void sortRange(boolean parallel) {
+		MockMarkerEntry[] fArray1 = generateArray(ARRAYSIZE);
+		MockMarkerEntry[] fArray2 = fArray1.clone();
+		Comparator comparator = (o1, o2) -> ((MockMarkerEntry) o1).name.compareTo(((MockMarkerEntry) o2).name);
+		int from = 1000;
+		int to = ARRAYSIZE - 1001;
+		MarkerSortUtil.sortStartingKElement(fArray1, comparator, from, to, to - from + 1, parallel);
+		Arrays.sort(fArray2, from, to + 1, comparator);
+
+		for (int i = 0; i < ARRAYSIZE; i++) {
+			if (!fArray1[i].equals(fArray2[i])) {
+				fail("Incorrect sorting of a range by MarkerSortUtil.sortStartingKElement(...)");
+			}
+		}
+	}
 	/**
 	 *
 	 */
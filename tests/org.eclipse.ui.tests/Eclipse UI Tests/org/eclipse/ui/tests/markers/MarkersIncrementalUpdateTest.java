@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.ui.internal.views.markers.MarkerContentGenerator;
+import org.eclipse.ui.tests.harness.util.FileUtil;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests that the markers view shows the same categories and markers, in the
+ * same order, after applying marker changes to the markers gathered before as
+ * after gathering all markers again.
+ */
+public class MarkersIncrementalUpdateTest extends UITestCase {
+
+	private static final long TIMEOUT = 30000;
+
+	private IProject project;
+
+	private IFile file;
+
+	private MarkersTestMarkersView view;
+
+	private int markerLimits;
+
+	private boolean markerLimitsEnabled;
+
+	public MarkersIncrementalUpdateTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		project = FileUtil.createProject("MarkersIncrementalUpdateTest");
+		file = FileUtil.createFile("file.txt", project);
+		view = (MarkersTestMarkersView) openTestWindow().getActivePage().showView("org.eclipse.ui.tests.markerTests");
+		MarkerContentGenerator generator = view.getGenerator();
+		markerLimits = generator.getMarkerLimits();
+		markerLimitsEnabled = generator.isMarkerLimitsEnabled();
+		generator.setMarkerLimitsEnabled(false);
+		view.scheduleCleanUpdate();
+		waitForUpdate();
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		if (view != null) {
+			MarkerContentGenerator generator = view.getGenerator();
+			generator.setMarkerLimits(markerLimits);
+			generator.setMarkerLimitsEnabled(markerLimitsEnabled);
+			view = null;
+		}
+		if (project != null) {
+			FileUtil.deleteProject(project);
+			project = null;
+		}
+		super.doTearDown();
+	}
+
+	/**
+	 * Tests adding, removing and changing markers.
+	 */
+	public void testAddRemoveChange() throws CoreException {
+		IMarker first = createMarker(IMarker.SEVERITY_WARNING, "warning b");
+		IMarker second = createMarker(IMarker.SEVERITY_WARNING, "warning d");
+		createMarker(IMarker.SEVERITY_WARNING, "warning f");
+		assertSameAsClean();
+
+		IMarker added = createMarker(IMarker.SEVERITY_WARNING, "warning c");
+		createMarker(IMarker.SEVERITY_WARNING, "warning a");
+		assertSameAsClean();
+		assertTrue(getProjectMarkers().contains(added));
+
+		second.delete();
+		assertSameAsClean();
+		assertFalse(getProjectMarkers().contains(second));
+
+		first.setAttribute(IMarker.MESSAGE, "warning z");
+		assertSameAsClean();
+	}
+
+	/**
+	 * Tests changing a marker so that it moves to another category.
+	 */
+	public void testMoveBetweenCategories() throws CoreException {
+		IMarker moved = createMarker(IMarker.SEVERITY_WARNING, "problem b");
+		createMarker(IMarker.SEVERITY_WARNING, "problem a");
+		createMarker(IMarker.SEVERITY_ERROR, "problem c");
+		String[] before = assertSameAsClean();
+
+		moved.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		String[] after = assertSameAsClean();
+		assertEquals(before.length, after.length);
+		assertFalse(Arrays.equals(before, after));
+	}
+
+	/**
+	 * Tests adding a marker which creates a new category.
+	 */
+	public void testNewCategory() throws CoreException {
+		createMarker(IMarker.SEVERITY_WARNING, "warning a");
+		String[] before = assertSameAsClean();
+
+		createMarker(IMarker.SEVERITY_INFO, "info a");
+		String[] after = assertSameAsClean();
+		assertEquals(before.length + 1, after.length);
+	}
+
+	/**
+	 * Tests changes to categories of which only the first markers are sorted,
+	 * because of the marker limit.
+	 */
+	public void testPartiallySortedCategory() throws CoreException {
+		MarkerContentGenerator generator = view.getGenerator();
+		generator.setMarkerLimits(5);
+		generator.setMarkerLimitsEnabled(true);
+		List<IMarker> markers = new ArrayList<>();
+		for (int i = 10; i < 30; i++) {
+			markers.add(createMarker(IMarker.SEVERITY_WARNING, "warning " + i));
+		}
+		assertSameAsClean();
+		assertEquals(5, getProjectMarkers().size());
+
+		createMarker(IMarker.SEVERITY_WARNING, "warning 00");
+		createMarker(IMarker.SEVERITY_WARNING, "warning 99");
+		createMarker(IMarker.SEVERITY_WARNING, "warning 12a");
+		assertSameAsClean();
+
+		markers.get(0).delete();
+		markers.get(1).delete();
+		markers.get(15).delete();
+		assertSameAsClean();
+		assertEquals(5, getProjectMarkers().size());
+
+		markers.get(19).setAttribute(IMarker.MESSAGE, "warning 01");
+		assertSameAsClean();
+	}
+
+	private IMarker createMarker(int severity, String message) throws CoreException {
+		IMarker marker = file.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		marker.setAttribute(IMarker.MESSAGE, message);
+		return marker;
+	}
+
+	/**
+	 * Wait for the update of the marker changes, then check that the view
+	 * shows the same once the markers are gathered again.
+	 *
+	 * @return the labels of the categories shown
+	 */
+	private String[] assertSameAsClean() {
+		waitForUpdate();
+		String[] categories = view.getCategoryLabels();
+		List<IMarker> markers = Arrays.asList(view.getCurrentMarkers());
+
+		view.scheduleCleanUpdate();
+		waitForUpdate();
+		assertEquals(Arrays.asList(view.getCategoryLabels()), Arrays.asList(categories));
+		assertEquals(Arrays.asList(view.getCurrentMarkers()), markers);
+		return categories;
+	}
+
+	private List<IMarker> getProjectMarkers() {
+		List<IMarker> markers = new ArrayList<>();
+		for (IMarker marker : view.getCurrentMarkers()) {
+			if (project.equals(marker.getResource().getProject())) {
+				markers.add(marker);
+			}
+		}
+		return markers;
+	}
+
+	private void waitForUpdate() {
+		// the update job schedules the update of the viewer once it is done
+		boolean[] idle = new boolean[1];
+		assertTrue("The markers view was not updated", processEventsUntil(() -> {
+			boolean wasIdle = idle[0];
+			idle[0] = !view.isUpdating();
+			return wasIdle && idle[0];
+		}, TIMEOUT));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,7 +21,10 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.ui.internal.views.markers.CachedMarkerBuilder;
 import org.eclipse.ui.internal.views.markers.ExtendedMarkersView;
+import org.eclipse.ui.internal.views.markers.MarkerContentGenerator;
 import org.eclipse.ui.views.markers.MarkerSupportView;
 import org.eclipse.ui.views.markers.internal.MarkerSupportRegistry;
 
@@ -112,6 +115,89 @@ public class MarkersTestMarkersView extends MarkerSupportView {
 
 	}
 
+	/**
+	 * Return the content generator of the receiver.
+	 *
+	 * @return MarkerContentGenerator
+	 */
+	public MarkerContentGenerator getGenerator() {
+		return (MarkerContentGenerator) invoke(ExtendedMarkersView.class, this, "getGenerator");
+	}
+
+	/**
+	 * Return whether the markers are being gathered, or are about to be
+	 * shown.
+	 *
+	 * @return boolean
+	 */
+	public boolean isUpdating() {
+		CachedMarkerBuilder builder = getBuilder();
+		if (((Boolean) invoke(CachedMarkerBuilder.class, builder, "isBuilding")).booleanValue()
+				|| Job.getJobManager().find(MARKERSVIEW_UPDATE_JOB_FAMILY).length > 0) {
+			return true;
+		}
+		try {
+			Field field = CachedMarkerBuilder.class.getDeclaredField("CACHE_UPDATE_FAMILY");
+			field.setAccessible(true);
+			return Job.getJobManager().find(field.get(builder)).length > 0;
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gather all markers again, instead of applying the changes to the
+	 * markers gathered before.
+	 */
+	public void scheduleCleanUpdate() {
+		try {
+			Method method = CachedMarkerBuilder.class.getDeclaredMethod("scheduleUpdateJob", long.class,
+					boolean.class);
+			method.setAccessible(true);
+			method.invoke(getBuilder(), Long.valueOf(0), Boolean.TRUE);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Return the labels of the categories shown.
+	 *
+	 * @return String[]
+	 */
+	public String[] getCategoryLabels() {
+		TreeItem[] items = tree.getItems();
+		String[] labels = new String[items.length];
+		for (int i = 0; i < items.length; i++) {
+			labels[i] = items[i].getText();
+		}
+		return labels;
+	}
+
+	private CachedMarkerBuilder getBuilder() {
+		return (CachedMarkerBuilder) invoke(ExtendedMarkersView.class, this, "getBuilder");
+	}
+
+	private static Object invoke(Class<?> declaringClass, Object target, String methodName) {
+		try {
+			Method method = declaringClass.getDeclaredMethod(methodName);
+			method.setAccessible(true);
+			return method.invoke(target);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	/**
 	 * Set the width of all of the columns.
 	 * @param width
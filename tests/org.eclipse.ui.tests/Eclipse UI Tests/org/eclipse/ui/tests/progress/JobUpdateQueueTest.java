@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.progress;
+
+import static org.eclipse.ui.internal.progress.JobUpdateQueue.ADD;
+import static org.eclipse.ui.internal.progress.JobUpdateQueue.REMOVE;
+import static org.eclipse.ui.internal.progress.JobUpdateQueue.UPDATE;
+import static org.eclipse.ui.internal.progress.JobUpdateQueue.merge;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.ui.internal.progress.GroupInfo;
+import org.eclipse.ui.internal.progress.IJobProgressManagerListener;
+import org.eclipse.ui.internal.progress.JobInfo;
+import org.eclipse.ui.internal.progress.JobUpdateQueue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests how the job notifications of the progress manager are merged and
+ * coalesced before they are dispatched.
+ */
+public class JobUpdateQueueTest {
+
+	private JobUpdateQueue queue;
+
+	private IJobProgressManagerListener listener1;
+
+	private IJobProgressManagerListener listener2;
+
+	private JobInfo job1;
+
+	private JobInfo job2;
+
+	private JobInfo job3;
+
+	private List<String> notifications = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		queue = new JobUpdateQueue();
+		listener1 = new Listener("listener1");
+		listener2 = new Listener("listener2");
+		job1 = new ExtendedJobInfo(new TestJob("job1"));
+		job2 = new ExtendedJobInfo(new TestJob("job2"));
+		job3 = new ExtendedJobInfo(new TestJob("job3"));
+	}
+
+	/**
+	 * Tests merging a transition into the pending transitions of a listener.
+	 */
+	@Test
+	public void testMerge() {
+		assertEquals(ADD, merge(0, ADD));
+		assertEquals(UPDATE, merge(0, UPDATE));
+		assertEquals(REMOVE, merge(0, REMOVE));
+
+		// an update of an added or removed job is dropped
+		assertEquals(ADD, merge(ADD, UPDATE));
+		assertEquals(REMOVE, merge(REMOVE, UPDATE));
+		assertEquals(UPDATE, merge(UPDATE, UPDATE));
+
+		// the listener never saw a job added and removed
+		assertEquals(0, merge(ADD, REMOVE));
+		assertEquals(REMOVE, merge(UPDATE, REMOVE));
+
+		// a job removed and added again is refreshed
+		assertEquals(UPDATE, merge(REMOVE, ADD));
+		assertEquals(UPDATE | ADD, merge(UPDATE, ADD));
+		assertEquals(ADD, merge(ADD, ADD));
+
+		try {
+			merge(0, 1 << 3);
+			fail("Unknown transitions are rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that the transitions posted for a job are dispatched once.
+	 */
+	@Test
+	public void testCoalesce() {
+		post(job1, listener1, ADD);
+		post(job1, listener1, UPDATE);
+		post(job1, listener1, UPDATE);
+		post(job2, listener1, UPDATE);
+		post(job2, listener1, UPDATE);
+
+		assertFalse(dispatch(Integer.MAX_VALUE));
+		assertEquals(Arrays.asList("job1 listener1 " + ADD, "job2 listener1 " + UPDATE), notifications);
+		assertTrue(isEmpty());
+	}
+
+	/**
+	 * Tests that a job added and removed before it was dispatched is not
+	 * dispatched.
+	 */
+	@Test
+	public void testAddedAndRemoved() {
+		post(job1, listener1, ADD);
+		post(job1, listener1, UPDATE);
+		post(job1, listener1, REMOVE);
+
+		assertFalse(dispatch(Integer.MAX_VALUE));
+		assertTrue(notifications.isEmpty());
+		assertTrue(isEmpty());
+	}
+
+	/**
+	 * Tests that the transitions of each listener are merged separately.
+	 */
+	@Test
+	public void testListeners() {
+		post(job1, listener1, ADD);
+		post(job1, listener2, UPDATE);
+		post(job1, listener1, REMOVE);
+		post(job1, listener2, REMOVE);
+
+		dispatch(Integer.MAX_VALUE);
+		assertEquals(Arrays.asList("job1 listener2 " + REMOVE), notifications);
+	}
+
+	/**
+	 * Tests that the jobs are dispatched in the order they were queued, until
+	 * the number of notifications is reached.
+	 */
+	@Test
+	public void testDispatchLimit() {
+		post(job1, listener1, UPDATE);
+		post(job1, listener2, UPDATE);
+		post(job2, listener1, UPDATE);
+		post(job3, listener1, UPDATE);
+		post(job1, listener1, REMOVE);
+
+		// a job is dispatched to all of its listeners
+		assertTrue(dispatch(1));
+		assertEquals(Arrays.asList("job1 listener1 " + REMOVE, "job1 listener2 " + UPDATE), notifications);
+		assertFalse(isEmpty());
+
+		notifications.clear();
+		assertFalse(dispatch(Integer.MAX_VALUE));
+		assertEquals(Arrays.asList("job2 listener1 " + UPDATE, "job3 listener1 " + UPDATE), notifications);
+	}
+
+	/**
+	 * Tests that a job posted after it was dispatched is queued again.
+	 */
+	@Test
+	public void testPostAfterDispatch() {
+		post(job1, listener1, ADD);
+		dispatch(Integer.MAX_VALUE);
+		post(job1, listener1, UPDATE);
+		post(job1, listener1, REMOVE);
+
+		assertFalse(isEmpty());
+		dispatch(Integer.MAX_VALUE);
+		assertEquals(Arrays.asList("job1 listener1 " + ADD, "job1 listener1 " + REMOVE), notifications);
+	}
+
+	private void post(JobInfo info, IJobProgressManagerListener listener, int transition) {
+		queue.post(info, listener, transition);
+	}
+
+	private boolean dispatch(int maxNotifications) {
+		return queue.dispatch(maxNotifications, (info, listener, transitions) -> notifications
+				.add(info.getJob().getName() + ' ' + listener + ' ' + transitions));
+	}
+
+	private boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	/**
+	 * A listener which the queue never notifies itself.
+	 */
+	private static class Listener implements IJobProgressManagerListener {
+
+		private final String name;
+
+		Listener(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void addJob(JobInfo info) {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public void addGroup(GroupInfo info) {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public void refreshJobInfo(JobInfo info) {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public void refreshGroup(GroupInfo info) {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public void refreshAll() {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public void removeJob(JobInfo info) {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public void removeGroup(GroupInfo group) {
+			throw new AssertionError("The queue does not notify listeners");
+		}
+
+		@Override
+		public boolean showsDebug() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}